@@ -0,0 +1,51 @@
+package com.bunkerparty.benchmark;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds rooms in a realistic mid-game state for benchmarks.
+ */
+public final class BenchmarkRooms {
+
+    public static final List<String> CATEGORIES =
+            List.of("profession", "health", "age", "gender", "hobby", "phobia", "item");
+
+    private BenchmarkRooms() {
+    }
+
+    /**
+     * Creates a room with the given number of connected players that has completed the given number of rounds.
+     */
+    public static Room inRound(int players, int completedRounds) {
+        Room room = new Room("0001");
+        for (int i = 0; i < players; i++) {
+            Map<String, Integer> cards = new LinkedHashMap<>();
+            for (int c = 0; c < CATEGORIES.size(); c++) {
+                cards.put(CATEGORIES.get(c), (i + c) % 6);
+            }
+            Player player = new Player("player-" + i + "-0000-0000-000000000000", "token-" + i,
+                    "Player" + i, new BenchmarkSession(), cards);
+            room.addPlayer(player);
+            room.addStartVote(player.getId());
+        }
+        for (int r = 1; r <= completedRounds; r++) {
+            room.setRound(r);
+            room.setEventIdx(r);
+            String category = CATEGORIES.get((r - 1) % CATEGORIES.size());
+            for (Player p : room.getPlayers().values()) {
+                p.revealCard(category);
+                room.addRoundReveal(p.getId(), category);
+            }
+        }
+        room.setRound(completedRounds + 1);
+        room.setEventIdx(completedRounds + 1);
+        room.clearRoundReveals();
+        room.setPhase(Room.PHASE_REVEAL);
+        return room;
+    }
+}
@@ -0,0 +1,212 @@
+package com.bunkerparty.benchmark;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.CloseStatus;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.UpgradeResponse;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * An always-open in-memory session that swallows every frame, so benchmarks measure only server work.
+ */
+public final class BenchmarkSession implements Session {
+
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 0);
+
+    private final Remote remote = new Remote();
+    private boolean open = true;
+
+    /**
+     * Returns the number of characters written to this session so far.
+     */
+    public long getCharsSent() {
+        return remote.chars;
+    }
+
+    /**
+     * Returns the number of frames written to this session so far.
+     */
+    public long getFramesSent() {
+        return remote.frames;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus closeStatus) {
+        open = false;
+    }
+
+    @Override
+    public void close(int statusCode, String reason) {
+        open = false;
+    }
+
+    @Override
+    public void disconnect() {
+        open = false;
+    }
+
+    @Override
+    public long getIdleTimeout() {
+        return 0;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return ADDRESS;
+    }
+
+    @Override
+    public WebSocketPolicy getPolicy() {
+        return WebSocketPolicy.newServerPolicy();
+    }
+
+    @Override
+    public String getProtocolVersion() {
+        return "13";
+    }
+
+    @Override
+    public RemoteEndpoint getRemote() {
+        return remote;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return ADDRESS;
+    }
+
+    @Override
+    public UpgradeRequest getUpgradeRequest() {
+        return null;
+    }
+
+    @Override
+    public UpgradeResponse getUpgradeResponse() {
+        return null;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public void setIdleTimeout(long ms) {
+        // not applicable
+    }
+
+    @Override
+    public SuspendToken suspend() {
+        return () -> { };
+    }
+
+    private static final class Remote implements RemoteEndpoint {
+        private long chars;
+        private long frames;
+
+        @Override
+        public void sendBytes(ByteBuffer data) {
+            chars += data.remaining();
+            frames++;
+        }
+
+        @Override
+        public Future<Void> sendBytesByFuture(ByteBuffer data) {
+            sendBytes(data);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void sendBytes(ByteBuffer data, WriteCallback callback) {
+            sendBytes(data);
+            callback.writeSuccess();
+        }
+
+        @Override
+        public void sendPartialBytes(ByteBuffer fragment, boolean isLast) {
+            sendBytes(fragment);
+        }
+
+        @Override
+        public void sendPartialString(String fragment, boolean isLast) {
+            sendString(fragment);
+        }
+
+        @Override
+        public void sendPing(ByteBuffer applicationData) {
+            frames++;
+        }
+
+        @Override
+        public void sendPong(ByteBuffer applicationData) {
+            frames++;
+        }
+
+        @Override
+        public void sendString(String text) {
+            chars += text.length();
+            frames++;
+        }
+
+        @Override
+        public Future<Void> sendStringByFuture(String text) {
+            sendString(text);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void sendString(String text, WriteCallback callback) {
+            sendString(text);
+            callback.writeSuccess();
+        }
+
+        @Override
+        public BatchMode getBatchMode() {
+            return BatchMode.OFF;
+        }
+
+        @Override
+        public void setBatchMode(BatchMode mode) {
+            // not applicable
+        }
+
+        @Override
+        public int getMaxOutgoingFrames() {
+            return -1;
+        }
+
+        @Override
+        public void setMaxOutgoingFrames(int maxOutgoingFrames) {
+            // not applicable
+        }
+
+        @Override
+        public InetSocketAddress getInetSocketAddress() {
+            return ADDRESS;
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered
+        }
+    }
+}
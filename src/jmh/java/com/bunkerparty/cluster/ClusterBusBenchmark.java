@@ -0,0 +1,119 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.benchmark.BenchmarkSession;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time for a burst of frames written by the owner of a room to the stand-in of a client connected to another node to
+ * reach that node over the loopback TCP bus. A burst of 1 is the cross-node update latency; larger bursts show the
+ * throughput won by batching, as frames per second = burst / time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterBusBenchmark {
+
+    private static final String ROOM = "1000";
+    private static final WriteCallback IGNORE = new WriteCallback() {
+        @Override
+        public void writeFailed(Throwable x) {
+        }
+
+        @Override
+        public void writeSuccess() {
+        }
+    };
+
+    @Param({"1", "16", "256"})
+    public int burst;
+
+    private final AtomicLong arrived = new AtomicLong();
+    private TcpBroadcastBus owner;
+    private TcpBroadcastBus peer;
+    private RemoteEndpoint standIn;
+    private String frame;
+    private long expected;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, InetSocketAddress> addresses = Map.of("a", loopback(), "b", loopback());
+        List<ClusterNode> nodes = ClusterNode.parseAll("a=http://a,b=http://b");
+        ClusterNode roomOwner = new RoomOwnership(nodes, "a").ownerOf(ROOM);
+        String other = roomOwner.id().equals("a") ? "b" : "a";
+        owner = new TcpBroadcastBus(new RoomOwnership(nodes, roomOwner.id()), new WebSocketJsonSender(), addresses);
+        peer = new TcpBroadcastBus(new RoomOwnership(nodes, other), new ArrivalSender(arrived), addresses);
+        CompletableFuture<Session> opened = new CompletableFuture<>();
+        owner.setReceiver(new BroadcastBus.Receiver() {
+            @Override
+            public void onMessage(Session session, String message) {
+                opened.complete(session);
+            }
+
+            @Override
+            public void onClose(Session session, int statusCode, String reason) {
+            }
+        });
+        owner.start();
+        peer.start();
+        peer.forward(new BenchmarkSession(), roomOwner, "{\"type\":\"resync\",\"roomId\":\"" + ROOM + "\"}");
+        standIn = opened.get(10, TimeUnit.SECONDS).getRemote();
+        frame = "{\"type\":\"game_update\",\"state\":\"" + "x".repeat(1_500) + "\"}";
+    }
+
+    @TearDown
+    public void tearDown() {
+        owner.close();
+        peer.close();
+    }
+
+    @Benchmark
+    public long deliver() {
+        for (int i = 0; i < burst; i++) {
+            standIn.sendString(frame, IGNORE);
+        }
+        expected += burst;
+        while (arrived.get() < expected) {
+            Thread.yield();
+        }
+        return expected;
+    }
+
+    private static InetSocketAddress loopback() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return new InetSocketAddress("127.0.0.1", probe.getLocalPort());
+        }
+    }
+
+    /**
+     * Counts the frames handed to the client's session instead of writing them.
+     */
+    private static final class ArrivalSender extends WebSocketJsonSender {
+        private final AtomicLong arrived;
+
+        private ArrivalSender(AtomicLong arrived) {
+            this.arrived = arrived;
+        }
+
+        @Override
+        public boolean sendText(Session session, String text) {
+            arrived.incrementAndGet();
+            return true;
+        }
+    }
+}
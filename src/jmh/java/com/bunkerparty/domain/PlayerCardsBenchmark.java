@@ -0,0 +1,97 @@
+package com.bunkerparty.domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of dealing a hand and reading it back; run with {@code -prof gc} for bytes/op.
+ * {@code deal} measures a whole dealt {@link Player}, so its bytes/op bound the per-player footprint from above.
+ * The {@code legacy} methods reproduce the former String-keyed maps and copying getters, cards only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerCardsBenchmark {
+
+    private static final int REVEALED = 3;
+
+    private Player player;
+    private LegacyCards legacy;
+
+    @Setup
+    public void setUp() {
+        player = deal();
+        legacy = legacyDeal();
+    }
+
+    @Benchmark
+    public Player deal() {
+        Player p = new Player("player-0", "token-0", "Player0", null, Map.of());
+        for (CardCategory category : CardCategory.ALL) {
+            p.dealCard(category, category.ordinal());
+        }
+        for (int i = 0; i < REVEALED; i++) {
+            p.revealCard(CardCategory.ALL.get(i).getKey());
+        }
+        return p;
+    }
+
+    @Benchmark
+    public LegacyCards legacyDeal() {
+        LegacyCards cards = new LegacyCards();
+        for (CardCategory category : CardCategory.ALL) {
+            Map<String, Integer> copy = cards.getCharacterIndices();
+            copy.put(category.getKey(), category.ordinal());
+            cards.characterIndices = new HashMap<>(copy);
+        }
+        for (int i = 0; i < REVEALED; i++) {
+            cards.revealCard(CardCategory.ALL.get(i).getKey());
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public void read(Blackhole bh) {
+        player.getCharacterIndices().forEach((k, v) -> bh.consume(v));
+        player.getRevealedIndices().forEach((k, v) -> bh.consume(v));
+    }
+
+    @Benchmark
+    public void legacyRead(Blackhole bh) {
+        legacy.getCharacterIndices().forEach((k, v) -> bh.consume(v));
+        legacy.getRevealedIndices().forEach((k, v) -> bh.consume(v));
+    }
+
+    /**
+     * The former card storage of {@link Player}.
+     */
+    public static final class LegacyCards {
+        private Map<String, Integer> characterIndices = new HashMap<>();
+        private final Map<String, Integer> revealedIndices = new HashMap<>();
+        private final Set<String> usedKeys = new HashSet<>();
+
+        Map<String, Integer> getCharacterIndices() {
+            return new HashMap<>(characterIndices);
+        }
+
+        Map<String, Integer> getRevealedIndices() {
+            return new HashMap<>(revealedIndices);
+        }
+
+        void revealCard(String key) {
+            if (characterIndices.containsKey(key)) {
+                revealedIndices.put(key, characterIndices.get(key));
+                usedKeys.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bunkerparty.domain;
+
+import com.bunkerparty.benchmark.BenchmarkRooms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Room#allActivePlayersRevealed()}, which every discard runs, once all or all but one player revealed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomBenchmark {
+
+    @Param({"3", "6"})
+    public int players;
+
+    private Room revealed;
+    private Room waiting;
+
+    @Setup
+    public void setUp() {
+        revealed = BenchmarkRooms.inRound(players, 1);
+        waiting = BenchmarkRooms.inRound(players, 1);
+        String category = BenchmarkRooms.CATEGORIES.get(1);
+        int i = 0;
+        for (Player p : revealed.getPlayers().values()) {
+            revealed.addRoundReveal(p.getId(), category);
+        }
+        for (Player p : waiting.getPlayers().values()) {
+            if (++i < players) {
+                waiting.addRoundReveal(p.getId(), category);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean allRevealed() {
+        return revealed.allActivePlayersRevealed();
+    }
+
+    @Benchmark
+    public boolean lastPlayerPending() {
+        return waiting.allActivePlayersRevealed();
+    }
+}
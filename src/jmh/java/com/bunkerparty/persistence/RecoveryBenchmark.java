@@ -0,0 +1,146 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.RoomCodeFormat;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to recover the given number of four-player rooms, each journaled through a complete seven-round game
+ * (about 80 entries per room). {@code snapshot} recovers from a snapshot taken after the last entry instead of
+ * replaying the journal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    private static final int PLAYERS = 4;
+
+    @Param({"100", "1000", "5000"})
+    public int rooms;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    private Path dir;
+    private PersistenceSettings settings;
+    private RoomExecutor inline;
+    private RoomReaper untracked;
+    private CardCatalog catalog;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recovery-benchmark");
+        settings = new PersistenceSettings(dir, FsyncPolicy.GROUP, 0, 16 * 1024 * 1024, 60_000);
+        catalog = new CardCatalog(null);
+        inline = new RoomExecutor(1) {
+            @Override
+            public void execute(Object key, Runnable task) {
+                task.run();
+            }
+        };
+        RoomManager roomManager = new RoomManager(new Random(1), RoomCodeFormat.ALPHANUMERIC);
+        untracked = new RoomReaper(roomManager, inline, new SessionRegistry(), new WebSocketJsonSender(),
+                new StreamingOutboundCodec()) {
+            @Override
+            public void track(Room room) {
+                // recovered rooms are thrown away after each invocation
+            }
+        };
+
+        EventLog eventLog = new EventLog(settings);
+        RoomManager journaled = new RoomManager(new Random(1), RoomCodeFormat.ALPHANUMERIC, eventLog);
+        for (int i = 0; i < rooms; i++) {
+            playGame(journaled, journaled.createRoom(), catalog.current().getVersion());
+        }
+        if (snapshot) {
+            new RoomPersistence(settings, eventLog, journaled, inline, untracked, catalog).snapshot();
+        }
+        eventLog.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        inline.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        EventLog eventLog = new EventLog(settings);
+        try {
+            RoomManager roomManager = new RoomManager(new Random(1), RoomCodeFormat.ALPHANUMERIC, eventLog);
+            return new RoomPersistence(settings, eventLog, roomManager, inline, untracked, catalog).recover();
+        } finally {
+            eventLog.close();
+        }
+    }
+
+    private static void playGame(RoomManager roomManager, Room room, String catalogVersion) {
+        for (int p = 0; p < PLAYERS; p++) {
+            apply(roomManager, room, new RoomEvent.PlayerJoined(room.getRoomId() + "-player-" + p,
+                    "token-" + p, "Player" + p));
+        }
+        for (Player player : List.copyOf(room.getPlayers().values())) {
+            apply(roomManager, room, new RoomEvent.StartVoted(player.getId()));
+        }
+        Map<String, Map<String, Integer>> cards = new LinkedHashMap<>();
+        int seat = 0;
+        for (Player player : room.getPlayers().values()) {
+            Map<String, Integer> hand = new LinkedHashMap<>();
+            for (CardCategory category : CardCategory.ALL) {
+                hand.put(category.getKey(), seat % Room.MAX_PLAYERS);
+            }
+            cards.put(player.getId(), hand);
+            seat++;
+        }
+        apply(roomManager, room, new RoomEvent.CatalogPinned(catalogVersion));
+        apply(roomManager, room, new RoomEvent.GameStarted(0, cards));
+        for (CardCategory category : CardCategory.ALL) {
+            for (Player player : List.copyOf(room.getPlayers().values())) {
+                apply(roomManager, room, new RoomEvent.CardRevealed(player.getId(), category.getKey()));
+            }
+            apply(roomManager, room, new RoomEvent.PhaseChanged(Room.PHASE_CONFIRM));
+            for (Player player : List.copyOf(room.getPlayers().values())) {
+                apply(roomManager, room, new RoomEvent.RoundConfirmed(player.getId()));
+            }
+            if (category.ordinal() + 1 < CardCategory.ALL.size()) {
+                apply(roomManager, room, new RoomEvent.RoundStarted(room.getRound() + 1, category.ordinal() + 1));
+            } else {
+                apply(roomManager, room, new RoomEvent.PhaseChanged(Room.PHASE_GAME_OVER));
+            }
+        }
+    }
+
+    private static void apply(RoomManager roomManager, Room room, RoomEvent event) {
+        event.apply(room);
+        roomManager.record(room, event);
+    }
+}
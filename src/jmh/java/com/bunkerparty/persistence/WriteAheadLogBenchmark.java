@@ -0,0 +1,60 @@
+package com.bunkerparty.persistence;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling one card reveal, encoding included, from four shard threads under each fsync policy.
+ * The log lives under {@code java.io.tmpdir}; point it at the real data disk with {@code -Djava.io.tmpdir=...},
+ * since forces on tmpfs cost next to nothing. Covered segments are deleted after every iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class WriteAheadLogBenchmark {
+
+    private static final RoomEvent EVENT =
+            new RoomEvent.CardRevealed("player-0-0000-0000-000000000000", "profession");
+
+    @Param({"ALWAYS", "GROUP", "PERIODIC"})
+    public FsyncPolicy fsync;
+
+    private Path dir;
+    private WriteAheadLog wal;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal-benchmark");
+        wal = new WriteAheadLog(dir, 64 * 1024 * 1024, fsync, 100);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteCoveredSegments() throws IOException {
+        wal.deleteThrough(wal.getLastSequence());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        wal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        return wal.append(RoomCodec.encodeEvent("1234", EVENT));
+    }
+}
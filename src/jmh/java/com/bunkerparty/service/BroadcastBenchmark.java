@@ -0,0 +1,123 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.benchmark.BenchmarkRooms;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation per {@link GameService#broadcastUpdate(Room)}; run with {@code -prof gc} for bytes/op.
+ * The {@code legacy} method reproduces the former per-player deepCopy and pretty-printed serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BroadcastBenchmark {
+
+    private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    @Param({"3", "4", "5", "6"})
+    public int players;
+
+    @Param({"0", "6"})
+    public int completedRounds;
+
+    private Room room;
+    private GameService gameService;
+    private WebSocketJsonSender sender;
+
+    @Setup
+    public void setUp() {
+        room = BenchmarkRooms.inRound(players, completedRounds);
+        sender = new WebSocketJsonSender();
+        RoomManager roomManager = new RoomManager(new Random(1));
+        RoomExecutor roomExecutor = new RoomExecutor(1);
+        OutboundCodec codec = new StreamingOutboundCodec();
+        gameService = new GameService(roomManager, sender,
+                new RoomReaper(roomManager, roomExecutor, new SessionRegistry(), sender, codec), roomExecutor,
+                codec, GameMetrics.detached(), 0);
+    }
+
+    @Benchmark
+    public void shared() {
+        gameService.broadcastUpdate(room);
+    }
+
+    @Benchmark
+    public void legacy() throws IOException {
+        JsonObject update = legacyUpdate(room);
+        for (Player p : room.getPlayers().values()) {
+            if (p.getSession() != null && p.getSession().isOpen()) {
+                JsonObject personalUpdate = update.deepCopy();
+                JsonObject myCards = new JsonObject();
+                p.getCharacterIndices().forEach(myCards::addProperty);
+                personalUpdate.add("myCards", myCards);
+                sender.sendText(p.getSession(), PRETTY_GSON.toJson(personalUpdate));
+            }
+        }
+    }
+
+    private static JsonObject legacyUpdate(Room room) {
+        JsonObject update = new JsonObject();
+        update.addProperty("type", "game_update");
+        update.addProperty("phase", room.getPhase());
+        update.addProperty("round", room.getRound());
+        update.addProperty("roomId", room.getRoomId());
+        if (room.getEventIdx() != null) {
+            update.addProperty("eventIdx", room.getEventIdx());
+        }
+
+        JsonObject history = new JsonObject();
+        room.getRevealedByRound().forEach((r, reveals) -> {
+            JsonObject rObj = new JsonObject();
+            rObj.addProperty("eventIdx", room.getEventByRound().get(r));
+            JsonObject revealsObj = new JsonObject();
+            reveals.forEach(revealsObj::addProperty);
+            rObj.add("reveals", revealsObj);
+            history.add(String.valueOf(r), rObj);
+        });
+        update.add("history", history);
+
+        JsonArray startVotes = new JsonArray();
+        room.getStartVotes().forEach(startVotes::add);
+        update.add("startVotes", startVotes);
+
+        JsonArray playersArray = new JsonArray();
+        for (Player p : room.getPlayers().values()) {
+            JsonObject pObj = new JsonObject();
+            pObj.addProperty("id", p.getId());
+            pObj.addProperty("name", p.getName());
+            pObj.addProperty("online", p.isOnline());
+            pObj.addProperty("ready", room.getStartVotes().contains(p.getId()));
+            JsonObject revealed = new JsonObject();
+            p.getRevealedIndices().forEach(revealed::addProperty);
+            pObj.add("revealed", revealed);
+            playersArray.add(pObj);
+        }
+        update.add("players", playersArray);
+
+        JsonObject roundReveals = new JsonObject();
+        room.getRoundReveals().forEach(roundReveals::addProperty);
+        update.add("roundReveals", roundReveals);
+
+        JsonArray roundConfirms = new JsonArray();
+        room.getRoundConfirms().forEach(roundConfirms::add);
+        update.add("roundConfirms", roundConfirms);
+        return update;
+    }
+}
@@ -0,0 +1,57 @@
+package com.bunkerparty.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of taking and returning one room code with the 4-digit space filled to the given occupancy.
+ * The {@code legacy} method reproduces the former random draw with {@code containsKey} retries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomCodeAllocationBenchmark {
+
+    private static final int CAPACITY = 10_000;
+
+    @Param({"0.10", "0.90", "0.99"})
+    public double occupancy;
+
+    private RoomCodeAllocator allocator;
+    private final Map<String, Boolean> legacyRooms = new ConcurrentHashMap<>();
+    private final Random random = new Random(1);
+
+    @Setup
+    public void setUp() {
+        int used = (int) (CAPACITY * occupancy);
+        allocator = new RoomCodeAllocator(CAPACITY, new Random(1));
+        for (int i = 0; i < used; i++) {
+            int slot = allocator.allocate();
+            legacyRooms.put(RoomCodeFormat.NUMERIC.encode(slot), Boolean.TRUE);
+        }
+    }
+
+    @Benchmark
+    public String allocator() {
+        int slot = allocator.allocate();
+        String id = RoomCodeFormat.NUMERIC.encode(slot);
+        allocator.release(slot);
+        return id;
+    }
+
+    @Benchmark
+    public String legacy() {
+        String id;
+        do {
+            id = String.format("%04d", random.nextInt(CAPACITY));
+        } while (legacyRooms.containsKey(id));
+        return id;
+    }
+}
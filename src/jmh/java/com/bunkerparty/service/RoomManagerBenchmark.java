@@ -0,0 +1,59 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.cluster.ClusterNode;
+import com.bunkerparty.cluster.RoomOwnership;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link RoomManager#createRoom()} and removing the room again with the 4-digit codes this node owns
+ * filled to the given occupancy, alone or as one of several nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomManagerBenchmark {
+
+    private static final List<ClusterNode> NODES = ClusterNode.parseAll(
+            "a=http://127.0.0.1:18001,b=http://127.0.0.1:18002,c=http://127.0.0.1:18003");
+
+    @Param({"0", "0.50", "0.90", "0.99"})
+    public double occupancy;
+
+    @Param({"1", "3"})
+    public int nodes;
+
+    private RoomManager roomManager;
+
+    @Setup
+    public void setUp() {
+        RoomOwnership ownership = new RoomOwnership(nodes > 1 ? NODES.subList(0, nodes) : List.of(), "a");
+        roomManager = new RoomManager(new Random(1), RoomCodeFormat.NUMERIC, RoomJournal.NONE,
+                new InMemoryRoomStore(), ownership);
+        int owned = 0;
+        for (int slot = 0; slot < RoomCodeFormat.NUMERIC.getCapacity(); slot++) {
+            if (ownership.isLocal(RoomCodeFormat.NUMERIC.encode(slot))) {
+                owned++;
+            }
+        }
+        int used = (int) (owned * occupancy);
+        for (int i = 0; i < used; i++) {
+            roomManager.createRoom();
+        }
+    }
+
+    @Benchmark
+    public Room createAndRemove() {
+        Room room = roomManager.createRoom();
+        roomManager.removeRoom(room.getRoomId());
+        return room;
+    }
+}
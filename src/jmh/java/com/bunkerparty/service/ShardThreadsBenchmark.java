@@ -0,0 +1,63 @@
+package com.bunkerparty.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time for the room shards to run one update for each of 1000 rooms while every twentieth room has a slow client
+ * whose update blocks for a millisecond, as a blocking write or an fsync would. Compares a few platform shards with
+ * many shards, on platform or virtual threads. On a JVM older than 21 the virtual runs fall back to platform threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardThreadsBenchmark {
+
+    private static final int ROOMS = 1000;
+    private static final int SLOW_EVERY = 20;
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"4", "256"})
+    public int shards;
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    private RoomExecutor executor;
+    private String[] rooms;
+
+    @Setup
+    public void setUp() {
+        executor = new RoomExecutor(shards, virtual);
+        rooms = new String[ROOMS];
+        for (int i = 0; i < ROOMS; i++) {
+            rooms[i] = String.valueOf(1000 + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void updateAllRooms() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(ROOMS);
+        for (int i = 0; i < ROOMS; i++) {
+            boolean slow = i % SLOW_EVERY == 0;
+            executor.execute(rooms[i], () -> {
+                if (slow) {
+                    LockSupport.parkNanos(BLOCK_NANOS);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,123 @@
+package com.bunkerparty.websocket;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.bunkerparty.benchmark.BenchmarkSession;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.handler.*;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link GameWebSocketHandler#onClose} on the Jetty thread as the number of live rooms grows.
+ * Shard work is discarded so only the session lookup is measured; {@code legacyScan} is the former all-rooms scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CloseBenchmark {
+
+    private static final int PLAYERS_PER_ROOM = 4;
+
+    @Param({"100", "1000", "10000"})
+    public int rooms;
+
+    private GameService gameService;
+    private SessionRegistry sessionRegistry;
+    private GameWebSocketHandler handler;
+    private final List<Player> players = new ArrayList<>();
+    private final List<String> roomIds = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // connection logging would otherwise dominate the measurement
+        ((Logger) LoggerFactory.getLogger(GameWebSocketHandler.class)).setLevel(Level.WARN);
+        RoomManager roomManager = new RoomManager(new Random(1));
+        sessionRegistry = new SessionRegistry();
+        RoomExecutor discarding = new RoomExecutor(1) {
+            @Override
+            public void execute(Object key, Runnable task) {
+                // shard work is outside the measured path
+            }
+        };
+        WebSocketJsonSender sender = new WebSocketJsonSender();
+        OutboundCodec codec = new StreamingOutboundCodec();
+        gameService = new GameService(roomManager, sender,
+                new RoomReaper(roomManager, discarding, sessionRegistry, sender, codec), discarding, codec, GameMetrics.detached(), 0);
+        Random random = new Random(1);
+        CardCatalog catalog = new CardCatalog();
+        RateLimiter rateLimiter = new RateLimiter();
+        handler = new GameWebSocketHandler(
+                new NewGameHandler(gameService, discarding, sessionRegistry),
+                new JoinGameHandler(gameService, sessionRegistry, rateLimiter),
+                new LeaveGameHandler(gameService, sessionRegistry),
+                new ReadyHandler(gameService, catalog, random),
+                new DiscardHandler(gameService),
+                new ConfirmHandler(gameService, catalog, random),
+                new ResyncHandler(gameService),
+                gameService, discarding, sessionRegistry, new CommandDecoder(), rateLimiter,
+                new HeartbeatMonitor(), GameMetrics.detached());
+
+        for (int r = 0; r < rooms; r++) {
+            Room room = roomManager.createRoom();
+            for (int i = 0; i < PLAYERS_PER_ROOM; i++) {
+                Player player = new Player(r + "-" + i, "t", "P" + i, new BenchmarkSession(), Map.of());
+                room.addPlayer(player);
+                sessionRegistry.register(player.getSession(), room.getRoomId(), player.getId());
+                players.add(player);
+                roomIds.add(room.getRoomId());
+            }
+        }
+    }
+
+    @Benchmark
+    public void registryClose() throws Exception {
+        int i = nextIndex();
+        Player player = players.get(i);
+        handler.onClose(player.getSession(), 1001, "Going away");
+        sessionRegistry.register(player.getSession(), roomIds.get(i), player.getId());
+    }
+
+    @Benchmark
+    public Room legacyScan() {
+        Session session = players.get(nextIndex()).getSession();
+        for (Room room : gameService.getAllRooms()) {
+            for (Player player : room.getPlayers().values()) {
+                if (session.equals(player.getSession())) {
+                    return room;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int nextIndex() {
+        next = (next + 7919) % players.size();
+        return next;
+    }
+}
@@ -0,0 +1,106 @@
+package com.bunkerparty.websocket;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.bunkerparty.benchmark.BenchmarkRooms;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.handler.*;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import com.bunkerparty.websocket.ratelimit.RateLimits;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link GameWebSocketHandler#onMessage} for one frame: decoding, rate limiting, routing and the
+ * handler itself, run inline instead of on a shard. {@code discard} is a repeated discard that the handler refuses,
+ * {@code resync} sends the full game state back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    @Param({"ping", "discard", "resync"})
+    public String frame;
+
+    private GameWebSocketHandler handler;
+    private Session session;
+    private String message;
+
+    @Setup
+    public void setUp() {
+        // warnings about the refused discard would otherwise dominate the measurement
+        ((Logger) LoggerFactory.getLogger("com.bunkerparty")).setLevel(Level.ERROR);
+        RoomManager roomManager = new RoomManager(new Random(1));
+        SessionRegistry sessionRegistry = new SessionRegistry();
+        RoomExecutor inline = new RoomExecutor(1) {
+            @Override
+            public void execute(Object key, Runnable task) {
+                task.run();
+            }
+        };
+        WebSocketJsonSender sender = new WebSocketJsonSender();
+        OutboundCodec codec = new StreamingOutboundCodec();
+        GameService gameService = new GameService(roomManager, sender,
+                new RoomReaper(roomManager, inline, sessionRegistry, sender, codec), inline, codec,
+                GameMetrics.detached(), 0);
+        Random random = new Random(1);
+        CardCatalog catalog = new CardCatalog();
+        RateLimiter rateLimiter = new RateLimiter(RateLimits.unlimited());
+        handler = new GameWebSocketHandler(
+                new NewGameHandler(gameService, inline, sessionRegistry),
+                new JoinGameHandler(gameService, sessionRegistry, rateLimiter),
+                new LeaveGameHandler(gameService, sessionRegistry),
+                new ReadyHandler(gameService, catalog, random),
+                new DiscardHandler(gameService),
+                new ConfirmHandler(gameService, catalog, random),
+                new ResyncHandler(gameService),
+                gameService, inline, sessionRegistry, new CommandDecoder(), rateLimiter,
+                new HeartbeatMonitor(), GameMetrics.detached());
+
+        Room room = roomManager.createRoom();
+        Room template = BenchmarkRooms.inRound(6, 2);
+        for (Player player : template.getPlayers().values()) {
+            room.addPlayer(player);
+            room.addRoundReveal(player.getId(), BenchmarkRooms.CATEGORIES.get(2));
+        }
+        room.setRound(template.getRound());
+        room.setPhase(Room.PHASE_REVEAL);
+        Player player = room.getPlayers().values().iterator().next();
+        session = player.getSession();
+        sessionRegistry.register(session, room.getRoomId(), player.getId());
+
+        String ids = "\"roomId\":\"" + room.getRoomId() + "\",\"playerId\":\"" + player.getId() + "\"";
+        message = switch (frame) {
+            case "ping" -> "{\"type\":\"ping\"}";
+            case "discard" -> "{\"type\":\"discard\"," + ids + ",\"cardKey\":\"" + BenchmarkRooms.CATEGORIES.get(3) + "\"}";
+            case "resync" -> "{\"type\":\"resync\"," + ids + "}";
+            default -> throw new IllegalArgumentException(frame);
+        };
+    }
+
+    @Benchmark
+    public void onMessage() {
+        handler.onMessage(session, message);
+    }
+}
@@ -0,0 +1,45 @@
+package com.bunkerparty.websocket.codec;
+
+import com.bunkerparty.benchmark.BenchmarkRooms;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.RoomStateEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation to encode a room snapshot and render it as a game_update with each {@link OutboundCodec};
+ * run with {@code -prof gc} for bytes/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboundCodecBenchmark {
+
+    @Param({"streaming", "gson"})
+    public String codec;
+
+    @Param({"6"})
+    public int players;
+
+    @Param({"0", "6"})
+    public int completedRounds;
+
+    private Room room;
+    private RoomStateEncoder encoder;
+    private long version;
+
+    @Setup
+    public void setUp() {
+        room = BenchmarkRooms.inRound(players, completedRounds);
+        encoder = new RoomStateEncoder("gson".equals(codec) ? new GsonOutboundCodec() : new StreamingOutboundCodec());
+    }
+
+    @Benchmark
+    public String snapshot() {
+        return encoder.snapshotJson(encoder.snapshot(room, ++version, null));
+    }
+}
@@ -0,0 +1,64 @@
+package com.bunkerparty.websocket.command;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation to decode one inbound frame of each type; run with {@code -prof gc} for bytes/op.
+ * The {@code tree} method reproduces the former JsonParser tree plus the handler's field lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandDecoderBenchmark {
+
+    @Param({"ping", "join_game", "discard", "confirm"})
+    public String type;
+
+    private String frame;
+    private CommandDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        String room = "\"roomId\":\"4821\"";
+        String player = "\"playerId\":\"7f0e9d8c-3b2a-4c1d-9e8f-0a1b2c3d4e5f\"";
+        frame = switch (type) {
+            case "ping" -> "{\"type\":\"ping\"}";
+            case "join_game" -> "{\"type\":\"join_game\"," + room + ",\"name\":\"Alice\","
+                    + "\"token\":\"2c9d7e1a-5b4f-4e3d-8c2b-1a0f9e8d7c6b\"}";
+            case "discard" -> "{\"type\":\"discard\"," + room + "," + player + ",\"cardKey\":\"profession\"}";
+            case "confirm" -> "{\"type\":\"confirm\"," + room + "," + player + "}";
+            default -> throw new IllegalArgumentException(type);
+        };
+        decoder = new CommandDecoder();
+    }
+
+    @Benchmark
+    public Command streaming() throws CommandRejectedException {
+        return decoder.decode(frame);
+    }
+
+    @Benchmark
+    public Object tree() {
+        JsonObject json = JsonParser.parseString(frame).getAsJsonObject();
+        String type = json.get("type").getAsString();
+        return switch (type) {
+            case "ping" -> type;
+            case "join_game" -> new Command.JoinGame(string(json, "roomId"), string(json, "name"),
+                    json.has("token") ? json.get("token").getAsString() : null);
+            case "discard" -> new Command.Discard(string(json, "roomId"), string(json, "playerId"),
+                    string(json, "cardKey"));
+            default -> new Command.Confirm(string(json, "roomId"), string(json, "playerId"));
+        };
+    }
+
+    private static String string(JsonObject json, String key) {
+        return json.has(key) && !json.get(key).isJsonNull() ? json.get(key).getAsString() : "";
+    }
+}
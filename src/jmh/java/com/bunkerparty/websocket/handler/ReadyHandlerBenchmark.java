@@ -0,0 +1,39 @@
+package com.bunkerparty.websocket.handler;
+
+import com.bunkerparty.benchmark.BenchmarkRooms;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.CardCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dealing every category to all players when a game starts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadyHandlerBenchmark {
+
+    @Param({"3", "6"})
+    public int players;
+
+    private ReadyHandler handler;
+    private Room room;
+
+    @Setup
+    public void setUp() {
+        handler = new ReadyHandler(null, new CardCatalog(), new Random(1));
+        room = BenchmarkRooms.inRound(players, 0);
+    }
+
+    @Benchmark
+    public Room distributeCards() {
+        handler.distributeCards(room);
+        return room;
+    }
+}
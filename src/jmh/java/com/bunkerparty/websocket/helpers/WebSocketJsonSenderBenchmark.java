@@ -0,0 +1,51 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.benchmark.BenchmarkSession;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding a frame and passing it through a session's {@link OutboundQueue} to the socket.
+ * The benchmark session completes each write immediately, so the queue never backs up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebSocketJsonSenderBenchmark {
+
+    private WebSocketJsonSender sender;
+    private OutboundCodec codec;
+    private BenchmarkSession session;
+    private String state;
+
+    @Setup
+    public void setUp() {
+        sender = new WebSocketJsonSender(new OutboundLimits(64, 1 << 20, TimeUnit.SECONDS.toNanos(10)),
+                GameMetrics.detached());
+        codec = new StreamingOutboundCodec();
+        session = new BenchmarkSession();
+        state = "{\"type\":\"game_update\",\"version\":1,\"room\":{\"roomId\":\"1234\",\"phase\":\"reveal\"}}";
+    }
+
+    @Benchmark
+    public boolean error() {
+        return sender.sendText(session, codec.error("room_not_found", "Room not found"));
+    }
+
+    @Benchmark
+    public boolean pong() {
+        return sender.sendText(session, codec.pong());
+    }
+
+    @Benchmark
+    public boolean state() {
+        return sender.sendState(session, "1234", state);
+    }
+}
@@ -0,0 +1,421 @@
+package com.bunkerparty.load;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.websocket.helpers.OutboundQueue;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated player. It speaks the browser's protocol over a real WebSocket: opens or joins a room, votes to
+ * start, discards one card each round and confirms until the game is over. The time from each action to the next
+ * state update it receives is recorded as the action's latency.
+ */
+final class Bot {
+
+    private static final WriteCallback IGNORE_RESULT = new WriteCallback() {
+        @Override
+        public void writeFailed(Throwable cause) {
+            // the connection is closing and onWebSocketClose follows
+        }
+
+        @Override
+        public void writeSuccess() {
+            // nothing to do
+        }
+    };
+
+    private final Table table;
+    private final String name;
+    private final String address;
+    private final LoadOptions options;
+    private final LoadStats stats;
+    private final WebSocketClient client;
+    private final URI uri;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService connector;
+    private final boolean slowReader;
+    private volatile boolean running = true;
+    private volatile long lastUpdateAt = System.nanoTime();
+
+    private Connection connection;
+    private String playerId;
+    private String token;
+    private String roomId;
+    private long version;
+    private String phase;
+    private int round;
+    private JsonArray players = new JsonArray();
+    private JsonObject roundReveals = new JsonObject();
+    private JsonArray roundConfirms = new JsonArray();
+    private String lastAction;
+    private boolean pending;
+    private boolean gameOver;
+    private long actionSentAt;
+    private long reconnectStartedAt;
+
+    Bot(Table table, String name, String address, LoadOptions options, LoadStats stats, WebSocketClient client,
+        URI uri, ScheduledExecutorService scheduler, ExecutorService connector, boolean slowReader) {
+        this.table = table;
+        this.name = name;
+        this.address = address;
+        this.options = options;
+        this.stats = stats;
+        this.client = client;
+        this.uri = uri;
+        this.scheduler = scheduler;
+        this.connector = connector;
+        this.slowReader = slowReader;
+    }
+
+    /**
+     * Returns when the bot last received a state update for its room.
+     */
+    long lastUpdateAt() {
+        return lastUpdateAt;
+    }
+
+    /**
+     * Opens a connection; once it is up the bot hosts, joins or rejoins a room depending on its state.
+     */
+    void connect() {
+        lastUpdateAt = System.nanoTime();
+        connector.execute(() -> {
+            ClientUpgradeRequest request = new ClientUpgradeRequest();
+            // lets a server started with TRUST_FORWARDED_FOR=true rate limit each bot on its own
+            request.setHeader("X-Forwarded-For", address);
+            // browsers offer compression, and the server keeps a deflater per connection that accepts it
+            request.addExtensions("permessage-deflate");
+            try {
+                client.connect(new Connection(), uri, request).get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                stats.connectFailures.increment();
+            }
+        });
+    }
+
+    /**
+     * Drops the connection without a close handshake and connects again, rejoining with the reconnect token.
+     */
+    synchronized void reconnect() {
+        if (connection == null || token == null) {
+            return;
+        }
+        reconnectStartedAt = System.nanoTime();
+        stats.reconnects.increment();
+        Connection old = connection;
+        connection = null;
+        try {
+            old.session.disconnect();
+        } catch (IOException e) {
+            // the old connection is gone either way
+        }
+        connect();
+    }
+
+    /**
+     * Joins the table's current room over the existing connection.
+     */
+    synchronized void join() {
+        resetGame();
+        send(joinGame(table.roomId(), null));
+    }
+
+    /**
+     * Leaves the room the bot is in.
+     */
+    synchronized void leave() {
+        if (roomId != null) {
+            send("{\"type\":\"leave_game\",\"roomId\":\"" + roomId + "\"}");
+        }
+    }
+
+    /**
+     * Opens a new room as the host of the table.
+     */
+    synchronized void newGame() {
+        resetGame();
+        send("{\"type\":\"new_game\",\"name\":\"" + name + "\"}");
+    }
+
+    /**
+     * Stops acting and closes the connection.
+     */
+    synchronized void stop() {
+        running = false;
+        if (connection != null) {
+            connection.session.close(StatusCode.NORMAL, "Load test over");
+        }
+    }
+
+    private synchronized void onOpen(Connection opened) {
+        stats.connects.increment();
+        stats.open.incrementAndGet();
+        connection = opened;
+        if (reconnectStartedAt != 0 && roomId != null && roomId.equals(table.roomId())) {
+            version = 0;
+            lastAction = null;
+            send(joinGame(roomId, token));
+        } else if (table.isHost(this)) {
+            newGame();
+        } else {
+            join();
+        }
+    }
+
+    private synchronized void onText(Connection from, String text) {
+        if (from != connection) {
+            return;
+        }
+        JsonObject message = JsonParser.parseString(text).getAsJsonObject();
+        switch (message.get("type").getAsString()) {
+            case "open_room" -> {
+                roomId = message.get("room_id").getAsString();
+                playerId = message.get("player_id").getAsString();
+                token = message.get("token").getAsString();
+                if (table.isHost(this) && !roomId.equals(table.roomId())) {
+                    table.roomOpened(roomId);
+                }
+            }
+            case "game_update" -> onState(message, false);
+            case "game_patch" -> onState(message, true);
+            case "error" -> stats.error(message.get("code").getAsString());
+            case "refresh" -> {
+                onRefresh(message.get("delay_ms").getAsLong());
+                return;
+            }
+            default -> {
+            }
+        }
+        if (slowReader) {
+            SuspendToken suspended = from.session.suspend();
+            scheduler.schedule(suspended::resume, options.slowReadMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * What the browser does when the server drains: leaves and rejoins with the token after the given delay.
+     */
+    private void onRefresh(long delayMillis) {
+        if (token == null) {
+            return;
+        }
+        Connection old = connection;
+        connection = null;
+        old.session.close(StatusCode.NORMAL, "Refresh");
+        reconnectStartedAt = System.nanoTime();
+        stats.reconnects.increment();
+        scheduler.schedule(this::connect, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void onState(JsonObject message, boolean patch) {
+        if (patch ? version == 0 : !message.get("roomId").getAsString().equals(roomId)) {
+            // a late update from the room the bot just left
+            return;
+        }
+        stats.updates.increment();
+        long now = System.nanoTime();
+        lastUpdateAt = now;
+        if (actionSentAt != 0) {
+            stats.actionLatency.record(now - actionSentAt);
+            actionSentAt = 0;
+        }
+        if (patch && message.get("baseVersion").getAsLong() != version) {
+            stats.resyncs.increment();
+            send("{\"type\":\"resync\",\"roomId\":\"" + roomId + "\",\"playerId\":\"" + playerId + "\"}");
+            return;
+        }
+        if (!patch && reconnectStartedAt != 0) {
+            stats.reconnectLatency.record(now - reconnectStartedAt);
+            reconnectStartedAt = 0;
+        }
+        version = message.get("version").getAsLong();
+        if (message.has("phase")) {
+            phase = message.get("phase").getAsString();
+        }
+        if (message.has("round")) {
+            round = message.get("round").getAsInt();
+        }
+        if (message.has("players")) {
+            players = message.getAsJsonArray("players");
+        }
+        if (message.has("roundReveals")) {
+            roundReveals = message.getAsJsonObject("roundReveals");
+        }
+        if (message.has("roundConfirms")) {
+            roundConfirms = message.getAsJsonArray("roundConfirms");
+        }
+        act();
+    }
+
+    /**
+     * Takes the next step the game expects from this player, judged from the server's state, so an action lost
+     * to a reconnect is simply sent again.
+     */
+    private void act() {
+        if (!running || phase == null || pending) {
+            return;
+        }
+        JsonObject me = me();
+        String step = phase + ":" + round;
+        if (me == null || step.equals(lastAction)) {
+            return;
+        }
+        switch (phase) {
+            case "lobby" -> {
+                if (players.size() == table.size() && !me.get("ready").getAsBoolean()) {
+                    later(step, "{\"type\":\"ready\"," + ids() + "}");
+                }
+            }
+            case "reveal" -> {
+                String cardKey = unrevealedCard(me.getAsJsonObject("revealed"));
+                if (!roundReveals.has(playerId) && cardKey != null) {
+                    later(step, "{\"type\":\"discard\"," + ids() + ",\"cardKey\":\"" + cardKey + "\"}");
+                }
+            }
+            case "confirm" -> {
+                if (!roundConfirms.contains(new JsonPrimitive(playerId))) {
+                    later(step, "{\"type\":\"confirm\"," + ids() + "}");
+                }
+            }
+            case "game_over" -> {
+                if (!gameOver) {
+                    gameOver = true;
+                    if (table.isHost(this)) {
+                        stats.games.increment();
+                        scheduler.schedule(table::nextGame, think(), TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void later(String step, String action) {
+        pending = true;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                pending = false;
+                if (running && connection != null) {
+                    lastAction = step;
+                    actionSentAt = System.nanoTime();
+                    stats.actions.increment();
+                    send(action);
+                }
+            }
+        }, think(), TimeUnit.MILLISECONDS);
+    }
+
+    private JsonObject me() {
+        for (JsonElement player : players) {
+            JsonObject p = player.getAsJsonObject();
+            if (p.get("id").getAsString().equals(playerId)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    private static String unrevealedCard(JsonObject revealed) {
+        for (CardCategory category : CardCategory.ALL) {
+            if (!revealed.has(category.getKey())) {
+                return category.getKey();
+            }
+        }
+        return null;
+    }
+
+    private void onClose(Connection closed, int status) {
+        stats.closed(status);
+        synchronized (this) {
+            if (closed != connection || !running) {
+                return;
+            }
+            connection = null;
+            if (status == OutboundQueue.SLOW_CONSUMER_STATUS && token != null) {
+                // what the browser does: reconnect and pick up the latest state
+                reconnectStartedAt = System.nanoTime();
+                stats.reconnects.increment();
+                connect();
+            }
+        }
+    }
+
+    private void send(String text) {
+        if (connection != null && connection.session.isOpen()) {
+            connection.session.getRemote().sendString(text, IGNORE_RESULT);
+        }
+    }
+
+    private void resetGame() {
+        version = 0;
+        phase = null;
+        round = 0;
+        players = new JsonArray();
+        roundReveals = new JsonObject();
+        roundConfirms = new JsonArray();
+        lastAction = null;
+        gameOver = false;
+        actionSentAt = 0;
+    }
+
+    private String joinGame(String room, String reconnectToken) {
+        return "{\"type\":\"join_game\",\"roomId\":\"" + room + "\",\"name\":\"" + name + "\""
+                + (reconnectToken != null ? ",\"token\":\"" + reconnectToken + "\"" : "") + "}";
+    }
+
+    private String ids() {
+        return "\"roomId\":\"" + roomId + "\",\"playerId\":\"" + playerId + "\"";
+    }
+
+    private long think() {
+        return options.thinkMillis() > 0 ? ThreadLocalRandom.current().nextLong(options.thinkMillis()) : 0;
+    }
+
+    private final class Connection implements WebSocketListener {
+        private Session session;
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            this.session = session;
+            onOpen(this);
+        }
+
+        @Override
+        public void onWebSocketText(String message) {
+            onText(this, message);
+        }
+
+        @Override
+        public void onWebSocketBinary(byte[] payload, int offset, int len) {
+            // the server only sends text
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            onClose(this, statusCode);
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            // a failed connection also ends in onWebSocketClose
+        }
+    }
+}
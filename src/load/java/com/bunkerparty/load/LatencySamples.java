@@ -0,0 +1,43 @@
+package com.bunkerparty.load;
+
+import java.util.Arrays;
+
+/**
+ * Every latency recorded during a run, kept in full so percentiles are exact.
+ */
+final class LatencySamples {
+
+    private long[] samples = new long[1 << 16];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the samples recorded since the given position, sorted.
+     */
+    synchronized long[] sortedSince(int from) {
+        long[] copy = Arrays.copyOfRange(samples, Math.min(from, count), count);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Returns the given percentile of sorted samples in milliseconds, or 0 if there are none.
+     */
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
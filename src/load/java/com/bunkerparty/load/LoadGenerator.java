@@ -0,0 +1,253 @@
+package com.bunkerparty.load;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.bunkerparty.GameServer;
+import com.bunkerparty.di.ApplicationModule;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import com.bunkerparty.websocket.ratelimit.RateLimits;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays full games against a server over real WebSocket connections and reports throughput, the latency from an
+ * action to the state update that follows it, connection counts and the server's heap.
+ * Without {@code url=} it starts the application in this JVM on a free port with rate limits disabled, since every
+ * simulated client connects from the same address.
+ * <p>
+ * Run with {@code mvn -Pload verify -Dload.args="rooms=500 players=4 duration=120 scenario=steady"}.
+ */
+public final class LoadGenerator {
+
+    private static final long STALL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LoadOptions options;
+    private final LoadStats stats = new LoadStats();
+    private final List<Table> tables = new ArrayList<>();
+    private final List<Bot> bots = new ArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private URI metricsUri;
+    private Map<String, Double> lastServerMetrics = Map.of();
+    private int peakOpen;
+
+    private LoadGenerator(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((Logger) LoggerFactory.getLogger("com.bunkerparty")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("org.eclipse.jetty")).setLevel(Level.ERROR);
+        new LoadGenerator(LoadOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        GameServer server = null;
+        URI uri;
+        if (options.url() == null) {
+            server = Guice.createInjector(Modules.override(new ApplicationModule()).with(new AbstractModule() {
+                @Override
+                protected void configure() {
+                    bind(RateLimiter.class).toInstance(new RateLimiter(RateLimits.unlimited()));
+                }
+            })).getInstance(GameServer.class);
+            int port = server.start(0);
+            uri = URI.create("ws://127.0.0.1:" + port + "/ws");
+        } else {
+            uri = URI.create(options.url());
+        }
+        metricsUri = URI.create((uri.getScheme().equals("wss") ? "https" : "http") + "://" + uri.getAuthority()
+                + "/metrics");
+
+        WebSocketClient client = new WebSocketClient();
+        client.setMaxIdleTimeout(TimeUnit.MINUTES.toMillis(5));
+        client.start();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        ExecutorService connector = Executors.newFixedThreadPool(16);
+        try {
+            System.out.printf("%s: %d rooms x %d players against %s for %ds%n", options.scenario(),
+                    options.rooms(), options.players(), uri, options.duration().toSeconds());
+            createTables(client, uri, scheduler, connector);
+            play(scheduler);
+        } finally {
+            for (Bot bot : bots) {
+                bot.stop();
+            }
+            Thread.sleep(500);
+            scheduler.shutdownNow();
+            connector.shutdownNow();
+            client.stop();
+            if (server != null) {
+                server.stop();
+            }
+        }
+        printSummary();
+    }
+
+    private void createTables(WebSocketClient client, URI uri, ScheduledExecutorService scheduler,
+                              ExecutorService connector) {
+        Random random = new Random(1);
+        int slowReaders = options.scenario() == LoadOptions.Scenario.SLOW_READERS
+                ? (int) Math.round(options.rooms() * options.players() * options.fraction()) : 0;
+        List<Boolean> slow = new ArrayList<>();
+        for (int i = 0; i < options.rooms() * options.players(); i++) {
+            slow.add(i < slowReaders);
+        }
+        Collections.shuffle(slow, random);
+        for (int t = 0; t < options.rooms(); t++) {
+            Table table = new Table();
+            for (int p = 0; p < options.players(); p++) {
+                int n = bots.size();
+                String address = "10." + (n >> 16 & 255) + "." + (n >> 8 & 255) + "." + (n & 255);
+                Bot bot = new Bot(table, "Bot" + p, address, options, stats, client, uri, scheduler, connector,
+                        slow.get(n));
+                table.add(bot);
+                bots.add(bot);
+            }
+            tables.add(table);
+        }
+    }
+
+    private void play(ScheduledExecutorService scheduler) throws InterruptedException {
+        long rampNanos = options.ramp().toNanos();
+        for (int i = 0; i < tables.size(); i++) {
+            Table table = tables.get(i);
+            scheduler.schedule(table::open, rampNanos * i / tables.size(), TimeUnit.NANOSECONDS);
+        }
+        if (options.scenario() == LoadOptions.Scenario.RECONNECT_STORM) {
+            scheduler.schedule(this::storm, options.duration().toMillis() / 2, TimeUnit.MILLISECONDS);
+        }
+
+        long start = System.nanoTime();
+        long end = start + options.duration().toNanos();
+        long lastActions = 0;
+        long lastUpdates = 0;
+        int lastSample = 0;
+        while (System.nanoTime() < end) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(options.reportSeconds()));
+            long actions = stats.actions.sum();
+            long updates = stats.updates.sum();
+            int samples = stats.actionLatency.size();
+            long[] interval = stats.actionLatency.sortedSince(lastSample);
+            int open = stats.open.get();
+            peakOpen = Math.max(peakOpen, open);
+            Map<String, Double> server = serverMetrics();
+            System.out.printf("t=%3ds open=%5d actions/s=%7.1f updates/s=%8.1f p50=%6.1fms p99=%7.1fms"
+                            + " rooms=%5.0f heap=%6.1fMB%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), open,
+                    (actions - lastActions) / (double) options.reportSeconds(),
+                    (updates - lastUpdates) / (double) options.reportSeconds(),
+                    LatencySamples.percentileMillis(interval, 50), LatencySamples.percentileMillis(interval, 99),
+                    server.getOrDefault("rooms", 0.0), server.getOrDefault("heap", 0.0) / (1 << 20));
+            lastActions = actions;
+            lastUpdates = updates;
+            lastSample = samples;
+            restartStalledTables();
+        }
+    }
+
+    /**
+     * Starts a new game at tables that have not seen an update for a while. A game can stall for good when a
+     * player who missed a round while disconnected still holds cards that the others have run out of.
+     */
+    private void restartStalledTables() {
+        long stalledBefore = System.nanoTime() - STALL_NANOS - TimeUnit.MILLISECONDS.toNanos(options.thinkMillis());
+        for (Table table : tables) {
+            if (table.roomId() != null && table.bots().stream().allMatch(bot -> bot.lastUpdateAt() < stalledBefore)) {
+                stats.stalledGames.increment();
+                table.nextGame();
+            }
+        }
+    }
+
+    private void storm() {
+        Random random = new Random(2);
+        int dropped = 0;
+        for (Bot bot : bots) {
+            if (random.nextDouble() < options.fraction()) {
+                bot.reconnect();
+                dropped++;
+            }
+        }
+        System.out.printf("reconnect storm: dropped %d connections%n", dropped);
+    }
+
+    private void printSummary() {
+        double seconds = options.duration().toSeconds();
+        long[] latency = stats.actionLatency.sortedSince(0);
+        long[] reconnect = stats.reconnectLatency.sortedSince(0);
+        Map<String, Double> server = serverMetricsAfterStop();
+        System.out.println();
+        System.out.printf("connections  opened=%d failed=%d peakOpen=%d reconnects=%d closes=%s%n",
+                stats.connects.sum(), stats.connectFailures.sum(), peakOpen, stats.reconnects.sum(), stats.closes);
+        System.out.printf("throughput   actions=%d (%.1f/s) updates=%d (%.1f/s) games=%d resyncs=%d errors=%s%n",
+                stats.actions.sum(), stats.actions.sum() / seconds, stats.updates.sum(),
+                stats.updates.sum() / seconds, stats.games.sum(), stats.resyncs.sum(), stats.errors);
+        System.out.printf("stalled      games restarted=%d%n", stats.stalledGames.sum());
+        printLatency("action->update", latency);
+        if (reconnect.length > 0) {
+            printLatency("reconnect", reconnect);
+        }
+        if (!server.isEmpty()) {
+            System.out.printf("server       heap=%.1fMB slowConsumersClosed=%.0f%n",
+                    server.getOrDefault("heap", 0.0) / (1 << 20), server.getOrDefault("slowConsumers", 0.0));
+        }
+    }
+
+    private static void printLatency(String label, long[] sorted) {
+        System.out.printf("%-12s n=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n", label,
+                sorted.length, LatencySamples.percentileMillis(sorted, 50),
+                LatencySamples.percentileMillis(sorted, 90), LatencySamples.percentileMillis(sorted, 99),
+                LatencySamples.percentileMillis(sorted, 99.9), LatencySamples.percentileMillis(sorted, 100));
+    }
+
+    private Map<String, Double> serverMetricsAfterStop() {
+        return options.url() == null ? lastServerMetrics : serverMetrics();
+    }
+
+    /**
+     * Reads a few values from the server's Prometheus endpoint; empty if it cannot be reached.
+     */
+    private Map<String, Double> serverMetrics() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(metricsUri)
+                    .timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.ofString());
+            for (String line : response.body().split("\n")) {
+                if (line.startsWith("jvm_memory_used_bytes{area=\"heap\"}")) {
+                    values.put("heap", value(line));
+                } else if (line.startsWith("bunker_rooms{")) {
+                    values.merge("rooms", value(line), Double::sum);
+                } else if (line.startsWith("bunker_slow_consumers_closed_total")) {
+                    values.put("slowConsumers", value(line));
+                }
+            }
+        } catch (Exception e) {
+            return values;
+        }
+        lastServerMetrics = values;
+        return values;
+    }
+
+    private static double value(String line) {
+        return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+    }
+}
@@ -0,0 +1,70 @@
+package com.bunkerparty.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a load run, parsed from {@code key=value} arguments.
+ *
+ * @param scenario       what happens on top of the games being played
+ * @param rooms          number of concurrent rooms
+ * @param players        players per room, 3 to 6
+ * @param duration       how long games are played before the run stops
+ * @param ramp           over how long the rooms are opened
+ * @param thinkMillis    the longest a client waits before acting, picked at random
+ * @param url            WebSocket URL of a running server, or null to start one in this JVM
+ * @param fraction       share of clients that reconnect in the storm or read slowly
+ * @param slowReadMillis how long a slow reader pauses after every frame
+ * @param reportSeconds  interval of progress lines
+ */
+public record LoadOptions(Scenario scenario, int rooms, int players, Duration duration, Duration ramp,
+                          long thinkMillis, String url, double fraction, long slowReadMillis, int reportSeconds) {
+
+    /**
+     * What the run does besides playing games.
+     */
+    public enum Scenario {
+        /** Every room plays games back to back. */
+        STEADY,
+        /** Halfway through, a share of the clients drop their connections at once and rejoin. */
+        RECONNECT_STORM,
+        /** A share of the clients pause after every frame they read, so their outbound queues back up. */
+        SLOW_READERS
+    }
+
+    /**
+     * Parses arguments such as {@code rooms=500 scenario=reconnect_storm}; unknown keys are rejected.
+     */
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        LoadOptions options = new LoadOptions(
+                Scenario.valueOf(values.getOrDefault("scenario", "steady").toUpperCase()),
+                Integer.parseInt(values.getOrDefault("rooms", "100")),
+                Integer.parseInt(values.getOrDefault("players", "4")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("ramp", "10"))),
+                Long.parseLong(values.getOrDefault("think", "250")),
+                values.get("url"),
+                Double.parseDouble(values.getOrDefault("fraction", "0.2")),
+                Long.parseLong(values.getOrDefault("slowRead", "2000")),
+                Integer.parseInt(values.getOrDefault("report", "5")));
+        values.keySet().removeAll(List.of("scenario", "rooms", "players", "duration", "ramp", "think",
+                "url", "fraction", "slowRead", "report"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        if (options.players < 3 || options.players > 6) {
+            throw new IllegalArgumentException("players must be between 3 and 6");
+        }
+        return options;
+    }
+}
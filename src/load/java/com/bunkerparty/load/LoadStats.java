@@ -0,0 +1,35 @@
+package com.bunkerparty.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by all simulated clients of a run.
+ */
+final class LoadStats {
+
+    final AtomicInteger open = new AtomicInteger();
+    final LongAdder connects = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder actions = new LongAdder();
+    final LongAdder updates = new LongAdder();
+    final LongAdder resyncs = new LongAdder();
+    final LongAdder games = new LongAdder();
+    final LongAdder stalledGames = new LongAdder();
+    final LongAdder reconnects = new LongAdder();
+    final Map<String, LongAdder> errors = new ConcurrentSkipListMap<>();
+    final Map<Integer, LongAdder> closes = new ConcurrentSkipListMap<>();
+    final LatencySamples actionLatency = new LatencySamples();
+    final LatencySamples reconnectLatency = new LatencySamples();
+
+    void error(String code) {
+        errors.computeIfAbsent(code, c -> new LongAdder()).increment();
+    }
+
+    void closed(int status) {
+        open.decrementAndGet();
+        closes.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+}
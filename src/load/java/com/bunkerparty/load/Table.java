@@ -0,0 +1,66 @@
+package com.bunkerparty.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A group of simulated clients that play games together. The first one hosts: it opens a room, and once the room
+ * exists the others join it. After a game ends everyone leaves and the host opens the next room.
+ */
+final class Table {
+
+    private final List<Bot> bots = new ArrayList<>();
+    private volatile String roomId;
+
+    void add(Bot bot) {
+        bots.add(bot);
+    }
+
+    int size() {
+        return bots.size();
+    }
+
+    List<Bot> bots() {
+        return bots;
+    }
+
+    boolean isHost(Bot bot) {
+        return bots.get(0) == bot;
+    }
+
+    String roomId() {
+        return roomId;
+    }
+
+    /**
+     * Starts the first game: the host connects and opens a room.
+     */
+    void open() {
+        bots.get(0).connect();
+    }
+
+    /**
+     * Called by the host once its room exists; the other players join it.
+     */
+    void roomOpened(String roomId) {
+        boolean first = this.roomId == null;
+        this.roomId = roomId;
+        for (int i = 1; i < bots.size(); i++) {
+            if (first) {
+                bots.get(i).connect();
+            } else {
+                bots.get(i).join();
+            }
+        }
+    }
+
+    /**
+     * Called by the host after a game ended; everyone leaves and the host opens a new room.
+     */
+    void nextGame() {
+        for (Bot bot : bots) {
+            bot.leave();
+        }
+        bots.get(0).newGame();
+    }
+}
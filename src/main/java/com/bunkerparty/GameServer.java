@@ -0,0 +1,133 @@
+package com.bunkerparty;
+
+import com.bunkerparty.cluster.BroadcastBus;
+import com.bunkerparty.config.CorsConfig;
+import com.bunkerparty.config.ServerSettings;
+import com.bunkerparty.config.StaticFilesConfig;
+import com.bunkerparty.routes.AdminRoutes;
+import com.bunkerparty.routes.CatalogRoutes;
+import com.bunkerparty.routes.HealthRoutes;
+import com.bunkerparty.routes.MetricsRoutes;
+import com.bunkerparty.routes.Router;
+import com.bunkerparty.service.DrainCoordinator;
+import com.bunkerparty.websocket.GameWebSocketHandler;
+import com.bunkerparty.websocket.GameWebSocketServlet;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The embedded Jetty server of one application instance: the /ws endpoint, the HTTP routes and the static files.
+ * Each instance owns its server, so several can run in one JVM.
+ */
+@Singleton
+public class GameServer {
+    private static final Logger logger = LoggerFactory.getLogger(GameServer.class);
+
+    private final GameWebSocketHandler webSocketHandler;
+    private final HealthRoutes healthRoutes;
+    private final MetricsRoutes metricsRoutes;
+    private final AdminRoutes adminRoutes;
+    private final CatalogRoutes catalogRoutes;
+    private final BroadcastBus bus;
+    private final DrainCoordinator drainCoordinator;
+    private Server server;
+
+    /**
+     * Creates a new server with injected dependencies.
+     */
+    @Inject
+    public GameServer(GameWebSocketHandler webSocketHandler, HealthRoutes healthRoutes, MetricsRoutes metricsRoutes,
+                      AdminRoutes adminRoutes, CatalogRoutes catalogRoutes, BroadcastBus bus,
+                      DrainCoordinator drainCoordinator) {
+        this.webSocketHandler = webSocketHandler;
+        this.healthRoutes = healthRoutes;
+        this.metricsRoutes = metricsRoutes;
+        this.adminRoutes = adminRoutes;
+        this.catalogRoutes = catalogRoutes;
+        this.bus = bus;
+        this.drainCoordinator = drainCoordinator;
+    }
+
+    /**
+     * Starts the server with the configured settings.
+     */
+    public void start() throws Exception {
+        start(ServerSettings.fromConfig());
+    }
+
+    /**
+     * Starts the server with the configured settings on the given port, or a free one if 0, and returns the port
+     * once it is listening.
+     */
+    public int start(int port) throws Exception {
+        return start(ServerSettings.fromConfig().withPort(port));
+    }
+
+    /**
+     * Starts the server with the given settings and returns the port once it is listening.
+     */
+    public synchronized int start(ServerSettings settings) throws Exception {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        QueuedThreadPool pool = new QueuedThreadPool(settings.maxThreads(), settings.minThreads(),
+                settings.threadIdleMillis());
+        pool.setName("http");
+        Server jetty = new Server(pool);
+
+        HttpConfiguration http = new HttpConfiguration();
+        http.setOutputBufferSize(settings.outputBufferBytes());
+        http.setRequestHeaderSize(settings.requestHeaderBytes());
+        http.setSendServerVersion(false);
+        ServerConnector connector = new ServerConnector(jetty, settings.acceptors(), settings.selectors(),
+                new HttpConnectionFactory(http));
+        connector.setHost(settings.host());
+        connector.setPort(settings.port());
+        connector.setIdleTimeout(settings.httpIdleTimeoutMillis());
+        connector.setAcceptQueueSize(settings.acceptQueue());
+        jetty.addConnector(connector);
+
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+        context.setContextPath("/");
+        context.addServlet(new ServletHolder("ws", new GameWebSocketServlet(webSocketHandler, settings,
+                drainCoordinator)), "/ws");
+        bus.setReceiver(webSocketHandler);
+        Router router = new Router();
+        healthRoutes.register(router);
+        metricsRoutes.register(router);
+        adminRoutes.register(router);
+        catalogRoutes.register(router);
+        router.mount(context);
+        CorsConfig.enable(context, router.paths());
+        StaticFilesConfig.configure(context);
+        jetty.setHandler(context);
+
+        jetty.start();
+        server = jetty;
+        int port = connector.getLocalPort();
+        logger.info("Application started on port {} (workers {}-{}, acceptors {}, selectors {})", port,
+                settings.minThreads(), settings.maxThreads(), connector.getAcceptors(),
+                connector.getSelectorManager().getSelectorCount());
+        return port;
+    }
+
+    /**
+     * Stops the server and waits until it has shut down.
+     */
+    public synchronized void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+            server.join();
+            server = null;
+        }
+    }
+}
@@ -1,15 +1,39 @@
 package com.bunkerparty;
 
+import com.bunkerparty.cluster.BroadcastBus;
 import com.bunkerparty.di.ApplicationModule;
+import com.bunkerparty.persistence.RoomPersistence;
+import com.bunkerparty.service.DrainCoordinator;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 
 public class Main {
+    private static final Logger logger = LoggerFactory.getLogger(Main.class);
+
     /**
-     * Entry point of the application.
+     * Entry point of the application. Persisted rooms are recovered before the server accepts connections;
+     * on shutdown the clients are handed off, a final snapshot is written and the peers are disconnected.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         Injector injector = Guice.createInjector(new ApplicationModule());
-        injector.getInstance(SparkServer.class).start();
+        RoomPersistence persistence = injector.getInstance(RoomPersistence.class);
+        persistence.start();
+        BroadcastBus bus = injector.getInstance(BroadcastBus.class);
+        bus.start();
+        DrainCoordinator drainCoordinator = injector.getInstance(DrainCoordinator.class);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            drainCoordinator.drain();
+            try {
+                persistence.stop();
+            } catch (IOException e) {
+                logger.error("Failed to write the final room snapshot", e);
+            }
+            bus.close();
+        }, "drain-shutdown"));
+        injector.getInstance(GameServer.class).start();
     }
 }
@@ -0,0 +1,51 @@
+package com.bunkerparty.assets;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reads a directory on the classpath through the file system API, whether it is a directory or inside a jar.
+ */
+public final class ClasspathDirectory {
+
+    /**
+     * Reads the contents of a directory.
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(Path directory) throws IOException;
+    }
+
+    private ClasspathDirectory() {
+    }
+
+    /**
+     * Passes the given classpath directory to the reader, keeping a jar open until it returns.
+     */
+    public static <T> T read(String directory, Reader<T> reader) {
+        URL url = ClasspathDirectory.class.getResource(directory);
+        if (url == null) {
+            throw new IllegalStateException("Directory not found on the classpath: " + directory);
+        }
+        try {
+            URI uri = url.toURI();
+            if (!"jar".equals(uri.getScheme())) {
+                return reader.read(Path.of(uri));
+            }
+            try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                return reader.read(jar.getPath(directory));
+            } catch (FileSystemAlreadyExistsException e) {
+                return reader.read(FileSystems.getFileSystem(uri).getPath(directory));
+            }
+        } catch (URISyntaxException | IOException e) {
+            throw new IllegalStateException("Cannot read " + url, e);
+        }
+    }
+}
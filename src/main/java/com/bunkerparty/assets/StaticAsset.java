@@ -0,0 +1,74 @@
+package com.bunkerparty.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One static file held in memory: its bytes, their gzip encoding if that is smaller, and the headers it is served
+ * with. Fingerprinted copies never change and are cached for a year; the rest are revalidated by ETag.
+ */
+public record StaticAsset(String path, String contentType, byte[] bytes, byte[] gzip, String etag,
+                          boolean immutable) {
+
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final String REVALIDATE = "no-cache";
+
+    /**
+     * Creates an asset with the given ETag value, compressing the bytes once.
+     */
+    public static StaticAsset of(String path, String contentType, byte[] bytes, String tag, boolean immutable) {
+        byte[] gzip = gzip(bytes);
+        return new StaticAsset(path, contentType, bytes, gzip.length < bytes.length ? gzip : null,
+                "\"" + tag + "\"", immutable);
+    }
+
+    /**
+     * Returns the Cache-Control header of this asset.
+     */
+    public String cacheControl() {
+        return immutable ? IMMUTABLE : REVALIDATE;
+    }
+
+    /**
+     * Returns the ETag of the given encoding, which differs per encoding as the bytes do.
+     */
+    public String etag(boolean gzipped) {
+        return gzipped ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+    }
+
+    /**
+     * Returns true if the If-None-Match header names this asset in any encoding.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(etag(true))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
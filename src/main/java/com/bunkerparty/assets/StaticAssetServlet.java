@@ -0,0 +1,89 @@
+package com.bunkerparty.assets;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the in-memory static assets: gzipped when the client accepts it, with a strong ETag, and with 304 Not
+ * Modified when the client already holds the current version.
+ */
+public class StaticAssetServlet extends HttpServlet {
+
+    private final StaticAssets assets;
+
+    /**
+     * Creates a servlet serving the given assets.
+     */
+    public StaticAssetServlet(StaticAssets assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        String method = req.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            res.setHeader("Allow", "GET, HEAD");
+            res.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        StaticAsset asset = assets.get(req.getRequestURI().substring(req.getContextPath().length()));
+        if (asset == null) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serve(asset, req, res, head);
+    }
+
+    /**
+     * Writes an asset, or 304 Not Modified if the request's If-None-Match names it.
+     */
+    public static void serve(StaticAsset asset, HttpServletRequest req, HttpServletResponse res, boolean head)
+            throws IOException {
+        boolean gzipped = asset.gzip() != null && acceptsGzip(req.getHeader("Accept-Encoding"));
+        res.setHeader("Cache-Control", asset.cacheControl());
+        res.setHeader("ETag", asset.etag(gzipped));
+        if (asset.gzip() != null) {
+            res.setHeader("Vary", "Accept-Encoding");
+        }
+        if (asset.matches(req.getHeader("If-None-Match"))) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzipped ? asset.gzip() : asset.bytes();
+        res.setContentType(asset.contentType());
+        if (gzipped) {
+            res.setHeader("Content-Encoding", "gzip");
+        }
+        res.setContentLength(body.length);
+        if (!head) {
+            res.getOutputStream().write(body);
+        }
+    }
+
+    /**
+     * Returns true if the Accept-Encoding header allows gzip, that is names it or * without q=0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
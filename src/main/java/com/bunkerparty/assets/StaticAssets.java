@@ -0,0 +1,187 @@
+package com.bunkerparty.assets;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * The static files of the client, read once at startup and held in memory. Every file except the pages is also
+ * served under a name with its content hash, e.g. /js/app.3fa2c81d09.js, that can be cached forever. Pages get an
+ * import map pointing every module at its hashed name, so the browser resolves the hashed names from the unchanged
+ * sources, and preload links for the modules.
+ */
+public final class StaticAssets {
+
+    private static final String INDEX = "/index.html";
+    private static final int HASH_CHARS = 10;
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "js", "text/javascript; charset=utf-8",
+            "json", "application/json; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "ico", "image/x-icon",
+            "txt", "text/plain; charset=utf-8");
+
+    private final Map<String, StaticAsset> assets;
+    private final Map<String, String> fingerprints;
+    private final int fileCount;
+    private final long bytes;
+    private final long gzipBytes;
+
+    private StaticAssets(Map<String, StaticAsset> assets, Map<String, String> fingerprints, int fileCount, long bytes,
+                         long gzipBytes) {
+        this.assets = assets;
+        this.fingerprints = fingerprints;
+        this.fileCount = fileCount;
+        this.bytes = bytes;
+        this.gzipBytes = gzipBytes;
+    }
+
+    /**
+     * Loads the files under the given classpath directory, whether it is a directory or inside a jar.
+     */
+    public static StaticAssets fromClasspath(String directory) {
+        return ClasspathDirectory.read(directory, StaticAssets::fromDirectory);
+    }
+
+    /**
+     * Loads the files under the given directory.
+     */
+    public static StaticAssets fromDirectory(Path root) throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                String path = "/" + root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                files.put(path, Files.readAllBytes(file));
+            }
+        }
+
+        Map<String, StaticAsset> assets = new HashMap<>();
+        Map<String, String> fingerprints = new TreeMap<>();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            String path = file.getKey();
+            if (isPage(path)) {
+                continue;
+            }
+            String hash = hash(file.getValue());
+            String hashed = fingerprint(path, hash.substring(0, HASH_CHARS));
+            StaticAsset asset = asset(path, file.getValue(), hash, false);
+            fingerprints.put(path, hashed);
+            assets.put(path, asset);
+            assets.put(hashed, new StaticAsset(hashed, asset.contentType(), asset.bytes(), asset.gzip(), asset.etag(),
+                    true));
+        }
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            String path = file.getKey();
+            if (isPage(path)) {
+                byte[] page = rewritePage(new String(file.getValue(), StandardCharsets.UTF_8), fingerprints)
+                        .getBytes(StandardCharsets.UTF_8);
+                StaticAsset asset = asset(path, page, hash(page), false);
+                assets.put(path, asset);
+                if (path.equals(INDEX)) {
+                    assets.put("/", asset);
+                }
+            }
+        }
+
+        long bytes = 0;
+        long gzipBytes = 0;
+        for (String path : files.keySet()) {
+            StaticAsset asset = assets.get(path);
+            bytes += asset.bytes().length;
+            gzipBytes += asset.gzip() != null ? asset.gzip().length : asset.bytes().length;
+        }
+        return new StaticAssets(Map.copyOf(assets), Collections.unmodifiableMap(fingerprints), files.size(), bytes,
+                gzipBytes);
+    }
+
+    /**
+     * Returns the asset served at the given path, or null.
+     */
+    public StaticAsset get(String path) {
+        return assets.get(path);
+    }
+
+    /**
+     * Returns the hashed name of every fingerprinted file by its source name.
+     */
+    public Map<String, String> getFingerprints() {
+        return fingerprints;
+    }
+
+    /**
+     * Returns the number of source files.
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Returns the total size of the source files, or of their smallest encodings if gzipped.
+     */
+    public long getTotalBytes(boolean gzipped) {
+        return gzipped ? gzipBytes : bytes;
+    }
+
+    private static boolean isPage(String path) {
+        return path.endsWith(".html");
+    }
+
+    private static StaticAsset asset(String path, byte[] bytes, String hash, boolean immutable) {
+        return StaticAsset.of(path, contentType(path), bytes, hash.substring(0, 2 * HASH_CHARS), immutable);
+    }
+
+    /**
+     * Adds the import map and module preloads to a page. The map must come before any module script, so it goes at
+     * the end of the head.
+     */
+    static String rewritePage(String html, Map<String, String> fingerprints) {
+        JsonObject imports = new JsonObject();
+        StringBuilder preloads = new StringBuilder();
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            String path = entry.getKey();
+            if (path.endsWith(".js")) {
+                imports.addProperty(path, entry.getValue());
+                preloads.append("    <link rel=\"modulepreload\" href=\"").append(entry.getValue()).append("\">\n");
+            }
+        }
+        JsonObject map = new JsonObject();
+        map.add("imports", imports);
+        String head = "    <script type=\"importmap\">" + map + "</script>\n" + preloads;
+        int end = html.indexOf("</head>");
+        return end < 0 ? head + html : html.substring(0, end) + head + html.substring(end);
+    }
+
+    static String fingerprint(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(0, dot) + "." + hash + path.substring(dot) : path + "." + hash;
+    }
+
+    private static String contentType(String path) {
+        int dot = path.lastIndexOf('.');
+        String type = dot < 0 ? null : CONTENT_TYPES.get(path.substring(dot + 1));
+        return type != null ? type : "application/octet-stream";
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.bunkerparty.cluster;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.io.IOException;
+
+/**
+ * Carries the traffic of clients whose room is owned by another node. Their messages are forwarded to the owner,
+ * which plays them through a session standing in for the client, so the owner encodes and broadcasts the room's
+ * updates once and the frames it writes to that session travel back to the client's node.
+ */
+public interface BroadcastBus {
+
+    /**
+     * Plays messages forwarded by peers as if their clients were connected here.
+     */
+    interface Receiver {
+
+        /**
+         * Handles a message a peer forwarded for one of its clients.
+         */
+        void onMessage(Session session, String message);
+
+        /**
+         * Releases the stand-in of a client that left the peer.
+         */
+        void onClose(Session session, int statusCode, String reason) throws Exception;
+    }
+
+    /**
+     * Starts accepting peers. Does nothing for a single node.
+     */
+    default void start() throws IOException {
+    }
+
+    /**
+     * Sets what plays the messages forwarded by peers. Does nothing for a single node.
+     */
+    default void setReceiver(Receiver receiver) {
+    }
+
+    /**
+     * Forwards a client's message to the node owning its room and returns true, or returns false if this bus does
+     * not reach that node, leaving the message to be answered here.
+     */
+    boolean forward(Session session, ClusterNode owner, String message);
+
+    /**
+     * Tells the nodes the session's messages were forwarded to that it closed.
+     */
+    default void release(Session session) {
+    }
+
+    /**
+     * Stops talking to peers. Does nothing for a single node.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,40 @@
+package com.bunkerparty.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A server instance of a multi-node deployment.
+ *
+ * @param id  name of the node, the same in every node's configuration
+ * @param url base URL clients use to reach the node, e.g. {@code https://node-a.example.com}
+ */
+public record ClusterNode(String id, String url) {
+
+    /**
+     * Parses a comma-separated list of {@code id=url} entries.
+     *
+     * @throws IllegalArgumentException if an entry has no id or URL, or an id appears twice
+     */
+    public static List<ClusterNode> parseAll(String spec) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            String id = eq > 0 ? entry.substring(0, eq).trim() : "";
+            String url = eq > 0 ? entry.substring(eq + 1).trim() : "";
+            if (id.isEmpty() || url.isEmpty()) {
+                throw new IllegalArgumentException("Expected id=url but got: " + entry.trim());
+            }
+            for (ClusterNode node : nodes) {
+                if (node.id().equals(id)) {
+                    throw new IllegalArgumentException("Duplicate node id: " + id);
+                }
+            }
+            nodes.add(new ClusterNode(id, url.endsWith("/") ? url.substring(0, url.length() - 1) : url));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bunkerparty.cluster;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+/**
+ * Bus of a node that does not talk to its peers. Every client plays on the node it is connected to, and a client
+ * joining another node's room is redirected there instead.
+ */
+public class LocalBroadcastBus implements BroadcastBus {
+
+    @Override
+    public boolean forward(Session session, ClusterNode owner, String message) {
+        return false;
+    }
+}
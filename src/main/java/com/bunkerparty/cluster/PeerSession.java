@@ -0,0 +1,247 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.websocket.helpers.RelayedSession;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.CloseStatus;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.UpgradeResponse;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stands in on a room's owner for a client connected to another node. Text written to it travels over the bus to
+ * the client's node, which sends it on to the client; closing it closes the client there.
+ */
+final class PeerSession implements RelayedSession, RemoteEndpoint {
+
+    private final TcpBroadcastBus bus;
+    private final String peer;
+    private final long connection;
+    private final InetSocketAddress remoteAddress;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+
+    PeerSession(TcpBroadcastBus bus, String peer, long connection, InetSocketAddress remoteAddress) {
+        this.bus = bus;
+        this.peer = peer;
+        this.connection = connection;
+        this.remoteAddress = remoteAddress;
+    }
+
+    String getPeer() {
+        return peer;
+    }
+
+    long getConnection() {
+        return connection;
+    }
+
+    /**
+     * Marks the session closed and returns true, or false if it already was.
+     */
+    boolean markClosed() {
+        return open.compareAndSet(true, false);
+    }
+
+    @Override
+    public void close() {
+        close(StatusCode.NORMAL, null);
+    }
+
+    @Override
+    public void close(CloseStatus closeStatus) {
+        close(closeStatus.getCode(), closeStatus.getPhrase());
+    }
+
+    @Override
+    public void close(int statusCode, String reason) {
+        bus.closeStandIn(this, statusCode, reason);
+    }
+
+    @Override
+    public void disconnect() {
+        close(StatusCode.ABNORMAL, "disconnected");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    @Override
+    public RemoteEndpoint getRemote() {
+        return this;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public InetSocketAddress getInetSocketAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public boolean relayText(String text) {
+        return isOpen() && bus.sendFrame(peer, connection, null, text);
+    }
+
+    @Override
+    public boolean relayState(String key, String text) {
+        return isOpen() && bus.sendFrame(peer, connection, key, text);
+    }
+
+    @Override
+    public void sendString(String text, WriteCallback callback) {
+        if (isOpen() && bus.sendFrame(peer, connection, null, text)) {
+            callback.writeSuccess();
+        } else {
+            callback.writeFailed(new IOException("Link to node " + peer + " is full or closed"));
+        }
+    }
+
+    @Override
+    public void sendString(String text) throws IOException {
+        if (!isOpen() || !bus.sendFrame(peer, connection, null, text)) {
+            throw new IOException("Link to node " + peer + " is full or closed");
+        }
+    }
+
+    @Override
+    public Future<Void> sendStringByFuture(String text) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        sendString(text, new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable x) {
+                future.completeExceptionally(x);
+            }
+
+            @Override
+            public void writeSuccess() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void sendPing(ByteBuffer applicationData) {
+        // the client's node runs the heartbeat
+    }
+
+    @Override
+    public void sendPong(ByteBuffer applicationData) {
+        // the client's node runs the heartbeat
+    }
+
+    @Override
+    public void flush() {
+        // frames are flushed by the link's writer
+    }
+
+    @Override
+    public void sendBytes(ByteBuffer data) {
+        throw new UnsupportedOperationException("Only text frames are forwarded");
+    }
+
+    @Override
+    public Future<Void> sendBytesByFuture(ByteBuffer data) {
+        throw new UnsupportedOperationException("Only text frames are forwarded");
+    }
+
+    @Override
+    public void sendBytes(ByteBuffer data, WriteCallback callback) {
+        throw new UnsupportedOperationException("Only text frames are forwarded");
+    }
+
+    @Override
+    public void sendPartialBytes(ByteBuffer fragment, boolean isLast) {
+        throw new UnsupportedOperationException("Only text frames are forwarded");
+    }
+
+    @Override
+    public void sendPartialString(String fragment, boolean isLast) {
+        throw new UnsupportedOperationException("Only whole text frames are forwarded");
+    }
+
+    @Override
+    public BatchMode getBatchMode() {
+        return BatchMode.AUTO;
+    }
+
+    @Override
+    public void setBatchMode(BatchMode mode) {
+        // the link always batches
+    }
+
+    @Override
+    public int getMaxOutgoingFrames() {
+        return -1;
+    }
+
+    @Override
+    public void setMaxOutgoingFrames(int maxOutgoingFrames) {
+        // bounded by the link's queue
+    }
+
+    @Override
+    public long getIdleTimeout() {
+        return 0;
+    }
+
+    @Override
+    public void setIdleTimeout(long ms) {
+        // the client's node enforces idle timeouts
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public WebSocketPolicy getPolicy() {
+        return null;
+    }
+
+    @Override
+    public String getProtocolVersion() {
+        return "13";
+    }
+
+    @Override
+    public UpgradeRequest getUpgradeRequest() {
+        return null;
+    }
+
+    @Override
+    public UpgradeResponse getUpgradeResponse() {
+        return null;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public SuspendToken suspend() {
+        throw new UnsupportedOperationException("Forwarded sessions cannot be suspended");
+    }
+
+    @Override
+    public String toString() {
+        return "PeerSession[" + peer + "#" + connection + " " + remoteAddress + "]";
+    }
+}
@@ -0,0 +1,131 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.config.AppConfig;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * Decides which node of the deployment owns a room, using rendezvous hashing: every node scores the room code and
+ * the highest score wins. All nodes reach the same answer from the same node list without talking to each other,
+ * and adding or removing a node only moves the rooms that node wins or owned.
+ */
+@Singleton
+public class RoomOwnership {
+
+    private final List<ClusterNode> nodes;
+    private final ClusterNode self;
+    private final long[] seeds;
+
+    /**
+     * Creates the ownership of the configured deployment, or of this node alone if no node list is configured.
+     */
+    @Inject
+    public RoomOwnership() {
+        this(AppConfig.getClusterNodes(), AppConfig.getNodeId());
+    }
+
+    private RoomOwnership(String nodeSpec, String selfId) {
+        this(nodeSpec != null ? ClusterNode.parseAll(nodeSpec) : List.of(), selfId);
+    }
+
+    /**
+     * Creates the ownership over the given nodes as seen from the node with the given ID.
+     * An empty node list means a single node that owns every room.
+     *
+     * @throws IllegalArgumentException if the nodes do not include {@code selfId}
+     */
+    public RoomOwnership(List<ClusterNode> nodes, String selfId) {
+        if (nodes.isEmpty()) {
+            nodes = List.of(new ClusterNode(selfId != null ? selfId : "local", ""));
+            selfId = nodes.get(0).id();
+        }
+        this.nodes = List.copyOf(nodes);
+        this.seeds = new long[this.nodes.size()];
+        ClusterNode found = null;
+        for (int i = 0; i < seeds.length; i++) {
+            ClusterNode node = this.nodes.get(i);
+            seeds[i] = mix(hash(node.id()));
+            if (node.id().equals(selfId)) {
+                found = node;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("NODE_ID " + selfId + " is not one of the cluster nodes " + nodes);
+        }
+        this.self = found;
+    }
+
+    /**
+     * Returns the ownership of a single node that owns every room.
+     */
+    public static RoomOwnership standalone() {
+        return new RoomOwnership(List.of(), null);
+    }
+
+    /**
+     * Returns the node that owns the room with the given code.
+     */
+    public ClusterNode ownerOf(String roomId) {
+        if (seeds.length == 1) {
+            return self;
+        }
+        long room = hash(roomId);
+        int best = 0;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < seeds.length; i++) {
+            long score = mix(seeds[i] ^ room);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return nodes.get(best);
+    }
+
+    /**
+     * Returns true if this node owns the room with the given code.
+     */
+    public boolean isLocal(String roomId) {
+        return ownerOf(roomId) == self;
+    }
+
+    /**
+     * Returns this node.
+     */
+    public ClusterNode getSelf() {
+        return self;
+    }
+
+    /**
+     * Returns every node of the deployment, this one included.
+     */
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, so every JVM computes the same value.
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3's finalizer, spreading every input bit over the whole score.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
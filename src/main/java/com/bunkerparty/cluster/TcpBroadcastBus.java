@@ -0,0 +1,595 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broadcast bus between the nodes of a deployment over plain TCP.
+ * <p>
+ * A client may join a room owned by another node through the node it is connected to. That node forwards the
+ * client's messages for the room to the owner, which opens a {@link PeerSession} standing in for the client and
+ * plays the messages through it like those of a local session. The owner encodes the room's updates once, as for
+ * its own sessions, and the frames written to the stand-in travel back as they are. State frames carry their room
+ * key and are queued for the client like local ones, so the client's node conflates them if the client falls behind.
+ * <p>
+ * Each peer has one outbound connection whose writer thread drains everything queued into a single write, so
+ * traffic is batched under load without waiting when idle. A client's messages and a room's frames are queued in
+ * order and travel over one connection, so they arrive in the order they were sent. When a connection to a peer
+ * fails, the clients forwarded to it are closed so they reconnect, and the stand-ins it opened are released. Every
+ * node connects to every peer on start and pings idle connections, so a peer that goes away is noticed even while
+ * no traffic flows.
+ */
+@Singleton
+public class TcpBroadcastBus implements BroadcastBus {
+    private static final Logger logger = LoggerFactory.getLogger(TcpBroadcastBus.class);
+
+    private static final byte HELLO = 0;
+    private static final byte OPEN = 1;
+    private static final byte COMMAND = 2;
+    private static final byte FRAME = 3;
+    private static final byte LEFT = 4;
+    private static final byte CLOSED = 5;
+    private static final byte PING = 6;
+    private static final byte STATE = 7;
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final int MAX_BATCH = 1024;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long RECONNECT_MILLIS = 500;
+
+    private final WebSocketJsonSender sender;
+    private final String selfId;
+    private final Map<String, InetSocketAddress> addresses;
+    private final Map<Session, Forwarded> forwarded = new ConcurrentHashMap<>();
+    private final Map<Long, Session> clients = new ConcurrentHashMap<>();
+    private final AtomicLong nextConnection = new AtomicLong();
+    private final Map<String, Map<Long, PeerSession>> standIns = new ConcurrentHashMap<>();
+    private final Map<String, PeerLink> links = new ConcurrentHashMap<>();
+    private final List<Socket> inbound = new ArrayList<>();
+    private final LongAdder commandsForwarded = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Receiver receiver;
+    private volatile boolean closed;
+    private ServerSocket server;
+
+    /**
+     * Creates a bus between the nodes configured in CLUSTER_BUS.
+     */
+    @Inject
+    public TcpBroadcastBus(RoomOwnership ownership, WebSocketJsonSender sender) {
+        this(ownership, sender, parseAddresses(AppConfig.getClusterBus()));
+    }
+
+    /**
+     * Creates a bus between the nodes at the given addresses, keyed by node ID. This node listens on its own entry.
+     *
+     * @throws IllegalArgumentException if this node has no address
+     */
+    public TcpBroadcastBus(RoomOwnership ownership, WebSocketJsonSender sender,
+                           Map<String, InetSocketAddress> addresses) {
+        this.sender = sender;
+        this.selfId = ownership.getSelf().id();
+        this.addresses = Map.copyOf(addresses);
+        if (!addresses.containsKey(selfId)) {
+            throw new IllegalArgumentException("CLUSTER_BUS has no address for node " + selfId);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of {@code id=host:port} entries.
+     */
+    public static Map<String, InetSocketAddress> parseAddresses(String spec) {
+        Map<String, InetSocketAddress> addresses = new LinkedHashMap<>();
+        for (ClusterNode node : ClusterNode.parseAll(spec)) {
+            int colon = node.url().lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected host:port for node " + node.id() + ": " + node.url());
+            }
+            addresses.put(node.id(), new InetSocketAddress(node.url().substring(0, colon),
+                    Integer.parseInt(node.url().substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = new ServerSocket();
+        server.bind(addresses.get(selfId));
+        daemon("bus-accept-" + selfId, this::accept).start();
+        for (String peer : addresses.keySet()) {
+            if (!peer.equals(selfId)) {
+                link(peer);
+            }
+        }
+        logger.info("Broadcast bus of node {} listening on {}", selfId, server.getLocalSocketAddress());
+    }
+
+    @Override
+    public void setReceiver(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @Override
+    public boolean forward(Session session, ClusterNode owner, String message) {
+        if (owner.id().equals(selfId) || !addresses.containsKey(owner.id())) {
+            return false;
+        }
+        Forwarded client = forwarded.computeIfAbsent(session, s -> {
+            Forwarded created = new Forwarded(nextConnection.incrementAndGet());
+            clients.put(created.connection, s);
+            return created;
+        });
+        PeerLink link = link(owner.id());
+        boolean sent = (!client.owners.add(owner.id())
+                || link.offer(new Message(OPEN, client.connection, null, address(session))))
+                && link.offer(new Message(COMMAND, client.connection, null, message));
+        if (sent) {
+            commandsForwarded.increment();
+        } else {
+            session.close(StatusCode.TRY_AGAIN_LATER, "Node " + owner.id() + " is unavailable");
+        }
+        return true;
+    }
+
+    @Override
+    public void release(Session session) {
+        Forwarded client = forwarded.remove(session);
+        if (client == null) {
+            return;
+        }
+        clients.remove(client.connection);
+        for (String owner : client.owners) {
+            link(owner).offer(new Message(LEFT, client.connection, null, null));
+        }
+    }
+
+    /**
+     * Queues a frame written to a stand-in for the client's node, a state frame if it has a key, or returns false if
+     * the peer's queue is full.
+     */
+    boolean sendFrame(String peer, long connection, String key, String text) {
+        return link(peer).offer(key != null ? new Message(STATE, connection, key, text)
+                : new Message(FRAME, connection, null, text));
+    }
+
+    /**
+     * Closes a stand-in from this side: tells the client's node to close the client and releases the stand-in.
+     */
+    void closeStandIn(PeerSession standIn, int statusCode, String reason) {
+        if (standIn.markClosed()) {
+            link(standIn.getPeer()).offer(new Message(CLOSED, standIn.getConnection(), null, null));
+            released(standIn, statusCode, reason);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        closeQuietly(server);
+        for (PeerLink link : links.values()) {
+            link.close();
+        }
+        synchronized (inbound) {
+            inbound.forEach(TcpBroadcastBus::closeQuietly);
+            inbound.clear();
+        }
+    }
+
+    /**
+     * Returns the address this node listens on, once started.
+     */
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /**
+     * Returns how many client messages were forwarded to the rooms' owners.
+     */
+    public long getCommandsForwarded() {
+        return commandsForwarded.sum();
+    }
+
+    /**
+     * Returns how many sessions on this node have messages forwarded to another node.
+     */
+    public int getForwardedSessions() {
+        return forwarded.size();
+    }
+
+    /**
+     * Returns how many stand-ins this node holds for clients of other nodes.
+     */
+    public int getStandIns() {
+        int count = 0;
+        for (Map<Long, PeerSession> peer : standIns.values()) {
+            count += peer.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many frames were written to peers.
+     */
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    /**
+     * Returns how many frames were received from peers.
+     */
+    public long getFramesReceived() {
+        return framesReceived.sum();
+    }
+
+    /**
+     * Returns how many batched writes were made to peers.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns how many messages were dropped because a peer's queue was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private PeerLink link(String peer) {
+        return links.computeIfAbsent(peer, PeerLink::new);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (inbound) {
+                    inbound.add(socket);
+                }
+                daemon("bus-read-" + selfId, () -> read(socket)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Broadcast bus failed to accept a peer", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the messages of one peer's connection in the order they were sent. The stand-ins opened over the
+     * connection are released when it ends.
+     */
+    private void read(Socket socket) {
+        String peer = null;
+        Map<Long, PeerSession> opened = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(),
+                BUFFER_BYTES))) {
+            if (in.readByte() != HELLO) {
+                throw new IOException("Peer did not introduce itself");
+            }
+            peer = in.readUTF();
+            Map<Long, PeerSession> previous = standIns.put(peer, opened);
+            if (previous != null) {
+                releaseAll(previous, "Node reconnected");
+            }
+            while (!closed) {
+                byte type = in.readByte();
+                if (type == PING) {
+                    continue;
+                }
+                long connection = in.readLong();
+                String key = type == STATE ? in.readUTF() : null;
+                String text = hasText(type) ? readText(in) : null;
+                switch (type) {
+                    case OPEN -> opened.put(connection, new PeerSession(this, peer, connection, parseAddress(text)));
+                    case COMMAND -> {
+                        PeerSession standIn = opened.get(connection);
+                        Receiver current = receiver;
+                        if (standIn != null && standIn.isOpen() && current != null) {
+                            current.onMessage(standIn, text);
+                        }
+                    }
+                    case FRAME -> {
+                        framesReceived.increment();
+                        Session client = clients.get(connection);
+                        if (client != null) {
+                            sender.sendText(client, text);
+                        }
+                    }
+                    case STATE -> {
+                        framesReceived.increment();
+                        Session client = clients.get(connection);
+                        if (client != null) {
+                            sender.sendState(client, key, text);
+                        }
+                    }
+                    case LEFT -> {
+                        PeerSession standIn = opened.remove(connection);
+                        if (standIn != null && standIn.markClosed()) {
+                            released(standIn, StatusCode.NORMAL, "Client left node " + peer);
+                        }
+                    }
+                    case CLOSED -> {
+                        Session client = clients.get(connection);
+                        if (client != null) {
+                            client.close(StatusCode.NORMAL, "Closed by node " + peer);
+                        }
+                    }
+                    default -> throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            logger.debug("Broadcast bus peer {} disconnected", peer);
+        } catch (IOException e) {
+            logger.warn("Broadcast bus connection from {} failed", peer, e);
+        } finally {
+            synchronized (inbound) {
+                inbound.remove(socket);
+            }
+            closeQuietly(socket);
+            if (peer != null) {
+                standIns.remove(peer, opened);
+                releaseAll(opened, "Node " + peer + " disconnected");
+                closeClients(peer);
+            }
+        }
+    }
+
+    /**
+     * Releases the given stand-ins after their client's node went away.
+     */
+    private void releaseAll(Map<Long, PeerSession> opened, String reason) {
+        for (PeerSession standIn : opened.values()) {
+            if (standIn.markClosed()) {
+                released(standIn, StatusCode.SHUTDOWN, reason);
+            }
+        }
+        opened.clear();
+    }
+
+    /**
+     * Closes the clients forwarded to a peer that can no longer be reached, so they reconnect and rejoin.
+     */
+    private void closeClients(String peer) {
+        if (closed) {
+            return;
+        }
+        forwarded.forEach((session, client) -> {
+            if (client.owners.contains(peer)) {
+                session.close(StatusCode.TRY_AGAIN_LATER, "Node " + peer + " is unavailable");
+            }
+        });
+    }
+
+    private void released(PeerSession standIn, int statusCode, String reason) {
+        Receiver current = receiver;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.onClose(standIn, statusCode, reason);
+        } catch (Exception e) {
+            logger.warn("Failed to release {}", standIn, e);
+        }
+    }
+
+    private static boolean hasText(byte type) {
+        return type == OPEN || type == COMMAND || type == FRAME || type == STATE;
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the client's address as {@code ip:port}, which the owner rate-limits by, or an empty string.
+     */
+    private static String address(Session session) {
+        InetSocketAddress address = session.getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return "";
+        }
+        return address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    private static InetSocketAddress parseAddress(String text) {
+        int colon = text.lastIndexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        try {
+            return new InetSocketAddress(InetAddress.getByName(text.substring(0, colon)),
+                    Integer.parseInt(text.substring(colon + 1)));
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // closing anyway
+        }
+    }
+
+    private record Message(byte type, long connection, String key, String text) {
+    }
+
+    /**
+     * A session on this node and the peers its messages were forwarded to.
+     */
+    private static final class Forwarded {
+        private final long connection;
+        private final Set<String> owners = ConcurrentHashMap.newKeySet();
+
+        private Forwarded(long connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * The outbound connection to one peer and the writer thread that batches its queue.
+     */
+    private final class PeerLink {
+        private final String peer;
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile Socket socket;
+
+        private PeerLink(String peer) {
+            this.peer = peer;
+            daemon("bus-write-" + selfId + "-" + peer, this::run).start();
+        }
+
+        private boolean offer(Message message) {
+            if (queue.offer(message)) {
+                return true;
+            }
+            dropped.increment();
+            return false;
+        }
+
+        private void run() {
+            List<Message> batch = new ArrayList<>(MAX_BATCH);
+            while (!closed) {
+                Socket connected = connect();
+                if (connected == null) {
+                    return;
+                }
+                try (connected) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream(),
+                            BUFFER_BYTES));
+                    out.writeByte(HELLO);
+                    out.writeUTF(selfId);
+                    out.flush();
+                    while (!closed) {
+                        Message first = queue.poll(RECONNECT_MILLIS, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            out.writeByte(PING);
+                            out.flush();
+                            continue;
+                        }
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_BATCH - 1);
+                        int frames = 0;
+                        for (Message message : batch) {
+                            write(out, message);
+                            if (message.type() == FRAME || message.type() == STATE) {
+                                frames++;
+                            }
+                        }
+                        out.flush();
+                        batch.clear();
+                        framesSent.add(frames);
+                        batches.increment();
+                    }
+                } catch (IOException e) {
+                    batch.clear();
+                    if (!closed) {
+                        logger.debug("Broadcast bus link to {} failed; reconnecting", peer, e);
+                        Map<Long, PeerSession> opened = standIns.get(peer);
+                        if (opened != null) {
+                            releaseAll(opened, "Node " + peer + " unreachable");
+                        }
+                        closeClients(peer);
+                        pause();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Connects to the peer, retrying until it is reachable, or returns null once the bus is closed.
+         */
+        private Socket connect() {
+            while (!closed) {
+                Socket connected = new Socket();
+                try {
+                    connected.setTcpNoDelay(true);
+                    connected.connect(addresses.get(peer));
+                    socket = connected;
+                    return connected;
+                } catch (IOException e) {
+                    closeQuietly(connected);
+                    pause();
+                }
+            }
+            return null;
+        }
+
+        private void write(DataOutputStream out, Message message) throws IOException {
+            out.writeByte(message.type());
+            out.writeLong(message.connection());
+            if (message.type() == STATE) {
+                out.writeUTF(message.key());
+            }
+            if (hasText(message.type())) {
+                byte[] text = message.text().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+
+        private void pause() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            closeQuietly(socket);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.bunkerparty.config;
 
+import com.bunkerparty.websocket.command.CommandDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 public class AppConfig {
     private static final int DEFAULT_PORT = 8000;
     private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
@@ -11,14 +14,342 @@ public class AppConfig {
      * Returns the port number to run the server on, from PORT env var or 8000 by default.
      */
     public static int getPort() {
-        String portEnv = System.getenv("PORT");
-        if (portEnv != null) {
+        return getInt("PORT", DEFAULT_PORT);
+    }
+
+    /**
+     * Returns the number of single-threaded room shards, from ROOM_SHARDS env var. Defaults to the CPU count,
+     * or to 256 with virtual threads, where a shard blocked on I/O should hold up as few rooms as possible.
+     */
+    public static int getRoomShards() {
+        int defaultShards = isVirtualThreads() ? 256 : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, getInt("ROOM_SHARDS", defaultShards));
+    }
+
+    /**
+     * Returns true if room shards should run on virtual threads, from VIRTUAL_THREADS=true.
+     * Ignored with a warning on JVMs older than Java 21.
+     */
+    public static boolean isVirtualThreads() {
+        return "true".equalsIgnoreCase(System.getenv("VIRTUAL_THREADS"));
+    }
+
+    /**
+     * Returns the most threads of the HTTP and WebSocket worker pool, from HTTP_MAX_THREADS or 200.
+     */
+    public static int getHttpMaxThreads() {
+        return Math.max(4, getInt("HTTP_MAX_THREADS", 200));
+    }
+
+    /**
+     * Returns the threads the worker pool keeps when idle, from HTTP_MIN_THREADS or 8.
+     */
+    public static int getHttpMinThreads() {
+        return Math.max(1, Math.min(getHttpMaxThreads(), getInt("HTTP_MIN_THREADS", 8)));
+    }
+
+    /**
+     * Returns how long a worker thread above the minimum may stay idle before it exits, from HTTP_THREAD_IDLE_MS
+     * or 60000.
+     */
+    public static int getHttpThreadIdleMillis() {
+        return Math.max(1000, getInt("HTTP_THREAD_IDLE_MS", 60_000));
+    }
+
+    /**
+     * Returns the address the HTTP connector binds to, from HTTP_HOST or every interface by default.
+     */
+    public static String getHttpHost() {
+        String host = System.getenv("HTTP_HOST");
+        return host == null || host.isBlank() ? "0.0.0.0" : host;
+    }
+
+    /**
+     * Returns the number of acceptor threads of the HTTP connector, from HTTP_ACCEPTORS, or -1 to let Jetty pick
+     * from the CPU count.
+     */
+    public static int getHttpAcceptors() {
+        int acceptors = getInt("HTTP_ACCEPTORS", -1);
+        return acceptors > 0 ? acceptors : -1;
+    }
+
+    /**
+     * Returns the number of selector threads of the HTTP connector, from HTTP_SELECTORS, or -1 to let Jetty pick
+     * from the CPU count.
+     */
+    public static int getHttpSelectors() {
+        int selectors = getInt("HTTP_SELECTORS", -1);
+        return selectors > 0 ? selectors : -1;
+    }
+
+    /**
+     * Returns the length of the queue of connections waiting to be accepted, from HTTP_ACCEPT_QUEUE, or 0 for the
+     * operating system's default.
+     */
+    public static int getHttpAcceptQueue() {
+        return Math.max(0, getInt("HTTP_ACCEPT_QUEUE", 0));
+    }
+
+    /**
+     * Returns how long an HTTP connection may stay idle before it is closed, from HTTP_IDLE_TIMEOUT_MS or 30000.
+     */
+    public static long getHttpIdleTimeoutMillis() {
+        return Math.max(1000, getInt("HTTP_IDLE_TIMEOUT_MS", 30_000));
+    }
+
+    /**
+     * Returns the size of the buffer HTTP responses are written through, from HTTP_OUTPUT_BUFFER_BYTES or 32768.
+     */
+    public static int getHttpOutputBufferBytes() {
+        return Math.max(1024, getInt("HTTP_OUTPUT_BUFFER_BYTES", 32 * 1024));
+    }
+
+    /**
+     * Returns the largest accepted HTTP request header, WebSocket upgrades included, from HTTP_REQUEST_HEADER_BYTES
+     * or 8192.
+     */
+    public static int getHttpRequestHeaderBytes() {
+        return Math.max(1024, getInt("HTTP_REQUEST_HEADER_BYTES", 8 * 1024));
+    }
+
+    /**
+     * Returns how long a WebSocket connection may stay silent before it is closed, from WS_IDLE_TIMEOUT_MS or 300000.
+     * Never shorter than the heartbeat interval, since the heartbeat keeps healthy connections busy.
+     */
+    public static long getWebSocketIdleTimeoutMillis() {
+        return Math.max(getHeartbeatIntervalMillis(), getInt("WS_IDLE_TIMEOUT_MS", 300_000));
+    }
+
+    /**
+     * Returns the largest WebSocket text message accepted before the connection is closed, from
+     * WS_MAX_MESSAGE_BYTES or the command decoder's frame limit. Larger limits let the decoder count oversized
+     * frames instead.
+     */
+    public static int getWebSocketMaxMessageBytes() {
+        return Math.max(256, getInt("WS_MAX_MESSAGE_BYTES", CommandDecoder.MAX_FRAME_CHARS));
+    }
+
+    /**
+     * Returns the size of the buffer each WebSocket connection reads into, from WS_INPUT_BUFFER_BYTES or 4096.
+     */
+    public static int getWebSocketInputBufferBytes() {
+        return Math.max(512, getInt("WS_INPUT_BUFFER_BYTES", 4096));
+    }
+
+    /**
+     * Returns how long an asynchronous WebSocket write may take before it fails, from WS_WRITE_TIMEOUT_MS or 60000.
+     */
+    public static long getWebSocketWriteTimeoutMillis() {
+        return Math.max(1000, getInt("WS_WRITE_TIMEOUT_MS", 60_000));
+    }
+
+    /**
+     * Returns true if WebSocket messages may be compressed with permessage-deflate when the client offers it,
+     * from WS_DEFLATE; on by default. Each compressing connection holds its own zlib state.
+     */
+    public static boolean isWebSocketDeflate() {
+        return !"false".equalsIgnoreCase(System.getenv("WS_DEFLATE"));
+    }
+
+    /**
+     * Returns how long a lobby may stay without activity before it is evicted, from LOBBY_TTL_MINUTES or 30.
+     */
+    public static long getLobbyTtlMillis() {
+        return TimeUnit.MINUTES.toMillis(getInt("LOBBY_TTL_MINUTES", 30));
+    }
+
+    /**
+     * Returns how long a finished game is kept before it is evicted, from GAME_OVER_TTL_MINUTES or 10.
+     */
+    public static long getGameOverTtlMillis() {
+        return TimeUnit.MINUTES.toMillis(getInt("GAME_OVER_TTL_MINUTES", 10));
+    }
+
+    /**
+     * Returns how long a room may have every player offline before it is evicted, from OFFLINE_TTL_MINUTES or 15.
+     */
+    public static long getOfflineTtlMillis() {
+        return TimeUnit.MINUTES.toMillis(getInt("OFFLINE_TTL_MINUTES", 15));
+    }
+
+    /**
+     * Returns the window in which repeated updates of a room are merged into one broadcast,
+     * from BROADCAST_COALESCE_MS or 0 (every update is broadcast immediately).
+     */
+    public static int getBroadcastCoalesceMillis() {
+        return Math.max(0, getInt("BROADCAST_COALESCE_MS", 0));
+    }
+
+    /**
+     * Returns how many frames may wait in one session's outbound queue, from OUTBOUND_MAX_FRAMES or 64.
+     */
+    public static int getOutboundMaxFrames() {
+        return Math.max(1, getInt("OUTBOUND_MAX_FRAMES", 64));
+    }
+
+    /**
+     * Returns how many characters may wait in one session's outbound queue, from OUTBOUND_MAX_KB or 1024 KB.
+     */
+    public static long getOutboundMaxBytes() {
+        return Math.max(1, getInt("OUTBOUND_MAX_KB", 1024)) * 1024L;
+    }
+
+    /**
+     * Returns how long a session's backlog may stay over its limits before the session is closed,
+     * from SLOW_CONSUMER_GRACE_MS or 5000.
+     */
+    public static long getSlowConsumerGraceMillis() {
+        return Math.max(0, getInt("SLOW_CONSUMER_GRACE_MS", 5000));
+    }
+
+    /**
+     * Returns how often the server pings each WebSocket session, from HEARTBEAT_INTERVAL_MS or 15000.
+     */
+    public static long getHeartbeatIntervalMillis() {
+        return Math.max(1000, getInt("HEARTBEAT_INTERVAL_MS", 15000));
+    }
+
+    /**
+     * Returns how long a session may go without answering a ping before it is disconnected,
+     * from HEARTBEAT_TIMEOUT_MS or 45000.
+     */
+    public static long getHeartbeatTimeoutMillis() {
+        return Math.max(getHeartbeatIntervalMillis(), getInt("HEARTBEAT_TIMEOUT_MS", 45000));
+    }
+
+    /**
+     * Returns true if ROOM_CODE_FORMAT is "alphanumeric", selecting five-symbol codes with a check symbol
+     * instead of the default four digits.
+     */
+    public static boolean isAlphanumericRoomCodes() {
+        return "alphanumeric".equalsIgnoreCase(System.getenv("ROOM_CODE_FORMAT"));
+    }
+
+    /**
+     * Returns the rate limit for a message type from RATE_LIMIT_{TYPE}, e.g. RATE_LIMIT_DISCARD=10/60
+     * for a burst of 10 messages refilled at 60 per minute, or null if unset.
+     */
+    public static String getRateLimit(String type) {
+        return System.getenv("RATE_LIMIT_" + type.toUpperCase());
+    }
+
+    /**
+     * Returns how many times a session's rate limits one remote address may use in total,
+     * from RATE_LIMIT_IP_FACTOR or 4.
+     */
+    public static int getRateLimitAddressFactor() {
+        return Math.max(1, getInt("RATE_LIMIT_IP_FACTOR", 4));
+    }
+
+    /**
+     * Returns true if TRUST_FORWARDED_FOR is "true", keying per-address rate limits by the first
+     * X-Forwarded-For entry. Enable only behind a reverse proxy that sets the header.
+     */
+    public static boolean isTrustForwardedFor() {
+        return "true".equalsIgnoreCase(System.getenv("TRUST_FORWARDED_FOR"));
+    }
+
+    /**
+     * Returns the directory of the card catalog's locale files from CATALOG_DIR, or null to read the bundled
+     * public/data files.
+     */
+    public static String getCatalogDir() {
+        String dir = System.getenv("CATALOG_DIR");
+        return dir == null || dir.isBlank() ? null : dir;
+    }
+
+    /**
+     * Returns the directory rooms are persisted to from PERSISTENCE_DIR, or null to keep rooms in memory only.
+     */
+    public static String getPersistenceDir() {
+        String dir = System.getenv("PERSISTENCE_DIR");
+        return dir == null || dir.isBlank() ? null : dir;
+    }
+
+    /**
+     * Returns the log fsync policy from WAL_FSYNC (always, group or periodic), or null if unset.
+     */
+    public static String getWalFsync() {
+        return System.getenv("WAL_FSYNC");
+    }
+
+    /**
+     * Returns how often the log is forced to disk under the periodic policy, from WAL_FSYNC_INTERVAL_MS or 100.
+     */
+    public static long getWalFsyncIntervalMillis() {
+        return Math.max(1, getInt("WAL_FSYNC_INTERVAL_MS", 100));
+    }
+
+    /**
+     * Returns the size of each log segment from WAL_SEGMENT_MB or 16 MB.
+     */
+    public static int getWalSegmentBytes() {
+        return Math.max(1, Math.min(1024, getInt("WAL_SEGMENT_MB", 16))) * 1024 * 1024;
+    }
+
+    /**
+     * Returns how often all rooms are snapshotted, from SNAPSHOT_INTERVAL_SECONDS or 60.
+     */
+    public static long getSnapshotIntervalMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(1, getInt("SNAPSHOT_INTERVAL_SECONDS", 60)));
+    }
+
+    /**
+     * Returns the window over which draining clients are told to reconnect, from DRAIN_JITTER_MS or 5000.
+     */
+    public static long getDrainJitterMillis() {
+        return Math.max(0, getInt("DRAIN_JITTER_MS", 5000));
+    }
+
+    /**
+     * Returns how long a drain waits for clients to disconnect before closing them, from DRAIN_TIMEOUT_MS or 10000.
+     */
+    public static long getDrainTimeoutMillis() {
+        return Math.max(0, getInt("DRAIN_TIMEOUT_MS", 10_000));
+    }
+
+    /**
+     * Returns the bearer token for the admin endpoints from ADMIN_TOKEN, or null to leave them disabled.
+     */
+    public static String getAdminToken() {
+        String token = System.getenv("ADMIN_TOKEN");
+        return token == null || token.isBlank() ? null : token;
+    }
+
+    /**
+     * Returns the nodes of a multi-node deployment from CLUSTER_NODES as comma-separated {@code id=url} entries,
+     * or null to run a single node.
+     */
+    public static String getClusterNodes() {
+        String nodes = System.getenv("CLUSTER_NODES");
+        return nodes == null || nodes.isBlank() ? null : nodes;
+    }
+
+    /**
+     * Returns which of the CLUSTER_NODES this instance is, from NODE_ID.
+     */
+    public static String getNodeId() {
+        return System.getenv("NODE_ID");
+    }
+
+    /**
+     * Returns the broadcast bus addresses of the nodes from CLUSTER_BUS as comma-separated {@code id=host:port}
+     * entries, or null to deliver updates to local sessions only.
+     */
+    public static String getClusterBus() {
+        String bus = System.getenv("CLUSTER_BUS");
+        return bus == null || bus.isBlank() ? null : bus;
+    }
+
+    private static int getInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value != null) {
             try {
-                return Integer.parseInt(portEnv);
+                return Integer.parseInt(value);
             } catch (NumberFormatException e) {
-                logger.warn("Invalid PORT env var: {}", portEnv);
+                logger.warn("Invalid {} env var: {}", name, value);
             }
         }
-        return DEFAULT_PORT;
+        return defaultValue;
     }
 }
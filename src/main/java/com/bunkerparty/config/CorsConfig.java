@@ -1,20 +1,58 @@
 package com.bunkerparty.config;
 
-import static spark.Spark.before;
-import static spark.Spark.options;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
 
 public class CorsConfig {
 
     /**
-     * Enables CORS for all routes.
+     * Enables CORS for the given paths of the context. Static files are same-origin and skip the filter.
+     */
+    public static void enable(ServletContextHandler context, Collection<String> paths) {
+        FilterHolder holder = new FilterHolder(new CorsFilter());
+        for (String path : paths) {
+            context.addFilter(holder, path, EnumSet.of(DispatcherType.REQUEST));
+        }
+    }
+
+    /**
+     * Adds the CORS headers to every response and answers preflight requests itself.
      */
-    public static void enable() {
-        before((req, res) -> {
-            res.header("Access-Control-Allow-Origin", "*");
-            res.header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            res.header("Access-Control-Allow-Headers", "Content-Type, Authorization");
-        });
-
-        options("/*", (req, res) -> "OK");
+    private static final class CorsFilter implements Filter {
+
+        @Override
+        public void init(FilterConfig config) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            HttpServletResponse res = (HttpServletResponse) response;
+            res.setHeader("Access-Control-Allow-Origin", "*");
+            res.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+            res.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
+            if ("OPTIONS".equals(((HttpServletRequest) request).getMethod())) {
+                res.getWriter().write("OK");
+                return;
+            }
+            chain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.bunkerparty.config;
+
+/**
+ * Network tunables of one server instance: the HTTP connector, its worker pool and the WebSocket endpoint.
+ */
+public record ServerSettings(String host, int port, int acceptors, int selectors, int acceptQueue,
+                             int minThreads, int maxThreads, int threadIdleMillis, long httpIdleTimeoutMillis,
+                             int outputBufferBytes, int requestHeaderBytes, long webSocketIdleTimeoutMillis,
+                             int webSocketMaxMessageBytes, int webSocketInputBufferBytes,
+                             long webSocketWriteTimeoutMillis, boolean deflate) {
+
+    /**
+     * Returns the settings from the application configuration.
+     */
+    public static ServerSettings fromConfig() {
+        return new ServerSettings(AppConfig.getHttpHost(), AppConfig.getPort(), AppConfig.getHttpAcceptors(),
+                AppConfig.getHttpSelectors(), AppConfig.getHttpAcceptQueue(), AppConfig.getHttpMinThreads(),
+                AppConfig.getHttpMaxThreads(), AppConfig.getHttpThreadIdleMillis(),
+                AppConfig.getHttpIdleTimeoutMillis(), AppConfig.getHttpOutputBufferBytes(),
+                AppConfig.getHttpRequestHeaderBytes(), AppConfig.getWebSocketIdleTimeoutMillis(),
+                AppConfig.getWebSocketMaxMessageBytes(), AppConfig.getWebSocketInputBufferBytes(),
+                AppConfig.getWebSocketWriteTimeoutMillis(),
+                AppConfig.isWebSocketDeflate());
+    }
+
+    /**
+     * Returns these settings listening on the given port, or a free one if 0.
+     */
+    public ServerSettings withPort(int port) {
+        return new ServerSettings(host, port, acceptors, selectors, acceptQueue, minThreads, maxThreads,
+                threadIdleMillis, httpIdleTimeoutMillis, outputBufferBytes, requestHeaderBytes,
+                webSocketIdleTimeoutMillis, webSocketMaxMessageBytes, webSocketInputBufferBytes,
+                webSocketWriteTimeoutMillis, deflate);
+    }
+}
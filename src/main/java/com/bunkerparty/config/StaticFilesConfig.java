@@ -1,22 +1,34 @@
 package com.bunkerparty.config;
 
+import com.bunkerparty.assets.StaticAssetServlet;
+import com.bunkerparty.assets.StaticAssets;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static spark.Spark.staticFiles;
-
 public final class StaticFilesConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(StaticFilesConfig.class);
+    private static final String DIRECTORY = "/public";
 
     private StaticFilesConfig() {
     }
 
     /**
-     * Configures Spark to serve static files from the /public classpath directory.
+     * Serves the files of the /public classpath directory, fingerprinted and compressed in memory, for every path no
+     * other servlet handles.
+     */
+    public static void configure(ServletContextHandler context) {
+        configure(context, StaticAssets.fromClasspath(DIRECTORY));
+    }
+
+    /**
+     * Serves the given assets for every path no other servlet handles.
      */
-    public static void configure() {
-        staticFiles.location("/public");
-        logger.info("Serving static files from classpath: /public");
+    public static void configure(ServletContextHandler context, StaticAssets assets) {
+        context.addServlet(new ServletHolder("static", new StaticAssetServlet(assets)), "/");
+        logger.info("Serving {} static files from classpath {} ({} KB, {} KB gzipped)", assets.getFileCount(),
+                DIRECTORY, assets.getTotalBytes(false) / 1024, assets.getTotalBytes(true) / 1024);
     }
 }
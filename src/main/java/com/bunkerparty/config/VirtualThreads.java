@@ -0,0 +1,50 @@
+package com.bunkerparty.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the JVM has them. The application is compiled for Java 17, so the Java 21 API is
+ * looked up reflectively and callers fall back to platform threads on older JVMs.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = lookup();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true if this JVM supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory of virtual threads named with the given prefix and a counter starting at 0.
+     *
+     * @throws UnsupportedOperationException if this JVM has no virtual threads
+     */
+    public static ThreadFactory factory(String prefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread factory", e);
+        }
+    }
+
+    private static Method lookup() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
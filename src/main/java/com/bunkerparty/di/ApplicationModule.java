@@ -1,9 +1,30 @@
 package com.bunkerparty.di;
 
-
+import com.bunkerparty.cluster.BroadcastBus;
+import com.bunkerparty.cluster.LocalBroadcastBus;
+import com.bunkerparty.cluster.RoomOwnership;
+import com.bunkerparty.cluster.TcpBroadcastBus;
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.metrics.MetricsRegistry;
+import com.bunkerparty.persistence.EventLog;
+import com.bunkerparty.persistence.RoomJournal;
+import com.bunkerparty.persistence.RoomPersistence;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.DrainCoordinator;
 import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.InMemoryRoomStore;
+import com.bunkerparty.service.RoomExecutor;
 import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.RoomStore;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
 import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 import java.util.Random;
@@ -16,8 +37,29 @@ public class ApplicationModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(Random.class).toInstance(new Random());
+        bind(RoomStore.class).to(InMemoryRoomStore.class).in(Scopes.SINGLETON);
+        bind(RoomOwnership.class).in(Scopes.SINGLETON);
+        if (AppConfig.getClusterBus() != null) {
+            bind(BroadcastBus.class).to(TcpBroadcastBus.class).in(Scopes.SINGLETON);
+        } else {
+            bind(BroadcastBus.class).to(LocalBroadcastBus.class).in(Scopes.SINGLETON);
+        }
+        bind(CardCatalog.class).in(Scopes.SINGLETON);
         bind(RoomManager.class).in(Scopes.SINGLETON);
         bind(GameService.class).in(Scopes.SINGLETON);
+        bind(RoomExecutor.class).in(Scopes.SINGLETON);
+        bind(RoomReaper.class).in(Scopes.SINGLETON);
+        bind(SessionRegistry.class).in(Scopes.SINGLETON);
         bind(WebSocketJsonSender.class).in(Scopes.SINGLETON);
+        bind(OutboundCodec.class).to(StreamingOutboundCodec.class).in(Scopes.SINGLETON);
+        bind(CommandDecoder.class).in(Scopes.SINGLETON);
+        bind(RateLimiter.class).in(Scopes.SINGLETON);
+        bind(HeartbeatMonitor.class).in(Scopes.SINGLETON);
+        bind(MetricsRegistry.class).in(Scopes.SINGLETON);
+        bind(GameMetrics.class).in(Scopes.SINGLETON);
+        bind(EventLog.class).in(Scopes.SINGLETON);
+        bind(RoomJournal.class).to(EventLog.class);
+        bind(RoomPersistence.class).in(Scopes.SINGLETON);
+        bind(DrainCoordinator.class).in(Scopes.SINGLETON);
     }
 }
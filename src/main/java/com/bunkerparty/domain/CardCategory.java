@@ -0,0 +1,54 @@
+package com.bunkerparty.domain;
+
+import java.util.List;
+
+/**
+ * The character card categories dealt to every player, with the wire key of each. Deck sizes come from the
+ * {@link CatalogSnapshot}.
+ */
+public enum CardCategory {
+    PROFESSION("profession"),
+    HEALTH("health"),
+    AGE("age"),
+    GENDER("gender"),
+    HOBBY("hobby"),
+    PHOBIA("phobia"),
+    ITEM("item");
+
+    /**
+     * All categories in ordinal order, without the array copy of {@link #values()}.
+     */
+    public static final List<CardCategory> ALL = List.of(values());
+
+    private final String key;
+
+    CardCategory(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the key used for this category in messages and translations.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the category with the given key, or null if there is none.
+     */
+    public static CardCategory fromKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        return switch (key) {
+            case "profession" -> PROFESSION;
+            case "health" -> HEALTH;
+            case "age" -> AGE;
+            case "gender" -> GENDER;
+            case "hobby" -> HOBBY;
+            case "phobia" -> PHOBIA;
+            case "item" -> ITEM;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.bunkerparty.domain;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One immutable version of the card and bunker catalog: the deck size of every category by ordinal, the number of
+ * bunker events and the locale documents the client renders them from. A room keeps the version its game was dealt
+ * from, so reloading the catalog never changes a game in progress.
+ */
+public final class CatalogSnapshot {
+
+    private final String version;
+    private final int[] counts;
+    private final int bunkerCount;
+    private final Map<String, byte[]> documents;
+
+    /**
+     * Creates a snapshot with the deck sizes indexed by category ordinal and a JSON document per language.
+     */
+    public CatalogSnapshot(String version, int[] counts, int bunkerCount, Map<String, byte[]> documents) {
+        if (counts.length != CardCategory.ALL.size()) {
+            throw new IllegalArgumentException("Expected " + CardCategory.ALL.size() + " deck sizes");
+        }
+        this.version = version;
+        this.counts = counts.clone();
+        this.bunkerCount = bunkerCount;
+        this.documents = Map.copyOf(documents);
+    }
+
+    /**
+     * Returns the version, a hash of the catalog's contents.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the categories dealt from this catalog.
+     */
+    public List<CardCategory> getCategories() {
+        return CardCategory.ALL;
+    }
+
+    /**
+     * Returns the number of cards in a category's deck.
+     */
+    public int getCount(CardCategory category) {
+        return counts[category.ordinal()];
+    }
+
+    /**
+     * Returns the number of bunker events.
+     */
+    public int getBunkerCount() {
+        return bunkerCount;
+    }
+
+    /**
+     * Returns the languages with a document.
+     */
+    public Set<String> getLanguages() {
+        return documents.keySet();
+    }
+
+    /**
+     * Returns the JSON document of a language, or null if there is none. The array must not be modified.
+     */
+    public byte[] getDocument(String language) {
+        return documents.get(language);
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogSnapshot{version=" + version + ", counts=" + Arrays.toString(counts) + ", bunkers="
+                + bunkerCount + ", languages=" + documents.keySet() + "}";
+    }
+}
@@ -2,16 +2,28 @@ package com.bunkerparty.domain;
 
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.util.*;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class Player {
     private final String id;
     private final String token;
     private String name;
     private Session session;
-    private Map<String, Integer> characterIndices;
-    private final Map<String, Integer> revealedIndices;
-    private final Set<String> usedKeys;
+    private static final byte NO_CARD = -1;
+
+    private final byte[] cards = new byte[CardCategory.ALL.size()];
+    private int dealtMask;
+    private int revealedMask;
+    private final Map<String, Integer> characterView = new CardView(true);
+    private final Map<String, Integer> revealedView = new CardView(false);
+    private String cardsJson;
+    private long syncedVersion;
+    private boolean cardsSynced;
     private boolean online;
     private long lastSeen;
 
@@ -24,9 +36,7 @@ public class Player {
         this.token = token;
         this.name = name;
         this.session = session;
-        this.characterIndices = new HashMap<>(characterIndices);
-        this.revealedIndices = new HashMap<>();
-        this.usedKeys = new HashSet<>();
+        deal(characterIndices);
         this.online = true;
         this.lastSeen = System.currentTimeMillis();
     }
@@ -71,6 +81,7 @@ public class Player {
      */
     public void setSession(Session session) {
         this.session = session;
+        resetSync();
         if (session != null) {
             this.online = true;
             this.lastSeen = System.currentTimeMillis();
@@ -78,41 +89,88 @@ public class Player {
     }
 
     /**
-     * Returns a copy of the player's character card indices.
+     * Returns a read-only view of the player's character card indices keyed by category.
      */
     public Map<String, Integer> getCharacterIndices() {
-        return new HashMap<>(characterIndices);
+        return characterView;
     }
 
     /**
-     * Sets the player's character card indices.
+     * Replaces the player's character card indices. Keys that are not card categories are ignored.
      */
     public void setCharacterIndices(Map<String, Integer> characterIndices) {
-        this.characterIndices = new HashMap<>(characterIndices);
+        dealtMask = 0;
+        deal(characterIndices);
+    }
+
+    /**
+     * Deals the card with the given index in a category.
+     */
+    public void dealCard(CardCategory category, int index) {
+        cards[category.ordinal()] = (byte) index;
+        dealtMask |= 1 << category.ordinal();
+        this.cardsJson = null;
+        this.cardsSynced = false;
+    }
+
+    /**
+     * Returns the index of the player's card in a category, or -1 if none was dealt.
+     */
+    public int getCard(CardCategory category) {
+        return (dealtMask & (1 << category.ordinal())) != 0 ? cards[category.ordinal()] : NO_CARD;
+    }
+
+    /**
+     * Returns true if the player has revealed their card in a category.
+     */
+    public boolean isRevealed(CardCategory category) {
+        return (revealedMask & (1 << category.ordinal())) != 0;
+    }
+
+    /**
+     * Returns the player's character cards encoded as a compact JSON object.
+     * The encoding is cached until the cards are dealt again.
+     */
+    public String getCardsJson() {
+        String json = cardsJson;
+        if (json == null) {
+            StringBuilder sb = new StringBuilder(128).append('{');
+            for (CardCategory category : CardCategory.ALL) {
+                if ((dealtMask & (1 << category.ordinal())) != 0) {
+                    if (sb.length() > 1) {
+                        sb.append(',');
+                    }
+                    sb.append('"').append(category.getKey()).append("\":").append(cards[category.ordinal()]);
+                }
+            }
+            json = sb.append('}').toString();
+            cardsJson = json;
+        }
+        return json;
     }
 
     /**
-     * Returns a copy of the cards revealed by the player.
+     * Returns a read-only view of the cards revealed by the player keyed by category.
      */
     public Map<String, Integer> getRevealedIndices() {
-        return new HashMap<>(revealedIndices);
+        return revealedView;
     }
 
     /**
      * Reveals a specific card by its key.
      */
     public void revealCard(String key) {
-        if (characterIndices.containsKey(key)) {
-            revealedIndices.put(key, characterIndices.get(key));
-            usedKeys.add(key);
+        CardCategory category = CardCategory.fromKey(key);
+        if (category != null && getCard(category) != NO_CARD) {
+            revealedMask |= 1 << category.ordinal();
         }
     }
 
     /**
-     * Returns a set of card keys already used by the player.
+     * Returns a read-only view of the card keys already used by the player.
      */
     public Set<String> getUsedKeys() {
-        return new HashSet<>(usedKeys);
+        return revealedView.keySet();
     }
 
     /**
@@ -150,13 +208,121 @@ public class Player {
      * Returns true if the player has already used the specified card key.
      */
     public boolean hasUsedKey(String key) {
-        return usedKeys.contains(key);
+        CardCategory category = CardCategory.fromKey(key);
+        return category != null && isRevealed(category);
     }
 
     /**
      * Returns true if the player has revealed all their cards.
      */
     public boolean hasRevealedAllCards(int totalKeys) {
-        return usedKeys.size() >= totalKeys;
+        return Integer.bitCount(revealedMask) >= totalKeys;
+    }
+
+    /**
+     * Returns the room state version last delivered to the player's current session, or 0 if none.
+     */
+    public long getSyncedVersion() {
+        return syncedVersion;
+    }
+
+    /**
+     * Returns true if the player's current session already received their cards.
+     */
+    public boolean isCardsSynced() {
+        return cardsSynced;
+    }
+
+    /**
+     * Records that the given room state version, including the player's cards, was delivered.
+     */
+    public void markSynced(long version) {
+        this.syncedVersion = version;
+        this.cardsSynced = true;
+    }
+
+    /**
+     * Forgets the delivered state so the next update sent to the player is a full snapshot.
+     */
+    public void resetSync() {
+        this.syncedVersion = 0;
+        this.cardsSynced = false;
+    }
+
+    private void deal(Map<String, Integer> characterIndices) {
+        characterIndices.forEach((key, index) -> {
+            CardCategory category = CardCategory.fromKey(key);
+            if (category != null) {
+                dealCard(category, index);
+            }
+        });
+        this.cardsJson = null;
+        this.cardsSynced = false;
+    }
+
+    /**
+     * A live map over the dealt or revealed cards, backed directly by the card array and masks.
+     */
+    private final class CardView extends AbstractMap<String, Integer> {
+        private final boolean dealt;
+
+        private CardView(boolean dealt) {
+            this.dealt = dealt;
+        }
+
+        private int mask() {
+            return dealt ? dealtMask : revealedMask & dealtMask;
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(mask());
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            CardCategory category = key instanceof String k ? CardCategory.fromKey(k) : null;
+            if (category == null || (mask() & (1 << category.ordinal())) == 0) {
+                return null;
+            }
+            return (int) cards[category.ordinal()];
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return CardView.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private int remaining = mask();
+
+                        @Override
+                        public boolean hasNext() {
+                            return remaining != 0;
+                        }
+
+                        @Override
+                        public Entry<String, Integer> next() {
+                            if (remaining == 0) {
+                                throw new NoSuchElementException();
+                            }
+                            int ordinal = Integer.numberOfTrailingZeros(remaining);
+                            remaining &= remaining - 1;
+                            return new SimpleImmutableEntry<>(CardCategory.ALL.get(ordinal).getKey(), (int) cards[ordinal]);
+                        }
+                    };
+                }
+            };
+        }
     }
 }
@@ -1,11 +1,19 @@
 package com.bunkerparty.domain;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
+/**
+ * A game room. Mutated only from the room's shard in {@code RoomExecutor};
+ * the player maps stay concurrent because connection handling looks players up from other threads.
+ */
 public class Room {
 
     public static final String PHASE_LOBBY = "lobby";
@@ -13,6 +21,11 @@ public class Room {
     public static final String PHASE_CONFIRM = "confirm";
     public static final String PHASE_GAME_OVER = "game_over";
 
+    /**
+     * The most players a room seats; every deck needs a card for each of them.
+     */
+    public static final int MAX_PLAYERS = 6;
+
     private final String roomId;
     private final Map<String, Player> players = new ConcurrentHashMap<>();
     private final Map<String, String> pidByName = new ConcurrentHashMap<>();
@@ -20,13 +33,23 @@ public class Room {
     private String phase = PHASE_LOBBY;
     private int round = 0;
     private Integer eventIdx = null;
+    private String catalogVersion;
+    private CatalogSnapshot catalog;
 
-    private final Map<Integer, Map<String, String>> revealedByRound = new ConcurrentHashMap<>();
-    private final Map<Integer, Integer> eventByRound = new ConcurrentHashMap<>();
-    private final Set<String> startVotes = new CopyOnWriteArraySet<>();
+    private final Map<Integer, Map<String, String>> revealedByRound = new HashMap<>();
+    private final Map<Integer, Integer> eventByRound = new HashMap<>();
+    private final Set<String> startVotes = new LinkedHashSet<>();
 
-    private final Map<String, String> roundReveals = new ConcurrentHashMap<>();
-    private final Set<String> roundConfirms = new CopyOnWriteArraySet<>();
+    private final Map<String, String> roundReveals = new LinkedHashMap<>();
+    private final Set<String> roundConfirms = new LinkedHashSet<>();
+
+    private long version = 0;
+    private volatile long journalSequence;
+    private long lastActivity = System.currentTimeMillis();
+    private boolean broadcastPending;
+    private String broadcastPhase;
+    private long savedBroadcasts;
+    private final Deque<RoomSnapshot> snapshots = new ArrayDeque<>();
 
     /**
      * Creates a new room with a given ID.
@@ -123,6 +146,39 @@ public class Room {
         this.eventIdx = eventIdx;
     }
 
+    /**
+     * Returns the version of the catalog the game was dealt from, or null before the game starts.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Pins the game to a catalog version whose snapshot is resolved later, as when the room is recovered.
+     */
+    public void setCatalogVersion(String catalogVersion) {
+        this.catalogVersion = catalogVersion;
+        if (catalog != null && !catalog.getVersion().equals(catalogVersion)) {
+            catalog = null;
+        }
+    }
+
+    /**
+     * Returns the catalog the game was dealt from, or null before the game starts or while a recovered room's
+     * version is not resolved yet.
+     */
+    public CatalogSnapshot getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Sets the catalog the game is dealt from and pins its version.
+     */
+    public void setCatalog(CatalogSnapshot catalog) {
+        this.catalog = catalog;
+        this.catalogVersion = catalog != null ? catalog.getVersion() : null;
+    }
+
     /**
      * Returns a map of revealed cards per round.
      */
@@ -163,7 +219,7 @@ public class Room {
      */
     public void addRoundReveal(String playerId, String key) {
         roundReveals.put(playerId, key);
-        revealedByRound.computeIfAbsent(round, r -> new ConcurrentHashMap<>()).put(playerId, key);
+        revealedByRound.computeIfAbsent(round, r -> new LinkedHashMap<>()).put(playerId, key);
     }
 
     /**
@@ -240,4 +296,124 @@ public class Room {
         }
         return true;
     }
+
+    /**
+     * Returns the timestamp of the last state change in the room.
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Records a state change in the room at the current time.
+     */
+    public void touch() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns true if an update is waiting for the end of the coalescing window to be broadcast.
+     */
+    public boolean isBroadcastPending() {
+        return broadcastPending;
+    }
+
+    /**
+     * Marks whether an update is waiting to be broadcast.
+     */
+    public void setBroadcastPending(boolean broadcastPending) {
+        this.broadcastPending = broadcastPending;
+    }
+
+    /**
+     * Returns the phase the room was in at its last broadcast, or null if it was never broadcast.
+     */
+    public String getBroadcastPhase() {
+        return broadcastPhase;
+    }
+
+    /**
+     * Records the phase the room was in at its latest broadcast.
+     */
+    public void setBroadcastPhase(String broadcastPhase) {
+        this.broadcastPhase = broadcastPhase;
+    }
+
+    /**
+     * Returns how many updates were merged into another broadcast instead of being sent on their own.
+     */
+    public long getSavedBroadcasts() {
+        return savedBroadcasts;
+    }
+
+    /**
+     * Counts an update that was merged into another broadcast.
+     */
+    public void incrementSavedBroadcasts() {
+        this.savedBroadcasts++;
+    }
+
+    /**
+     * Returns the current state version of the room.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Advances the state version and returns the new value.
+     */
+    public long incrementVersion() {
+        return ++version;
+    }
+
+    /**
+     * Restores the state version of a recovered room.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the journal sequence of the last state change recorded for the room, or 0 if none.
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Records the journal sequence of the room's latest state change.
+     */
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Records a published snapshot, keeping at most the given number of recent snapshots.
+     */
+    public void publishSnapshot(RoomSnapshot snapshot, int retain) {
+        snapshots.addLast(snapshot);
+        while (snapshots.size() > retain) {
+            snapshots.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the most recently published snapshot, or null if none was published yet.
+     */
+    public RoomSnapshot getLatestSnapshot() {
+        return snapshots.peekLast();
+    }
+
+    /**
+     * Returns the retained snapshot published at the given version, or null if it is no longer retained.
+     */
+    public RoomSnapshot getSnapshot(long version) {
+        for (RoomSnapshot snapshot : snapshots) {
+            if (snapshot.getVersion() == version) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,78 @@
+package com.bunkerparty.domain;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The state of a room as published to clients at a given version, kept as pre-encoded JSON sections.
+ */
+public final class RoomSnapshot {
+
+    private final long version;
+    private final int round;
+    private final Map<String, String> sections;
+    private final NavigableMap<Integer, String> history;
+
+    /**
+     * Creates a snapshot from encoded top-level sections and encoded history entries keyed by round.
+     */
+    public RoomSnapshot(long version, int round, Map<String, String> sections, Map<Integer, String> history) {
+        this.version = version;
+        this.round = round;
+        this.sections = Map.copyOf(sections);
+        this.history = Collections.unmodifiableNavigableMap(new TreeMap<>(history));
+    }
+
+    /**
+     * Returns the room state version this snapshot was taken at.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the round the room was in when this snapshot was taken.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Returns the encoded JSON value of a top-level section, or null if absent.
+     */
+    public String getSection(String key) {
+        return sections.get(key);
+    }
+
+    /**
+     * Returns the rounds present in the history, in ascending order.
+     */
+    public Set<Integer> getHistoryRounds() {
+        return history.keySet();
+    }
+
+    /**
+     * Returns the encoded JSON history entry of a round, or null if absent.
+     */
+    public String getHistoryEntry(int round) {
+        return history.get(round);
+    }
+
+    /**
+     * Returns true if the given section differs from the same section in another snapshot.
+     */
+    public boolean sectionChanged(String key, RoomSnapshot other) {
+        return !Objects.equals(getSection(key), other.getSection(key));
+    }
+
+    /**
+     * Returns true if the history entry of a round differs from the same entry in another snapshot.
+     */
+    public boolean historyChanged(int round, RoomSnapshot other) {
+        return !Objects.equals(getHistoryEntry(round), other.getHistoryEntry(round));
+    }
+}
@@ -0,0 +1,35 @@
+package com.bunkerparty.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count. Increments are striped across cells, so concurrent writers do not contend.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    /**
+     * Adds one.
+     */
+    public void inc() {
+        value.increment();
+    }
+
+    /**
+     * Adds the given non-negative amount.
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Returns the current count.
+     */
+    public long get() {
+        return value.sum();
+    }
+}
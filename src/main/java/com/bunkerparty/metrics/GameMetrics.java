@@ -0,0 +1,111 @@
+package com.bunkerparty.metrics;
+
+import com.bunkerparty.websocket.command.MessageType;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * The metrics recorded on the message, broadcast and send paths. Every metric is registered up front, so
+ * recording looks one up by array index and never allocates.
+ */
+@Singleton
+public class GameMetrics {
+
+    private static final long[] LATENCY_NANOS = {
+            50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000,
+            10_000_000, 25_000_000, 50_000_000, 100_000_000, 250_000_000, 1_000_000_000
+    };
+    private static final long[] FAN_OUT = {1, 2, 3, 4, 6, 8, 12, 16};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Counter[] messages = new Counter[MessageType.values().length];
+    private final Histogram[] handleLatency = new Histogram[MessageType.values().length];
+    private final Counter broadcasts;
+    private final Histogram broadcastRecipients;
+    private final Histogram broadcastLatency;
+    private final Counter controlFramesQueued;
+    private final Counter stateFramesQueued;
+    private final Histogram sendLatency;
+    private final Counter sendFailures;
+
+    /**
+     * Registers the metrics with the given registry.
+     */
+    @Inject
+    public GameMetrics(MetricsRegistry registry) {
+        for (MessageType type : MessageType.values()) {
+            String wireName = type.getWireName();
+            messages[type.ordinal()] = registry.counter("bunker_messages_total",
+                    "Decoded client messages by type.", "type", wireName);
+            if (type == MessageType.PING) {
+                continue;
+            }
+            handleLatency[type.ordinal()] = registry.histogram("bunker_message_handle_seconds",
+                    "Time spent in the message handler on the room shard.", LATENCY_NANOS, NANOS_PER_SECOND,
+                    "type", wireName);
+        }
+        broadcasts = registry.counter("bunker_broadcasts_total", "Room state broadcasts.");
+        broadcastRecipients = registry.histogram("bunker_broadcast_recipients",
+                "Players a room state broadcast was sent to.", FAN_OUT, 1);
+        broadcastLatency = registry.histogram("bunker_broadcast_seconds",
+                "Time spent encoding and queueing a room state broadcast.", LATENCY_NANOS, NANOS_PER_SECOND);
+        controlFramesQueued = registry.counter("bunker_frames_queued_total",
+                "Outbound frames queued by kind.", "kind", "control");
+        stateFramesQueued = registry.counter("bunker_frames_queued_total",
+                "Outbound frames queued by kind.", "kind", "state");
+        sendLatency = registry.histogram("bunker_send_seconds",
+                "Time from queueing an outbound frame until its write completed.", LATENCY_NANOS, NANOS_PER_SECOND);
+        sendFailures = registry.counter("bunker_send_failures_total", "Outbound writes that failed.");
+    }
+
+    /**
+     * Returns metrics backed by a registry of their own, for code that is not wired to the application's registry.
+     */
+    public static GameMetrics detached() {
+        return new GameMetrics(new MetricsRegistry());
+    }
+
+    /**
+     * Records a decoded client message.
+     */
+    public void recordMessage(MessageType type) {
+        messages[type.ordinal()].inc();
+    }
+
+    /**
+     * Records how long the handler of a message took. Pings have no handler and are not timed.
+     */
+    public void recordHandled(MessageType type, long nanos) {
+        handleLatency[type.ordinal()].observe(nanos);
+    }
+
+    /**
+     * Records a room state broadcast to the given number of players.
+     */
+    public void recordBroadcast(int recipients, long nanos) {
+        broadcasts.inc();
+        broadcastRecipients.observe(recipients);
+        broadcastLatency.observe(nanos);
+    }
+
+    /**
+     * Records an outbound frame accepted into a session's queue.
+     */
+    public void recordQueued(boolean state) {
+        (state ? stateFramesQueued : controlFramesQueued).inc();
+    }
+
+    /**
+     * Records a completed outbound write and its latency since it was queued.
+     */
+    public void recordSent(long nanos) {
+        sendLatency.observe(nanos);
+    }
+
+    /**
+     * Records a failed outbound write.
+     */
+    public void recordSendFailure() {
+        sendFailures.inc();
+    }
+}
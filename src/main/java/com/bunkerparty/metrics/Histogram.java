@@ -0,0 +1,63 @@
+package com.bunkerparty.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations into fixed buckets chosen up front. Values are recorded in a native unit, such as nanoseconds,
+ * and converted to the exported unit only when scraped.
+ */
+public final class Histogram {
+
+    private final long[] bounds;
+    private final double unit;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    Histogram(long[] bounds, double unit) {
+        this.bounds = bounds;
+        this.unit = unit;
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one observation in the native unit.
+     */
+    public void observe(long value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the number of observations.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    long[] bounds() {
+        return bounds;
+    }
+
+    double unit() {
+        return unit;
+    }
+
+    long bucket(int i) {
+        return buckets[i].sum();
+    }
+
+    long sum() {
+        return sum.sum();
+    }
+}
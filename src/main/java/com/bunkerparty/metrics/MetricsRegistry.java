@@ -0,0 +1,179 @@
+package com.bunkerparty.metrics;
+
+import jakarta.inject.Singleton;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds the application's metrics and renders them in the Prometheus text exposition format.
+ * Metrics are registered once, up front, with their labels; recording into them afterwards neither locks
+ * nor allocates. Registering the same name and labels again returns the existing metric.
+ */
+@Singleton
+public class MetricsRegistry {
+
+    /**
+     * Content type of {@link #scrape()}.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Returns the counter with the given name and label pairs, creating it if needed.
+     */
+    public synchronized Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").child(labels, Counter::new);
+    }
+
+    /**
+     * Exports a count kept elsewhere, read when scraped.
+     */
+    public synchronized void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, "counter").child(labels, () -> value);
+    }
+
+    /**
+     * Exports a value read when scraped.
+     */
+    public synchronized void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").child(labels, () -> value);
+    }
+
+    /**
+     * Returns the histogram with the given name and label pairs, creating it if needed.
+     * Bucket bounds are in the native unit of the observations, of which {@code unit} make one exported unit.
+     */
+    public synchronized Histogram histogram(String name, String help, long[] bounds, double unit, String... labels) {
+        return (Histogram) family(name, help, "histogram").child(labels, () -> new Histogram(bounds.clone(), unit));
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Child child : family.children) {
+                write(out, family.name, child);
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static void write(StringBuilder out, String name, Child child) {
+        Object metric = child.metric;
+        if (metric instanceof Counter counter) {
+            sample(out, name, child.labels, null, counter.get());
+        } else if (metric instanceof LongSupplier supplier) {
+            sample(out, name, child.labels, null, supplier.getAsLong());
+        } else if (metric instanceof DoubleSupplier supplier) {
+            sample(out, name, child.labels, null, supplier.getAsDouble());
+        } else if (metric instanceof Histogram histogram) {
+            long[] bounds = histogram.bounds();
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += histogram.bucket(i);
+                sample(out, name + "_bucket", child.labels, format(bounds[i] / histogram.unit()), cumulative);
+            }
+            cumulative += histogram.bucket(bounds.length);
+            sample(out, name + "_bucket", child.labels, "+Inf", cumulative);
+            sample(out, name + "_sum", child.labels, null, histogram.sum() / histogram.unit());
+            sample(out, name + "_count", child.labels, null, cumulative);
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String le, double value) {
+        out.append(name);
+        if (!labels.isEmpty() || le != null) {
+            out.append('{').append(labels);
+            if (le != null) {
+                out.append(labels.isEmpty() ? "" : ",").append("le=\"").append(le).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf";
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static String labels(String[] pairs) {
+        if (pairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(pairs[i]).append("=\"");
+            for (char c : pairs[i + 1].toCharArray()) {
+                switch (c) {
+                    case '\\' -> text.append("\\\\");
+                    case '"' -> text.append("\\\"");
+                    case '\n' -> text.append("\\n");
+                    default -> text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<Child> children = new ArrayList<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private Object child(String[] labelPairs, Supplier<Object> factory) {
+            String labels = labels(labelPairs);
+            for (Child child : children) {
+                if (child.labels.equals(labels)) {
+                    return child.metric;
+                }
+            }
+            Object metric = factory.get();
+            children.add(new Child(labels, metric));
+            return metric;
+        }
+    }
+
+    private record Child(String labels, Object metric) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.Room;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The room journal kept in a {@link WriteAheadLog} under the persistence directory.
+ * Without a persistence directory it records nothing. A failed append is logged and counted;
+ * the game carries on in memory.
+ */
+@Singleton
+public class EventLog implements RoomJournal {
+    private static final Logger logger = LoggerFactory.getLogger(EventLog.class);
+
+    /**
+     * Receives replayed journal entries in the order they were recorded.
+     */
+    @FunctionalInterface
+    public interface EntryHandler {
+        void accept(long sequence, String roomId, RoomEvent event);
+    }
+
+    private final WriteAheadLog wal;
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Opens the journal configured for the application.
+     */
+    @Inject
+    public EventLog() {
+        this(PersistenceSettings.fromConfig());
+    }
+
+    /**
+     * Opens the journal in the log directory of the given settings, or creates one that records nothing.
+     */
+    public EventLog(PersistenceSettings settings) {
+        if (!settings.isEnabled()) {
+            this.wal = null;
+            return;
+        }
+        try {
+            this.wal = new WriteAheadLog(settings.directory().resolve("wal"), settings.segmentBytes(),
+                    settings.fsync(), settings.fsyncIntervalMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the room journal in " + settings.directory(), e);
+        }
+        logger.info("Room journal opened in {} (fsync {})", settings.directory(), settings.fsync());
+    }
+
+    @Override
+    public void append(Room room, RoomEvent event) {
+        if (wal == null) {
+            return;
+        }
+        try {
+            room.setJournalSequence(wal.append(RoomCodec.encodeEvent(room.getRoomId(), event)));
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            logger.error("Failed to journal {} for room {}", event, room.getRoomId(), e);
+        }
+    }
+
+    /**
+     * Passes every entry recorded after the given sequence to the handler and returns the number passed.
+     * Entries that cannot be decoded are skipped.
+     */
+    public long replay(long afterSequence, EntryHandler handler) throws IOException {
+        if (wal == null) {
+            return 0;
+        }
+        long[] replayed = new long[1];
+        wal.replay(afterSequence, (sequence, payload) -> {
+            RoomCodec.Entry entry;
+            try {
+                entry = RoomCodec.decodeEvent(payload);
+            } catch (IOException e) {
+                logger.warn("Skipping undecodable journal entry {}", sequence, e);
+                return;
+            }
+            handler.accept(sequence, entry.roomId(), entry.event());
+            replayed[0]++;
+        });
+        return replayed[0];
+    }
+
+    /**
+     * Returns true if the journal is written to disk.
+     */
+    public boolean isEnabled() {
+        return wal != null;
+    }
+
+    /**
+     * Returns the sequence of the last recorded entry.
+     */
+    public long getLastSequence() {
+        return wal != null ? wal.getLastSequence() : 0;
+    }
+
+    /**
+     * Deletes log segments that only hold entries up to the given sequence.
+     */
+    public void deleteThrough(long sequence) throws IOException {
+        if (wal != null) {
+            wal.deleteThrough(sequence);
+        }
+    }
+
+    /**
+     * Forces the journal to disk and closes it.
+     */
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    /**
+     * Returns how many entries could not be written.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the underlying log, or null if the journal records nothing.
+     */
+    public WriteAheadLog getLog() {
+        return wal;
+    }
+}
@@ -0,0 +1,33 @@
+package com.bunkerparty.persistence;
+
+/**
+ * When appended log records are forced to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every append forces its record before returning.
+     */
+    ALWAYS,
+    /**
+     * Every append waits until its record is forced; concurrent appends share one force.
+     */
+    GROUP,
+    /**
+     * Appends return immediately and a background thread forces the log at a fixed interval.
+     */
+    PERIODIC;
+
+    /**
+     * Returns the policy with the given case-insensitive name, or the fallback if there is none.
+     */
+    public static FsyncPolicy parse(String value, FsyncPolicy fallback) {
+        if (value != null) {
+            for (FsyncPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value.trim())) {
+                    return policy;
+                }
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.config.AppConfig;
+
+import java.nio.file.Path;
+
+/**
+ * Where and how room state is persisted.
+ *
+ * @param directory           directory holding the log segments and snapshots, or null to keep rooms in memory only
+ * @param fsync               when appended records are forced to disk
+ * @param fsyncIntervalMillis how often the log is forced under {@link FsyncPolicy#PERIODIC}
+ * @param segmentBytes        size of each memory-mapped log segment
+ * @param snapshotIntervalMillis how often all rooms are snapshotted and older log segments deleted
+ */
+public record PersistenceSettings(Path directory, FsyncPolicy fsync, long fsyncIntervalMillis, int segmentBytes,
+                                  long snapshotIntervalMillis) {
+
+    /**
+     * Returns the settings from the application configuration.
+     */
+    public static PersistenceSettings fromConfig() {
+        String directory = AppConfig.getPersistenceDir();
+        return new PersistenceSettings(directory != null ? Path.of(directory) : null,
+                FsyncPolicy.parse(AppConfig.getWalFsync(), FsyncPolicy.PERIODIC), AppConfig.getWalFsyncIntervalMillis(),
+                AppConfig.getWalSegmentBytes(), AppConfig.getSnapshotIntervalMillis());
+    }
+
+    /**
+     * Returns settings that keep rooms in memory only.
+     */
+    public static PersistenceSettings disabled() {
+        return new PersistenceSettings(null, FsyncPolicy.PERIODIC, 0, 0, 0);
+    }
+
+    /**
+     * Returns true if rooms are persisted.
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+}
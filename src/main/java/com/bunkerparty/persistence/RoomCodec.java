@@ -0,0 +1,292 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of journal entries and of complete room state for snapshots.
+ */
+public final class RoomCodec {
+
+    private static final byte ROOM_CREATED = 1;
+    private static final byte PLAYER_JOINED = 2;
+    private static final byte PLAYER_LEFT = 3;
+    private static final byte START_VOTED = 4;
+    private static final byte GAME_STARTED = 5;
+    private static final byte CARD_REVEALED = 6;
+    private static final byte ROUND_CONFIRMED = 7;
+    private static final byte PHASE_CHANGED = 8;
+    private static final byte ROUND_STARTED = 9;
+    private static final byte ROOM_REMOVED = 10;
+    private static final byte CATALOG_PINNED = 11;
+
+    private static final int NO_EVENT = -1;
+
+    /**
+     * A decoded journal entry.
+     */
+    public record Entry(String roomId, RoomEvent event) {
+    }
+
+    private RoomCodec() {
+    }
+
+    /**
+     * Encodes an event of the given room.
+     */
+    public static byte[] encodeEvent(String roomId, RoomEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(roomId);
+            writeEvent(out, event);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an entry encoded by {@link #encodeEvent}.
+     */
+    public static Entry decodeEvent(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String roomId = in.readUTF();
+        return new Entry(roomId, readEvent(in));
+    }
+
+    /**
+     * Encodes the complete state of a room. Must run on the room's shard.
+     */
+    public static byte[] encodeRoom(Room room) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeRoom(out, room);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a room encoded by {@link #encodeRoom}. Its players have no session and are offline, and its catalog
+     * version is pinned but not resolved.
+     */
+    public static Room decodeRoom(byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        Room room = readRoom(in);
+        // states written before the catalog version was persisted end here
+        if (in.available() > 0) {
+            String version = in.readUTF();
+            room.setCatalogVersion(version.isEmpty() ? null : version);
+        }
+        return room;
+    }
+
+    private static void writeEvent(DataOutput out, RoomEvent event) throws IOException {
+        if (event instanceof RoomEvent.RoomCreated) {
+            out.writeByte(ROOM_CREATED);
+        } else if (event instanceof RoomEvent.PlayerJoined e) {
+            out.writeByte(PLAYER_JOINED);
+            out.writeUTF(e.playerId());
+            out.writeUTF(e.token());
+            out.writeUTF(e.name());
+        } else if (event instanceof RoomEvent.PlayerLeft e) {
+            out.writeByte(PLAYER_LEFT);
+            out.writeUTF(e.playerId());
+        } else if (event instanceof RoomEvent.StartVoted e) {
+            out.writeByte(START_VOTED);
+            out.writeUTF(e.playerId());
+        } else if (event instanceof RoomEvent.GameStarted e) {
+            out.writeByte(GAME_STARTED);
+            out.writeInt(e.eventIdx());
+            out.writeInt(e.cards().size());
+            for (Map.Entry<String, Map<String, Integer>> cards : e.cards().entrySet()) {
+                out.writeUTF(cards.getKey());
+                writeCards(out, cards.getValue());
+            }
+        } else if (event instanceof RoomEvent.CardRevealed e) {
+            out.writeByte(CARD_REVEALED);
+            out.writeUTF(e.playerId());
+            out.writeUTF(e.cardKey());
+        } else if (event instanceof RoomEvent.RoundConfirmed e) {
+            out.writeByte(ROUND_CONFIRMED);
+            out.writeUTF(e.playerId());
+        } else if (event instanceof RoomEvent.PhaseChanged e) {
+            out.writeByte(PHASE_CHANGED);
+            out.writeUTF(e.phase());
+        } else if (event instanceof RoomEvent.RoundStarted e) {
+            out.writeByte(ROUND_STARTED);
+            out.writeInt(e.round());
+            out.writeInt(e.eventIdx());
+        } else if (event instanceof RoomEvent.RoomRemoved) {
+            out.writeByte(ROOM_REMOVED);
+        } else if (event instanceof RoomEvent.CatalogPinned e) {
+            out.writeByte(CATALOG_PINNED);
+            out.writeUTF(e.version());
+        } else {
+            throw new IllegalArgumentException("Unknown event " + event);
+        }
+    }
+
+    private static RoomEvent readEvent(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case ROOM_CREATED -> new RoomEvent.RoomCreated();
+            case PLAYER_JOINED -> new RoomEvent.PlayerJoined(in.readUTF(), in.readUTF(), in.readUTF());
+            case PLAYER_LEFT -> new RoomEvent.PlayerLeft(in.readUTF());
+            case START_VOTED -> new RoomEvent.StartVoted(in.readUTF());
+            case GAME_STARTED -> {
+                int eventIdx = in.readInt();
+                int players = in.readInt();
+                Map<String, Map<String, Integer>> cards = new LinkedHashMap<>();
+                for (int i = 0; i < players; i++) {
+                    cards.put(in.readUTF(), readCards(in));
+                }
+                yield new RoomEvent.GameStarted(eventIdx, cards);
+            }
+            case CARD_REVEALED -> new RoomEvent.CardRevealed(in.readUTF(), in.readUTF());
+            case ROUND_CONFIRMED -> new RoomEvent.RoundConfirmed(in.readUTF());
+            case PHASE_CHANGED -> new RoomEvent.PhaseChanged(in.readUTF());
+            case ROUND_STARTED -> new RoomEvent.RoundStarted(in.readInt(), in.readInt());
+            case ROOM_REMOVED -> new RoomEvent.RoomRemoved();
+            case CATALOG_PINNED -> new RoomEvent.CatalogPinned(in.readUTF());
+            default -> throw new IOException("Unknown event type " + type);
+        };
+    }
+
+    /**
+     * Writes one card index per category, -1 for categories that were not dealt.
+     */
+    private static void writeCards(DataOutput out, Map<String, Integer> cards) throws IOException {
+        for (CardCategory category : CardCategory.ALL) {
+            Integer index = cards.get(category.getKey());
+            out.writeByte(index != null ? index : -1);
+        }
+    }
+
+    private static Map<String, Integer> readCards(DataInput in) throws IOException {
+        Map<String, Integer> cards = new HashMap<>();
+        for (CardCategory category : CardCategory.ALL) {
+            byte index = in.readByte();
+            if (index >= 0) {
+                cards.put(category.getKey(), (int) index);
+            }
+        }
+        return cards;
+    }
+
+    private static void writeRoom(DataOutput out, Room room) throws IOException {
+        out.writeUTF(room.getRoomId());
+        out.writeUTF(room.getPhase());
+        out.writeInt(room.getRound());
+        out.writeInt(room.getEventIdx() != null ? room.getEventIdx() : NO_EVENT);
+        out.writeLong(room.getVersion());
+
+        out.writeInt(room.getPlayers().size());
+        for (Player player : room.getPlayers().values()) {
+            out.writeUTF(player.getId());
+            out.writeUTF(player.getToken());
+            out.writeUTF(player.getName());
+            writeCards(out, player.getCharacterIndices());
+            int revealed = 0;
+            for (CardCategory category : CardCategory.ALL) {
+                if (player.isRevealed(category)) {
+                    revealed |= 1 << category.ordinal();
+                }
+            }
+            out.writeInt(revealed);
+        }
+
+        out.writeInt(room.getStartVotes().size());
+        for (String playerId : room.getStartVotes()) {
+            out.writeUTF(playerId);
+        }
+        out.writeInt(room.getRevealedByRound().size());
+        for (Map.Entry<Integer, Map<String, String>> round : room.getRevealedByRound().entrySet()) {
+            out.writeInt(round.getKey());
+            writeReveals(out, round.getValue());
+        }
+        out.writeInt(room.getEventByRound().size());
+        for (Map.Entry<Integer, Integer> event : room.getEventByRound().entrySet()) {
+            out.writeInt(event.getKey());
+            out.writeInt(event.getValue());
+        }
+        writeReveals(out, room.getRoundReveals());
+        out.writeInt(room.getRoundConfirms().size());
+        for (String playerId : room.getRoundConfirms()) {
+            out.writeUTF(playerId);
+        }
+        out.writeUTF(room.getCatalogVersion() != null ? room.getCatalogVersion() : "");
+    }
+
+    private static Room readRoom(DataInput in) throws IOException {
+        Room room = new Room(in.readUTF());
+        room.setPhase(in.readUTF());
+        room.setRound(in.readInt());
+        int eventIdx = in.readInt();
+        room.setEventIdx(eventIdx != NO_EVENT ? eventIdx : null);
+        room.setVersion(in.readLong());
+
+        int players = in.readInt();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(in.readUTF(), in.readUTF(), in.readUTF(), null, Map.of());
+            player.setCharacterIndices(readCards(in));
+            int revealed = in.readInt();
+            for (CardCategory category : CardCategory.ALL) {
+                if ((revealed & (1 << category.ordinal())) != 0) {
+                    player.revealCard(category.getKey());
+                }
+            }
+            player.setOnline(false);
+            room.addPlayer(player);
+        }
+
+        int votes = in.readInt();
+        for (int i = 0; i < votes; i++) {
+            room.addStartVote(in.readUTF());
+        }
+        int rounds = in.readInt();
+        for (int i = 0; i < rounds; i++) {
+            room.getRevealedByRound().put(in.readInt(), readReveals(in));
+        }
+        int events = in.readInt();
+        for (int i = 0; i < events; i++) {
+            room.getEventByRound().put(in.readInt(), in.readInt());
+        }
+        room.getRoundReveals().putAll(readReveals(in));
+        int confirms = in.readInt();
+        for (int i = 0; i < confirms; i++) {
+            room.addRoundConfirm(in.readUTF());
+        }
+        return room;
+    }
+
+    private static void writeReveals(DataOutput out, Map<String, String> reveals) throws IOException {
+        out.writeInt(reveals.size());
+        for (Map.Entry<String, String> reveal : reveals.entrySet()) {
+            out.writeUTF(reveal.getKey());
+            out.writeUTF(reveal.getValue());
+        }
+    }
+
+    private static Map<String, String> readReveals(DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<String, String> reveals = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            reveals.put(in.readUTF(), in.readUTF());
+        }
+        return reveals;
+    }
+}
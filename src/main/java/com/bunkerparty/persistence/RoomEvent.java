@@ -0,0 +1,158 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A state change of a room as written to the journal. Applying the events of a room in order to an empty room
+ * rebuilds its state; connections are not part of it, so recovered players start offline.
+ */
+public sealed interface RoomEvent {
+
+    /**
+     * Applies the change to the room.
+     */
+    void apply(Room room);
+
+    /**
+     * A room was created.
+     */
+    record RoomCreated() implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+        }
+    }
+
+    /**
+     * A new player took a seat.
+     */
+    record PlayerJoined(String playerId, String token, String name) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.addPlayer(new Player(playerId, token, name, null, Map.of()));
+        }
+    }
+
+    /**
+     * A player left the room.
+     */
+    record PlayerLeft(String playerId) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            Player player = room.getPlayers().remove(playerId);
+            if (player != null) {
+                room.getPidByName().remove(player.getName().toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * A player voted to start the game.
+     */
+    record StartVoted(String playerId) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.addStartVote(playerId);
+        }
+    }
+
+    /**
+     * The game is dealt from the catalog with the given version for the rest of its life.
+     */
+    record CatalogPinned(String version) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.setCatalogVersion(version);
+        }
+    }
+
+    /**
+     * The game started: cards were dealt, the first bunker event picked and the reveal phase began.
+     */
+    record GameStarted(int eventIdx, Map<String, Map<String, Integer>> cards) implements RoomEvent {
+
+        /**
+         * Captures the deal from a room that has just started.
+         */
+        public static GameStarted of(Room room) {
+            Map<String, Map<String, Integer>> cards = new LinkedHashMap<>();
+            for (Player player : room.getPlayers().values()) {
+                cards.put(player.getId(), Map.copyOf(player.getCharacterIndices()));
+            }
+            return new GameStarted(room.getEventIdx(), cards);
+        }
+
+        @Override
+        public void apply(Room room) {
+            room.setRound(1);
+            cards.forEach((playerId, indices) -> {
+                Player player = room.getPlayer(playerId);
+                if (player != null) {
+                    player.setCharacterIndices(indices);
+                }
+            });
+            room.setEventIdx(eventIdx);
+            room.setPhase(Room.PHASE_REVEAL);
+        }
+    }
+
+    /**
+     * A player revealed a card in the current round.
+     */
+    record CardRevealed(String playerId, String cardKey) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            Player player = room.getPlayer(playerId);
+            if (player != null) {
+                player.revealCard(cardKey);
+                room.addRoundReveal(playerId, cardKey);
+            }
+        }
+    }
+
+    /**
+     * A player confirmed the end of the current round.
+     */
+    record RoundConfirmed(String playerId) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.addRoundConfirm(playerId);
+        }
+    }
+
+    /**
+     * The room moved to another phase within the round.
+     */
+    record PhaseChanged(String phase) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.setPhase(phase);
+        }
+    }
+
+    /**
+     * A new round started with a new bunker event.
+     */
+    record RoundStarted(int round, int eventIdx) implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+            room.setRound(round);
+            room.clearRoundReveals();
+            room.clearRoundConfirms();
+            room.setEventIdx(eventIdx);
+            room.setPhase(Room.PHASE_REVEAL);
+        }
+    }
+
+    /**
+     * The room was removed.
+     */
+    record RoomRemoved() implements RoomEvent {
+        @Override
+        public void apply(Room room) {
+        }
+    }
+}
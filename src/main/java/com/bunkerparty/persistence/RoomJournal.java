@@ -0,0 +1,22 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.Room;
+
+/**
+ * Receives every state change of every room, in the order the changes were made.
+ */
+@FunctionalInterface
+public interface RoomJournal {
+
+    /**
+     * A journal that records nothing.
+     */
+    RoomJournal NONE = (room, event) -> {
+    };
+
+    /**
+     * Records a change that was just applied to the room. Must run on the room's shard,
+     * after the change, except for {@link RoomEvent.RoomCreated}.
+     */
+    void append(Room room, RoomEvent event);
+}
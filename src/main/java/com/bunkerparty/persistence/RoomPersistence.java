@@ -0,0 +1,281 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.CatalogSnapshot;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recovers rooms at startup from the latest snapshot plus the journal entries after it, and periodically
+ * snapshots every room so the journal segments it covers can be deleted.
+ * Each room is encoded on its own shard, so a snapshot never sees a half-applied change.
+ */
+@Singleton
+public class RoomPersistence {
+    private static final Logger logger = LoggerFactory.getLogger(RoomPersistence.class);
+
+    private static final long CAPTURE_TIMEOUT_SECONDS = 30;
+
+    private final PersistenceSettings settings;
+    private final EventLog eventLog;
+    private final SnapshotStore snapshotStore;
+    private final RoomManager roomManager;
+    private final RoomExecutor roomExecutor;
+    private final RoomReaper roomReaper;
+    private final CardCatalog catalog;
+    private final LongAdder snapshots = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    private volatile int recoveredRooms;
+    private volatile long replayedEvents;
+    private volatile long recoveryMillis;
+    private volatile int lastSnapshotRooms;
+    private volatile long lastSnapshotMillis;
+
+    /**
+     * Creates the persistence service configured for the application.
+     */
+    @Inject
+    public RoomPersistence(EventLog eventLog, RoomManager roomManager, RoomExecutor roomExecutor,
+                           RoomReaper roomReaper, CardCatalog catalog) {
+        this(PersistenceSettings.fromConfig(), eventLog, roomManager, roomExecutor, roomReaper, catalog);
+    }
+
+    /**
+     * Creates a persistence service with the given settings.
+     */
+    public RoomPersistence(PersistenceSettings settings, EventLog eventLog, RoomManager roomManager,
+                           RoomExecutor roomExecutor, RoomReaper roomReaper, CardCatalog catalog) {
+        this.settings = settings;
+        this.eventLog = eventLog;
+        this.snapshotStore = settings.isEnabled() ? new SnapshotStore(settings.directory().resolve("snapshots")) : null;
+        this.roomManager = roomManager;
+        this.roomExecutor = roomExecutor;
+        this.roomReaper = roomReaper;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Recovers the persisted rooms and starts taking periodic snapshots. Does nothing without a persistence directory.
+     */
+    public synchronized void start() throws IOException {
+        if (!eventLog.isEnabled() || scheduler != null) {
+            return;
+        }
+        recover();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "room-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.snapshotIntervalMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Room snapshot failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns true if rooms are persisted.
+     */
+    public boolean isEnabled() {
+        return eventLog.isEnabled();
+    }
+
+    /**
+     * Rebuilds every room from the latest snapshot and the journal entries recorded after it, registers the rooms
+     * and returns how many were restored. Games go on with the catalog they were dealt from; a room whose catalog
+     * version is no longer loaded is dropped rather than dealt from another catalog. Must run before clients connect.
+     */
+    public int recover() throws IOException {
+        if (!eventLog.isEnabled()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        long covered = 0;
+        SnapshotStore.Snapshot snapshot = snapshotStore.readLatest();
+        if (snapshot != null) {
+            covered = snapshot.coveredSequence();
+            for (SnapshotStore.RoomState state : snapshot.rooms()) {
+                Room room = RoomCodec.decodeRoom(state.state());
+                room.setJournalSequence(state.journalSequence());
+                rooms.put(room.getRoomId(), room);
+            }
+        }
+        long replayed = eventLog.replay(covered, (sequence, roomId, event) -> {
+            Room room = rooms.get(roomId);
+            if (room != null && sequence <= room.getJournalSequence()) {
+                return;
+            }
+            if (event instanceof RoomEvent.RoomCreated) {
+                room = new Room(roomId);
+                rooms.put(roomId, room);
+            } else if (event instanceof RoomEvent.RoomRemoved) {
+                rooms.remove(roomId);
+                return;
+            } else if (room == null) {
+                return;
+            }
+            event.apply(room);
+            room.setJournalSequence(sequence);
+        });
+
+        for (Iterator<Room> it = rooms.values().iterator(); it.hasNext(); ) {
+            Room room = it.next();
+            String version = room.getCatalogVersion();
+            if (version != null) {
+                CatalogSnapshot pinned = catalog.get(version);
+                if (pinned == null) {
+                    logger.error("Dropped recovered room {}: its game was dealt from card catalog {}, which is not "
+                            + "loaded", room.getRoomId(), version);
+                    it.remove();
+                    continue;
+                }
+                room.setCatalog(pinned);
+            }
+            for (Player player : room.getPlayers().values()) {
+                player.setOnline(false);
+            }
+        }
+        List<Room> restored = roomManager.restoreRooms(rooms.values());
+        for (Room room : restored) {
+            roomReaper.track(room);
+        }
+        if (restored.size() < rooms.size()) {
+            logger.warn("Dropped {} recovered rooms whose codes do not fit the current code format",
+                    rooms.size() - restored.size());
+        }
+        recoveredRooms = restored.size();
+        replayedEvents = replayed;
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Recovered {} rooms from snapshot {} and {} journal entries in {} ms", recoveredRooms, covered,
+                replayed, recoveryMillis);
+        return recoveredRooms;
+    }
+
+    /**
+     * Writes a snapshot of every room and deletes the journal segments it covers.
+     */
+    public synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long covered = eventLog.getLastSequence();
+        List<CompletableFuture<SnapshotStore.RoomState>> captures = new ArrayList<>();
+        for (Room room : roomManager.getAllRooms()) {
+            CompletableFuture<SnapshotStore.RoomState> capture = new CompletableFuture<>();
+            captures.add(capture);
+            roomExecutor.execute(room.getRoomId(), () -> {
+                try {
+                    capture.complete(roomManager.getRoom(room.getRoomId()) == room
+                            ? new SnapshotStore.RoomState(room.getJournalSequence(), RoomCodec.encodeRoom(room))
+                            : null);
+                } catch (RuntimeException e) {
+                    capture.completeExceptionally(e);
+                }
+            });
+        }
+        List<SnapshotStore.RoomState> states = new ArrayList<>(captures.size());
+        for (CompletableFuture<SnapshotStore.RoomState> capture : captures) {
+            SnapshotStore.RoomState state = await(capture);
+            if (state != null) {
+                states.add(state);
+            }
+        }
+        snapshotStore.write(new SnapshotStore.Snapshot(covered, states));
+        eventLog.deleteThrough(covered);
+        snapshots.increment();
+        lastSnapshotRooms = states.size();
+        lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.debug("Snapshot of {} rooms at {} took {} ms", states.size(), covered, lastSnapshotMillis);
+    }
+
+    /**
+     * Stops taking snapshots, writes a final one and closes the journal.
+     */
+    public synchronized void stop() throws IOException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        snapshot();
+        eventLog.close();
+    }
+
+    /**
+     * Returns how many rooms were restored at startup.
+     */
+    public int getRecoveredRooms() {
+        return recoveredRooms;
+    }
+
+    /**
+     * Returns how many journal entries were replayed at startup.
+     */
+    public long getReplayedEvents() {
+        return replayedEvents;
+    }
+
+    /**
+     * Returns how long recovery took, in milliseconds.
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * Returns how many snapshots were written.
+     */
+    public long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    /**
+     * Returns how many rooms the latest snapshot held.
+     */
+    public int getLastSnapshotRooms() {
+        return lastSnapshotRooms;
+    }
+
+    /**
+     * Returns how long the latest snapshot took, in milliseconds.
+     */
+    public long getLastSnapshotMillis() {
+        return lastSnapshotMillis;
+    }
+
+    private static SnapshotStore.RoomState await(CompletableFuture<SnapshotStore.RoomState> capture)
+            throws IOException {
+        try {
+            return capture.get(CAPTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while capturing rooms", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to capture a room", e);
+        }
+    }
+}
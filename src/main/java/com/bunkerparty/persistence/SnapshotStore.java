@@ -0,0 +1,153 @@
+package com.bunkerparty.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot files holding the encoded state of every room. A snapshot covers every journal entry up to its
+ * sequence, except that each room also carries the sequence of its own last entry, which may be later.
+ * Files are written to a temporary name, forced and renamed, and end with a CRC32 of their content.
+ */
+public class SnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x42505331;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * The encoded state of one room and the journal sequence of its last change.
+     */
+    public record RoomState(long journalSequence, byte[] state) {
+    }
+
+    /**
+     * A snapshot covering the journal up to the given sequence.
+     */
+    public record Snapshot(long coveredSequence, List<RoomState> rooms) {
+    }
+
+    private final Path directory;
+
+    /**
+     * Creates a store in the given directory.
+     */
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Durably writes a snapshot and deletes the older ones.
+     */
+    public void write(Snapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        String name = String.format("%s%020d", PREFIX, snapshot.coveredSequence());
+        Path temporary = directory.resolve(name + ".tmp");
+        Path target = directory.resolve(name + SUFFIX);
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc),
+                     64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeLong(snapshot.coveredSequence());
+            out.writeInt(snapshot.rooms().size());
+            for (RoomState room : snapshot.rooms()) {
+                out.writeLong(room.journalSequence());
+                out.writeInt(room.state().length);
+                out.write(room.state());
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        for (Path old : list()) {
+            if (!old.equals(target)) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    /**
+     * Returns the newest intact snapshot, or null if there is none.
+     */
+    public Snapshot readLatest() throws IOException {
+        List<Path> snapshots = list();
+        snapshots.sort(Comparator.reverseOrder());
+        for (Path path : snapshots) {
+            try {
+                return read(path);
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable snapshot {}", path, e);
+            }
+        }
+        return null;
+    }
+
+    private Snapshot read(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(file, 64 * 1024),
+                     crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+            long covered = in.readLong();
+            int count = in.readInt();
+            List<RoomState> rooms = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long sequence = in.readLong();
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                rooms.add(new RoomState(sequence, state));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            return new Snapshot(covered, rooms);
+        }
+    }
+
+    private List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).toList());
+        }
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Cannot sync directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.bunkerparty.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of binary records split into fixed-size memory-mapped segment files.
+ * Every record gets the next sequence number and is framed as length, CRC32 and sequence followed by the payload;
+ * the length is written last and a zero length marks the end of a segment. Replay stops at the first record that is
+ * torn, fails its checksum or breaks the sequence, so a crash loses at most the records that were not yet forced.
+ * Every open starts a new segment and leaves whatever a crash left at the end of the previous one untouched.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final int HEADER_BYTES = 16;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    /**
+     * Receives replayed records in sequence order.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long sequence, byte[] payload);
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy fsync;
+    private final List<Segment> segments = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder fsyncNanos = new LongAdder();
+
+    private Segment current;
+    private long lastSequence;
+    private volatile long durableSequence;
+
+    /**
+     * Opens the log in the given directory, creating it if needed, and starts a new segment after the last
+     * intact record.
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, FsyncPolicy fsync, long fsyncIntervalMillis)
+            throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(WriteAheadLog::isSegment)
+                    .sorted()
+                    .forEach(path -> segments.add(new Segment(firstSequence(path), path)));
+        }
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            lastSequence = scan(last, Long.MAX_VALUE, null);
+            if (lastSequence < last.firstSequence) {
+                segments.remove(last);
+                Files.delete(last.path);
+            }
+        }
+        durableSequence = lastSequence;
+        current = createSegment(lastSequence + 1);
+        if (fsync == FsyncPolicy.PERIODIC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::sync, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends a record and returns its sequence number. Whether it is on disk when this returns depends on
+     * the fsync policy.
+     */
+    public long append(byte[] payload) throws IOException {
+        int size = HEADER_BYTES + payload.length;
+        if (payload.length == 0 || size > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment");
+        }
+        long sequence;
+        synchronized (this) {
+            if (current.position + size > segmentBytes) {
+                roll();
+            }
+            sequence = ++lastSequence;
+            MappedByteBuffer buffer = current.buffer;
+            int position = current.position;
+            buffer.putLong(position + 8, sequence);
+            buffer.put(position + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(buffer.slice(position + 8, 8 + payload.length));
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putInt(position, payload.length);
+            current.position = position + size;
+            appends.increment();
+            appendedBytes.add(size);
+            if (fsync == FsyncPolicy.ALWAYS) {
+                force(current, current.forcedPosition, current.position);
+                durableSequence = sequence;
+            }
+        }
+        if (fsync == FsyncPolicy.GROUP && durableSequence < sequence) {
+            synchronized (syncLock) {
+                if (durableSequence < sequence) {
+                    sync();
+                }
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Forces every record appended so far to disk. Appends may continue while the force runs.
+     */
+    public void sync() {
+        synchronized (syncLock) {
+            Segment segment;
+            int from;
+            int to;
+            long sequence;
+            synchronized (this) {
+                segment = current;
+                from = segment.forcedPosition;
+                to = segment.position;
+                sequence = lastSequence;
+            }
+            if (to > from) {
+                force(segment, from, to);
+            }
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Passes every intact record with a sequence greater than the given one to the handler, oldest first,
+     * and returns the sequence of the last intact record.
+     */
+    public synchronized long replay(long afterSequence, RecordHandler handler) throws IOException {
+        long last = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            Segment next = i + 1 < segments.size() ? segments.get(i + 1) : null;
+            if (next != null && next.firstSequence <= afterSequence + 1) {
+                continue;
+            }
+            if (last > 0 && segment.firstSequence != last + 1) {
+                logger.warn("Log segment {} starts at {} after record {}", segment.path, segment.firstSequence, last);
+            }
+            long end = scan(segment, afterSequence, handler);
+            last = Math.max(last, end);
+        }
+        return last;
+    }
+
+    /**
+     * Deletes the segments whose records all have sequences up to the given one. The current segment is kept.
+     */
+    public synchronized int deleteThrough(long sequence) throws IOException {
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(1).firstSequence <= sequence + 1) {
+            Segment segment = segments.remove(0);
+            segment.close();
+            Files.deleteIfExists(segment.path);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the sequence of the last appended record, or 0 if the log is empty.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns the sequence up to which records are known to be on disk.
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Returns the number of segment files.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Returns how many records were appended since the log was opened.
+     */
+    public long getAppends() {
+        return appends.sum();
+    }
+
+    /**
+     * Returns how many bytes, headers included, were appended since the log was opened.
+     */
+    public long getAppendedBytes() {
+        return appendedBytes.sum();
+    }
+
+    /**
+     * Returns how many times the log was forced to disk.
+     */
+    public long getFsyncs() {
+        return fsyncs.sum();
+    }
+
+    /**
+     * Returns the total time spent forcing the log to disk, in nanoseconds.
+     */
+    public long getFsyncNanos() {
+        return fsyncNanos.sum();
+    }
+
+    /**
+     * Forces the log to disk and closes every segment.
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        sync();
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        force(current, current.forcedPosition, current.position);
+        current = createSegment(lastSequence + 1);
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Segment segment = new Segment(firstSequence, path);
+        segment.channel = channel;
+        segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void force(Segment segment, int from, int to) {
+        if (to <= from) {
+            return;
+        }
+        long start = System.nanoTime();
+        segment.buffer.force(from, to - from);
+        fsyncNanos.add(System.nanoTime() - start);
+        fsyncs.increment();
+        synchronized (this) {
+            segment.forcedPosition = Math.max(segment.forcedPosition, to);
+        }
+    }
+
+    /**
+     * Walks the intact records of a segment, passing those after the given sequence to the handler,
+     * and returns the sequence of the last intact one, or one less than the segment's first sequence if none.
+     */
+    private static long scan(Segment segment, long afterSequence, RecordHandler handler) throws IOException {
+        ByteBuffer buffer;
+        if (segment.buffer != null) {
+            buffer = segment.buffer.duplicate();
+        } else {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        CRC32 check = new CRC32();
+        long expected = segment.firstSequence;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - HEADER_BYTES
+                    || buffer.getLong(position + 8) != expected) {
+                break;
+            }
+            check.reset();
+            check.update(buffer.slice(position + 8, 8 + length));
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            if (expected > afterSequence && handler != null) {
+                byte[] payload = new byte[length];
+                buffer.get(position + HEADER_BYTES, payload);
+                handler.accept(expected, payload);
+            }
+            expected++;
+            position += HEADER_BYTES + length;
+        }
+        return expected - 1;
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX)
+                && name.length() == PREFIX.length() + 20 + SUFFIX.length();
+    }
+
+    private static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final long firstSequence;
+        private final Path path;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int position;
+        private int forcedPosition;
+
+        private Segment(long firstSequence, Path path) {
+            this.firstSequence = firstSequence;
+            this.path = path;
+        }
+
+        private void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
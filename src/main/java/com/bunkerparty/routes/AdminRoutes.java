@@ -0,0 +1,79 @@
+package com.bunkerparty.routes;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.domain.CatalogSnapshot;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.DrainCoordinator;
+import com.google.gson.Gson;
+import jakarta.inject.Inject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class AdminRoutes {
+
+    private final DrainCoordinator drainCoordinator;
+    private final CardCatalog catalog;
+    private final String token;
+    private final Gson gson = new Gson();
+
+    /**
+     * Creates new admin routes guarded by the configured admin token.
+     */
+    @Inject
+    public AdminRoutes(DrainCoordinator drainCoordinator, CardCatalog catalog) {
+        this.drainCoordinator = drainCoordinator;
+        this.catalog = catalog;
+        this.token = AppConfig.getAdminToken();
+    }
+
+    /**
+     * Registers the admin endpoints, unless no admin token is configured.
+     */
+    public void register(Router router) {
+        if (token == null) {
+            return;
+        }
+
+        router.post("/admin/drain", (req, res) -> {
+            res.setContentType("application/json");
+            if (!authorized(req.getHeader("Authorization"))) {
+                res.setStatus(401);
+                return "{\"error\":\"unauthorized\"}";
+            }
+            int handedOff = drainCoordinator.drain();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("handedOff", handedOff);
+            result.put("durationMs", drainCoordinator.getLastDrainMillis());
+            return gson.toJson(result);
+        });
+
+        router.post("/admin/catalog/reload", (req, res) -> {
+            res.setContentType("application/json");
+            if (!authorized(req.getHeader("Authorization"))) {
+                res.setStatus(401);
+                return "{\"error\":\"unauthorized\"}";
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            try {
+                CatalogSnapshot snapshot = catalog.reload();
+                result.put("version", snapshot.getVersion());
+                result.put("languages", new TreeSet<>(snapshot.getLanguages()));
+                result.put("bunkers", snapshot.getBunkerCount());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                res.setStatus(422);
+                result.put("error", e.getMessage());
+            }
+            return gson.toJson(result);
+        });
+    }
+
+    private boolean authorized(String header) {
+        String expected = "Bearer " + token;
+        return header != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                header.getBytes(StandardCharsets.UTF_8));
+    }
+}
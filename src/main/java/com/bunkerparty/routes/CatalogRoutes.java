@@ -0,0 +1,52 @@
+package com.bunkerparty.routes;
+
+import com.bunkerparty.assets.StaticAsset;
+import com.bunkerparty.assets.StaticAssetServlet;
+import com.bunkerparty.domain.CatalogSnapshot;
+import com.bunkerparty.service.CardCatalog;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CatalogRoutes {
+
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final CardCatalog catalog;
+    private final Map<String, StaticAsset> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new catalog routes.
+     */
+    @Inject
+    public CatalogRoutes(CardCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Registers /catalog/{lang}, the catalog of one language. Without a version it serves the current catalog,
+     * revalidated by ETag; /catalog/{lang}?v={version} serves that version, which never changes and is cached for a
+     * year.
+     */
+    public void register(Router router) {
+        router.get("/catalog/*", (req, res) -> {
+            String language = req.getPathInfo().substring(1);
+            String requested = req.getParameter("v");
+            CatalogSnapshot snapshot = requested != null ? catalog.get(requested) : catalog.current();
+            if (snapshot == null || snapshot.getDocument(language) == null) {
+                res.setStatus(404);
+                res.setContentType("application/json");
+                return "{\"error\":\"not_found\"}";
+            }
+            StaticAssetServlet.serve(document(snapshot, language, requested != null), req, res, false);
+            return null;
+        });
+    }
+
+    private StaticAsset document(CatalogSnapshot snapshot, String language, boolean pinned) {
+        String key = snapshot.getVersion() + "/" + language + (pinned ? "/pinned" : "");
+        return documents.computeIfAbsent(key, k -> StaticAsset.of("/catalog/" + language, CONTENT_TYPE,
+                snapshot.getDocument(language), snapshot.getVersion() + "-" + language, pinned));
+    }
+}
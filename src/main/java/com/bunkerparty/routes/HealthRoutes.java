@@ -1,37 +1,182 @@
 package com.bunkerparty.routes;
 
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.command.MessageType;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.OutboundQueue;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import com.google.gson.Gson;
 import jakarta.inject.Inject;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import static spark.Spark.get;
-
 public class HealthRoutes {
 
+    /**
+     * The most sessions listed by /health/sessions, which shows the most backed-up ones.
+     */
+    static final int MAX_LISTED_SESSIONS = 50;
+
     private final GameService gameService;
+    private final RoomExecutor roomExecutor;
+    private final RoomReaper roomReaper;
+    private final WebSocketJsonSender sender;
+    private final CommandDecoder decoder;
+    private final RateLimiter rateLimiter;
+    private final HeartbeatMonitor heartbeatMonitor;
     private final Gson gson = new Gson();
 
     /**
      * Creates new health routes.
      */
     @Inject
-    public HealthRoutes(GameService gameService) {
+    public HealthRoutes(GameService gameService, RoomExecutor roomExecutor, RoomReaper roomReaper,
+                        WebSocketJsonSender sender, CommandDecoder decoder, RateLimiter rateLimiter,
+                        HeartbeatMonitor heartbeatMonitor) {
         this.gameService = gameService;
+        this.roomExecutor = roomExecutor;
+        this.roomReaper = roomReaper;
+        this.sender = sender;
+        this.decoder = decoder;
+        this.rateLimiter = rateLimiter;
+        this.heartbeatMonitor = heartbeatMonitor;
     }
 
     /**
      * Registers health check endpoints.
      */
-    public void register() {
+    public void register(Router router) {
 
-        get("/health", (req, res) -> {
-            res.type("application/json");
-            return gson.toJson(Map.of(
-                    "status", "ok",
-                    "rooms", gameService.getAllRooms().size()
-            ));
+        router.get("/health", (req, res) -> {
+            res.setContentType("application/json");
+            int players = 0;
+            int online = 0;
+            for (Room room : gameService.getAllRooms()) {
+                for (Player p : room.getPlayers().values()) {
+                    players++;
+                    if (p.isOnline()) {
+                        online++;
+                    }
+                }
+            }
+            Map<String, Object> health = new LinkedHashMap<>();
+            if (gameService.isDraining()) {
+                res.setStatus(503);
+            }
+            health.put("status", gameService.isDraining() ? "draining" : "ok");
+            health.put("rooms", gameService.getAllRooms().size());
+            health.put("players", players);
+            health.put("onlinePlayers", online);
+            health.put("broadcastsSaved", gameService.getSavedBroadcasts());
+            health.put("evictions", evictionStats());
+            health.put("outbound", outboundStats());
+            health.put("rejectedFrames", rejectionStats());
+            health.put("throttled", throttleStats());
+            health.put("heartbeat", heartbeatStats());
+            health.put("shards", shardStats());
+            return gson.toJson(health);
         });
+
+        router.get("/health/sessions", (req, res) -> {
+            res.setContentType("application/json");
+            List<Map<String, Object>> sessions = new ArrayList<>();
+            for (OutboundQueue queue : sender.getQueues()) {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("queueDepth", queue.getDepth());
+                stats.put("sent", queue.getSent());
+                stats.put("failed", queue.getFailed());
+                stats.put("conflated", queue.getConflated());
+                stats.put("avgLatencyMicros", queue.getAverageLatencyMicros());
+                stats.put("maxLatencyMicros", queue.getMaxLatencyMicros());
+                sessions.add(stats);
+            }
+            sessions.sort(Comparator.<Map<String, Object>>comparingInt(stats -> (Integer) stats.get("queueDepth"))
+                    .thenComparingLong(stats -> (Long) stats.get("maxLatencyMicros")).reversed());
+            return gson.toJson(sessions.subList(0, Math.min(sessions.size(), MAX_LISTED_SESSIONS)));
+        });
+    }
+
+    private Map<String, Long> outboundStats() {
+        long sessions = 0;
+        long queued = 0;
+        long maxDepth = 0;
+        long failed = 0;
+        long conflated = 0;
+        long maxLatency = 0;
+        for (OutboundQueue queue : sender.getQueues()) {
+            int depth = queue.getDepth();
+            sessions++;
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+            failed += queue.getFailed();
+            conflated += queue.getConflated();
+            maxLatency = Math.max(maxLatency, queue.getMaxLatencyMicros());
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions);
+        stats.put("queued", queued);
+        stats.put("maxQueueDepth", maxDepth);
+        stats.put("failedWrites", failed);
+        stats.put("conflatedFrames", conflated);
+        stats.put("slowConsumersClosed", sender.getSlowConsumersClosed());
+        stats.put("maxLatencyMicros", maxLatency);
+        return stats;
+    }
+
+    private Map<String, Long> evictionStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (RoomReaper.Reason reason : RoomReaper.Reason.values()) {
+            stats.put(reason.name().toLowerCase(), roomReaper.getEvictions(reason));
+        }
+        return stats;
+    }
+
+    private Map<String, Long> rejectionStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (CommandDecoder.Reason reason : CommandDecoder.Reason.values()) {
+            stats.put(reason.name().toLowerCase(), decoder.getRejections(reason));
+        }
+        return stats;
+    }
+
+    private Map<String, Long> throttleStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (MessageType type : MessageType.values()) {
+            stats.put(type.getWireName(), rateLimiter.getThrottled(type));
+        }
+        stats.put("roomNotFound", rateLimiter.getRoomNotFound());
+        stats.put("trackedAddresses", (long) rateLimiter.getTrackedAddresses());
+        return stats;
+    }
+
+    private Map<String, Long> heartbeatStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("tracked", (long) heartbeatMonitor.getTrackedCount());
+        stats.put("pingsSent", heartbeatMonitor.getPingsSent());
+        stats.put("timedOut", heartbeatMonitor.getTimedOut());
+        return stats;
+    }
+
+    private List<Map<String, Object>> shardStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (int i = 0; i < roomExecutor.getShardCount(); i++) {
+            stats.add(Map.of(
+                    "queueDepth", roomExecutor.getQueueDepth(i),
+                    "completed", roomExecutor.getCompletedTasks(i),
+                    "avgLatencyMicros", roomExecutor.getAverageLatencyMicros(i),
+                    "maxLatencyMicros", roomExecutor.getMaxLatencyMicros(i)
+            ));
+        }
+        return stats;
     }
 }
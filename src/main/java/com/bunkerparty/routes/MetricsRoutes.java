@@ -0,0 +1,208 @@
+package com.bunkerparty.routes;
+
+import com.bunkerparty.cluster.BroadcastBus;
+import com.bunkerparty.cluster.TcpBroadcastBus;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.MetricsRegistry;
+import com.bunkerparty.persistence.EventLog;
+import com.bunkerparty.persistence.RoomPersistence;
+import com.bunkerparty.persistence.WriteAheadLog;
+import com.bunkerparty.service.DrainCoordinator;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.command.MessageType;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import jakarta.inject.Inject;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+public class MetricsRoutes {
+
+    private static final List<String> PHASES = List.of(
+            Room.PHASE_LOBBY, Room.PHASE_REVEAL, Room.PHASE_CONFIRM, Room.PHASE_GAME_OVER);
+
+    private final MetricsRegistry registry;
+    private final GameService gameService;
+    private final RoomReaper roomReaper;
+    private final WebSocketJsonSender sender;
+    private final CommandDecoder decoder;
+    private final RateLimiter rateLimiter;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final EventLog eventLog;
+    private final RoomPersistence persistence;
+    private final DrainCoordinator drainCoordinator;
+    private final BroadcastBus bus;
+
+    /**
+     * Creates new metrics routes.
+     */
+    @Inject
+    public MetricsRoutes(MetricsRegistry registry, GameService gameService, RoomReaper roomReaper,
+                         WebSocketJsonSender sender, CommandDecoder decoder, RateLimiter rateLimiter,
+                         HeartbeatMonitor heartbeatMonitor, EventLog eventLog, RoomPersistence persistence,
+                         DrainCoordinator drainCoordinator, BroadcastBus bus) {
+        this.registry = registry;
+        this.gameService = gameService;
+        this.roomReaper = roomReaper;
+        this.sender = sender;
+        this.decoder = decoder;
+        this.rateLimiter = rateLimiter;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.eventLog = eventLog;
+        this.persistence = persistence;
+        this.drainCoordinator = drainCoordinator;
+        this.bus = bus;
+    }
+
+    /**
+     * Registers the gauges read at scrape time and the Prometheus /metrics endpoint.
+     */
+    public void register(Router router) {
+        registerGameGauges();
+        registerPersistenceGauges();
+        registerDrainGauges();
+        registerBusGauges();
+        registerJvmGauges();
+
+        router.get("/metrics", (req, res) -> {
+            res.setContentType(MetricsRegistry.CONTENT_TYPE);
+            return registry.scrape();
+        });
+    }
+
+    private void registerGameGauges() {
+        for (String phase : PHASES) {
+            registry.gauge("bunker_rooms", "Rooms by game phase.", () -> countRooms(phase), "phase", phase);
+        }
+        registry.gauge("bunker_players", "Players seated in a room.", () -> countPlayers(false));
+        registry.gauge("bunker_players_online", "Players with an open connection.", () -> countPlayers(true));
+        registry.gauge("bunker_sessions", "Sessions with an outbound queue.", () -> sender.getQueues().size());
+        registry.gauge("bunker_heartbeat_tracked", "Sessions being pinged.", heartbeatMonitor::getTrackedCount);
+        registry.counter("bunker_heartbeat_timeouts_total", "Sessions closed for missing their pongs.",
+                heartbeatMonitor::getTimedOut);
+        registry.counter("bunker_slow_consumers_closed_total", "Sessions closed for falling behind.",
+                sender::getSlowConsumersClosed);
+        registry.counter("bunker_broadcasts_saved_total", "Updates merged into another broadcast.",
+                gameService::getSavedBroadcasts);
+        registry.counter("bunker_join_redirects_total", "Joins redirected to the node owning the room.",
+                gameService::getRedirects);
+        for (RoomReaper.Reason reason : RoomReaper.Reason.values()) {
+            registry.counter("bunker_room_evictions_total", "Rooms evicted by reason.",
+                    () -> roomReaper.getEvictions(reason), "reason", reason.name().toLowerCase());
+        }
+        for (CommandDecoder.Reason reason : CommandDecoder.Reason.values()) {
+            registry.counter("bunker_frames_rejected_total", "Inbound frames rejected by the decoder.",
+                    () -> decoder.getRejections(reason), "reason", reason.name().toLowerCase());
+        }
+        for (MessageType type : MessageType.values()) {
+            registry.counter("bunker_messages_throttled_total", "Client messages refused by the rate limiter.",
+                    () -> rateLimiter.getThrottled(type), "type", type.getWireName());
+        }
+    }
+
+    private void registerPersistenceGauges() {
+        WriteAheadLog wal = eventLog.getLog();
+        if (wal == null) {
+            return;
+        }
+        registry.counter("bunker_journal_appends_total", "Room changes appended to the journal.", wal::getAppends);
+        registry.counter("bunker_journal_bytes_total", "Bytes appended to the journal.", wal::getAppendedBytes);
+        registry.counter("bunker_journal_failures_total", "Room changes that could not be journaled.",
+                eventLog::getFailures);
+        registry.counter("bunker_journal_fsyncs_total", "Times the journal was forced to disk.", wal::getFsyncs);
+        registry.gauge("bunker_journal_fsync_seconds", "Total time spent forcing the journal to disk.",
+                () -> wal.getFsyncNanos() / 1e9);
+        registry.gauge("bunker_journal_segments", "Journal segment files.", wal::getSegmentCount);
+        registry.counter("bunker_snapshots_total", "Room snapshots written.", persistence::getSnapshots);
+        registry.gauge("bunker_snapshot_rooms", "Rooms in the latest snapshot.", persistence::getLastSnapshotRooms);
+        registry.gauge("bunker_snapshot_duration_seconds", "Duration of the latest snapshot.",
+                () -> persistence.getLastSnapshotMillis() / 1000.0);
+        registry.gauge("bunker_recovered_rooms", "Rooms recovered at startup.", persistence::getRecoveredRooms);
+        registry.gauge("bunker_recovery_duration_seconds", "Duration of the startup recovery.",
+                () -> persistence.getRecoveryMillis() / 1000.0);
+    }
+
+    private void registerDrainGauges() {
+        registry.gauge("bunker_draining", "1 while the server drains before a shutdown.",
+                () -> drainCoordinator.isDraining() ? 1 : 0);
+        registry.counter("bunker_drain_sessions_handed_off_total", "Sessions told to reconnect by a drain.",
+                drainCoordinator::getHandedOff);
+        registry.counter("bunker_drain_sessions_closed_total", "Sessions closed at the drain timeout.",
+                drainCoordinator::getClosed);
+        registry.counter("bunker_drain_joins_refused_total", "Joins answered with a refresh while draining.",
+                gameService::getRefusedJoins);
+        registry.counter("bunker_drain_upgrades_refused_total", "WebSocket upgrades answered with 503 while draining.",
+                drainCoordinator::getRefusedUpgrades);
+        registry.gauge("bunker_drain_duration_seconds", "Duration of the latest drain.",
+                () -> drainCoordinator.getLastDrainMillis() / 1000.0);
+    }
+
+    private void registerBusGauges() {
+        if (!(bus instanceof TcpBroadcastBus tcpBus)) {
+            return;
+        }
+        registry.counter("bunker_bus_commands_forwarded_total", "Client messages forwarded to the rooms' owners.",
+                tcpBus::getCommandsForwarded);
+        registry.gauge("bunker_bus_forwarded_sessions", "Sessions here playing in rooms owned by other nodes.",
+                tcpBus::getForwardedSessions);
+        registry.gauge("bunker_bus_stand_ins", "Sessions standing in here for clients of other nodes.",
+                tcpBus::getStandIns);
+        registry.counter("bunker_bus_frames_sent_total", "Frames sent to clients of other nodes.",
+                tcpBus::getFramesSent);
+        registry.counter("bunker_bus_frames_received_total", "Frames received for clients of this node.",
+                tcpBus::getFramesReceived);
+        registry.counter("bunker_bus_batches_total", "Batched writes to peers.", tcpBus::getBatches);
+        registry.counter("bunker_bus_dropped_total", "Messages dropped because a peer's queue was full.",
+                tcpBus::getDropped);
+    }
+
+    private void registerJvmGauges() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_memory_used_bytes", "Used JVM memory.",
+                () -> memory.getHeapMemoryUsage().getUsed(), "area", "heap");
+        registry.gauge("jvm_memory_used_bytes", "Used JVM memory.",
+                () -> memory.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        registry.gauge("jvm_memory_committed_bytes", "Committed JVM memory.",
+                () -> memory.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        registry.gauge("jvm_memory_max_bytes", "Maximum JVM heap, or -1 if unbounded.",
+                () -> memory.getHeapMemoryUsage().getMax(), "area", "heap");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_threads_live", "Live JVM threads.", threads::getThreadCount);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registry.counter("jvm_gc_collections_total", "Garbage collections by collector.",
+                    gc::getCollectionCount, "gc", gc.getName());
+            registry.gauge("jvm_gc_collection_seconds", "Total time spent in garbage collection by collector.",
+                    () -> gc.getCollectionTime() / 1000.0, "gc", gc.getName());
+        }
+    }
+
+    private int countRooms(String phase) {
+        int rooms = 0;
+        for (Room room : gameService.getAllRooms()) {
+            if (phase.equals(room.getPhase())) {
+                rooms++;
+            }
+        }
+        return rooms;
+    }
+
+    private int countPlayers(boolean onlineOnly) {
+        int players = 0;
+        for (Room room : gameService.getAllRooms()) {
+            for (Player p : room.getPlayers().values()) {
+                if (!onlineOnly || p.isOnline()) {
+                    players++;
+                }
+            }
+        }
+        return players;
+    }
+}
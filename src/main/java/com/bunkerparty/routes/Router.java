@@ -0,0 +1,95 @@
+package com.bunkerparty.routes;
+
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dispatches HTTP requests to the routes registered for their exact path and method. A path ending in /* matches
+ * everything below it, which the route reads from {@link HttpServletRequest#getPathInfo()}.
+ */
+public class Router extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(Router.class);
+
+    /**
+     * Handles one request and returns the response body, or null if it wrote the response itself.
+     */
+    @FunctionalInterface
+    public interface Route {
+        String handle(HttpServletRequest req, HttpServletResponse res) throws Exception;
+    }
+
+    private final Map<String, Map<String, Route>> routes = new LinkedHashMap<>();
+
+    /**
+     * Registers a route for GET requests to the given path.
+     */
+    public void get(String path, Route route) {
+        add("GET", path, route);
+    }
+
+    /**
+     * Registers a route for POST requests to the given path.
+     */
+    public void post(String path, Route route) {
+        add("POST", path, route);
+    }
+
+    /**
+     * Returns the registered paths.
+     */
+    public Set<String> paths() {
+        return Collections.unmodifiableSet(routes.keySet());
+    }
+
+    /**
+     * Serves every registered path from the given context.
+     */
+    public void mount(ServletContextHandler context) {
+        ServletHolder holder = new ServletHolder("routes", this);
+        for (String path : routes.keySet()) {
+            context.addServlet(holder, path);
+        }
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        String path = req.getPathInfo() != null ? req.getServletPath() + "/*" : req.getServletPath();
+        Map<String, Route> methods = routes.get(path);
+        Route route = methods != null ? methods.get(req.getMethod()) : null;
+        if (route == null) {
+            res.sendError(methods == null ? HttpServletResponse.SC_NOT_FOUND
+                    : HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String body;
+        try {
+            body = route.handle(req, res);
+        } catch (Exception e) {
+            logger.error("Route {} {} failed", req.getMethod(), req.getServletPath(), e);
+            res.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            res.setCharacterEncoding("UTF-8");
+            res.setContentLength(bytes.length);
+            res.getOutputStream().write(bytes);
+        }
+    }
+
+    private void add(String method, String path, Route route) {
+        routes.computeIfAbsent(path, p -> new LinkedHashMap<>()).put(method, route);
+    }
+}
@@ -0,0 +1,214 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.assets.ClasspathDirectory;
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.CatalogSnapshot;
+import com.bunkerparty.domain.Room;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The card and bunker catalog, parsed from the locale files once and swapped atomically on reload. Games take the
+ * current snapshot when they are dealt and keep it; every version loaded since startup stays available, so clients of
+ * older games can still fetch theirs.
+ */
+@Singleton
+public class CardCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(CardCatalog.class);
+
+    private static final String BUNDLED = "/public/data";
+    private static final int VERSION_CHARS = 10;
+
+    private final Path directory;
+    private final Map<String, CatalogSnapshot> versions = new ConcurrentHashMap<>();
+    private volatile CatalogSnapshot current;
+
+    /**
+     * Creates a catalog from the configured directory, or the bundled locale files if none is set.
+     */
+    @Inject
+    public CardCatalog() {
+        this(AppConfig.getCatalogDir() != null ? Path.of(AppConfig.getCatalogDir()) : null);
+    }
+
+    /**
+     * Creates a catalog from the locale files in the given directory, or the bundled ones if null.
+     */
+    public CardCatalog(Path directory) {
+        this.directory = directory;
+        reload();
+    }
+
+    /**
+     * Returns the current snapshot, which new games are dealt from.
+     */
+    public CatalogSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Returns the snapshot with the given version, or null if it was never loaded.
+     */
+    public CatalogSnapshot get(String version) {
+        return version != null ? versions.get(version) : null;
+    }
+
+    /**
+     * Returns the snapshot the room's game was dealt from, or the current one for a room that was not dealt yet.
+     * Throws if the room is pinned to a version that is not loaded, rather than dealing from another catalog.
+     */
+    public CatalogSnapshot forRoom(Room room) {
+        CatalogSnapshot catalog = room.getCatalog();
+        if (catalog != null) {
+            return catalog;
+        }
+        String version = room.getCatalogVersion();
+        if (version == null) {
+            return current;
+        }
+        catalog = versions.get(version);
+        if (catalog == null) {
+            throw new IllegalStateException("Room " + room.getRoomId() + " was dealt from card catalog " + version
+                    + ", which is not loaded");
+        }
+        room.setCatalog(catalog);
+        return catalog;
+    }
+
+    /**
+     * Parses the locale files again and makes them current. Throws and keeps the current snapshot if they are
+     * invalid.
+     */
+    public synchronized CatalogSnapshot reload() {
+        Map<String, byte[]> files = directory != null ? read(directory)
+                : ClasspathDirectory.read(BUNDLED, CardCatalog::read);
+        CatalogSnapshot loaded = parse(files);
+        CatalogSnapshot existing = versions.putIfAbsent(loaded.getVersion(), loaded);
+        if (existing != null) {
+            loaded = existing;
+        }
+        if (current != loaded) {
+            current = loaded;
+            logger.info("Card catalog {} loaded from {}: {} languages, {} bunkers", loaded.getVersion(),
+                    directory != null ? directory : "classpath:" + BUNDLED, loaded.getLanguages().size(),
+                    loaded.getBunkerCount());
+        }
+        return loaded;
+    }
+
+    /**
+     * Parses one locale file per language and checks that they all describe the same decks. Each document served
+     * to clients is the locale file with the catalog version added.
+     */
+    static CatalogSnapshot parse(Map<String, byte[]> files) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No locale files");
+        }
+        String version = version(files);
+        int[] counts = null;
+        int bunkerCount = -1;
+        Map<String, byte[]> documents = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            String language = file.getKey();
+            JsonObject locale;
+            try {
+                locale = JsonParser.parseString(new String(file.getValue(), StandardCharsets.UTF_8)).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException e) {
+                throw new IllegalArgumentException(language + ": not a JSON object", e);
+            }
+
+            int[] languageCounts = new int[CardCategory.ALL.size()];
+            JsonObject cards = object(locale, "cards", language);
+            for (CardCategory category : CardCategory.ALL) {
+                int count = array(cards, category.getKey(), language).size();
+                if (count < Room.MAX_PLAYERS || count > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException(language + ": " + category.getKey() + " has " + count
+                            + " cards, expected " + Room.MAX_PLAYERS + " to " + Byte.MAX_VALUE);
+                }
+                languageCounts[category.ordinal()] = count;
+            }
+            int languageBunkers = array(locale, "bunkers", language).size();
+            if (languageBunkers == 0) {
+                throw new IllegalArgumentException(language + ": no bunkers");
+            }
+
+            if (counts == null) {
+                counts = languageCounts;
+                bunkerCount = languageBunkers;
+            } else if (!Arrays.equals(counts, languageCounts) || bunkerCount != languageBunkers) {
+                throw new IllegalArgumentException(language + ": decks differ from the other languages");
+            }
+
+            locale.addProperty("version", version);
+            documents.put(language, locale.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return new CatalogSnapshot(version, counts, bunkerCount, documents);
+    }
+
+    private static Map<String, byte[]> read(Path directory) {
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) list::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".json") && Files.isRegularFile(file)) {
+                    files.put(name.substring(0, name.length() - ".json".length()), Files.readAllBytes(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the card catalog from " + directory, e);
+        }
+        return files;
+    }
+
+    private static JsonObject object(JsonObject parent, String key, String language) {
+        JsonElement element = parent.get(key);
+        if (element == null || !element.isJsonObject()) {
+            throw new IllegalArgumentException(language + ": missing object " + key);
+        }
+        return element.getAsJsonObject();
+    }
+
+    private static JsonArray array(JsonObject parent, String key, String language) {
+        JsonElement element = parent.get(key);
+        if (element == null || !element.isJsonArray()) {
+            throw new IllegalArgumentException(language + ": missing array " + key);
+        }
+        return element.getAsJsonArray();
+    }
+
+    private static String version(Map<String, byte[]> files) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, byte[]> file : new TreeMap<>(files).entrySet()) {
+                digest.update(file.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(file.getValue());
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, VERSION_CHARS);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
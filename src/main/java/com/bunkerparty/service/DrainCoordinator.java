@@ -0,0 +1,183 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.persistence.RoomPersistence;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands the connected clients over to a restarted or sibling instance before a shutdown: refuses new games, joins
+ * and upgrades, snapshots every room and sends each client a refresh with a random delay, so the rejoins are spread
+ * over the jitter window instead of arriving at once.
+ */
+@Singleton
+public class DrainCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(DrainCoordinator.class);
+
+    /**
+     * WebSocket close status telling the client the service is restarting.
+     */
+    static final int SERVICE_RESTART = 1012;
+
+    private static final long POLL_MILLIS = 50;
+
+    private final GameService gameService;
+    private final RoomPersistence persistence;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final WebSocketJsonSender sender;
+    private final OutboundCodec codec;
+    private final Random random;
+    private final long jitterMillis;
+    private final long timeoutMillis;
+    private final LongAdder handedOff = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder refusedUpgrades = new LongAdder();
+    private volatile long lastDrainMillis;
+
+    /**
+     * Creates a coordinator with the jitter window and timeout from the application configuration.
+     */
+    @Inject
+    public DrainCoordinator(GameService gameService, RoomPersistence persistence, HeartbeatMonitor heartbeatMonitor,
+                            WebSocketJsonSender sender, OutboundCodec codec, Random random) {
+        this(gameService, persistence, heartbeatMonitor, sender, codec, random, AppConfig.getDrainJitterMillis(),
+                AppConfig.getDrainTimeoutMillis());
+    }
+
+    /**
+     * Creates a coordinator that spreads reconnects over the given window and waits up to the given timeout
+     * for clients to leave.
+     */
+    public DrainCoordinator(GameService gameService, RoomPersistence persistence, HeartbeatMonitor heartbeatMonitor,
+                            WebSocketJsonSender sender, OutboundCodec codec, Random random, long jitterMillis,
+                            long timeoutMillis) {
+        this.gameService = gameService;
+        this.persistence = persistence;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.sender = sender;
+        this.codec = codec;
+        this.random = random;
+        this.jitterMillis = jitterMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Refuses new games, joins and upgrades, snapshots every room, asks each connected client to reconnect after a
+     * random delay and waits for the clients to disconnect, closing those still connected after the timeout.
+     * Returns how many sessions were handed off. Calling it again hands off clients that connected since.
+     */
+    public synchronized int drain() {
+        long start = System.nanoTime();
+        gameService.startDraining(jitterMillis);
+        if (persistence.isEnabled()) {
+            try {
+                persistence.snapshot();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to snapshot rooms before draining", e);
+            }
+        } else {
+            logger.warn("Draining without PERSISTENCE_DIR; rooms will not survive the restart");
+        }
+
+        List<Session> sessions = List.copyOf(heartbeatMonitor.getSessions());
+        int sent = 0;
+        for (Session session : sessions) {
+            long delay = jitterMillis > 0 ? random.nextLong(jitterMillis) : 0;
+            if (sender.sendText(session, codec.refresh(delay))) {
+                sent++;
+            }
+        }
+        handedOff.add(sent);
+
+        int remaining = awaitDisconnect(sessions, start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        for (Session session : sessions) {
+            if (session.isOpen()) {
+                session.close(SERVICE_RESTART, "Server restarting");
+            }
+        }
+        closed.add(remaining);
+        lastDrainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Drained in {} ms: handed off {} of {} sessions, closed {} after the timeout", lastDrainMillis,
+                sent, sessions.size(), remaining);
+        return sent;
+    }
+
+    /**
+     * Returns true once the server is draining.
+     */
+    public boolean isDraining() {
+        return gameService.isDraining();
+    }
+
+    /**
+     * Returns true and counts the refusal if the server is draining, so a WebSocket upgrade must be refused and the
+     * client reconnect elsewhere.
+     */
+    public boolean refuseUpgrade() {
+        if (!gameService.isDraining()) {
+            return false;
+        }
+        refusedUpgrades.increment();
+        return true;
+    }
+
+    /**
+     * Returns how many WebSocket upgrades were refused while draining.
+     */
+    public long getRefusedUpgrades() {
+        return refusedUpgrades.sum();
+    }
+
+    /**
+     * Returns how many sessions were sent a refresh by all drains.
+     */
+    public long getHandedOff() {
+        return handedOff.sum();
+    }
+
+    /**
+     * Returns how many sessions were still connected at the drain timeout and had to be closed.
+     */
+    public long getClosed() {
+        return closed.sum();
+    }
+
+    /**
+     * Returns how long the latest drain took, in milliseconds.
+     */
+    public long getLastDrainMillis() {
+        return lastDrainMillis;
+    }
+
+    private static int awaitDisconnect(List<Session> sessions, long deadline) {
+        while (true) {
+            int open = 0;
+            for (Session session : sessions) {
+                if (session.isOpen()) {
+                    open++;
+                }
+            }
+            if (open == 0 || System.nanoTime() - deadline >= 0) {
+                return open;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return open;
+            }
+        }
+    }
+}
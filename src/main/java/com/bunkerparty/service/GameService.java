@@ -1,40 +1,130 @@
 package com.bunkerparty.service;
 
+import com.bunkerparty.cluster.BroadcastBus;
+import com.bunkerparty.cluster.ClusterNode;
+import com.bunkerparty.cluster.LocalBroadcastBus;
+import com.bunkerparty.config.AppConfig;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.domain.RoomSnapshot;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.persistence.RoomEvent;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.helpers.SharedFrame;
 import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 @Singleton
 public class GameService {
     private static final Logger logger = LoggerFactory.getLogger(GameService.class);
 
+    private static final int SNAPSHOT_RETENTION = 16;
+
     private final RoomManager roomManager;
     private final WebSocketJsonSender sender;
+    private final RoomReaper roomReaper;
+    private final RoomExecutor roomExecutor;
+    private final OutboundCodec codec;
+    private final GameMetrics metrics;
+    private final long coalesceMillis;
+    private final RoomStateEncoder encoder;
+    private final BroadcastBus bus;
+    private final LongAdder savedBroadcasts = new LongAdder();
+    private final LongAdder redirects = new LongAdder();
+    private final LongAdder refusedJoins = new LongAdder();
+    private volatile boolean draining;
+    private volatile long drainJitterMillis;
 
     /**
-     * Creates a new game service.
+     * Creates a new game service with the configured broadcast coalescing window.
      */
     @Inject
-    public GameService(RoomManager roomManager, WebSocketJsonSender sender) {
+    public GameService(RoomManager roomManager, WebSocketJsonSender sender, RoomReaper roomReaper,
+                       RoomExecutor roomExecutor, OutboundCodec codec, GameMetrics metrics, BroadcastBus bus) {
+        this(roomManager, sender, roomReaper, roomExecutor, codec, metrics, AppConfig.getBroadcastCoalesceMillis(),
+                bus);
+    }
+
+    /**
+     * Creates a new game service for a single node that merges updates of a room made within the given window,
+     * or none if 0.
+     */
+    public GameService(RoomManager roomManager, WebSocketJsonSender sender, RoomReaper roomReaper,
+                       RoomExecutor roomExecutor, OutboundCodec codec, GameMetrics metrics, long coalesceMillis) {
+        this(roomManager, sender, roomReaper, roomExecutor, codec, metrics, coalesceMillis,
+                new LocalBroadcastBus());
+    }
+
+    /**
+     * Creates a new game service that merges updates of a room made within the given window, or none if 0,
+     * and forwards the messages of rooms owned by other nodes through the given bus.
+     */
+    public GameService(RoomManager roomManager, WebSocketJsonSender sender, RoomReaper roomReaper,
+                       RoomExecutor roomExecutor, OutboundCodec codec, GameMetrics metrics, long coalesceMillis,
+                       BroadcastBus bus) {
         this.roomManager = roomManager;
         this.sender = sender;
+        this.roomReaper = roomReaper;
+        this.roomExecutor = roomExecutor;
+        this.codec = codec;
+        this.metrics = metrics;
+        this.coalesceMillis = coalesceMillis;
+        this.encoder = new RoomStateEncoder(codec);
+        this.bus = bus;
     }
 
     /**
-     * Creates a new game room.
+     * Creates a new game room, or returns null if every room code is in use.
      */
     public Room createRoom() {
-        return roomManager.createRoom();
+        Room room = roomManager.createRoom();
+        if (room != null) {
+            roomReaper.track(room);
+        }
+        return room;
+    }
+
+    /**
+     * Stops new games and joins while the server drains before a shutdown. Clients that still try to join are told
+     * to reconnect after a random delay within the given window.
+     */
+    public void startDraining(long jitterMillis) {
+        drainJitterMillis = jitterMillis;
+        draining = true;
+    }
+
+    /**
+     * Returns true once the server is draining and refuses new games and joins.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Queues a refresh with a random delay within the drain's window for a client that tried to join while the
+     * server drains, so it reconnects to the replacement or a sibling instance instead of rejoining here.
+     */
+    public void refuseJoin(Session session) {
+        refusedJoins.increment();
+        long delay = drainJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(drainJitterMillis) : 0;
+        sender.sendText(session, codec.refresh(delay));
+    }
+
+    /**
+     * Returns how many joins were refused while draining.
+     */
+    public long getRefusedJoins() {
+        return refusedJoins.sum();
     }
 
     /**
@@ -44,6 +134,31 @@ public class GameService {
         return roomManager.getRoom(roomId);
     }
 
+    /**
+     * Returns the node that owns the room if it is another node, or null if the room belongs here.
+     */
+    public ClusterNode getRemoteOwner(String roomId) {
+        return roomManager.getRemoteOwner(roomId);
+    }
+
+    /**
+     * Forwards a client's message for a room owned by another node to that node and returns true, or returns false
+     * if the message is to be handled here: the room is this node's, the code is malformed or the nodes are not
+     * connected by a bus.
+     */
+    public boolean forward(Session session, String roomId, String message) {
+        ClusterNode owner = roomManager.getRemoteOwner(roomId);
+        return owner != null && bus.forward(session, owner, message);
+    }
+
+    /**
+     * Records a change that was just applied to a room in the journal, so the room survives a restart.
+     * Must run on the room's shard.
+     */
+    public void record(Room room, RoomEvent event) {
+        roomManager.record(room, event);
+    }
+
     /**
      * Returns all active rooms.
      */
@@ -53,102 +168,142 @@ public class GameService {
 
     /**
      * Broadcasts a game state update to all players in the room.
+     * With a coalescing window, updates within the same phase are merged into one broadcast at the end of the window,
+     * while a phase change is broadcast immediately.
+     * Must run on the room's shard.
      */
     public void broadcastUpdate(Room room) {
-        JsonObject update = createGameUpdateMessage(room);
+        room.touch();
+        if (coalesceMillis <= 0 || !room.getPhase().equals(room.getBroadcastPhase())) {
+            if (room.isBroadcastPending()) {
+                recordSavedBroadcast(room);
+            }
+            flush(room);
+        } else if (room.isBroadcastPending()) {
+            recordSavedBroadcast(room);
+        } else {
+            room.setBroadcastPending(true);
+            roomExecutor.schedule(room.getRoomId(), coalesceMillis, () -> {
+                if (room.isBroadcastPending()) {
+                    flush(room);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns how many updates were merged into another broadcast across all rooms.
+     */
+    public long getSavedBroadcasts() {
+        return savedBroadcasts.sum();
+    }
+
+    private void recordSavedBroadcast(Room room) {
+        room.incrementSavedBroadcasts();
+        savedBroadcasts.increment();
+    }
 
+    /**
+     * Sends the current state of the room to every player.
+     * Players whose last delivered version is still retained receive a game_patch with only the changes;
+     * everyone else receives a full game_update snapshot. Each distinct frame is serialized once.
+     * A player whose previous update for this room is still unsent gets a snapshot that replaces it.
+     */
+    private void flush(Room room) {
+        long start = System.nanoTime();
+        room.setBroadcastPending(false);
+        room.setBroadcastPhase(room.getPhase());
+        RoomSnapshot previous = room.getLatestSnapshot();
+        RoomSnapshot current = encoder.snapshot(room, room.incrementVersion(), previous);
+        room.publishSnapshot(current, SNAPSHOT_RETENTION);
+
+        SharedFrame full = null;
+        Map<Long, SharedFrame> patches = new HashMap<>(2);
+        int recipients = 0;
         for (Player p : room.getPlayers().values()) {
-            if (p.getSession() != null && p.getSession().isOpen()) {
-                JsonObject personalUpdate = update.deepCopy();
-                JsonObject myCards = new JsonObject();
-                p.getCharacterIndices().forEach(myCards::addProperty);
-                personalUpdate.add("myCards", myCards);
-                try {
-                    sender.send(p.getSession(), personalUpdate);
-                } catch (IOException e) {
-                    logger.error("Failed to send update to player {} in room {}", p.getName(), room.getRoomId(), e);
+            if (p.getSession() == null || !p.getSession().isOpen()) {
+                continue;
+            }
+            recipients++;
+            RoomSnapshot base = p.getSyncedVersion() > 0 ? room.getSnapshot(p.getSyncedVersion()) : null;
+            String text;
+            if (base == null || sender.hasPendingState(p.getSession(), room.getRoomId())) {
+                if (full == null) {
+                    full = new SharedFrame(encoder.snapshotJson(current), "myCards");
                 }
+                text = full.complete(p.getCardsJson());
+            } else {
+                SharedFrame patch = patches.computeIfAbsent(base.getVersion(),
+                        v -> new SharedFrame(encoder.patchJson(base, current), "myCards"));
+                text = p.isCardsSynced() ? patch.withoutPersonal() : patch.complete(p.getCardsJson());
             }
+            deliver(room, p, current, text);
         }
+        metrics.recordBroadcast(recipients, System.nanoTime() - start);
     }
 
     /**
-     * Sends a JSON message to a specific WebSocket session.
+     * Sends the latest full game state to a single player, e.g. after their client lost track of patches.
      */
-    public void sendToSession(Session session, JsonObject message) {
-        try {
-            sender.send(session, message);
-        } catch (IOException e) {
-            logger.error("Failed to send message to session {}", session.getRemoteAddress(), e);
+    public void sendFullState(Room room, Player player) {
+        RoomSnapshot current = room.getLatestSnapshot();
+        if (current == null) {
+            current = encoder.snapshot(room, room.incrementVersion(), null);
+            room.publishSnapshot(current, SNAPSHOT_RETENTION);
+        }
+        if (player.getSession() != null && player.getSession().isOpen()) {
+            SharedFrame full = new SharedFrame(encoder.snapshotJson(current), "myCards");
+            deliver(room, player, current, full.complete(player.getCardsJson()));
         }
     }
 
-    private JsonObject createGameUpdateMessage(Room room) {
-        JsonObject update = new JsonObject();
-        update.addProperty("type", "game_update");
-        update.addProperty("phase", room.getPhase());
-        update.addProperty("round", room.getRound());
-        update.addProperty("roomId", room.getRoomId());
-
-        if (room.getEventIdx() != null) {
-            update.addProperty("eventIdx", room.getEventIdx());
+    private void deliver(Room room, Player player, RoomSnapshot snapshot, String text) {
+        if (sender.sendState(player.getSession(), room.getRoomId(), text)) {
+            player.markSynced(snapshot.getVersion());
         }
-
-        update.add("history", createHistoryObject(room));
-        update.add("startVotes", createStartVotesArray(room));
-        update.add("players", createPlayersArray(room));
-        update.add("roundReveals", createRoundRevealsObject(room));
-        update.add("roundConfirms", createRoundConfirmsArray(room));
-
-        return update;
     }
 
-    private JsonObject createHistoryObject(Room room) {
-        JsonObject history = new JsonObject();
-        room.getRevealedByRound().forEach((r, reveals) -> {
-            JsonObject rObj = new JsonObject();
-            rObj.addProperty("eventIdx", room.getEventByRound().get(r));
-            JsonObject revealsObj = new JsonObject();
-            reveals.forEach(revealsObj::addProperty);
-            rObj.add("reveals", revealsObj);
-            history.add(String.valueOf(r), rObj);
-        });
-        return history;
+    /**
+     * Queues an error message for a specific WebSocket session.
+     */
+    public void sendError(Session session, String code, String message) {
+        sender.sendText(session, codec.error(code, message));
     }
 
-    private JsonArray createStartVotesArray(Room room) {
-        JsonArray startVotes = new JsonArray();
-        room.getStartVotes().forEach(startVotes::add);
-        return startVotes;
+    /**
+     * Queues the open_room message that tells a player their ID and reconnect token.
+     */
+    public void sendOpenRoom(Session session, Room room, Player player) {
+        sender.sendText(session, codec.openRoom(room.getRoomId(), player.getId(), player.getToken()));
     }
 
-    private JsonArray createPlayersArray(Room room) {
-        JsonArray playersArray = new JsonArray();
-        for (Player p : room.getPlayers().values()) {
-            JsonObject pObj = new JsonObject();
-            pObj.addProperty("id", p.getId());
-            pObj.addProperty("name", p.getName());
-            pObj.addProperty("online", p.isOnline());
-            pObj.addProperty("ready", room.getStartVotes().contains(p.getId()));
-
-            JsonObject revealed = new JsonObject();
-            p.getRevealedIndices().forEach(revealed::addProperty);
-            pObj.add("revealed", revealed);
+    /**
+     * Queues the redirect that tells a client which node owns the room it tried to join.
+     */
+    public void sendRedirect(Session session, String roomId, ClusterNode owner) {
+        redirects.increment();
+        sender.sendText(session, codec.redirect(roomId, owner.id(), owner.url()));
+    }
 
-            playersArray.add(pObj);
-        }
-        return playersArray;
+    /**
+     * Returns how many joins were redirected to the room's owner.
+     */
+    public long getRedirects() {
+        return redirects.sum();
     }
 
-    private JsonObject createRoundRevealsObject(Room room) {
-        JsonObject roundReveals = new JsonObject();
-        room.getRoundReveals().forEach(roundReveals::addProperty);
-        return roundReveals;
+    /**
+     * Queues the reply to a client ping.
+     */
+    public void sendPong(Session session) {
+        sender.sendText(session, codec.pong());
     }
 
-    private JsonArray createRoundConfirmsArray(Room room) {
-        JsonArray roundConfirms = new JsonArray();
-        room.getRoundConfirms().forEach(roundConfirms::add);
-        return roundConfirms;
+    /**
+     * Releases the outbound resources of a closed session and tells the nodes its messages were forwarded to.
+     */
+    public void releaseSession(Session session) {
+        sender.release(session);
+        bus.release(session);
     }
 }
@@ -0,0 +1,148 @@
+package com.bunkerparty.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single-threaded hashed timing wheel. Scheduling and cancelling are O(1) and each tick only
+ * touches the timeouts hashed into the current bucket, so thousands of idle timers cost nothing between ticks.
+ * Tasks run on the wheel thread and should only hand work off elsewhere.
+ */
+public class HashedTimingWheel {
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private long tick;
+
+    /**
+     * Creates and starts a wheel with the given tick length and number of buckets (rounded up to a power of two).
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        @SuppressWarnings("unchecked")
+        Queue<Timeout>[] buckets = (Queue<Timeout>[]) new Queue<?>[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.buckets = buckets;
+        this.worker = new Thread(this::loop, "timing-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay, rounded up to the next tick.
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of scheduled timeouts that have neither fired nor been cancelled.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the wheel thread. Pending timeouts never fire.
+     */
+    public void stop() {
+        worker.interrupt();
+    }
+
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.done.get()) {
+                continue;
+            }
+            long targetTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (targetTick - tick) / buckets.length;
+            buckets[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.done.get()) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                if (timeout.done.compareAndSet(false, true)) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (Exception e) {
+                        logger.error("Timer task failed", e);
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * A handle to a scheduled task.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Prevents the task from running if it has not run yet.
+         */
+        public void cancel() {
+            if (done.compareAndSet(false, true)) {
+                pending.decrementAndGet();
+            }
+        }
+    }
+}
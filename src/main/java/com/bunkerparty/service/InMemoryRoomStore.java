@@ -0,0 +1,34 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Room;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps rooms in a concurrent map on the heap.
+ */
+public class InMemoryRoomStore implements RoomStore {
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    @Override
+    public Room get(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    @Override
+    public Room putIfAbsent(Room room) {
+        return rooms.putIfAbsent(room.getRoomId(), room);
+    }
+
+    @Override
+    public Room remove(String roomId) {
+        return rooms.remove(roomId);
+    }
+
+    @Override
+    public Collection<Room> getAll() {
+        return rooms.values();
+    }
+}
@@ -0,0 +1,110 @@
+package com.bunkerparty.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hands out random free slots of a fixed code space in constant time, however full the space is.
+ * Free slots live in an array; allocation swaps a random one out of the free region and release appends it back.
+ * A bitset of used slots makes release idempotent. Only the slots this allocator may hand out, such as the codes
+ * a node owns, are ever put in the array.
+ */
+public class RoomCodeAllocator {
+
+    private final int capacity;
+    private final int[] free;
+    private final BitSet used;
+    private final Random random;
+    private int freeCount;
+
+    /**
+     * Creates an allocator over the slots [0, capacity).
+     */
+    public RoomCodeAllocator(int capacity, Random random) {
+        this(capacity, slot -> true, random);
+    }
+
+    /**
+     * Creates an allocator over the slots in [0, capacity) that match the predicate. Takes time linear in the
+     * capacity; slots that do not match are never handed out and releasing them does nothing.
+     */
+    public RoomCodeAllocator(int capacity, IntPredicate eligible, Random random) {
+        int[] slots = new int[capacity];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (eligible.test(slot)) {
+                slots[count++] = slot;
+            }
+        }
+        this.capacity = capacity;
+        this.free = count == capacity ? slots : Arrays.copyOf(slots, count);
+        this.used = new BitSet(capacity);
+        this.random = random;
+        this.freeCount = count;
+    }
+
+    /**
+     * Takes a random free slot, or returns -1 if every slot is in use.
+     */
+    public synchronized int allocate() {
+        if (freeCount == 0) {
+            return -1;
+        }
+        int i = random.nextInt(freeCount);
+        int slot = free[i];
+        free[i] = free[--freeCount];
+        used.set(slot);
+        return slot;
+    }
+
+    /**
+     * Returns a slot to the free list. Releasing a slot that is not in use does nothing.
+     */
+    public synchronized void release(int slot) {
+        if (slot < 0 || slot >= capacity || !used.get(slot)) {
+            return;
+        }
+        used.clear(slot);
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Marks the given slots as in use, e.g. for rooms recovered at startup. Slots that are not handed out by this
+     * allocator are ignored. Takes time linear in the free slots.
+     */
+    public synchronized void reserve(BitSet slots) {
+        int kept = 0;
+        for (int i = 0; i < freeCount; i++) {
+            int slot = free[i];
+            if (slots.get(slot)) {
+                used.set(slot);
+            } else {
+                free[kept++] = slot;
+            }
+        }
+        freeCount = kept;
+    }
+
+    /**
+     * Returns the number of slots currently in use.
+     */
+    public synchronized int getUsedCount() {
+        return free.length - freeCount;
+    }
+
+    /**
+     * Returns the number of slots this allocator hands out.
+     */
+    public int getSlotCount() {
+        return free.length;
+    }
+
+    /**
+     * Returns the size of the code space, which every slot is below.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
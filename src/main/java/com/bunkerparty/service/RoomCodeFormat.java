@@ -0,0 +1,116 @@
+package com.bunkerparty.service;
+
+/**
+ * How room codes map to and from the integer slots handed out by {@link RoomCodeAllocator}.
+ */
+public enum RoomCodeFormat {
+
+    /**
+     * Four decimal digits, 10,000 codes.
+     */
+    NUMERIC(10_000) {
+        @Override
+        public String encode(int slot) {
+            char[] code = new char[4];
+            for (int i = 3; i >= 0; i--) {
+                code[i] = (char) ('0' + slot % 10);
+                slot /= 10;
+            }
+            return new String(code);
+        }
+
+        @Override
+        public int decode(String code) {
+            if (code == null || code.length() != 4) {
+                return -1;
+            }
+            int slot = 0;
+            for (int i = 0; i < 4; i++) {
+                char c = code.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                slot = slot * 10 + (c - '0');
+            }
+            return slot;
+        }
+    },
+
+    /**
+     * Four Crockford base-32 symbols followed by a Luhn mod 32 check symbol, 1,048,576 codes.
+     * Any single mistyped symbol and most swapped neighbours fail the check.
+     */
+    ALPHANUMERIC(1 << 20) {
+        @Override
+        public String encode(int slot) {
+            char[] code = new char[5];
+            for (int i = 3; i >= 0; i--) {
+                code[i] = ALPHABET.charAt(slot & 31);
+                slot >>>= 5;
+            }
+            code[4] = ALPHABET.charAt(checkSymbol(code));
+            return new String(code);
+        }
+
+        @Override
+        public int decode(String code) {
+            if (code == null || code.length() != 5) {
+                return -1;
+            }
+            char[] symbols = code.toCharArray();
+            int slot = 0;
+            for (int i = 0; i < 5; i++) {
+                int v = ALPHABET.indexOf(symbols[i]);
+                if (v < 0) {
+                    return -1;
+                }
+                if (i < 4) {
+                    slot = (slot << 5) | v;
+                } else if (v != checkSymbol(symbols)) {
+                    return -1;
+                }
+            }
+            return slot;
+        }
+    };
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private final int capacity;
+
+    RoomCodeFormat(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the number of distinct codes in this format.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the code for a slot in [0, capacity).
+     */
+    public abstract String encode(int slot);
+
+    /**
+     * Returns the slot of a code, or -1 if the code is malformed or fails its check.
+     */
+    public abstract int decode(String code);
+
+    private static int checkSymbol(char[] code) {
+        int sum = 0;
+        boolean twice = true;
+        for (int i = 3; i >= 0; i--) {
+            int v = ALPHABET.indexOf(code[i]);
+            if (twice) {
+                v *= 2;
+                v = v / 32 + v % 32;
+            }
+            sum += v;
+            twice = !twice;
+        }
+        return (32 - sum % 32) % 32;
+    }
+}
@@ -0,0 +1,195 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.config.VirtualThreads;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs room work on a fixed set of single-threaded shards.
+ * Every task for the same room lands on the same shard, so room state has a single writer,
+ * while different rooms spread across all shards.
+ * Shards may run on virtual threads, which makes it cheap to have many of them, so a task blocked on I/O
+ * holds up fewer rooms.
+ */
+@Singleton
+public class RoomExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RoomExecutor.class);
+
+    private final Shard[] shards;
+    private final ScheduledExecutorService timer;
+    private final boolean virtual;
+
+    /**
+     * Creates an executor with the configured number and kind of shard threads.
+     */
+    @Inject
+    public RoomExecutor() {
+        this(AppConfig.getRoomShards(), AppConfig.isVirtualThreads());
+    }
+
+    /**
+     * Creates an executor with the given number of shards on platform threads.
+     */
+    public RoomExecutor(int shardCount) {
+        this(shardCount, false);
+    }
+
+    /**
+     * Creates an executor with the given number of shards, on virtual threads if requested and supported.
+     */
+    public RoomExecutor(int shardCount, boolean virtual) {
+        if (virtual && !VirtualThreads.isSupported()) {
+            logger.warn("VIRTUAL_THREADS needs Java 21 or later; running room shards on platform threads");
+            virtual = false;
+        }
+        this.virtual = virtual;
+        ThreadFactory factory = virtual ? VirtualThreads.factory("room-shard-") : RoomExecutor::platformThread;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, factory);
+            shards[i].thread.start();
+        }
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "room-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a task on the shard owning the given key. Runs it immediately if already on that shard.
+     */
+    public void execute(Object key, Runnable task) {
+        Shard shard = shards[shardOf(key)];
+        if (Thread.currentThread() == shard.thread) {
+            shard.run(task, System.nanoTime());
+        } else {
+            shard.queue.add(new Task(task, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Runs a task on the shard owning the given key after a delay.
+     * The timer thread only hands the task over; it never runs room work itself.
+     */
+    public void schedule(Object key, long delayMillis, Runnable task) {
+        timer.schedule(() -> execute(key, task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the index of the shard owning the given key.
+     */
+    public int shardOf(Object key) {
+        return Math.floorMod(key.hashCode(), shards.length);
+    }
+
+    /**
+     * Returns the number of shards.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns true if the shards run on virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Returns the number of tasks waiting on a shard.
+     */
+    public int getQueueDepth(int shard) {
+        return shards[shard].queue.size();
+    }
+
+    /**
+     * Returns the number of tasks a shard has completed.
+     */
+    public long getCompletedTasks(int shard) {
+        return shards[shard].completed.sum();
+    }
+
+    /**
+     * Returns the average time tasks spent waiting in a shard's queue, in microseconds.
+     */
+    public long getAverageLatencyMicros(int shard) {
+        long completed = getCompletedTasks(shard);
+        return completed == 0 ? 0 : shards[shard].waitNanos.sum() / completed / 1000;
+    }
+
+    /**
+     * Returns the longest time a task spent waiting in a shard's queue, in microseconds.
+     */
+    public long getMaxLatencyMicros(int shard) {
+        return shards[shard].maxWaitNanos.get() / 1000;
+    }
+
+    /**
+     * Stops all shard threads. Tasks still queued are dropped.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    private static Thread platformThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Task(Runnable runnable, long enqueuedAt) {
+    }
+
+    private static final class Shard {
+        private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final Thread thread;
+
+        private Shard(int index, ThreadFactory factory) {
+            this.thread = factory.newThread(this::loop);
+            this.thread.setName("room-shard-" + index);
+        }
+
+        private void loop() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Task task = queue.take();
+                    run(task.runnable(), task.enqueuedAt());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void run(Runnable runnable, long enqueuedAt) {
+            long waited = System.nanoTime() - enqueuedAt;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                logger.error("Room task failed on {}", thread.getName(), e);
+            } finally {
+                completed.increment();
+            }
+        }
+    }
+}
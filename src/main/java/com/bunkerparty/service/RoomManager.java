@@ -1,48 +1,149 @@
 package com.bunkerparty.service;
 
+import com.bunkerparty.cluster.ClusterNode;
+import com.bunkerparty.cluster.RoomOwnership;
+import com.bunkerparty.config.AppConfig;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
+import com.bunkerparty.persistence.RoomJournal;
 
 import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.Random;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class RoomManager {
-    private static final int ROOM_ID_BOUND = 10000;
-    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
-    private final Random random;
+    private final RoomStore rooms;
+    private final RoomOwnership ownership;
+    private final RoomCodeFormat codeFormat;
+    private final RoomCodeAllocator codeAllocator;
+    private final RoomJournal journal;
 
     @Inject
+    public RoomManager(Random random, RoomJournal journal, RoomStore rooms, RoomOwnership ownership) {
+        this(random, AppConfig.isAlphanumericRoomCodes() ? RoomCodeFormat.ALPHANUMERIC : RoomCodeFormat.NUMERIC,
+                journal, rooms, ownership);
+    }
+
+    /**
+     * Creates a room manager with the configured code format that keeps no journal.
+     */
     public RoomManager(Random random) {
-        this.random = random;
+        this(random, AppConfig.isAlphanumericRoomCodes() ? RoomCodeFormat.ALPHANUMERIC : RoomCodeFormat.NUMERIC,
+                RoomJournal.NONE);
     }
 
     /**
-     * Creates a new game room with a unique 4-digit ID.
+     * Creates a room manager that hands out codes in the given format and keeps no journal.
+     */
+    public RoomManager(Random random, RoomCodeFormat codeFormat) {
+        this(random, codeFormat, RoomJournal.NONE);
+    }
+
+    /**
+     * Creates a room manager that hands out codes in the given format and records room changes in the journal.
+     */
+    public RoomManager(Random random, RoomCodeFormat codeFormat, RoomJournal journal) {
+        this(random, codeFormat, journal, new InMemoryRoomStore(), RoomOwnership.standalone());
+    }
+
+    /**
+     * Creates a room manager that keeps the rooms this node owns in the given store. With several nodes, only the
+     * codes this node owns are handed out, which takes one ownership check per code up front.
+     */
+    public RoomManager(Random random, RoomCodeFormat codeFormat, RoomJournal journal, RoomStore rooms,
+                       RoomOwnership ownership) {
+        this.rooms = rooms;
+        this.ownership = ownership;
+        this.codeFormat = codeFormat;
+        this.codeAllocator = ownership.getNodes().size() > 1
+                ? new RoomCodeAllocator(codeFormat.getCapacity(),
+                        slot -> ownership.isLocal(codeFormat.encode(slot)), random)
+                : new RoomCodeAllocator(codeFormat.getCapacity(), random);
+        this.journal = journal;
+    }
+
+    /**
+     * Creates a new game room with a unique code owned by this node, or returns null if every such code is in use.
      */
     public Room createRoom() {
-        String id;
-        do {
-            id = String.format("%04d", random.nextInt(ROOM_ID_BOUND));
-        } while (rooms.containsKey(id));
-        Room room = new Room(id);
-        rooms.put(id, room);
+        int slot = codeAllocator.allocate();
+        if (slot < 0) {
+            return null;
+        }
+        Room room = new Room(codeFormat.encode(slot));
+        rooms.putIfAbsent(room);
+        journal.append(room, new RoomEvent.RoomCreated());
         return room;
     }
 
     /**
-     * Returns a room by its ID.
+     * Returns the node that owns the room with the given code if it is another node, or null if the room is this
+     * node's or the code is malformed.
+     */
+    public ClusterNode getRemoteOwner(String id) {
+        if (codeFormat.decode(id) < 0) {
+            return null;
+        }
+        ClusterNode owner = ownership.ownerOf(id);
+        return owner != ownership.getSelf() ? owner : null;
+    }
+
+    /**
+     * Returns a room by its ID. Codes that are malformed or fail their check are rejected without a lookup.
      */
     public Room getRoom(String id) {
+        if (codeFormat.decode(id) < 0) {
+            return null;
+        }
         return rooms.get(id);
     }
 
+    /**
+     * Removes a room, frees its code and returns it, or null if it did not exist.
+     * Must run on the room's shard.
+     */
+    public Room removeRoom(String id) {
+        Room room = id != null ? rooms.remove(id) : null;
+        if (room != null) {
+            journal.append(room, new RoomEvent.RoomRemoved());
+            codeAllocator.release(codeFormat.decode(id));
+        }
+        return room;
+    }
+
+    /**
+     * Records a change that was just applied to a room. Must run on the room's shard.
+     */
+    public void record(Room room, RoomEvent event) {
+        journal.append(room, event);
+    }
+
+    /**
+     * Registers rooms recovered at startup and reserves their codes. Rooms whose code does not fit the current
+     * format or is already taken are skipped. Returns the rooms that were registered.
+     */
+    public List<Room> restoreRooms(Collection<Room> restored) {
+        BitSet slots = new BitSet(codeAllocator.getCapacity());
+        List<Room> accepted = new ArrayList<>(restored.size());
+        for (Room room : restored) {
+            int slot = codeFormat.decode(room.getRoomId());
+            if (slot < 0 || rooms.putIfAbsent(room) != null) {
+                continue;
+            }
+            slots.set(slot);
+            accepted.add(room);
+        }
+        codeAllocator.reserve(slots);
+        return accepted;
+    }
+
     /**
      * Returns all currently active rooms.
      */
     public Collection<Room> getAllRooms() {
-        return rooms.values();
+        return rooms.getAll();
     }
 }
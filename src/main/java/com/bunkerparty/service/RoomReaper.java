@@ -0,0 +1,168 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Evicts rooms that were abandoned in the lobby, finished long ago or left with every player offline.
+ * Each room has a single timeout on a shared timing wheel; when it fires the room is checked on its shard
+ * and either evicted or re-scheduled for its next deadline.
+ */
+@Singleton
+public class RoomReaper {
+    private static final Logger logger = LoggerFactory.getLogger(RoomReaper.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * Why a room was evicted.
+     */
+    public enum Reason {
+        LOBBY_ABANDONED,
+        GAME_OVER,
+        ALL_OFFLINE
+    }
+
+    private final RoomManager roomManager;
+    private final RoomExecutor roomExecutor;
+    private final SessionRegistry sessionRegistry;
+    private final WebSocketJsonSender sender;
+    private final OutboundCodec codec;
+    private final HashedTimingWheel wheel;
+    private final long lobbyTtlMillis;
+    private final long gameOverTtlMillis;
+    private final long offlineTtlMillis;
+    private final LongSupplier clock;
+    private final Map<Reason, LongAdder> evictions = new EnumMap<>(Reason.class);
+
+    /**
+     * Creates a reaper with TTLs from the application configuration.
+     */
+    @Inject
+    public RoomReaper(RoomManager roomManager, RoomExecutor roomExecutor,
+                      SessionRegistry sessionRegistry, WebSocketJsonSender sender, OutboundCodec codec) {
+        this(roomManager, roomExecutor, sessionRegistry, sender, codec, new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE),
+                AppConfig.getLobbyTtlMillis(), AppConfig.getGameOverTtlMillis(), AppConfig.getOfflineTtlMillis(),
+                System::currentTimeMillis);
+    }
+
+    RoomReaper(RoomManager roomManager, RoomExecutor roomExecutor, SessionRegistry sessionRegistry,
+               WebSocketJsonSender sender, OutboundCodec codec, HashedTimingWheel wheel, long lobbyTtlMillis, long gameOverTtlMillis,
+               long offlineTtlMillis, LongSupplier clock) {
+        this.roomManager = roomManager;
+        this.roomExecutor = roomExecutor;
+        this.sessionRegistry = sessionRegistry;
+        this.sender = sender;
+        this.codec = codec;
+        this.wheel = wheel;
+        this.lobbyTtlMillis = lobbyTtlMillis;
+        this.gameOverTtlMillis = gameOverTtlMillis;
+        this.offlineTtlMillis = offlineTtlMillis;
+        this.clock = clock;
+        for (Reason reason : Reason.values()) {
+            evictions.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Starts watching a newly created room.
+     */
+    public void track(Room room) {
+        schedule(room, Math.min(lobbyTtlMillis, offlineTtlMillis));
+    }
+
+    /**
+     * Returns how many rooms were evicted for the given reason.
+     */
+    public long getEvictions(Reason reason) {
+        return evictions.get(reason).sum();
+    }
+
+    /**
+     * Returns the number of rooms currently waiting for their next check.
+     */
+    public int getTrackedCount() {
+        return wheel.getPendingCount();
+    }
+
+    /**
+     * Checks a room against the eviction policies, evicting it or scheduling the next check.
+     * Must run on the room's shard.
+     */
+    void check(Room room) {
+        if (roomManager.getRoom(room.getRoomId()) != room) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Reason reason;
+        long deadline;
+        if (Room.PHASE_GAME_OVER.equals(room.getPhase())) {
+            reason = Reason.GAME_OVER;
+            deadline = room.getLastActivity() + gameOverTtlMillis;
+        } else if (!hasOnlinePlayer(room)) {
+            reason = Reason.ALL_OFFLINE;
+            deadline = lastPlayerSeen(room) + offlineTtlMillis;
+        } else if (Room.PHASE_LOBBY.equals(room.getPhase())) {
+            reason = Reason.LOBBY_ABANDONED;
+            deadline = room.getLastActivity() + lobbyTtlMillis;
+        } else {
+            schedule(room, offlineTtlMillis);
+            return;
+        }
+
+        if (deadline <= now) {
+            evict(room, reason);
+        } else {
+            schedule(room, deadline - now);
+        }
+    }
+
+    private void schedule(Room room, long delayMillis) {
+        wheel.schedule(delayMillis, () -> roomExecutor.execute(room.getRoomId(), () -> check(room)));
+    }
+
+    private void evict(Room room, Reason reason) {
+        roomManager.removeRoom(room.getRoomId());
+        evictions.get(reason).increment();
+        for (Player p : room.getPlayers().values()) {
+            Session session = p.getSession();
+            if (session == null) {
+                continue;
+            }
+            sessionRegistry.unregister(session, room.getRoomId());
+            sender.sendText(session, codec.error("room_not_found", ""));
+        }
+        logger.info("Evicted room {} ({})", room.getRoomId(), reason);
+    }
+
+    private boolean hasOnlinePlayer(Room room) {
+        for (Player p : room.getPlayers().values()) {
+            if (p.isOnline()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long lastPlayerSeen(Room room) {
+        long last = room.getLastActivity();
+        for (Player p : room.getPlayers().values()) {
+            last = Math.max(last, p.getLastSeen());
+        }
+        return last;
+    }
+}
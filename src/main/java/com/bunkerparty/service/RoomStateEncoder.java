@@ -0,0 +1,125 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.domain.RoomSnapshot;
+import com.bunkerparty.websocket.codec.OutboundCodec;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes room state into versioned snapshots and renders them as full game_update or delta game_patch messages.
+ */
+public class RoomStateEncoder {
+
+    private static final List<String> SECTIONS = List.of(
+            "phase", "round", "roomId", "catalog", "eventIdx", "startVotes", "players", "roundReveals", "roundConfirms"
+    );
+
+    private final OutboundCodec codec;
+
+    /**
+     * Creates an encoder that writes sections with the streaming codec.
+     */
+    public RoomStateEncoder() {
+        this(new StreamingOutboundCodec());
+    }
+
+    /**
+     * Creates an encoder that writes sections with the given codec.
+     */
+    public RoomStateEncoder(OutboundCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Encodes the current state of a room, reusing history entries of finished rounds from the previous snapshot.
+     */
+    public RoomSnapshot snapshot(Room room, long version, RoomSnapshot previous) {
+        Map<String, String> sections = new HashMap<>();
+        sections.put("phase", codec.string(room.getPhase()));
+        sections.put("round", String.valueOf(room.getRound()));
+        sections.put("roomId", codec.string(room.getRoomId()));
+        if (room.getCatalogVersion() != null) {
+            sections.put("catalog", codec.string(room.getCatalogVersion()));
+        }
+        if (room.getEventIdx() != null) {
+            sections.put("eventIdx", String.valueOf(room.getEventIdx()));
+        }
+        sections.put("startVotes", codec.stringArray(room.getStartVotes()));
+        sections.put("players", codec.players(room));
+        sections.put("roundReveals", codec.stringMap(room.getRoundReveals()));
+        sections.put("roundConfirms", codec.stringArray(room.getRoundConfirms()));
+
+        Map<Integer, String> history = new HashMap<>();
+        room.getRevealedByRound().forEach((r, reveals) -> {
+            String finished = previous != null && r < previous.getRound() ? previous.getHistoryEntry(r) : null;
+            history.put(r, finished != null ? finished : codec.historyEntry(room.getEventByRound().get(r), reveals));
+        });
+
+        return new RoomSnapshot(version, room.getRound(), sections, history);
+    }
+
+    /**
+     * Renders a snapshot as a full game_update message.
+     */
+    public String snapshotJson(RoomSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"type\":\"game_update\",\"version\":").append(snapshot.getVersion());
+        for (String key : SECTIONS) {
+            String value = snapshot.getSection(key);
+            if (value != null) {
+                appendField(sb, key, value);
+            }
+        }
+        sb.append(",\"history\":{");
+        boolean first = true;
+        for (Integer r : snapshot.getHistoryRounds()) {
+            first = appendEntry(sb, first, r, snapshot.getHistoryEntry(r));
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * Renders the difference between two snapshots as a game_patch message.
+     * Changed sections are replaced as a whole; history lists only the rounds that changed.
+     */
+    public String patchJson(RoomSnapshot base, RoomSnapshot current) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"type\":\"game_patch\",\"version\":").append(current.getVersion())
+                .append(",\"baseVersion\":").append(base.getVersion());
+        for (String key : SECTIONS) {
+            if (current.sectionChanged(key, base)) {
+                String value = current.getSection(key);
+                appendField(sb, key, value != null ? value : "null");
+            }
+        }
+        boolean first = true;
+        for (Integer r : current.getHistoryRounds()) {
+            if (current.historyChanged(r, base)) {
+                if (first) {
+                    sb.append(",\"history\":{");
+                }
+                first = appendEntry(sb, first, r, current.getHistoryEntry(r));
+            }
+        }
+        if (!first) {
+            sb.append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder sb, String key, String value) {
+        sb.append(",\"").append(key).append("\":").append(value);
+    }
+
+    private static boolean appendEntry(StringBuilder sb, boolean first, int round, String value) {
+        if (!first) {
+            sb.append(',');
+        }
+        sb.append('"').append(round).append("\":").append(value);
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Room;
+
+import java.util.Collection;
+
+/**
+ * Holds the rooms served by this node, keyed by room code.
+ */
+public interface RoomStore {
+
+    /**
+     * Returns the room with the given code, or null if there is none.
+     */
+    Room get(String roomId);
+
+    /**
+     * Adds a room unless one with the same code exists, and returns the existing room or null.
+     */
+    Room putIfAbsent(Room room);
+
+    /**
+     * Removes and returns the room with the given code, or null if there was none.
+     */
+    Room remove(String roomId);
+
+    /**
+     * Returns a live view of all rooms.
+     */
+    Collection<Room> getAll();
+}
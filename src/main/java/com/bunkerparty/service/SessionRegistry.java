@@ -0,0 +1,97 @@
+package com.bunkerparty.service;
+
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from live WebSocket sessions to the room seats they occupy, so disconnects need no room scan.
+ */
+@Singleton
+public class SessionRegistry {
+
+    /**
+     * A player seat in a room.
+     */
+    public record Seat(String roomId, String playerId) {
+    }
+
+    private final Map<Session, List<Seat>> seats = new ConcurrentHashMap<>();
+
+    /**
+     * Records that a session now plays the given player in the given room.
+     */
+    public void register(Session session, String roomId, String playerId) {
+        if (session == null) {
+            return;
+        }
+        Seat seat = new Seat(roomId, playerId);
+        seats.compute(session, (s, current) -> {
+            List<Seat> updated = new ArrayList<>(current != null ? current.size() + 1 : 1);
+            if (current != null) {
+                for (Seat existing : current) {
+                    if (!existing.roomId().equals(roomId)) {
+                        updated.add(existing);
+                    }
+                }
+            }
+            updated.add(seat);
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Returns the player ID the session plays in the given room, or null if none.
+     */
+    public String findPlayer(Session session, String roomId) {
+        List<Seat> current = session != null ? seats.get(session) : null;
+        if (current != null) {
+            for (Seat seat : current) {
+                if (seat.roomId().equals(roomId)) {
+                    return seat.playerId();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the seats the session currently occupies.
+     */
+    public List<Seat> getSeats(Session session) {
+        List<Seat> current = session != null ? seats.get(session) : null;
+        return current != null ? current : List.of();
+    }
+
+    /**
+     * Forgets the session's seat in the given room.
+     */
+    public void unregister(Session session, String roomId) {
+        if (session == null) {
+            return;
+        }
+        seats.computeIfPresent(session, (s, current) -> {
+            List<Seat> remaining = current.stream().filter(seat -> !seat.roomId().equals(roomId)).toList();
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    /**
+     * Forgets the session entirely and returns the seats it occupied.
+     */
+    public List<Seat> remove(Session session) {
+        List<Seat> removed = session != null ? seats.remove(session) : null;
+        return removed != null ? removed : List.of();
+    }
+
+    /**
+     * Returns the number of sessions currently tracked.
+     */
+    public int size() {
+        return seats.size();
+    }
+}
@@ -1,26 +1,41 @@
 package com.bunkerparty.websocket;
 
+import com.bunkerparty.cluster.BroadcastBus;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
 import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.command.CommandRejectedException;
+import com.bunkerparty.websocket.command.MessageType;
 import com.bunkerparty.websocket.handler.*;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @WebSocket
-public class GameWebSocketHandler {
+public class GameWebSocketHandler implements BroadcastBus.Receiver {
 
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
-    private final Map<String, MessageHandler> handlers = new ConcurrentHashMap<>();
+    private final Map<Class<? extends Command>, MessageHandler<?>> handlers = new HashMap<>();
     private final GameService gameService;
+    private final RoomExecutor roomExecutor;
+    private final SessionRegistry sessionRegistry;
+    private final CommandDecoder decoder;
+    private final RateLimiter rateLimiter;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final GameMetrics metrics;
 
     /**
      * Creates a new WebSocket handler with all necessary message handlers injected.
@@ -33,67 +48,140 @@ public class GameWebSocketHandler {
             ReadyHandler readyHandler,
             DiscardHandler discardHandler,
             ConfirmHandler confirmHandler,
-            GameService gameService
+            ResyncHandler resyncHandler,
+            GameService gameService,
+            RoomExecutor roomExecutor,
+            SessionRegistry sessionRegistry,
+            CommandDecoder decoder,
+            RateLimiter rateLimiter,
+            HeartbeatMonitor heartbeatMonitor,
+            GameMetrics metrics
     ) {
-        handlers.put("new_game", newGameHandler);
-        handlers.put("join_game", joinGameHandler);
-        handlers.put("leave_game", leaveGameHandler);
-        handlers.put("ready", readyHandler);
-        handlers.put("discard", discardHandler);
-        handlers.put("confirm", confirmHandler);
+        handlers.put(Command.NewGame.class, newGameHandler);
+        handlers.put(Command.JoinGame.class, joinGameHandler);
+        handlers.put(Command.LeaveGame.class, leaveGameHandler);
+        handlers.put(Command.Ready.class, readyHandler);
+        handlers.put(Command.Discard.class, discardHandler);
+        handlers.put(Command.Confirm.class, confirmHandler);
+        handlers.put(Command.Resync.class, resyncHandler);
         this.gameService = gameService;
+        this.roomExecutor = roomExecutor;
+        this.sessionRegistry = sessionRegistry;
+        this.decoder = decoder;
+        this.rateLimiter = rateLimiter;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.metrics = metrics;
     }
 
     /**
-     * Called when a new WebSocket connection is established.
+     * Called when a new WebSocket connection is established. Starts the server-side heartbeat.
      */
     @OnWebSocketConnect
     public void onConnect(Session session) {
         logger.info("Connected: {}", session.getRemoteAddress());
+        heartbeatMonitor.track(session, () -> release(session));
     }
 
     /**
-     * Called when a WebSocket connection is closed.
+     * Called when a WebSocket connection is closed, or a peer's client standing in here leaves.
      */
+    @Override
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) throws Exception {
         logger.info("Closed: {}, {}, {}", session.getRemoteAddress(), statusCode, reason);
-        for (Room room : gameService.getAllRooms()) {
-            boolean found = false;
-            for (Player player : room.getPlayers().values()) {
-                if (session.equals(player.getSession())) {
+        heartbeatMonitor.untrack(session);
+        release(session);
+    }
+
+    /**
+     * Called for every WebSocket frame. A pong answering the server's ping marks the session's players as seen.
+     */
+    @OnWebSocketFrame
+    public void onFrame(Session session, Frame frame) {
+        if (frame.getType() != Frame.Type.PONG) {
+            return;
+        }
+        heartbeatMonitor.onPong(session);
+        for (SessionRegistry.Seat seat : sessionRegistry.getSeats(session)) {
+            roomExecutor.execute(seat.roomId(), () -> {
+                Room room = gameService.getRoom(seat.roomId());
+                Player player = room != null ? room.getPlayer(seat.playerId()) : null;
+                if (player != null && session.equals(player.getSession())) {
+                    player.updateLastSeen();
+                }
+            });
+        }
+    }
+
+    /**
+     * Releases the session's resources and marks its players offline. Looks up the session's seats in the registry;
+     * safe to call more than once.
+     */
+    private void release(Session session) {
+        gameService.releaseSession(session);
+        rateLimiter.release(session);
+        for (SessionRegistry.Seat seat : sessionRegistry.remove(session)) {
+            roomExecutor.execute(seat.roomId(), () -> {
+                Room room = gameService.getRoom(seat.roomId());
+                Player player = room != null ? room.getPlayer(seat.playerId()) : null;
+                if (player != null && session.equals(player.getSession())) {
                     player.setOnline(false);
-                    found = true;
-                    break;
+                    gameService.broadcastUpdate(room);
                 }
-            }
-            if (found) {
-                gameService.broadcastUpdate(room);
-            }
+            });
         }
     }
 
     /**
-     * Called when a WebSocket message is received.
+     * Called when a WebSocket message is received. Frames that cannot be decoded are dropped;
+     * messages over the sender's rate limit are answered with a rate_limited error, except pings which are dropped.
+     * Messages for a room owned by another node are forwarded to it over the bus. Handlers run on the shard owning
+     * the command's room; room-less commands are keyed by session. Also plays the messages peers forward here.
      */
+    @Override
     @OnWebSocketMessage
-    public void onMessage(Session session, String message) throws Exception {
-        var json = JsonParser.parseString(message).getAsJsonObject();
-        String type = json.get("type").getAsString();
+    public void onMessage(Session session, String message) {
+        Command command;
+        try {
+            command = decoder.decode(message);
+        } catch (CommandRejectedException e) {
+            logger.debug("Rejected frame from {}: {}", session.getRemoteAddress(), e.getReason());
+            return;
+        }
+
+        MessageType type = MessageType.of(command);
+        metrics.recordMessage(type);
+        if (!rateLimiter.tryAcquire(session, type)) {
+            if (type != MessageType.PING) {
+                gameService.sendError(session, "rate_limited", "Too many requests");
+            }
+            return;
+        }
+
+        if (type == MessageType.PING) {
+            heartbeatMonitor.onPong(session);
+            gameService.sendPong(session);
+            return;
+        }
 
-        if ("ping".equals(type)) {
-            JsonObject pong = new JsonObject();
-            pong.addProperty("type", "pong");
-            gameService.sendToSession(session, pong);
+        String roomId = command.roomId();
+        if (roomId != null && gameService.forward(session, roomId, message)) {
             return;
         }
 
-        MessageHandler handler = handlers.get(type);
+        @SuppressWarnings("unchecked")
+        MessageHandler<Command> handler = (MessageHandler<Command>) handlers.get(command.getClass());
+        roomExecutor.execute(roomId != null ? roomId : session, () -> dispatch(handler, session, command, type));
+    }
 
-        if (handler != null) {
-            handler.handle(session, json);
-        } else {
-            logger.warn("Unknown message type: {}", type);
+    private void dispatch(MessageHandler<Command> handler, Session session, Command command, MessageType type) {
+        long start = System.nanoTime();
+        try {
+            handler.handle(session, command);
+        } catch (Exception e) {
+            logger.error("Failed to handle {} from {}", command.getClass().getSimpleName(), session.getRemoteAddress(), e);
+        } finally {
+            metrics.recordHandled(type, System.nanoTime() - start);
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.bunkerparty.websocket;
+
+import com.bunkerparty.config.ServerSettings;
+import com.bunkerparty.service.DrainCoordinator;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Upgrades requests to WebSocket connections served by the shared game handler, with the configured limits and
+ * compression. While the server drains, upgrades are answered with 503 so clients reconnect to another instance.
+ */
+public class GameWebSocketServlet extends WebSocketServlet {
+
+    private static final String DEFLATE = "permessage-deflate";
+
+    private final GameWebSocketHandler handler;
+    private final ServerSettings settings;
+    private final DrainCoordinator drainCoordinator;
+
+    /**
+     * Creates a servlet handing every connection to the given handler.
+     */
+    public GameWebSocketServlet(GameWebSocketHandler handler, ServerSettings settings,
+                                DrainCoordinator drainCoordinator) {
+        this.handler = handler;
+        this.settings = settings;
+        this.drainCoordinator = drainCoordinator;
+    }
+
+    @Override
+    public void configure(WebSocketServletFactory factory) {
+        WebSocketPolicy policy = factory.getPolicy();
+        policy.setIdleTimeout(settings.webSocketIdleTimeoutMillis());
+        policy.setMaxTextMessageSize(settings.webSocketMaxMessageBytes());
+        policy.setMaxTextMessageBufferSize(settings.webSocketMaxMessageBytes());
+        policy.setInputBufferSize(settings.webSocketInputBufferBytes());
+        policy.setAsyncWriteTimeout(settings.webSocketWriteTimeoutMillis());
+        factory.setCreator((req, res) -> {
+            if (drainCoordinator.refuseUpgrade()) {
+                try {
+                    res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is restarting");
+                } catch (IOException e) {
+                    // the client is gone already
+                }
+                return null;
+            }
+            if (!settings.deflate()) {
+                res.setExtensions(req.getExtensions().stream()
+                        .filter(extension -> !DEFLATE.equals(extension.getName()))
+                        .toList());
+            }
+            return handler;
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.bunkerparty.websocket.codec;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.websocket.helpers.JsonUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reference codec that builds a Gson tree for every value. Kept for equivalence tests and benchmarks.
+ */
+public class GsonOutboundCodec implements OutboundCodec {
+
+    @Override
+    public String string(String value) {
+        return new JsonPrimitive(value).toString();
+    }
+
+    @Override
+    public String stringArray(Collection<String> values) {
+        JsonArray array = new JsonArray();
+        values.forEach(array::add);
+        return array.toString();
+    }
+
+    @Override
+    public String stringMap(Map<String, String> values) {
+        JsonObject object = new JsonObject();
+        values.forEach(object::addProperty);
+        return object.toString();
+    }
+
+    @Override
+    public String players(Room room) {
+        JsonArray playersArray = new JsonArray();
+        for (Player p : room.getPlayers().values()) {
+            JsonObject pObj = new JsonObject();
+            pObj.addProperty("id", p.getId());
+            pObj.addProperty("name", p.getName());
+            pObj.addProperty("online", p.isOnline());
+            pObj.addProperty("ready", room.getStartVotes().contains(p.getId()));
+
+            JsonObject revealed = new JsonObject();
+            for (CardCategory category : CardCategory.ALL) {
+                if (p.isRevealed(category)) {
+                    revealed.addProperty(category.getKey(), p.getCard(category));
+                }
+            }
+            pObj.add("revealed", revealed);
+
+            playersArray.add(pObj);
+        }
+        return playersArray.toString();
+    }
+
+    @Override
+    public String historyEntry(Integer eventIdx, Map<String, String> reveals) {
+        JsonObject rObj = new JsonObject();
+        rObj.addProperty("eventIdx", eventIdx);
+        JsonObject revealsObj = new JsonObject();
+        reveals.forEach(revealsObj::addProperty);
+        rObj.add("reveals", revealsObj);
+        return rObj.toString();
+    }
+
+    @Override
+    public String openRoom(String roomId, String playerId, String token) {
+        JsonObject openRoom = new JsonObject();
+        openRoom.addProperty("type", "open_room");
+        openRoom.addProperty("room_id", roomId);
+        openRoom.addProperty("player_id", playerId);
+        openRoom.addProperty("token", token);
+        return openRoom.toString();
+    }
+
+    @Override
+    public String error(String code, String message) {
+        return JsonUtils.error(code, message).toString();
+    }
+
+    @Override
+    public String redirect(String roomId, String nodeId, String url) {
+        JsonObject redirect = new JsonObject();
+        redirect.addProperty("type", "redirect");
+        redirect.addProperty("room_id", roomId);
+        redirect.addProperty("node", nodeId);
+        redirect.addProperty("url", url);
+        return redirect.toString();
+    }
+
+    @Override
+    public String pong() {
+        JsonObject pong = new JsonObject();
+        pong.addProperty("type", "pong");
+        return pong.toString();
+    }
+
+    @Override
+    public String refresh(long delayMillis) {
+        JsonObject refresh = new JsonObject();
+        refresh.addProperty("type", "refresh");
+        refresh.addProperty("delay_ms", delayMillis);
+        return refresh.toString();
+    }
+}
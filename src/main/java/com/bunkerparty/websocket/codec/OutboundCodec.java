@@ -0,0 +1,62 @@
+package com.bunkerparty.websocket.codec;
+
+import com.bunkerparty.domain.Room;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Encodes outbound messages and the sections of room state they are assembled from as compact JSON text.
+ */
+public interface OutboundCodec {
+
+    /**
+     * Encodes a JSON string literal.
+     */
+    String string(String value);
+
+    /**
+     * Encodes an array of strings.
+     */
+    String stringArray(Collection<String> values);
+
+    /**
+     * Encodes an object with string values.
+     */
+    String stringMap(Map<String, String> values);
+
+    /**
+     * Encodes the public state of every player in a room.
+     */
+    String players(Room room);
+
+    /**
+     * Encodes the history entry of a finished or running round.
+     */
+    String historyEntry(Integer eventIdx, Map<String, String> reveals);
+
+    /**
+     * Encodes the open_room message that hands a player their identity in a room.
+     */
+    String openRoom(String roomId, String playerId, String token);
+
+    /**
+     * Encodes an error message.
+     */
+    String error(String code, String message);
+
+    /**
+     * Encodes the redirect that points a client at the node owning the room it tried to join.
+     */
+    String redirect(String roomId, String nodeId, String url);
+
+    /**
+     * Encodes the reply to a client ping.
+     */
+    String pong();
+
+    /**
+     * Encodes the refresh message that asks a client to reconnect after the given delay, e.g. while the server drains.
+     */
+    String refresh(long delayMillis);
+}
@@ -0,0 +1,199 @@
+package com.bunkerparty.websocket.codec;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes JSON straight into a reusable per-thread buffer, without building an intermediate tree.
+ * Output is byte-for-byte the same as {@link GsonOutboundCodec}, including its escaping of control characters
+ * and of U+2028/U+2029.
+ */
+public class StreamingOutboundCodec implements OutboundCodec {
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String PONG = "{\"type\":\"pong\"}";
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    @Override
+    public String string(String value) {
+        StringBuilder sb = buffer();
+        appendString(sb, value);
+        return finish(sb);
+    }
+
+    @Override
+    public String stringArray(Collection<String> values) {
+        StringBuilder sb = buffer().append('[');
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                sb.append(',');
+            }
+            appendString(sb, value);
+            first = false;
+        }
+        return finish(sb.append(']'));
+    }
+
+    @Override
+    public String stringMap(Map<String, String> values) {
+        StringBuilder sb = buffer();
+        appendStringMap(sb, values);
+        return finish(sb);
+    }
+
+    @Override
+    public String players(Room room) {
+        StringBuilder sb = buffer().append('[');
+        boolean first = true;
+        for (Player p : room.getPlayers().values()) {
+            if (!first) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":");
+            appendString(sb, p.getId());
+            sb.append(",\"name\":");
+            appendString(sb, p.getName());
+            sb.append(",\"online\":").append(p.isOnline());
+            sb.append(",\"ready\":").append(room.getStartVotes().contains(p.getId()));
+            sb.append(",\"revealed\":{");
+            boolean firstCard = true;
+            for (CardCategory category : CardCategory.ALL) {
+                if (p.isRevealed(category)) {
+                    if (!firstCard) {
+                        sb.append(',');
+                    }
+                    sb.append('"').append(category.getKey()).append("\":").append(p.getCard(category));
+                    firstCard = false;
+                }
+            }
+            sb.append("}}");
+            first = false;
+        }
+        return finish(sb.append(']'));
+    }
+
+    @Override
+    public String historyEntry(Integer eventIdx, Map<String, String> reveals) {
+        StringBuilder sb = buffer().append("{\"eventIdx\":");
+        if (eventIdx != null) {
+            sb.append(eventIdx.intValue());
+        } else {
+            sb.append("null");
+        }
+        sb.append(",\"reveals\":");
+        appendStringMap(sb, reveals);
+        return finish(sb.append('}'));
+    }
+
+    @Override
+    public String openRoom(String roomId, String playerId, String token) {
+        StringBuilder sb = buffer().append("{\"type\":\"open_room\",\"room_id\":");
+        appendString(sb, roomId);
+        sb.append(",\"player_id\":");
+        appendString(sb, playerId);
+        sb.append(",\"token\":");
+        appendString(sb, token);
+        return finish(sb.append('}'));
+    }
+
+    @Override
+    public String error(String code, String message) {
+        StringBuilder sb = buffer().append("{\"type\":\"error\",\"code\":");
+        appendString(sb, code);
+        sb.append(",\"message\":");
+        appendString(sb, message);
+        return finish(sb.append('}'));
+    }
+
+    @Override
+    public String redirect(String roomId, String nodeId, String url) {
+        StringBuilder sb = buffer().append("{\"type\":\"redirect\",\"room_id\":");
+        appendString(sb, roomId);
+        sb.append(",\"node\":");
+        appendString(sb, nodeId);
+        sb.append(",\"url\":");
+        appendString(sb, url);
+        return finish(sb.append('}'));
+    }
+
+    @Override
+    public String pong() {
+        return PONG;
+    }
+
+    @Override
+    public String refresh(long delayMillis) {
+        return finish(buffer().append("{\"type\":\"refresh\",\"delay_ms\":").append(delayMillis).append('}'));
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    private static String finish(StringBuilder sb) {
+        String json = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return json;
+    }
+
+    private static void appendStringMap(StringBuilder sb, Map<String, String> values) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            appendString(sb, entry.getKey());
+            sb.append(':');
+            appendString(sb, entry.getValue());
+            first = false;
+        }
+        sb.append('}');
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                case '\b' -> "\\b";
+                case '\f' -> "\\f";
+                default -> null;
+            };
+            if (escape == null && c >= 0x20 && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            sb.append(value, start, i);
+            if (escape != null) {
+                sb.append(escape);
+            } else {
+                sb.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                        .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        sb.append(value, start, length).append('"');
+    }
+}
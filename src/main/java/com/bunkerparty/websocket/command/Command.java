@@ -0,0 +1,63 @@
+package com.bunkerparty.websocket.command;
+
+/**
+ * A decoded client message. Each record carries exactly the fields its handler reads.
+ */
+public sealed interface Command {
+
+    /**
+     * Returns the room this command targets, or null if it is not bound to a room.
+     */
+    default String roomId() {
+        return null;
+    }
+
+    /**
+     * Heartbeat from the client; answered with a pong without touching any room.
+     */
+    record Ping() implements Command {
+        public static final Ping INSTANCE = new Ping();
+    }
+
+    /**
+     * Creates a room with the sender as its first player.
+     */
+    record NewGame(String name) implements Command {
+    }
+
+    /**
+     * Joins a room, or rejoins it when the token matches the player with the same name.
+     */
+    record JoinGame(String roomId, String name, String token) implements Command {
+    }
+
+    /**
+     * Leaves a room.
+     */
+    record LeaveGame(String roomId) implements Command {
+    }
+
+    /**
+     * Votes to start the game.
+     */
+    record Ready(String roomId, String playerId) implements Command {
+    }
+
+    /**
+     * Reveals one of the player's cards for the current round.
+     */
+    record Discard(String roomId, String playerId, String cardKey) implements Command {
+    }
+
+    /**
+     * Confirms the end of the current round.
+     */
+    record Confirm(String roomId, String playerId) implements Command {
+    }
+
+    /**
+     * Asks for a full game_update after a game_patch could not be applied.
+     */
+    record Resync(String roomId, String playerId) implements Command {
+    }
+}
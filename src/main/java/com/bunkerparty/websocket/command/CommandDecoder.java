@@ -0,0 +1,150 @@
+package com.bunkerparty.websocket.command;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decodes inbound text frames into {@link Command} records with a streaming JSON reader.
+ * Oversized frames are rejected before parsing, a bare ping skips the parser entirely,
+ * an unknown type is rejected as soon as it is read and unknown fields are skipped without building a tree.
+ */
+public class CommandDecoder {
+
+    /**
+     * Largest accepted frame in characters; client messages are well under 1 KB.
+     */
+    public static final int MAX_FRAME_CHARS = 4096;
+
+    private static final String PING_FRAME = "{\"type\":\"ping\"}";
+
+    /**
+     * Why a frame was rejected.
+     */
+    public enum Reason {
+        TOO_LARGE,
+        MALFORMED,
+        UNKNOWN_TYPE,
+        MISSING_FIELD
+    }
+
+    private final int maxFrameChars;
+    private final Map<Reason, LongAdder> rejections = new EnumMap<>(Reason.class);
+
+    /**
+     * Creates a decoder that accepts frames up to {@link #MAX_FRAME_CHARS}.
+     */
+    public CommandDecoder() {
+        this(MAX_FRAME_CHARS);
+    }
+
+    /**
+     * Creates a decoder that accepts frames up to the given number of characters.
+     */
+    public CommandDecoder(int maxFrameChars) {
+        this.maxFrameChars = maxFrameChars;
+        for (Reason reason : Reason.values()) {
+            rejections.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Decodes a frame, throwing if it is oversized, malformed, of an unknown type or missing a required field.
+     */
+    public Command decode(String frame) throws CommandRejectedException {
+        if (frame.length() > maxFrameChars) {
+            throw reject(Reason.TOO_LARGE);
+        }
+        if (PING_FRAME.equals(frame)) {
+            return Command.Ping.INSTANCE;
+        }
+
+        String type = null;
+        String roomId = null;
+        String playerId = null;
+        String name = null;
+        String token = null;
+        String cardKey = null;
+        try {
+            JsonReader reader = new JsonReader(new StringReader(frame));
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "type" -> {
+                        type = readString(reader);
+                        if (MessageType.fromWireName(type) == null) {
+                            throw reject(Reason.UNKNOWN_TYPE);
+                        }
+                    }
+                    case "roomId" -> roomId = readString(reader);
+                    case "playerId" -> playerId = readString(reader);
+                    case "name" -> name = readString(reader);
+                    case "token" -> token = readString(reader);
+                    case "cardKey" -> cardKey = readString(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw reject(Reason.MALFORMED);
+            }
+        } catch (IOException | IllegalStateException e) {
+            throw reject(Reason.MALFORMED);
+        }
+
+        if (type == null) {
+            throw reject(Reason.UNKNOWN_TYPE);
+        }
+        return switch (type) {
+            case "ping" -> Command.Ping.INSTANCE;
+            case "new_game" -> new Command.NewGame(orEmpty(name));
+            case "join_game" -> new Command.JoinGame(orEmpty(roomId), orEmpty(name), token);
+            case "leave_game" -> new Command.LeaveGame(require(roomId));
+            case "ready" -> new Command.Ready(require(roomId), require(playerId));
+            case "discard" -> new Command.Discard(require(roomId), require(playerId), require(cardKey));
+            case "confirm" -> new Command.Confirm(require(roomId), require(playerId));
+            case "resync" -> new Command.Resync(require(roomId), require(playerId));
+            default -> throw reject(Reason.UNKNOWN_TYPE);
+        };
+    }
+
+    /**
+     * Returns how many frames were rejected for the given reason.
+     */
+    public long getRejections(Reason reason) {
+        return rejections.get(reason).sum();
+    }
+
+    private String readString(JsonReader reader) throws IOException, CommandRejectedException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+            throw reject(Reason.MALFORMED);
+        }
+        return reader.nextString();
+    }
+
+    private String require(String value) throws CommandRejectedException {
+        if (value == null || value.isBlank()) {
+            throw reject(Reason.MISSING_FIELD);
+        }
+        return value;
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private CommandRejectedException reject(Reason reason) {
+        rejections.get(reason).increment();
+        return new CommandRejectedException(reason);
+    }
+}
@@ -0,0 +1,24 @@
+package com.bunkerparty.websocket.command;
+
+/**
+ * Thrown when an inbound frame cannot be decoded into a {@link Command}.
+ */
+public class CommandRejectedException extends Exception {
+
+    private final CommandDecoder.Reason reason;
+
+    /**
+     * Creates an exception for a frame rejected for the given reason.
+     */
+    public CommandRejectedException(CommandDecoder.Reason reason) {
+        super(reason.name(), null, false, false);
+        this.reason = reason;
+    }
+
+    /**
+     * Returns why the frame was rejected.
+     */
+    public CommandDecoder.Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bunkerparty.websocket.command;
+
+/**
+ * The inbound message types, by their wire name.
+ */
+public enum MessageType {
+    PING("ping"),
+    NEW_GAME("new_game"),
+    JOIN_GAME("join_game"),
+    LEAVE_GAME("leave_game"),
+    READY("ready"),
+    DISCARD("discard"),
+    CONFIRM("confirm"),
+    RESYNC("resync");
+
+    private final String wireName;
+
+    MessageType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    /**
+     * Returns the value of the "type" field for this message type.
+     */
+    public String getWireName() {
+        return wireName;
+    }
+
+    /**
+     * Returns the message type with the given wire name, or null if there is none.
+     */
+    public static MessageType fromWireName(String wireName) {
+        if (wireName == null) {
+            return null;
+        }
+        for (MessageType type : values()) {
+            if (type.wireName.equals(wireName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the message type a decoded command was sent as.
+     */
+    public static MessageType of(Command command) {
+        if (command instanceof Command.Ping) {
+            return PING;
+        } else if (command instanceof Command.NewGame) {
+            return NEW_GAME;
+        } else if (command instanceof Command.JoinGame) {
+            return JOIN_GAME;
+        } else if (command instanceof Command.LeaveGame) {
+            return LEAVE_GAME;
+        } else if (command instanceof Command.Ready) {
+            return READY;
+        } else if (command instanceof Command.Discard) {
+            return DISCARD;
+        } else if (command instanceof Command.Confirm) {
+            return CONFIRM;
+        } else {
+            return RESYNC;
+        }
+    }
+}
@@ -3,13 +3,10 @@ package com.bunkerparty.websocket.handler;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
-import com.bunkerparty.websocket.helpers.JsonUtils;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.io.IOException;
-
-public abstract class BaseMessageHandler implements MessageHandler {
+public abstract class BaseMessageHandler<C extends Command> implements MessageHandler<C> {
 
     protected final GameService gameService;
     private static final int MAX_NAME_LENGTH = 10;
@@ -21,34 +18,25 @@ public abstract class BaseMessageHandler implements MessageHandler {
         this.gameService = gameService;
     }
 
-    protected String getString(JsonObject json, String key) {
-        return json.has(key) && !json.get(key).isJsonNull() ? json.get(key).getAsString() : "";
-    }
-
-    protected Room getRoom(JsonObject json) {
-        return gameService.getRoom(getString(json, "roomId"));
+    protected Room getRoom(String roomId) {
+        return gameService.getRoom(roomId);
     }
 
-    protected Player getPlayer(Room room, JsonObject json) {
-        return room != null ? room.getPlayer(getString(json, "playerId")) : null;
+    protected Player getPlayer(Room room, String playerId) {
+        return room != null ? room.getPlayer(playerId) : null;
     }
 
     protected void sendOpenRoom(Session session, Room room, Player player) {
-        JsonObject openRoom = new JsonObject();
-        openRoom.addProperty("type", "open_room");
-        openRoom.addProperty("room_id", room.getRoomId());
-        openRoom.addProperty("player_id", player.getId());
-        openRoom.addProperty("token", player.getToken());
-        gameService.sendToSession(session, openRoom);
+        gameService.sendOpenRoom(session, room, player);
     }
 
     protected boolean validateName(Session session, String name) {
         if (name == null || name.trim().isEmpty()) {
-            gameService.sendToSession(session, JsonUtils.error("name_required", "Name is required"));
+            gameService.sendError(session, "name_required", "Name is required");
             return false;
         }
         if (name.trim().length() > MAX_NAME_LENGTH) {
-            gameService.sendToSession(session, JsonUtils.error("name_too_long", "Name is too long"));
+            gameService.sendError(session, "name_too_long", "Name is too long");
             return false;
         }
         return true;
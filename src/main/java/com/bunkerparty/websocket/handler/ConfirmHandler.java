@@ -1,9 +1,12 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.domain.CatalogSnapshot;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
+import com.bunkerparty.service.CardCatalog;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
@@ -11,17 +14,17 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Random;
 
-public class ConfirmHandler extends BaseMessageHandler {
+public class ConfirmHandler extends BaseMessageHandler<Command.Confirm> {
+    private final CardCatalog catalog;
     private final Random random;
 
     private static final Logger logger = LoggerFactory.getLogger(ConfirmHandler.class);
-    private static final int BUNKER_COUNT = 30;
-    private static final int TOTAL_CARD_TYPES = 7;
     private static final int MAX_EVENT_ATTEMPTS = 100;
 
     @Inject
-    public ConfirmHandler(GameService gameService, Random random) {
+    public ConfirmHandler(GameService gameService, CardCatalog catalog, Random random) {
         super(gameService);
+        this.catalog = catalog;
         this.random = random;
     }
 
@@ -29,11 +32,11 @@ public class ConfirmHandler extends BaseMessageHandler {
      * Handles the "confirm" message to confirm the end of a round.
      */
     @Override
-    public void handle(Session session, JsonObject msg) {
-        Room room = getRoom(msg);
+    public void handle(Session session, Command.Confirm command) {
+        Room room = getRoom(command.roomId());
         if (room == null) return;
 
-        Player player = getPlayer(room, msg);
+        Player player = getPlayer(room, command.playerId());
         if (player == null) return;
 
         if (!Room.PHASE_CONFIRM.equals(room.getPhase())) {
@@ -42,6 +45,7 @@ public class ConfirmHandler extends BaseMessageHandler {
         }
 
         room.addRoundConfirm(player.getId());
+        gameService.record(room, new RoomEvent.RoundConfirmed(player.getId()));
 
         if (room.allActivePlayersConfirmed()) {
             handleRoundTransition(room);
@@ -51,23 +55,26 @@ public class ConfirmHandler extends BaseMessageHandler {
     }
 
     private void handleRoundTransition(Room room) {
-        if (room.allPlayersUsedAllCards(TOTAL_CARD_TYPES)) {
+        CatalogSnapshot deck = catalog.forRoom(room);
+        if (room.allPlayersUsedAllCards(deck.getCategories().size())) {
             room.setPhase(Room.PHASE_GAME_OVER);
+            gameService.record(room, new RoomEvent.PhaseChanged(Room.PHASE_GAME_OVER));
         } else {
             room.incrementRound();
             room.clearRoundReveals();
             room.clearRoundConfirms();
 
-            room.setEventIdx(pickUniqueEventIndex(room));
+            room.setEventIdx(pickUniqueEventIndex(room, deck.getBunkerCount()));
             room.setPhase(Room.PHASE_REVEAL);
+            gameService.record(room, new RoomEvent.RoundStarted(room.getRound(), room.getEventIdx()));
         }
     }
 
-    private int pickUniqueEventIndex(Room room) {
+    private int pickUniqueEventIndex(Room room, int bunkerCount) {
         int newEventIdx;
         int attempts = 0;
         do {
-            newEventIdx = random.nextInt(BUNKER_COUNT);
+            newEventIdx = random.nextInt(bunkerCount);
             attempts++;
         } while (room.getEventByRound().containsValue(newEventIdx) && attempts < MAX_EVENT_ATTEMPTS);
         return newEventIdx;
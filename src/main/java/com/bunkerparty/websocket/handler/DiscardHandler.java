@@ -2,14 +2,15 @@ package com.bunkerparty.websocket.handler;
 
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DiscardHandler extends BaseMessageHandler {
+public class DiscardHandler extends BaseMessageHandler<Command.Discard> {
 
     private static final Logger logger = LoggerFactory.getLogger(DiscardHandler.class);
 
@@ -22,13 +23,13 @@ public class DiscardHandler extends BaseMessageHandler {
      * Handles the "discard" message to reveal a card.
      */
     @Override
-    public void handle(Session session, JsonObject msg) {
-        String cardKey = getString(msg, "cardKey");
+    public void handle(Session session, Command.Discard command) {
+        String cardKey = command.cardKey();
 
-        Room room = getRoom(msg);
+        Room room = getRoom(command.roomId());
         if (room == null) return;
 
-        Player player = getPlayer(room, msg);
+        Player player = getPlayer(room, command.playerId());
         if (player == null) return;
 
         if (!Room.PHASE_REVEAL.equals(room.getPhase())) {
@@ -48,9 +49,11 @@ public class DiscardHandler extends BaseMessageHandler {
 
         player.revealCard(cardKey);
         room.addRoundReveal(player.getId(), cardKey);
+        gameService.record(room, new RoomEvent.CardRevealed(player.getId(), cardKey));
 
         if (room.allActivePlayersRevealed()) {
             room.setPhase(Room.PHASE_CONFIRM);
+            gameService.record(room, new RoomEvent.PhaseChanged(Room.PHASE_CONFIRM));
         }
 
         gameService.broadcastUpdate(room);
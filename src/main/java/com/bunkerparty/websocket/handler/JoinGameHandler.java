@@ -1,38 +1,56 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.cluster.ClusterNode;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 
 import java.util.Map;
 import java.util.UUID;
 
-import static com.bunkerparty.websocket.helpers.JsonUtils.error;
 
 
-public class JoinGameHandler extends BaseMessageHandler {
-    private static final int MAX_PLAYERS = 6;
+public class JoinGameHandler extends BaseMessageHandler<Command.JoinGame> {
+
+    private final SessionRegistry sessionRegistry;
+    private final RateLimiter rateLimiter;
 
     @Inject
-    public JoinGameHandler(GameService gameService) {
+    public JoinGameHandler(GameService gameService, SessionRegistry sessionRegistry, RateLimiter rateLimiter) {
         super(gameService);
+        this.sessionRegistry = sessionRegistry;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
-     * Handles the "join_game" message to join or rejoin a room.
+     * Handles the "join_game" message to join or rejoin a room. A room owned by another node is answered with
+     * a redirect to that node; with a broadcast bus the join never gets here, as it is forwarded to the owner.
+     * While the server drains nobody is seated: the client is told to reconnect to the next instance instead.
      */
     @Override
-    public void handle(Session session, JsonObject msg) throws Exception {
-        String roomId = getString(msg, "roomId");
-        String name = getString(msg, "name").trim();
-        String token = msg.has("token") && !msg.get("token").isJsonNull() ? msg.get("token").getAsString() : null;
-        Room room = gameService.getRoom(roomId);
+    public void handle(Session session, Command.JoinGame command) throws Exception {
+        if (gameService.isDraining()) {
+            gameService.refuseJoin(session);
+            return;
+        }
+        String name = command.name().trim();
+        String token = command.token();
+        ClusterNode owner = gameService.getRemoteOwner(command.roomId());
+        if (owner != null) {
+            gameService.sendRedirect(session, command.roomId(), owner);
+            return;
+        }
+        Room room = getRoom(command.roomId());
 
         if (room == null) {
-            gameService.sendToSession(session, error("room_not_found", ""));
+            rateLimiter.recordRoomNotFound(session);
+            gameService.sendError(session, "room_not_found", "");
             return;
         }
 
@@ -54,6 +72,7 @@ public class JoinGameHandler extends BaseMessageHandler {
         }
         if (player == null) return;
 
+        sessionRegistry.register(session, room.getRoomId(), player.getId());
         sendOpenRoom(session, room, player);
         gameService.broadcastUpdate(room);
     }
@@ -65,24 +84,25 @@ public class JoinGameHandler extends BaseMessageHandler {
             player.setOnline(true);
             return player;
         } else {
-            gameService.sendToSession(session, error("invalid_token", "Invalid token for user " + name));
+            gameService.sendError(session, "invalid_token", "Invalid token for user " + name);
             return null;
         }
     }
 
     private Player handleNewJoin(Session session, Room room, String name) {
         if (room.getPhase() != null && !room.getPhase().equals(Room.PHASE_LOBBY)) {
-            gameService.sendToSession(session, error("game_started", "Game already started — cannot join"));
+            gameService.sendError(session, "game_started", "Game already started — cannot join");
             return null;
         }
-        if (room.getPlayers().size() >= MAX_PLAYERS) {
-            gameService.sendToSession(session, error("room_full", "Room is full (max " + MAX_PLAYERS + " players)"));
+        if (room.getPlayers().size() >= Room.MAX_PLAYERS) {
+            gameService.sendError(session, "room_full", "Room is full (max " + Room.MAX_PLAYERS + " players)");
             return null;
         }
         String playerId = UUID.randomUUID().toString();
         String token = UUID.randomUUID().toString();
         Player player = new Player(playerId, token, name, session, Map.of());
         room.addPlayer(player);
+        gameService.record(room, new RoomEvent.PlayerJoined(playerId, token, name));
         return player;
     }
 }
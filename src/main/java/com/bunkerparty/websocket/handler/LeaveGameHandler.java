@@ -2,42 +2,46 @@ package com.bunkerparty.websocket.handler;
 
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LeaveGameHandler extends BaseMessageHandler {
+public class LeaveGameHandler extends BaseMessageHandler<Command.LeaveGame> {
     private static final Logger logger = LoggerFactory.getLogger(LeaveGameHandler.class);
 
+    private final SessionRegistry sessionRegistry;
+
     @Inject
-    public LeaveGameHandler(GameService gameService) {
+    public LeaveGameHandler(GameService gameService, SessionRegistry sessionRegistry) {
         super(gameService);
+        this.sessionRegistry = sessionRegistry;
     }
 
     /**
      * Handles the "leave_game" message to leave a room.
      */
     @Override
-    public void handle(Session session, JsonObject msg) {
-        Room room = getRoom(msg);
+    public void handle(Session session, Command.LeaveGame command) {
+        Room room = getRoom(command.roomId());
         if (room == null) return;
 
-        boolean found = false;
-        for (Player player : room.getPlayers().values()) {
-            if (session.equals(player.getSession())) {
-                player.setOnline(false);
-                room.getPlayers().remove(player.getId());
-                room.getPidByName().remove(player.getName().toLowerCase());
-                found = true;
-                break;
-            }
-        }
-
-        if (found) {
-            gameService.broadcastUpdate(room);
-        }
+        String playerId = sessionRegistry.findPlayer(session, room.getRoomId());
+        if (playerId == null) return;
+
+        Player player = room.getPlayer(playerId);
+        if (player == null || !session.equals(player.getSession())) return;
+
+        sessionRegistry.unregister(session, room.getRoomId());
+        player.setOnline(false);
+        room.getPlayers().remove(player.getId());
+        room.getPidByName().remove(player.getName().toLowerCase());
+        gameService.record(room, new RoomEvent.PlayerLeft(player.getId()));
+
+        gameService.broadcastUpdate(room);
     }
 }
@@ -1,11 +1,11 @@
 package com.bunkerparty.websocket.handler;
 
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import org.eclipse.jetty.websocket.api.Session;
 
-public interface MessageHandler {
+public interface MessageHandler<C extends Command> {
     /**
-     * Handles an incoming WebSocket message.
+     * Handles a decoded WebSocket command.
      */
-    void handle(Session session, JsonObject message) throws Exception;
+    void handle(Session session, C command) throws Exception;
 }
@@ -2,9 +2,11 @@ package com.bunkerparty.websocket.handler;
 
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
 import com.bunkerparty.service.GameService;
-import com.bunkerparty.websocket.helpers.JsonUtils;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 
@@ -12,31 +14,48 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
 
-public class NewGameHandler extends BaseMessageHandler {
+public class NewGameHandler extends BaseMessageHandler<Command.NewGame> {
+
+    private final RoomExecutor roomExecutor;
+    private final SessionRegistry sessionRegistry;
 
     @Inject
-    public NewGameHandler(GameService gameService) {
+    public NewGameHandler(GameService gameService, RoomExecutor roomExecutor, SessionRegistry sessionRegistry) {
         super(gameService);
+        this.roomExecutor = roomExecutor;
+        this.sessionRegistry = sessionRegistry;
     }
 
     /**
      * Handles the "new_game" message to create a new room.
      */
     @Override
-    public void handle(Session session, JsonObject msg) {
-        String name = getString(msg, "name").trim();
+    public void handle(Session session, Command.NewGame command) {
+        String name = command.name().trim();
         if (!validateName(session, name)) {
             return;
         }
 
+        if (gameService.isDraining()) {
+            gameService.sendError(session, "draining", "Server is restarting, please try again shortly");
+            return;
+        }
         Room room = gameService.createRoom();
-        String playerId = UUID.randomUUID().toString();
-        String token = UUID.randomUUID().toString();
-        Player creator = new Player(playerId, token, name, session, Map.of());
-        room.addPlayer(creator);
-
-        sendOpenRoom(session, room, creator);
-
-        gameService.broadcastUpdate(room);
+        if (room == null) {
+            gameService.sendError(session, "no_capacity", "No free rooms");
+            return;
+        }
+        roomExecutor.execute(room.getRoomId(), () -> {
+            String playerId = UUID.randomUUID().toString();
+            String token = UUID.randomUUID().toString();
+            Player creator = new Player(playerId, token, name, session, Map.of());
+            room.addPlayer(creator);
+            gameService.record(room, new RoomEvent.PlayerJoined(playerId, token, name));
+            sessionRegistry.register(session, room.getRoomId(), playerId);
+
+            sendOpenRoom(session, room, creator);
+
+            gameService.broadcastUpdate(room);
+        });
     }
 }
@@ -1,9 +1,13 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.CatalogSnapshot;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.persistence.RoomEvent;
+import com.bunkerparty.service.CardCatalog;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
@@ -13,28 +17,18 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-public class ReadyHandler extends BaseMessageHandler {
+public class ReadyHandler extends BaseMessageHandler<Command.Ready> {
+    private final CardCatalog catalog;
     private final Random random;
 
     private static final Logger logger = LoggerFactory.getLogger(ReadyHandler.class);
     private static final int MIN_PLAYERS = 3;
-    private static final int MAX_PLAYERS = 6;
     private static final int INITIAL_ROUND = 1;
 
-    private static final Map<String, Integer> CARD_COUNTS = Map.of(
-            "profession", 19,
-            "health", 10,
-            "age", 10,
-            "gender", 6,
-            "hobby", 10,
-            "phobia", 7,
-            "item", 9
-    );
-    private static final int BUNKER_COUNT = 30;
-
     @Inject
-    public ReadyHandler(GameService gameService, Random random) {
+    public ReadyHandler(GameService gameService, CardCatalog catalog, Random random) {
         super(gameService);
+        this.catalog = catalog;
         this.random = random;
     }
 
@@ -42,14 +36,15 @@ public class ReadyHandler extends BaseMessageHandler {
      * Handles the "ready" message to vote to start the game.
      */
     @Override
-    public void handle(Session session, JsonObject msg) {
-        Room room = getRoom(msg);
+    public void handle(Session session, Command.Ready command) {
+        Room room = getRoom(command.roomId());
         if (room == null) return;
 
-        Player player = getPlayer(room, msg);
+        Player player = getPlayer(room, command.playerId());
         if (player == null) return;
 
         room.addStartVote(player.getId());
+        gameService.record(room, new RoomEvent.StartVoted(player.getId()));
 
         logger.info("Player {} is ready in room {}", player.getName(), room.getRoomId());
 
@@ -59,34 +54,39 @@ public class ReadyHandler extends BaseMessageHandler {
 
     private void checkStart(Room room) {
         int playerCount = room.getPlayers().size();
-        if (playerCount >= MIN_PLAYERS && playerCount <= MAX_PLAYERS && room.getStartVotes().size() == playerCount) {
+        if (playerCount >= MIN_PLAYERS && playerCount <= Room.MAX_PLAYERS && room.getStartVotes().size() == playerCount) {
             room.setRound(INITIAL_ROUND);
             distributeCards(room);
             room.setPhase(Room.PHASE_REVEAL);
+            gameService.record(room, new RoomEvent.CatalogPinned(room.getCatalogVersion()));
+            gameService.record(room, RoomEvent.GameStarted.of(room));
             logger.info("Game started in room {}", room.getRoomId());
         }
     }
 
-    private void distributeCards(Room room) {
+    /**
+     * Deals one card of every category to each player from the current catalog, which the room keeps for the rest
+     * of the game, and picks the bunker event.
+     */
+    void distributeCards(Room room) {
+        CatalogSnapshot deck = catalog.current();
+        room.setCatalog(deck);
         List<Player> players = new ArrayList<>(room.getPlayers().values());
         Collections.shuffle(players, random);
 
-        for (Map.Entry<String, Integer> entry : CARD_COUNTS.entrySet()) {
-            distributeCategoryCards(players, entry.getKey(), entry.getValue());
+        for (CardCategory category : deck.getCategories()) {
+            distributeCategoryCards(players, category, deck.getCount(category));
         }
 
-        room.setEventIdx(random.nextInt(BUNKER_COUNT));
+        room.setEventIdx(random.nextInt(deck.getBunkerCount()));
     }
 
-    private void distributeCategoryCards(List<Player> players, String category, int count) {
+    private void distributeCategoryCards(List<Player> players, CardCategory category, int count) {
         List<Integer> indices = IntStream.range(0, count).boxed().collect(Collectors.toList());
         Collections.shuffle(indices, random);
 
         for (int i = 0; i < players.size(); i++) {
-            Player p = players.get(i);
-            Map<String, Integer> pCards = p.getCharacterIndices();
-            pCards.put(category, indices.get(i));
-            p.setCharacterIndices(pCards);
+            players.get(i).dealCard(category, indices.get(i));
         }
     }
 }
@@ -0,0 +1,30 @@
+package com.bunkerparty.websocket.handler;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.websocket.command.Command;
+import jakarta.inject.Inject;
+import org.eclipse.jetty.websocket.api.Session;
+
+public class ResyncHandler extends BaseMessageHandler<Command.Resync> {
+
+    @Inject
+    public ResyncHandler(GameService gameService) {
+        super(gameService);
+    }
+
+    /**
+     * Handles the "resync" message sent by a client that could not apply a game_patch.
+     */
+    @Override
+    public void handle(Session session, Command.Resync command) {
+        Room room = getRoom(command.roomId());
+        if (room == null) return;
+
+        Player player = getPlayer(room, command.playerId());
+        if (player == null) return;
+
+        gameService.sendFullState(room, player);
+    }
+}
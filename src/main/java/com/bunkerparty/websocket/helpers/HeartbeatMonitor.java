@@ -0,0 +1,166 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.service.HashedTimingWheel;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends WebSocket ping control frames to every open session from one shared timing wheel and disconnects
+ * sessions that have not answered with a pong within the timeout, so half-open connections are noticed
+ * without waiting for TCP to give up.
+ */
+@Singleton
+public class HeartbeatMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatMonitor.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final HashedTimingWheel wheel;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+    private final LongSupplier clock;
+    private final Map<Session, Heartbeat> heartbeats = new ConcurrentHashMap<>();
+    private final LongAdder pingsSent = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Creates a monitor with the ping interval and timeout from the application configuration.
+     */
+    @Inject
+    public HeartbeatMonitor() {
+        this(new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE), AppConfig.getHeartbeatIntervalMillis(),
+                AppConfig.getHeartbeatTimeoutMillis(), System::currentTimeMillis);
+    }
+
+    HeartbeatMonitor(HashedTimingWheel wheel, long intervalMillis, long timeoutMillis, LongSupplier clock) {
+        this.wheel = wheel;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts pinging a newly connected session. The callback runs on the timer thread after the session
+     * has been disconnected for missing its pongs.
+     */
+    public void track(Session session, Runnable onTimeout) {
+        Heartbeat heartbeat = new Heartbeat(clock.getAsLong(), onTimeout);
+        if (heartbeats.putIfAbsent(session, heartbeat) == null) {
+            schedule(session, heartbeat);
+        }
+    }
+
+    /**
+     * Records that the session answered a ping or otherwise proved it is alive.
+     */
+    public void onPong(Session session) {
+        Heartbeat heartbeat = heartbeats.get(session);
+        if (heartbeat != null) {
+            heartbeat.lastPong = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Stops pinging a closed session.
+     */
+    public void untrack(Session session) {
+        Heartbeat heartbeat = heartbeats.remove(session);
+        if (heartbeat != null && heartbeat.timeout != null) {
+            heartbeat.timeout.cancel();
+        }
+    }
+
+    /**
+     * Returns the number of sessions being pinged.
+     */
+    public int getTrackedCount() {
+        return heartbeats.size();
+    }
+
+    /**
+     * Returns the sessions being pinged, i.e. every open connection.
+     */
+    public Set<Session> getSessions() {
+        return heartbeats.keySet();
+    }
+
+    /**
+     * Returns how many pings were sent.
+     */
+    public long getPingsSent() {
+        return pingsSent.sum();
+    }
+
+    /**
+     * Returns how many sessions were disconnected for missing their pongs.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Disconnects the session if its last pong is older than the timeout, otherwise pings it again.
+     * Runs on the timer thread.
+     */
+    private void check(Session session, Heartbeat heartbeat) {
+        if (heartbeats.get(session) != heartbeat) {
+            return;
+        }
+        if (!session.isOpen()) {
+            heartbeats.remove(session, heartbeat);
+            return;
+        }
+        if (clock.getAsLong() - heartbeat.lastPong > timeoutMillis) {
+            heartbeats.remove(session, heartbeat);
+            timedOut.increment();
+            logger.info("Heartbeat timeout: {}", session.getRemoteAddress());
+            disconnect(session);
+            heartbeat.onTimeout.run();
+            return;
+        }
+        try {
+            session.getRemote().sendPing(EMPTY);
+            pingsSent.increment();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to ping {}", session.getRemoteAddress(), e);
+        }
+        schedule(session, heartbeat);
+    }
+
+    private void schedule(Session session, Heartbeat heartbeat) {
+        heartbeat.timeout = wheel.schedule(intervalMillis, () -> check(session, heartbeat));
+    }
+
+    private void disconnect(Session session) {
+        try {
+            session.disconnect();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to disconnect {}", session.getRemoteAddress(), e);
+        }
+    }
+
+    private static final class Heartbeat {
+        private final Runnable onTimeout;
+        private volatile long lastPong;
+        private volatile HashedTimingWheel.Timeout timeout;
+
+        private Heartbeat(long now, Runnable onTimeout) {
+            this.lastPong = now;
+            this.onTimeout = onTimeout;
+        }
+    }
+}
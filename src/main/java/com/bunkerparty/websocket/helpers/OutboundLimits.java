@@ -0,0 +1,19 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.config.AppConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How far a session's outbound backlog may grow, and for how long, before the session is closed.
+ */
+public record OutboundLimits(int maxFrames, long maxBytes, long graceNanos) {
+
+    /**
+     * Returns the limits from the application configuration.
+     */
+    public static OutboundLimits fromConfig() {
+        return new OutboundLimits(AppConfig.getOutboundMaxFrames(), AppConfig.getOutboundMaxBytes(),
+                TimeUnit.MILLISECONDS.toNanos(AppConfig.getSlowConsumerGraceMillis()));
+    }
+}
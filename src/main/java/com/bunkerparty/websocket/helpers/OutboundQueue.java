@@ -0,0 +1,303 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.metrics.GameMetrics;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.function.LongSupplier;
+
+/**
+ * Queue of text frames waiting to be written to one session.
+ * At most one asynchronous write is in flight; its completion callback starts the next one,
+ * so callers never wait on the client socket.
+ * <p>
+ * State frames carry a key and are conflated: a newer state frame for the same key replaces the unsent older one,
+ * so the queue holds at most one per key. Control frames are never dropped. If the backlog stays above its frame
+ * or byte limit for longer than the grace period, the session is closed with {@link #SLOW_CONSUMER_STATUS}.
+ * A failed write closes the session too, since the frames after it would leave the client out of sync;
+ * the client reconnects and gets a full snapshot.
+ */
+public class OutboundQueue {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundQueue.class);
+
+    /**
+     * WebSocket close status sent to clients that cannot keep up; the client reconnects and resyncs.
+     */
+    public static final int SLOW_CONSUMER_STATUS = 4008;
+
+    private final Session session;
+    private final OutboundLimits limits;
+    private final GameMetrics metrics;
+    private final LongSupplier clock;
+    private final Queue<Pending> queue = new ArrayDeque<>();
+    private boolean inFlight;
+    private boolean pumping;
+    private boolean closed;
+    private boolean evicted;
+    private long pendingBytes;
+    private long overLimitSince = -1;
+
+    private long sent;
+    private long failed;
+    private long conflated;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * Creates an empty queue for a session with the given backlog limits.
+     */
+    public OutboundQueue(Session session, OutboundLimits limits, GameMetrics metrics) {
+        this(session, limits, metrics, System::nanoTime);
+    }
+
+    OutboundQueue(Session session, OutboundLimits limits, GameMetrics metrics, LongSupplier clock) {
+        this.session = session;
+        this.limits = limits;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues a control frame, which is never conflated or dropped while the session is open.
+     * Returns false if the session was already closed as a slow consumer or after a failed write.
+     */
+    public boolean offer(String text) {
+        return enqueue(null, text);
+    }
+
+    /**
+     * Queues a state frame, replacing any unsent state frame with the same key.
+     * Returns false if the session was already closed as a slow consumer or after a failed write.
+     */
+    public boolean offerState(String key, String text) {
+        return enqueue(key, text);
+    }
+
+    /**
+     * Returns true if a state frame with the given key is queued and not yet being written.
+     */
+    public synchronized boolean hasPendingState(String key) {
+        for (Pending pending : queue) {
+            if (key.equals(pending.stateKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean enqueue(String stateKey, String text) {
+        boolean evict;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (stateKey != null) {
+                removePendingState(stateKey);
+            }
+            queue.add(new Pending(stateKey, text, clock.getAsLong()));
+            pendingBytes += text.length();
+            evict = checkLimits();
+        }
+        if (evict) {
+            evict();
+            return false;
+        }
+        pump();
+        return true;
+    }
+
+    private void removePendingState(String stateKey) {
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            Pending pending = it.next();
+            if (stateKey.equals(pending.stateKey())) {
+                it.remove();
+                pendingBytes -= pending.text().length();
+                conflated++;
+                return;
+            }
+        }
+    }
+
+    private boolean withinLimits() {
+        return queue.size() <= limits.maxFrames() && pendingBytes <= limits.maxBytes();
+    }
+
+    private boolean checkLimits() {
+        if (withinLimits()) {
+            overLimitSince = -1;
+            return false;
+        }
+        long now = clock.getAsLong();
+        if (overLimitSince < 0) {
+            overLimitSince = now;
+        }
+        if (now - overLimitSince < limits.graceNanos()) {
+            return false;
+        }
+        closed = true;
+        evicted = true;
+        queue.clear();
+        pendingBytes = 0;
+        return true;
+    }
+
+    private void evict() {
+        logger.warn("Closing slow consumer {}", session.getRemoteAddress());
+        try {
+            session.close(SLOW_CONSUMER_STATUS, "slow consumer");
+        } catch (RuntimeException e) {
+            logger.debug("Failed to close slow consumer {}", session.getRemoteAddress(), e);
+        }
+    }
+
+    private void pump() {
+        synchronized (this) {
+            if (pumping) {
+                return;
+            }
+            pumping = true;
+        }
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                if (inFlight || queue.isEmpty()) {
+                    pumping = false;
+                    return;
+                }
+                next = queue.poll();
+                inFlight = true;
+                if (withinLimits()) {
+                    overLimitSince = -1;
+                }
+            }
+            try {
+                session.getRemote().sendString(next.text(), new Callback(next));
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+    }
+
+    private void onSuccess(Pending pending) {
+        long latency = clock.getAsLong() - pending.queuedAt();
+        synchronized (this) {
+            sent++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            pendingBytes -= pending.text().length();
+            inFlight = false;
+        }
+        metrics.recordSent(latency);
+        pump();
+    }
+
+    private void onFailure(Throwable cause) {
+        int discarded;
+        synchronized (this) {
+            failed++;
+            closed = true;
+            discarded = queue.size();
+            queue.clear();
+            pendingBytes = 0;
+            inFlight = false;
+        }
+        metrics.recordSendFailure();
+        logger.debug("Write to {} failed, discarded {} queued frames", session.getRemoteAddress(), discarded, cause);
+        try {
+            session.close(StatusCode.SERVER_ERROR, "write failed");
+        } catch (RuntimeException e) {
+            logger.debug("Failed to close {} after a failed write", session.getRemoteAddress(), e);
+        }
+    }
+
+    /**
+     * Returns the number of frames waiting, not counting the one being written.
+     */
+    public synchronized int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of characters queued or being written.
+     */
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Returns the number of frames written successfully.
+     */
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    /**
+     * Returns the number of writes that failed.
+     */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the number of unsent state frames replaced by newer ones.
+     */
+    public synchronized long getConflated() {
+        return conflated;
+    }
+
+    /**
+     * Returns true if the session was closed for falling too far behind.
+     */
+    public synchronized boolean isEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Returns the mean time from queueing a frame to its write completing, in microseconds.
+     */
+    public synchronized long getAverageLatencyMicros() {
+        return sent == 0 ? 0 : totalLatencyNanos / sent / 1000;
+    }
+
+    /**
+     * Returns the longest time from queueing a frame to its write completing, in microseconds.
+     */
+    public synchronized long getMaxLatencyMicros() {
+        return maxLatencyNanos / 1000;
+    }
+
+    /**
+     * Returns the session this queue writes to.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    private record Pending(String stateKey, String text, long queuedAt) {
+    }
+
+    private final class Callback implements WriteCallback {
+        private final Pending pending;
+
+        private Callback(Pending pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void writeSuccess() {
+            onSuccess(pending);
+        }
+
+        @Override
+        public void writeFailed(Throwable cause) {
+            onFailure(cause);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bunkerparty.websocket.helpers;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+/**
+ * A session standing in for a client connected to another node. Frames are handed to that node as they are and
+ * queued there, where state frames are conflated for the client, so they bypass this node's outbound queues.
+ */
+public interface RelayedSession extends Session {
+
+    /**
+     * Hands a control frame to the client's node. Returns false if it cannot be delivered.
+     */
+    boolean relayText(String text);
+
+    /**
+     * Hands a state frame with its conflation key to the client's node. Returns false if it cannot be delivered.
+     */
+    boolean relayState(String key, String text);
+}
@@ -0,0 +1,46 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A JSON message serialized once and completed per recipient with a single personal field.
+ */
+public final class SharedFrame {
+
+    private final String json;
+    private final String prefix;
+
+    /**
+     * Serializes the shared message and prepares it to receive the personal field under the given key.
+     */
+    public SharedFrame(JsonObject shared, String personalKey) {
+        this(shared.toString(), personalKey);
+    }
+
+    /**
+     * Wraps an already encoded JSON object and prepares it to receive the personal field under the given key.
+     */
+    public SharedFrame(String json, String personalKey) {
+        this.json = json;
+        String head = json.substring(0, json.length() - 1);
+        this.prefix = (json.length() == 2 ? head : head + ",") + "\"" + personalKey + "\":";
+    }
+
+    /**
+     * Returns the shared JSON without any personal field.
+     */
+    public String withoutPersonal() {
+        return json;
+    }
+
+    /**
+     * Returns the complete frame with the given pre-encoded JSON value as the personal field.
+     */
+    public String complete(String personalJson) {
+        return new StringBuilder(prefix.length() + personalJson.length() + 1)
+                .append(prefix)
+                .append(personalJson)
+                .append('}')
+                .toString();
+    }
+}
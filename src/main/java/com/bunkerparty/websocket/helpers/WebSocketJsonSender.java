@@ -1,25 +1,130 @@
 package com.bunkerparty.websocket.helpers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
+import com.bunkerparty.metrics.GameMetrics;
+import jakarta.inject.Inject;
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Sends frames to WebSocket sessions without blocking the caller.
+ * Each session gets its own {@link OutboundQueue} that is drained by asynchronous writes,
+ * conflates state frames and closes the session if it falls too far behind.
+ */
 public class WebSocketJsonSender {
 
-    private static final Gson GSON =
-            new GsonBuilder().setPrettyPrinting().create();
+    private final OutboundLimits limits;
+    private final GameMetrics metrics;
+    private final Map<Session, OutboundQueue> queues = new ConcurrentHashMap<>();
+    private final LongAdder slowConsumersClosed = new LongAdder();
 
     /**
-     * Sends a JsonObject to a WebSocket session.
+     * Creates a sender with the backlog limits from the application configuration.
      */
-    public void send(Session session, JsonObject json) throws IOException {
+    public WebSocketJsonSender() {
+        this(OutboundLimits.fromConfig());
+    }
+
+    /**
+     * Creates a sender with the backlog limits from the application configuration that records into the given metrics.
+     */
+    @Inject
+    public WebSocketJsonSender(GameMetrics metrics) {
+        this(OutboundLimits.fromConfig(), metrics);
+    }
+
+    /**
+     * Creates a sender with the given per-session backlog limits.
+     */
+    public WebSocketJsonSender(OutboundLimits limits) {
+        this(limits, GameMetrics.detached());
+    }
+
+    /**
+     * Creates a sender with the given per-session backlog limits that records into the given metrics.
+     */
+    public WebSocketJsonSender(OutboundLimits limits, GameMetrics metrics) {
+        this.limits = limits;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues an already encoded JSON text frame as a control frame for a WebSocket session.
+     * Returns false if the session is closed.
+     */
+    public boolean sendText(Session session, String text) {
+        if (!isOpen(session)) {
+            return false;
+        }
+        if (session instanceof RelayedSession relayed) {
+            return relayed.relayText(text);
+        }
+        boolean queued = queueOf(session).offer(text);
+        if (queued) {
+            metrics.recordQueued(false);
+        }
+        return queued;
+    }
+
+    /**
+     * Queues an encoded state frame for a WebSocket session, replacing its unsent state frame with the same key.
+     * Returns false if the session is closed.
+     */
+    public boolean sendState(Session session, String key, String text) {
         if (!isOpen(session)) {
-            return;
+            return false;
+        }
+        if (session instanceof RelayedSession relayed) {
+            return relayed.relayState(key, text);
+        }
+        boolean queued = queueOf(session).offerState(key, text);
+        if (queued) {
+            metrics.recordQueued(true);
+        }
+        return queued;
+    }
+
+    /**
+     * Returns true if the session has an unsent state frame with the given key. A relayed session may always have
+     * one queued on the client's node, so it is sent full states, which stay valid however they are conflated.
+     */
+    public boolean hasPendingState(Session session, String key) {
+        if (session instanceof RelayedSession) {
+            return true;
         }
-        session.getRemote().sendString(GSON.toJson(json));
+        OutboundQueue queue = session != null ? queues.get(session) : null;
+        return queue != null && queue.hasPendingState(key);
+    }
+
+    /**
+     * Forgets the outbound queue of a closed session.
+     */
+    public void release(Session session) {
+        OutboundQueue queue = session != null ? queues.remove(session) : null;
+        if (queue != null && queue.isEvicted()) {
+            slowConsumersClosed.increment();
+        }
+    }
+
+    /**
+     * Returns how many released sessions had been closed as slow consumers.
+     */
+    public long getSlowConsumersClosed() {
+        return slowConsumersClosed.sum();
+    }
+
+    /**
+     * Returns the outbound queues of all sessions that have been sent to and not yet released.
+     */
+    public Collection<OutboundQueue> getQueues() {
+        return queues.values();
+    }
+
+    private OutboundQueue queueOf(Session session) {
+        return queues.computeIfAbsent(session, s -> new OutboundQueue(s, limits, metrics));
     }
 
     private boolean isOpen(Session session) {
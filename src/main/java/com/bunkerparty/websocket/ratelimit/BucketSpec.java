@@ -0,0 +1,45 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and refill rate of a token bucket: up to {@code burst} messages at once, then {@code perMinute} per minute.
+ */
+public record BucketSpec(int burst, int perMinute) {
+
+    public BucketSpec {
+        if (burst < 1 || perMinute < 1) {
+            throw new IllegalArgumentException("burst and perMinute must be positive: " + burst + "/" + perMinute);
+        }
+    }
+
+    /**
+     * Parses a spec written as "burst/perMinute", returning the default if the value is null or invalid.
+     */
+    public static BucketSpec parse(String value, BucketSpec defaultSpec) {
+        if (value == null) {
+            return defaultSpec;
+        }
+        int slash = value.indexOf('/');
+        try {
+            return new BucketSpec(Integer.parseInt(value.substring(0, slash).trim()),
+                    Integer.parseInt(value.substring(slash + 1).trim()));
+        } catch (RuntimeException e) {
+            return defaultSpec;
+        }
+    }
+
+    /**
+     * Returns the spec with both burst and rate multiplied by the given factor.
+     */
+    public BucketSpec times(int factor) {
+        return new BucketSpec(burst * factor, perMinute * factor);
+    }
+
+    /**
+     * Returns the time it takes to refill one token.
+     */
+    public long intervalNanos() {
+        return TimeUnit.MINUTES.toNanos(1) / perMinute;
+    }
+}
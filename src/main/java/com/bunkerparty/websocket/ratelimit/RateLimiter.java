@@ -0,0 +1,190 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import com.bunkerparty.websocket.command.MessageType;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how fast clients may send each message type, with token buckets kept per session and per remote address.
+ * A message must get a token from both. join_game additionally needs the caller's room_not_found budget,
+ * which is spent by attempts to join rooms that do not exist, to slow down guessing room codes.
+ */
+@Singleton
+public class RateLimiter {
+
+    private static final int SWEEP_THRESHOLD = 1024;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final String UNKNOWN_ADDRESS = "unknown";
+
+    private final RateLimits limits;
+    private final Map<MessageType, BucketSpec> perAddress = new EnumMap<>(MessageType.class);
+    private final BucketSpec roomNotFoundPerAddress;
+    private final LongSupplier clock;
+    private final Map<Session, Buckets> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> addresses = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep;
+    private final Map<MessageType, LongAdder> throttled = new EnumMap<>(MessageType.class);
+    private final LongAdder roomNotFound = new LongAdder();
+
+    /**
+     * Creates a rate limiter with the limits from the application configuration.
+     */
+    @Inject
+    public RateLimiter() {
+        this(RateLimits.fromConfig());
+    }
+
+    /**
+     * Creates a rate limiter with the given limits.
+     */
+    public RateLimiter(RateLimits limits) {
+        this(limits, System::nanoTime);
+    }
+
+    RateLimiter(RateLimits limits, LongSupplier clock) {
+        this.limits = limits;
+        this.clock = clock;
+        limits.perSession().forEach((type, spec) -> perAddress.put(type, spec.times(limits.addressFactor())));
+        this.roomNotFoundPerAddress = limits.roomNotFound().times(limits.addressFactor());
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+        for (MessageType type : MessageType.values()) {
+            throttled.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * Takes a token for a message of the given type from the session's and its address's buckets, or counts it as
+     * throttled and returns false without spending either.
+     */
+    public boolean tryAcquire(Session session, MessageType type) {
+        long now = clock.getAsLong();
+        Buckets own = sessions.computeIfAbsent(session, s -> new Buckets(limits.perSession(),
+                limits.roomNotFound(), now));
+        Buckets shared = addressBuckets(session, now);
+        TokenBucket ownBucket = own.get(type);
+        boolean allowed = (type != MessageType.JOIN_GAME
+                || own.roomNotFound.hasToken(now) && shared.roomNotFound.hasToken(now))
+                && ownBucket.tryAcquire(now);
+        if (allowed && !shared.get(type).tryAcquire(now)) {
+            ownBucket.refund();
+            allowed = false;
+        }
+        if (!allowed) {
+            throttled.get(type).increment();
+        }
+        return allowed;
+    }
+
+    /**
+     * Spends the room_not_found budget of the session and its address after a join to a missing room.
+     */
+    public void recordRoomNotFound(Session session) {
+        long now = clock.getAsLong();
+        roomNotFound.increment();
+        Buckets own = sessions.get(session);
+        if (own != null) {
+            own.roomNotFound.tryAcquire(now);
+        }
+        addressBuckets(session, now).roomNotFound.tryAcquire(now);
+    }
+
+    /**
+     * Forgets the buckets of a closed session. Its address keeps its buckets until they refill.
+     */
+    public void release(Session session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Returns how many messages of the given type were throttled.
+     */
+    public long getThrottled(MessageType type) {
+        return throttled.get(type).sum();
+    }
+
+    /**
+     * Returns how many join attempts named a room that does not exist.
+     */
+    public long getRoomNotFound() {
+        return roomNotFound.sum();
+    }
+
+    /**
+     * Returns the number of remote addresses with buckets.
+     */
+    public int getTrackedAddresses() {
+        return addresses.size();
+    }
+
+    private Buckets addressBuckets(Session session, long now) {
+        String address = remoteAddress(session);
+        Buckets buckets = addresses.get(address);
+        if (buckets != null) {
+            return buckets;
+        }
+        sweep(now);
+        return addresses.computeIfAbsent(address, a -> new Buckets(perAddress, roomNotFoundPerAddress, now));
+    }
+
+    /**
+     * Drops address buckets that have refilled completely once there are many of them.
+     */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (addresses.size() < SWEEP_THRESHOLD || now - last < SWEEP_INTERVAL_NANOS
+                || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        addresses.values().removeIf(buckets -> buckets.isFull(now));
+    }
+
+    private String remoteAddress(Session session) {
+        if (limits.trustForwardedFor()) {
+            UpgradeRequest request = session.getUpgradeRequest();
+            String forwarded = request != null ? request.getHeader("X-Forwarded-For") : null;
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        InetSocketAddress address = session.getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return UNKNOWN_ADDRESS;
+        }
+        return address.getAddress().getHostAddress();
+    }
+
+    private static final class Buckets {
+        private final TokenBucket[] byType = new TokenBucket[MessageType.values().length];
+        private final TokenBucket roomNotFound;
+
+        private Buckets(Map<MessageType, BucketSpec> specs, BucketSpec roomNotFoundSpec, long now) {
+            specs.forEach((type, spec) -> byType[type.ordinal()] = new TokenBucket(spec, now));
+            this.roomNotFound = new TokenBucket(roomNotFoundSpec, now);
+        }
+
+        private TokenBucket get(MessageType type) {
+            return byType[type.ordinal()];
+        }
+
+        private boolean isFull(long now) {
+            for (TokenBucket bucket : byType) {
+                if (!bucket.isFull(now)) {
+                    return false;
+                }
+            }
+            return roomNotFound.isFull(now);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import com.bunkerparty.config.AppConfig;
+import com.bunkerparty.websocket.command.MessageType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token bucket sizes for inbound messages.
+ *
+ * @param perSession        bucket of each message type for one session
+ * @param roomNotFound      bucket of join_game attempts that named a room that does not exist
+ * @param addressFactor     how many sessions' worth of each bucket one remote address shares
+ * @param trustForwardedFor whether the remote address is taken from X-Forwarded-For
+ */
+public record RateLimits(Map<MessageType, BucketSpec> perSession, BucketSpec roomNotFound, int addressFactor,
+                         boolean trustForwardedFor) {
+
+    private static final Map<MessageType, BucketSpec> DEFAULTS = defaults();
+    private static final BucketSpec ROOM_NOT_FOUND_DEFAULT = new BucketSpec(5, 6);
+
+    /**
+     * Returns the default limits, which a human player never reaches.
+     */
+    public static RateLimits defaultLimits() {
+        return new RateLimits(DEFAULTS, ROOM_NOT_FOUND_DEFAULT, 4, false);
+    }
+
+    /**
+     * Returns limits that no client reaches, for load tests and benchmarks that send from one address.
+     */
+    public static RateLimits unlimited() {
+        BucketSpec unlimited = new BucketSpec(Integer.MAX_VALUE / 8, Integer.MAX_VALUE / 8);
+        Map<MessageType, BucketSpec> perSession = new EnumMap<>(MessageType.class);
+        for (MessageType type : MessageType.values()) {
+            perSession.put(type, unlimited);
+        }
+        return new RateLimits(Collections.unmodifiableMap(perSession), unlimited, 1, false);
+    }
+
+    /**
+     * Returns the limits from the application configuration, falling back to the defaults per message type.
+     */
+    public static RateLimits fromConfig() {
+        Map<MessageType, BucketSpec> perSession = new EnumMap<>(MessageType.class);
+        for (MessageType type : MessageType.values()) {
+            perSession.put(type, BucketSpec.parse(AppConfig.getRateLimit(type.name()), DEFAULTS.get(type)));
+        }
+        return new RateLimits(Collections.unmodifiableMap(perSession),
+                BucketSpec.parse(AppConfig.getRateLimit("room_not_found"), ROOM_NOT_FOUND_DEFAULT),
+                AppConfig.getRateLimitAddressFactor(), AppConfig.isTrustForwardedFor());
+    }
+
+    private static Map<MessageType, BucketSpec> defaults() {
+        Map<MessageType, BucketSpec> defaults = new EnumMap<>(MessageType.class);
+        defaults.put(MessageType.PING, new BucketSpec(10, 120));
+        defaults.put(MessageType.NEW_GAME, new BucketSpec(3, 6));
+        defaults.put(MessageType.JOIN_GAME, new BucketSpec(5, 20));
+        defaults.put(MessageType.LEAVE_GAME, new BucketSpec(5, 20));
+        defaults.put(MessageType.READY, new BucketSpec(10, 60));
+        defaults.put(MessageType.DISCARD, new BucketSpec(10, 60));
+        defaults.put(MessageType.CONFIRM, new BucketSpec(10, 60));
+        defaults.put(MessageType.RESYNC, new BucketSpec(5, 30));
+        return Collections.unmodifiableMap(defaults);
+    }
+}
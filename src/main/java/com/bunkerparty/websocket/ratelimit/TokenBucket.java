@@ -0,0 +1,61 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Its whole state is the time at which it will be full again,
+ * so taking a token is a single compare-and-set (the generic cell rate algorithm).
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     */
+    public TokenBucket(BucketSpec spec, long nowNanos) {
+        this.intervalNanos = spec.intervalNanos();
+        this.capacityNanos = intervalNanos * spec.burst();
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available and returns true, or returns false leaving the bucket unchanged.
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} that ended up unused. A bucket that has refilled since stays
+     * full.
+     */
+    public void refund() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Returns true if a token is available, without taking it.
+     */
+    public boolean hasToken(long nowNanos) {
+        return Math.max(fullAt.get(), nowNanos) + intervalNanos - nowNanos <= capacityNanos;
+    }
+
+    /**
+     * Returns true if the bucket has refilled completely, so dropping it loses no state.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
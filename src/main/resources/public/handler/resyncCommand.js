@@ -0,0 +1,15 @@
+import { socket } from '../js/api/socket.js';
+import { State } from '../js/core/state.js';
+
+export function resyncCommand() {
+    const roomId = State.getRoom();
+    const playerId = State.getPlayerId();
+
+    if (socket && socket.readyState === WebSocket.OPEN) {
+        socket.send(JSON.stringify({
+            type: "resync",
+            roomId: roomId,
+            playerId: playerId
+        }));
+    }
+}
@@ -2,7 +2,9 @@ import { roomOpened } from '../../handler/openRoomHandler.js';
 import { showError, updateConnectionStatus, hideLoader, updateUI } from '../ui/view.js';
 import { cleanupSession } from '../app.js';
 import { State } from '../core/state.js';
+import { getCatalogVersion, loadTranslations } from '../core/i18n.js';
 import { joinGameCommand } from '../../handler/joinGameCommand.js';
+import { resyncCommand } from '../../handler/resyncCommand.js';
 
 function protoWs() {
     return location.protocol === 'https:' ? 'wss' : 'ws';
@@ -12,8 +14,15 @@ export let socket;
 let reconnectTimer;
 let heartbeatTimer;
 let reconnectDelay = 1000;
+let nextReconnectDelay = null; // one-off delay for the next reconnect only, e.g. 0 after a redirect
+let ownerUrl = null; // WebSocket URL of the node that owns our room, once redirected
+let redirectedRoom = null;
+let ownerFailures = 0;
+const BASE_RECONNECT_DELAY = 1000;
 const MAX_RECONNECT_DELAY = 30000;
+const MAX_OWNER_FAILURES = 3;
 const HEARTBEAT_INTERVAL = 30000;
+const SLOW_CONSUMER_CLOSE = 4008;
 
 export function connect() {
     if (reconnectTimer) {
@@ -25,18 +34,22 @@ export function connect() {
         return;
     }
 
-    const wsUrl = `${protoWs()}://${location.host}/ws`;
+    const wsUrl = ownerUrl || `${protoWs()}://${location.host}/ws`;
     socket = new WebSocket(wsUrl);
+    let opened = false;
 
     socket.onopen = () => {
         console.log('Connected to WebSocket');
+        opened = true;
+        ownerFailures = 0;
         updateConnectionStatus(true);
-        reconnectDelay = 1000; // Reset delay on successful connection
+        reconnectDelay = BASE_RECONNECT_DELAY; // Reset delay on successful connection
         startHeartbeat();
 
         // Auto-rejoin if we have saved session
         const name = State.getName();
-        const room = new URLSearchParams(window.location.search).get('room');
+        const room = redirectedRoom || new URLSearchParams(window.location.search).get('room');
+        redirectedRoom = null;
         if (name && room) {
             console.log(`Auto-rejoining room ${room} as ${name}`);
             joinGameCommand(name, room);
@@ -53,6 +66,15 @@ export function connect() {
                 roomOpened(msg);
             } else {
                 updateUI(msg);
+                followCatalog(msg);
+            }
+        } else if (msg.type === 'game_patch') {
+            const state = State.applyGamePatch(msg);
+            if (state) {
+                updateUI(state);
+                followCatalog(state);
+            } else {
+                resyncCommand();
             }
         } else if (msg.type === 'error') {
             hideLoader();
@@ -60,15 +82,37 @@ export function connect() {
                 cleanupSession();
             }
             showError(msg.code, msg.message);
+        } else if (msg.type === 'redirect') {
+            // The room lives on another node; connect there and join again
+            console.log(`Room ${msg.room_id} is served by node ${msg.node}`);
+            ownerUrl = msg.url.replace(/^http/, 'ws') + '/ws';
+            redirectedRoom = msg.room_id;
+            ownerFailures = 0;
+            nextReconnectDelay = 0;
+            reconnectDelay = BASE_RECONNECT_DELAY;
+            socket.close();
         } else if (msg.type === 'refresh') {
-            console.log('Refresh requested');
+            // Server is draining; reconnect after its jittered delay so clients do not all rejoin at once
+            console.log(`Refresh requested, reconnecting in ${msg.delay_ms} ms`);
+            nextReconnectDelay = Math.max(0, msg.delay_ms || 0);
+            reconnectDelay = BASE_RECONNECT_DELAY;
+            socket.close();
         } else if (msg.type === 'pong') {
             // Heartbeat received
         }
     };
 
-    socket.onclose = () => {
-        console.log(`WebSocket connection closed. Retrying in ${reconnectDelay / 1000} seconds...`);
+    socket.onclose = (event) => {
+        if (event.code === SLOW_CONSUMER_CLOSE) {
+            // Server closed us for falling behind; the rejoin on reconnect brings a fresh snapshot
+            console.log('Closed as a slow consumer');
+        }
+        if (ownerUrl && !opened && ++ownerFailures >= MAX_OWNER_FAILURES) {
+            // The owner stays unreachable; go back to our own node, which redirects again once it can
+            console.log(`Node ${ownerUrl} unreachable, falling back`);
+            forgetOwner();
+        }
+        console.log(`WebSocket connection closed. Retrying in ${(nextReconnectDelay ?? reconnectDelay) / 1000} seconds...`);
         updateConnectionStatus(false);
         stopHeartbeat();
         scheduleReconnect();
@@ -80,15 +124,35 @@ export function connect() {
     };
 }
 
+// Cards are indices into the catalog the game was dealt from; load that version if it is not the one shown
+let requestedCatalog = null;
+function followCatalog(state) {
+    if (state.catalog && state.catalog !== getCatalogVersion() && state.catalog !== requestedCatalog) {
+        requestedCatalog = state.catalog;
+        loadTranslations(State.getLang(), state.catalog).then(() => updateUI(State.getLastGameState()));
+    }
+}
+
+// Stops reconnecting to the node a redirect pointed at, e.g. once the player leaves the room
+export function forgetOwner() {
+    ownerUrl = null;
+    ownerFailures = 0;
+}
+
 function scheduleReconnect() {
     if (!reconnectTimer) {
+        const oneOff = nextReconnectDelay !== null;
+        const delay = oneOff ? nextReconnectDelay : reconnectDelay;
+        nextReconnectDelay = null;
         reconnectTimer = setTimeout(() => {
             console.log('Attempting to reconnect...');
             reconnectTimer = null;
             connect();
-            // Increase delay for next attempt
-            reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY);
-        }, reconnectDelay);
+            // Increase delay for next attempt; a one-off delay leaves the backoff at its base
+            if (!oneOff) {
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY);
+            }
+        }, delay);
     }
 }
 
@@ -113,7 +177,7 @@ document.addEventListener('visibilitychange', () => {
     if (document.visibilityState === 'visible') {
         if (!socket || socket.readyState === WebSocket.CLOSED) {
             console.log('Page visible, attempting immediate reconnect...');
-            reconnectDelay = 1000; // Reset delay
+            reconnectDelay = BASE_RECONNECT_DELAY; // Reset delay
             connect();
         }
     }
@@ -122,7 +186,7 @@ document.addEventListener('visibilitychange', () => {
 window.addEventListener('online', () => {
     if (!socket || socket.readyState === WebSocket.CLOSED) {
         console.log('Network online, attempting immediate reconnect...');
-        reconnectDelay = 1000; // Reset delay
+        reconnectDelay = BASE_RECONNECT_DELAY; // Reset delay
         connect();
     }
 });
@@ -2,13 +2,13 @@ import { State } from './core/state.js';
 import { loadTranslations } from './core/i18n.js';
 import { updateUI, showLoader, showError } from './ui/view.js';
 import { t } from './core/i18n.js';
-import { connect, socket } from './api/socket.js';
+import { connect, forgetOwner, socket } from './api/socket.js';
 import { handleNewGameClick } from '../handler/newGameCommand.js';
 import { joinGameCommand } from '../handler/joinGameCommand.js';
 
 export async function setLanguage(lang) {
     State.setLang(lang);
-    await loadTranslations(lang);
+    await loadTranslations(lang, State.getLastGameState()?.catalog);
     
     const mainLang = document.getElementById('mainLang');
     const gameLang = document.getElementById('lang');
@@ -23,6 +23,7 @@ export function cleanupSession() {
     State.setToken('');
     State.setRoom('');
     State.setLastGameState(null);
+    forgetOwner();
     const nameInput = document.getElementById('name');
     if (nameInput) nameInput.value = '';
     
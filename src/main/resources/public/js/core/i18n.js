@@ -1,14 +1,22 @@
 let currentTranslations = {};
 
-export async function loadTranslations(lang) {
+// Loads the card catalog of a language; a game in progress asks for the version it was dealt from
+export async function loadTranslations(lang, version) {
     try {
-        const response = await fetch(`/data/${lang}.json`);
+        const response = await fetch(version ? `/catalog/${lang}?v=${version}` : `/catalog/${lang}`);
+        if (!response.ok && version) {
+            return loadTranslations(lang);
+        }
         currentTranslations = await response.json();
     } catch (e) {
         console.error('Failed to load translations', e);
     }
 }
 
+export function getCatalogVersion() {
+    return currentTranslations.version;
+}
+
 export function t(key, params = {}) {
     const keys = key.split('.');
     let value = currentTranslations;
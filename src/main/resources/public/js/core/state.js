@@ -11,4 +11,21 @@ export const State = {
     setPlayerId: (id) => localStorage.setItem('playerId', id),
     getLastGameState: () => JSON.parse(sessionStorage.getItem('lastGameState') || 'null'),
     setLastGameState: (state) => sessionStorage.setItem('lastGameState', JSON.stringify(state)),
+    // Applies a game_patch on top of the last full state; returns null if the patch does not follow it
+    applyGamePatch: (patch) => {
+        const last = State.getLastGameState();
+        if (!last || last.type !== 'game_update' || last.version !== patch.baseVersion) {
+            return null;
+        }
+        const { type, baseVersion, history, ...changes } = patch;
+        const next = { ...last, ...changes, type: 'game_update' };
+        Object.keys(changes).forEach(key => {
+            if (changes[key] === null) delete next[key];
+        });
+        if (history) {
+            next.history = { ...(last.history || {}), ...history };
+        }
+        State.setLastGameState(next);
+        return next;
+    },
 };
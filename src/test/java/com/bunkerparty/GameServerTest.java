@@ -0,0 +1,184 @@
+package com.bunkerparty;
+
+import com.bunkerparty.di.ApplicationModule;
+import com.bunkerparty.service.DrainCoordinator;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.UpgradeException;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private Injector firstInjector;
+    private GameServer first;
+    private GameServer second;
+    private int firstPort;
+    private int secondPort;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        firstInjector = Guice.createInjector(new ApplicationModule());
+        first = firstInjector.getInstance(GameServer.class);
+        second = Guice.createInjector(new ApplicationModule()).getInstance(GameServer.class);
+        firstPort = first.start(0);
+        secondPort = second.start(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    void shouldRunIndependentInstancesInOneProcess() throws Exception {
+        assertNotEquals(firstPort, secondPort);
+        for (int port : new int[]{firstPort, secondPort}) {
+            HttpResponse<String> health = get(port, "/health");
+            assertEquals(200, health.statusCode());
+            assertTrue(health.body().contains("\"status\""));
+        }
+        assertThrows(IllegalStateException.class, () -> first.start(0));
+    }
+
+    @Test
+    void shouldServeRoutesStaticFilesAndErrors() throws Exception {
+        HttpResponse<String> index = get(firstPort, "/");
+        assertEquals(200, index.statusCode());
+        assertTrue(index.headers().firstValue("Content-Type").orElse("").startsWith("text/html"));
+
+        HttpResponse<String> metrics = get(firstPort, "/metrics");
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("bunker_"));
+
+        assertEquals(404, get(firstPort, "/missing").statusCode());
+        HttpResponse<String> wrongMethod = http.send(HttpRequest.newBuilder(uri(firstPort, "/health"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, wrongMethod.statusCode());
+
+        HttpResponse<String> preflight = http.send(HttpRequest.newBuilder(uri(firstPort, "/health"))
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, preflight.statusCode());
+        assertEquals("*", preflight.headers().firstValue("Access-Control-Allow-Origin").orElse(null));
+    }
+
+    @Test
+    void shouldServeFingerprintedStaticFilesWithCaching() throws Exception {
+        String index = get(firstPort, "/").body();
+        Matcher app = Pattern.compile("\"/js/app.js\":\"(/js/app\\.[0-9a-f]+\\.js)\"").matcher(index);
+        assertTrue(app.find(), index);
+
+        HttpResponse<byte[]> hashed = http.send(HttpRequest.newBuilder(uri(firstPort, app.group(1)))
+                .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, hashed.statusCode());
+        assertEquals("gzip", hashed.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(hashed.headers().firstValue("Cache-Control").orElse("").contains("immutable"));
+        assertTrue(hashed.headers().firstValue("Access-Control-Allow-Origin").isEmpty());
+
+        HttpResponse<String> source = get(firstPort, "/js/app.js");
+        assertEquals("no-cache", source.headers().firstValue("Cache-Control").orElse(null));
+        String etag = source.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> revalidated = http.send(HttpRequest.newBuilder(uri(firstPort, "/js/app.js"))
+                .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, revalidated.statusCode());
+        assertEquals("", revalidated.body());
+    }
+
+    @Test
+    void shouldServeTheCatalogOfOneLanguage() throws Exception {
+        HttpResponse<String> current = get(firstPort, "/catalog/ru");
+        assertEquals(200, current.statusCode());
+        assertEquals("no-cache", current.headers().firstValue("Cache-Control").orElse(null));
+        Matcher version = Pattern.compile("\"version\":\"([0-9a-f]+)\"").matcher(current.body());
+        assertTrue(version.find());
+        assertTrue(current.body().contains("\"bunkers\""));
+
+        HttpResponse<String> revalidated = http.send(HttpRequest.newBuilder(uri(firstPort, "/catalog/ru"))
+                .header("If-None-Match", current.headers().firstValue("ETag").orElseThrow()).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, revalidated.statusCode());
+
+        HttpResponse<String> pinned = get(firstPort, "/catalog/ru?v=" + version.group(1));
+        assertEquals(200, pinned.statusCode());
+        assertTrue(pinned.headers().firstValue("Cache-Control").orElse("").contains("immutable"));
+        assertEquals(current.body(), pinned.body());
+
+        assertEquals(404, get(firstPort, "/catalog/xx").statusCode());
+        assertEquals(404, get(firstPort, "/catalog/ru?v=0000000000").statusCode());
+    }
+
+    @Test
+    void shouldPlayOverTheWebSocketEndpoint() throws Exception {
+        WebSocketClient client = new WebSocketClient();
+        client.start();
+        try {
+            BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+            WebSocketAdapter socket = new WebSocketAdapter() {
+                @Override
+                public void onWebSocketText(String message) {
+                    frames.add(message);
+                }
+            };
+            Session session = client.connect(socket, URI.create("ws://127.0.0.1:" + secondPort + "/ws"))
+                    .get(5, TimeUnit.SECONDS);
+            session.getRemote().sendString("{\"type\":\"new_game\",\"name\":\"Alice\"}");
+
+            String frame = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            assertTrue(frame.contains("\"room_id\""), frame);
+
+            String listed = get(secondPort, "/health/sessions").body();
+            assertTrue(listed.contains("\"queueDepth\":"), listed);
+            assertFalse(listed.contains("127.0.0.1"), listed);
+            session.close();
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void shouldRefuseWebSocketUpgradesWhileDraining() throws Exception {
+        DrainCoordinator drainCoordinator = firstInjector.getInstance(DrainCoordinator.class);
+        drainCoordinator.drain();
+
+        WebSocketClient client = new WebSocketClient();
+        client.start();
+        try {
+            ExecutionException refused = assertThrows(ExecutionException.class, () -> client
+                    .connect(new WebSocketAdapter(), URI.create("ws://127.0.0.1:" + firstPort + "/ws"))
+                    .get(5, TimeUnit.SECONDS));
+            UpgradeException upgrade = assertInstanceOf(UpgradeException.class, refused.getCause());
+            assertEquals(503, upgrade.getResponseStatusCode());
+            assertEquals(1, drainCoordinator.getRefusedUpgrades());
+        } finally {
+            client.stop();
+        }
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(port, path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bunkerparty.assets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAssetsTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldServeFingerprintedCopiesAndRewriteThePage() throws IOException {
+        write("index.html", "<html><head><title>t</title></head><body>"
+                + "<script type=\"module\">import { init } from '/js/app.js';</script></body></html>");
+        write("js/app.js", "import { t } from './core/i18n.js';\n".repeat(20));
+        write("js/core/i18n.js", "export const t = 1;");
+        write("data/en.json", "{\"a\":\"b\"}");
+
+        StaticAssets assets = StaticAssets.fromDirectory(root);
+
+        assertEquals(4, assets.getFileCount());
+        String app = assets.getFingerprints().get("/js/app.js");
+        assertTrue(app.matches("/js/app\\.[0-9a-f]{10}\\.js"), app);
+        StaticAsset hashed = assets.get(app);
+        StaticAsset source = assets.get("/js/app.js");
+        assertTrue(hashed.immutable());
+        assertFalse(source.immutable());
+        assertEquals("no-cache", source.cacheControl());
+        assertEquals(source.etag(), hashed.etag());
+        assertEquals("text/javascript; charset=utf-8", hashed.contentType());
+
+        String page = new String(assets.get("/").bytes(), StandardCharsets.UTF_8);
+        assertSame(assets.get("/"), assets.get("/index.html"));
+        assertTrue(page.indexOf("<script type=\"importmap\">") < page.indexOf("</head>"));
+        assertTrue(page.contains("\"/js/app.js\":\"" + app + "\""));
+        assertTrue(page.contains("<link rel=\"modulepreload\" href=\"" + app + "\">"));
+        assertFalse(page.contains(assets.getFingerprints().get("/data/en.json")));
+    }
+
+    @Test
+    void shouldKeepGzipOnlyWhenSmaller() throws IOException {
+        String text = "const state = { players: [], round: 0 };\n".repeat(50);
+        write("big.js", text);
+        write("tiny.js", "x");
+
+        StaticAssets assets = StaticAssets.fromDirectory(root);
+
+        StaticAsset big = assets.get("/big.js");
+        assertNotNull(big.gzip());
+        assertTrue(big.gzip().length < big.bytes().length / 5);
+        assertEquals(text, new String(new GZIPInputStream(new ByteArrayInputStream(big.gzip())).readAllBytes(),
+                StandardCharsets.UTF_8));
+        assertNull(assets.get("/tiny.js").gzip());
+        assertTrue(assets.getTotalBytes(true) < assets.getTotalBytes(false));
+    }
+
+    @Test
+    void shouldChangeTheNameOnlyWhenTheContentChanges() throws IOException {
+        write("js/app.js", "one");
+        String first = StaticAssets.fromDirectory(root).getFingerprints().get("/js/app.js");
+        assertEquals(first, StaticAssets.fromDirectory(root).getFingerprints().get("/js/app.js"));
+        write("js/app.js", "two");
+        assertNotEquals(first, StaticAssets.fromDirectory(root).getFingerprints().get("/js/app.js"));
+    }
+
+    @Test
+    void shouldMatchEveryEncodingOfTheETag() throws IOException {
+        write("app.js", "let a = 1;\n".repeat(100));
+        StaticAsset asset = StaticAssets.fromDirectory(root).get("/app.js");
+
+        assertTrue(asset.matches(asset.etag()));
+        assertTrue(asset.matches("\"other\", " + asset.etag(true)));
+        assertTrue(asset.matches("W/" + asset.etag()));
+        assertTrue(asset.matches("*"));
+        assertFalse(asset.matches("\"other\""));
+        assertFalse(asset.matches(null));
+    }
+
+    @Test
+    void shouldParseAcceptEncoding() {
+        assertTrue(StaticAssetServlet.acceptsGzip("gzip, deflate, br"));
+        assertTrue(StaticAssetServlet.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(StaticAssetServlet.acceptsGzip("*"));
+        assertFalse(StaticAssetServlet.acceptsGzip("gzip;q=0"));
+        assertFalse(StaticAssetServlet.acceptsGzip("br, identity"));
+        assertFalse(StaticAssetServlet.acceptsGzip(null));
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,157 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.persistence.RoomJournal;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.InMemoryRoomStore;
+import com.bunkerparty.service.RoomCodeFormat;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.handler.JoinGameHandler;
+import com.bunkerparty.websocket.handler.NewGameHandler;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import com.bunkerparty.websocket.ratelimit.RateLimits;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClusterRoutingTest {
+
+    private static final List<ClusterNode> NODES = ClusterNode.parseAll(
+            "a=http://127.0.0.1:18001,b=http://127.0.0.1:18002,c=http://127.0.0.1:18003");
+
+    private List<Node> cluster;
+
+    @BeforeEach
+    void setUp() {
+        cluster = new ArrayList<>();
+        for (ClusterNode node : NODES) {
+            cluster.add(new Node(node.id()));
+        }
+    }
+
+    @Test
+    void shouldCreateRoomsOnlyWithCodesTheNodeOwns() {
+        for (Node node : cluster) {
+            for (int i = 0; i < 50; i++) {
+                node.newGame.handle(mock(Session.class), new Command.NewGame("Alice"));
+            }
+            assertEquals(50, node.roomManager.getAllRooms().size());
+            for (Room room : node.roomManager.getAllRooms()) {
+                assertTrue(node.ownership.isLocal(room.getRoomId()));
+                for (Node other : cluster) {
+                    assertEquals(other == node, other.ownership.isLocal(room.getRoomId()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldHandOutTheLastOwnedCodesOfANearlyFullCodeSpace() {
+        int capacity = RoomCodeFormat.NUMERIC.getCapacity();
+        int total = 0;
+        for (Node node : cluster) {
+            int owned = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (node.ownership.isLocal(RoomCodeFormat.NUMERIC.encode(slot))) {
+                    owned++;
+                }
+            }
+            for (int i = 0; i < owned - 2; i++) {
+                assertNotNull(node.roomManager.createRoom());
+            }
+
+            Room last = node.roomManager.createRoom();
+            assertNotNull(node.roomManager.createRoom());
+            assertNull(node.roomManager.createRoom());
+            assertTrue(node.ownership.isLocal(last.getRoomId()));
+            assertEquals(owned, node.roomManager.getAllRooms().size());
+
+            node.roomManager.removeRoom(last.getRoomId());
+            assertEquals(last.getRoomId(), node.roomManager.createRoom().getRoomId());
+            total += owned;
+        }
+        assertEquals(capacity, total);
+    }
+
+    @Test
+    void shouldRedirectJoinToTheOwningNode() throws Exception {
+        Node owner = cluster.get(1);
+        owner.newGame.handle(mock(Session.class), new Command.NewGame("Alice"));
+        String roomId = owner.roomManager.getAllRooms().iterator().next().getRoomId();
+
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        for (Node node : cluster) {
+            if (node != owner) {
+                node.join.handle(session, new Command.JoinGame(roomId, "Bob", null));
+            }
+        }
+
+        ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+        verify(cluster.get(0).sender).sendText(eq(session), frames.capture());
+        verify(cluster.get(2).sender).sendText(eq(session), frames.capture());
+        String expected = "{\"type\":\"redirect\",\"room_id\":\"" + roomId + "\",\"node\":\"b\","
+                + "\"url\":\"http://127.0.0.1:18002\"}";
+        assertEquals(List.of(expected, expected), frames.getAllValues());
+        assertEquals(1, cluster.get(0).gameService.getRedirects());
+
+        owner.join.handle(session, new Command.JoinGame(roomId, "Bob", null));
+        assertEquals(2, owner.roomManager.getRoom(roomId).getPlayers().size());
+    }
+
+    @Test
+    void shouldAnswerMalformedCodesLocally() throws Exception {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+
+        cluster.get(0).join.handle(session, new Command.JoinGame("12x4", "Bob", null));
+
+        verify(cluster.get(0).sender).sendText(eq(session), contains("room_not_found"));
+        assertEquals(0, cluster.get(0).gameService.getRedirects());
+    }
+
+    /**
+     * One node of the deployment with room work run inline and outbound frames captured.
+     */
+    private static final class Node {
+        private final RoomOwnership ownership;
+        private final RoomManager roomManager;
+        private final WebSocketJsonSender sender;
+        private final GameService gameService;
+        private final NewGameHandler newGame;
+        private final JoinGameHandler join;
+
+        private Node(String id) {
+            ownership = new RoomOwnership(NODES, id);
+            roomManager = new RoomManager(new Random(), RoomCodeFormat.NUMERIC, RoomJournal.NONE,
+                    new InMemoryRoomStore(), ownership);
+            RoomExecutor inline = mock(RoomExecutor.class);
+            doAnswer(inv -> {
+                inv.<Runnable>getArgument(1).run();
+                return null;
+            }).when(inline).execute(any(), any());
+            sender = mock(WebSocketJsonSender.class);
+            SessionRegistry sessionRegistry = new SessionRegistry();
+            StreamingOutboundCodec codec = new StreamingOutboundCodec();
+            RoomReaper reaper = new RoomReaper(roomManager, inline, sessionRegistry, sender, codec);
+            gameService = new GameService(roomManager, sender, reaper, inline, codec, GameMetrics.detached(), 0);
+            newGame = new NewGameHandler(gameService, inline, sessionRegistry);
+            join = new JoinGameHandler(gameService, sessionRegistry, new RateLimiter(RateLimits.unlimited()));
+        }
+    }
+}
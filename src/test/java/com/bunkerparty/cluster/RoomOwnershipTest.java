@@ -0,0 +1,68 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.service.RoomCodeFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomOwnershipTest {
+
+    private static final List<ClusterNode> NODES = ClusterNode.parseAll(
+            "a=http://127.0.0.1:18001, b=http://127.0.0.1:18002/, c=http://127.0.0.1:18003");
+
+    @Test
+    void shouldOwnEveryRoomWhenStandalone() {
+        RoomOwnership ownership = RoomOwnership.standalone();
+
+        assertTrue(ownership.isLocal("1234"));
+        assertSame(ownership.getSelf(), ownership.ownerOf("9999"));
+    }
+
+    @Test
+    void shouldAgreeOnOwnersFromEveryNodeAndSpreadRoomsEvenly() {
+        RoomOwnership a = new RoomOwnership(NODES, "a");
+        RoomOwnership b = new RoomOwnership(NODES, "b");
+        RoomOwnership c = new RoomOwnership(NODES, "c");
+        Map<String, Integer> owned = new HashMap<>();
+        int capacity = RoomCodeFormat.NUMERIC.getCapacity();
+
+        for (int slot = 0; slot < capacity; slot++) {
+            String code = RoomCodeFormat.NUMERIC.encode(slot);
+            ClusterNode owner = a.ownerOf(code);
+            assertEquals(owner, b.ownerOf(code));
+            assertEquals(owner, c.ownerOf(code));
+            assertEquals(1, (a.isLocal(code) ? 1 : 0) + (b.isLocal(code) ? 1 : 0) + (c.isLocal(code) ? 1 : 0));
+            owned.merge(owner.id(), 1, Integer::sum);
+        }
+
+        for (ClusterNode node : NODES) {
+            assertEquals(capacity / 3.0, owned.get(node.id()), capacity * 0.03);
+        }
+    }
+
+    @Test
+    void shouldOnlyMoveRoomsOfRemovedNode() {
+        RoomOwnership three = new RoomOwnership(NODES, "a");
+        RoomOwnership two = new RoomOwnership(NODES.subList(0, 2), "a");
+
+        for (int slot = 0; slot < RoomCodeFormat.NUMERIC.getCapacity(); slot++) {
+            String code = RoomCodeFormat.NUMERIC.encode(slot);
+            ClusterNode before = three.ownerOf(code);
+            if (!before.id().equals("c")) {
+                assertEquals(before, two.ownerOf(code));
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidNodeLists() {
+        assertEquals("http://127.0.0.1:18002", NODES.get(1).url());
+        assertThrows(IllegalArgumentException.class, () -> new RoomOwnership(NODES, "d"));
+        assertThrows(IllegalArgumentException.class, () -> ClusterNode.parseAll("a=http://x,a=http://y"));
+        assertThrows(IllegalArgumentException.class, () -> ClusterNode.parseAll("http://x"));
+    }
+}
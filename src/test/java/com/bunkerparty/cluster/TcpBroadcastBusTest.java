@@ -0,0 +1,303 @@
+package com.bunkerparty.cluster;
+
+import com.bunkerparty.GameServer;
+import com.bunkerparty.di.ApplicationModule;
+import com.bunkerparty.websocket.helpers.OutboundQueue;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.util.Modules;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TcpBroadcastBusTest {
+
+    private static final long TIMEOUT = 5_000;
+    private static final List<ClusterNode> NODES = ClusterNode.parseAll(
+            "a=http://127.0.0.1:18001,b=http://127.0.0.1:18002");
+
+    private Map<String, InetSocketAddress> addresses;
+    private WebSocketJsonSender senderB;
+    private BroadcastBus.Receiver receiverA;
+    private TcpBroadcastBus busA;
+    private TcpBroadcastBus busB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        addresses = Map.of("a", loopback(), "b", loopback());
+        senderB = mock(WebSocketJsonSender.class);
+        when(senderB.sendText(any(), anyString())).thenReturn(true);
+        receiverA = mock(BroadcastBus.Receiver.class);
+        busA = new TcpBroadcastBus(new RoomOwnership(NODES, "a"), mock(WebSocketJsonSender.class), addresses);
+        busB = new TcpBroadcastBus(new RoomOwnership(NODES, "b"), senderB, addresses);
+        busA.setReceiver(receiverA);
+        busA.start();
+        busB.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        busA.close();
+        busB.close();
+    }
+
+    @Test
+    void shouldPlayForwardedMessagesThroughAStandInAndRelayItsFramesInOrder() throws Exception {
+        Session client = openSession();
+
+        assertTrue(busB.forward(client, NODES.get(0), "{\"type\":\"ready\",\"roomId\":\"1234\"}"));
+        Session standIn = awaitStandIn();
+        assertEquals("203.0.113.7", standIn.getRemoteAddress().getAddress().getHostAddress());
+        assertEquals(1, busA.getStandIns());
+
+        WriteCallback callback = mock(WriteCallback.class);
+        for (int i = 0; i < 500; i++) {
+            standIn.getRemote().sendString("{\"version\":" + i + "}", callback);
+        }
+
+        verify(callback, times(500)).writeSuccess();
+        ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+        verify(senderB, timeout(TIMEOUT).times(500)).sendText(eq(client), frames.capture());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            expected.add("{\"version\":" + i + "}");
+        }
+        assertEquals(expected, frames.getAllValues());
+    }
+
+    @Test
+    void shouldConflateStateFramesForASlowForwardedClient() throws Exception {
+        busA.close();
+        busB.close();
+        addresses = Map.of("a", loopback(), "b", loopback());
+        WebSocketJsonSender ownerSender = new WebSocketJsonSender();
+        WebSocketJsonSender clientSender = new WebSocketJsonSender();
+        busA = new TcpBroadcastBus(new RoomOwnership(NODES, "a"), ownerSender, addresses);
+        busB = new TcpBroadcastBus(new RoomOwnership(NODES, "b"), clientSender, addresses);
+        busA.setReceiver(receiverA);
+        busA.start();
+        busB.start();
+        Session client = openSession();
+        RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        when(client.getRemote()).thenReturn(remote);
+        busB.forward(client, NODES.get(0), "{\"type\":\"ready\",\"roomId\":\"1234\"}");
+        Session standIn = awaitStandIn();
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(ownerSender.sendState(standIn, "1234", "{\"version\":" + i + "}"));
+        }
+        assertTrue(ownerSender.sendText(standIn, "{\"type\":\"pong\"}"));
+        assertTrue(ownerSender.getQueues().isEmpty());
+        assertTrue(ownerSender.hasPendingState(standIn, "1234"));
+
+        ArgumentCaptor<WriteCallback> inFlight = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote, timeout(TIMEOUT)).sendString(eq("{\"version\":0}"), inFlight.capture());
+        OutboundQueue queue = clientSender.getQueues().iterator().next();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (queue.getConflated() < 198 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(198, queue.getConflated());
+        assertEquals(2, queue.getDepth());
+
+        inFlight.getValue().writeSuccess();
+        verify(remote).sendString(eq("{\"version\":199}"), inFlight.capture());
+        inFlight.getValue().writeSuccess();
+        verify(remote).sendString(eq("{\"type\":\"pong\"}"), any());
+        verify(remote, times(3)).sendString(anyString(), any());
+    }
+
+    @Test
+    void shouldReleaseTheStandInWhenTheClientLeaves() throws Exception {
+        Session client = openSession();
+        busB.forward(client, NODES.get(0), "{\"type\":\"ready\",\"roomId\":\"1234\"}");
+        Session standIn = awaitStandIn();
+
+        busB.release(client);
+
+        verify(receiverA, timeout(TIMEOUT)).onClose(eq(standIn), eq(StatusCode.NORMAL), anyString());
+        assertFalse(standIn.isOpen());
+        assertEquals(0, busB.getForwardedSessions());
+    }
+
+    @Test
+    void shouldCloseTheClientWhenTheOwnerClosesItsStandIn() throws Exception {
+        Session client = openSession();
+        busB.forward(client, NODES.get(0), "{\"type\":\"ready\",\"roomId\":\"1234\"}");
+        Session standIn = awaitStandIn();
+
+        standIn.close(StatusCode.SERVICE_RESTART, "Server restarting");
+
+        verify(client, timeout(TIMEOUT)).close(eq(StatusCode.NORMAL), anyString());
+        verify(receiverA).onClose(standIn, StatusCode.SERVICE_RESTART, "Server restarting");
+    }
+
+    @Test
+    void shouldCloseForwardedClientsWhenTheOwnerGoesAway() throws Exception {
+        Session client = openSession();
+        busB.forward(client, NODES.get(0), "{\"type\":\"ready\",\"roomId\":\"1234\"}");
+        awaitStandIn();
+
+        busA.close();
+
+        verify(client, timeout(TIMEOUT)).close(eq(StatusCode.TRY_AGAIN_LATER), anyString());
+    }
+
+    @Test
+    void shouldNotForwardRoomsOfThisNode() {
+        assertFalse(busA.forward(openSession(), NODES.get(0), "{}"));
+        assertEquals(0, busA.getForwardedSessions());
+    }
+
+    @Test
+    void shouldPlayInARoomOwnedByAnotherNodeThroughTheNodeTheClientReached() throws Exception {
+        busA.close();
+        busB.close();
+        addresses = Map.of("a", loopback(), "b", loopback());
+        Node a = new Node("a");
+        Node b = new Node("b");
+        WebSocketClient ws = new WebSocketClient();
+        ws.start();
+        try {
+            Frames alice = new Frames();
+            Session aliceSession = ws.connect(alice, URI.create("ws://127.0.0.1:" + a.port + "/ws"))
+                    .get(5, TimeUnit.SECONDS);
+            aliceSession.getRemote().sendString("{\"type\":\"new_game\",\"name\":\"Alice\"}");
+            String roomId = alice.await(f -> f.has("room_id")).get("room_id").getAsString();
+
+            Frames bob = new Frames();
+            Session bobSession = ws.connect(bob, URI.create("ws://127.0.0.1:" + b.port + "/ws"))
+                    .get(5, TimeUnit.SECONDS);
+            bobSession.getRemote().sendString("{\"type\":\"join_game\",\"roomId\":\"" + roomId
+                    + "\",\"name\":\"Bob\"}");
+            String bobId = bob.await(f -> "open_room".equals(type(f))).get("player_id").getAsString();
+            bob.await(f -> "game_update".equals(type(f)) && f.getAsJsonArray("players").size() == 2);
+            assertEquals(0, b.bus.getStandIns());
+            assertEquals(1, a.bus.getStandIns());
+
+            bobSession.getRemote().sendString("{\"type\":\"ready\",\"roomId\":\"" + roomId + "\",\"playerId\":\""
+                    + bobId + "\"}");
+            alice.await(f -> f.toString().contains("\"id\":\"" + bobId + "\"")
+                    && f.toString().contains("\"ready\":true"));
+
+            bobSession.close();
+            alice.await(f -> f.toString().contains("\"online\":false"));
+            assertEquals(0, b.bus.getForwardedSessions());
+            aliceSession.close();
+        } finally {
+            ws.stop();
+            a.stop();
+            b.stop();
+        }
+    }
+
+    private Session awaitStandIn() {
+        ArgumentCaptor<Session> standIn = ArgumentCaptor.forClass(Session.class);
+        verify(receiverA, timeout(TIMEOUT)).onMessage(standIn.capture(),
+                eq("{\"type\":\"ready\",\"roomId\":\"1234\"}"));
+        return standIn.getValue();
+    }
+
+    private static String type(JsonObject frame) {
+        return frame.has("type") ? frame.get("type").getAsString() : null;
+    }
+
+    private static Session openSession() {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getRemoteAddress()).thenReturn(new InetSocketAddress("203.0.113.7", 40000));
+        return session;
+    }
+
+    private static InetSocketAddress loopback() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return new InetSocketAddress("127.0.0.1", probe.getLocalPort());
+        }
+    }
+
+    /**
+     * A whole application instance that joins the others over the bus.
+     */
+    private final class Node {
+        private final GameServer server;
+        private final TcpBroadcastBus bus;
+        private final int port;
+
+        private Node(String id) throws Exception {
+            AbstractModule cluster = new AbstractModule() {
+                @Override
+                protected void configure() {
+                    bind(RoomOwnership.class).toInstance(new RoomOwnership(NODES, id));
+                }
+
+                @Provides
+                @Singleton
+                BroadcastBus bus(RoomOwnership ownership, WebSocketJsonSender sender) {
+                    return new TcpBroadcastBus(ownership, sender, addresses);
+                }
+            };
+            Injector injector = Guice.createInjector(Modules.override(new ApplicationModule()).with(cluster));
+            bus = (TcpBroadcastBus) injector.getInstance(BroadcastBus.class);
+            bus.start();
+            server = injector.getInstance(GameServer.class);
+            port = server.start(0);
+        }
+
+        private void stop() throws Exception {
+            server.stop();
+            bus.close();
+        }
+    }
+
+    /**
+     * Collects the JSON frames a WebSocket client receives.
+     */
+    private static final class Frames extends WebSocketAdapter {
+        private final BlockingQueue<JsonObject> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onWebSocketText(String message) {
+            received.add(JsonParser.parseString(message).getAsJsonObject());
+        }
+
+        private JsonObject await(Predicate<JsonObject> match) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (true) {
+                JsonObject frame = received.poll(Math.max(1, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+                assertNotNull(frame, "no matching frame arrived");
+                if (match.test(frame)) {
+                    return frame;
+                }
+            }
+        }
+    }
+}
@@ -55,12 +55,76 @@ class PlayerTest {
 
     @Test
     void shouldCheckIfAllCardsRevealed() {
-        Player player = new Player("1", "t", "Alice", null, Map.of("p", 1, "h", 2));
+        Player player = new Player("1", "t", "Alice", null, Map.of("profession", 1, "health", 2));
 
-        player.revealCard("p");
+        player.revealCard("profession");
         assertFalse(player.hasRevealedAllCards(2));
         
-        player.revealCard("h");
+        player.revealCard("health");
         assertTrue(player.hasRevealedAllCards(2));
     }
+
+    @Test
+    void shouldCacheCardsJsonUntilCardsAreDealtAgain() {
+        Player player = new Player("1", "t", "Alice", null, Map.of("profession", 3));
+
+        String first = player.getCardsJson();
+        assertEquals("{\"profession\":3}", first);
+        assertSame(first, player.getCardsJson());
+
+        player.setCharacterIndices(Map.of("profession", 4));
+        assertEquals("{\"profession\":4}", player.getCardsJson());
+    }
+
+    @Test
+    void shouldResetSyncOnNewSession() {
+        Player player = new Player("1", "t", "Alice", null, Map.of());
+        player.markSynced(7);
+
+        assertEquals(7, player.getSyncedVersion());
+        assertTrue(player.isCardsSynced());
+
+        player.setSession(Mockito.mock(Session.class));
+
+        assertEquals(0, player.getSyncedVersion());
+        assertFalse(player.isCardsSynced());
+    }
+
+    @Test
+    void shouldExposeCardsAsLiveReadOnlyViews() {
+        Player player = new Player("1", "t", "Alice", null, Map.of("profession", 5));
+        Map<String, Integer> cards = player.getCharacterIndices();
+        Map<String, Integer> revealed = player.getRevealedIndices();
+
+        player.dealCard(CardCategory.ITEM, 8);
+        player.revealCard("item");
+
+        assertSame(cards, player.getCharacterIndices());
+        assertEquals(Map.of("profession", 5, "item", 8), cards);
+        assertEquals(Map.of("item", 8), revealed);
+        assertThrows(UnsupportedOperationException.class, () -> cards.put("age", 1));
+    }
+
+    @Test
+    void shouldIgnoreUnknownCategories() {
+        Player player = new Player("1", "t", "Alice", null, Map.of("profession", 5, "unknown", 1));
+
+        player.revealCard("unknown");
+        player.revealCard("health");
+
+        assertEquals(Map.of("profession", 5), player.getCharacterIndices());
+        assertTrue(player.getUsedKeys().isEmpty());
+        assertEquals(-1, player.getCard(CardCategory.HEALTH));
+        assertFalse(player.hasUsedKey("unknown"));
+    }
+
+    @Test
+    void shouldEncodeCardsInCategoryOrder() {
+        Player player = new Player("1", "t", "Alice", null, Map.of());
+        player.dealCard(CardCategory.ITEM, 8);
+        player.dealCard(CardCategory.PROFESSION, 18);
+
+        assertEquals("{\"profession\":18,\"item\":8}", player.getCardsJson());
+        assertEquals(18, player.getCard(CardCategory.PROFESSION));
+    }
 }
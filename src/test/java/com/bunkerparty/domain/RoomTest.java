@@ -107,12 +107,27 @@ class RoomTest {
     @Test
     void shouldCheckIfAllPlayersUsedAllCards() {
         Room room = new Room("1234");
-        Player p1 = new Player("p1", "t1", "Alice", null, Map.of("c1", 1));
+        Player p1 = new Player("p1", "t1", "Alice", null, Map.of("profession", 1));
         room.addPlayer(p1);
 
         assertFalse(room.allPlayersUsedAllCards(1));
 
-        p1.revealCard("c1");
+        p1.revealCard("profession");
         assertTrue(room.allPlayersUsedAllCards(1));
     }
+
+    @Test
+    void shouldRetainOnlyRecentSnapshots() {
+        Room room = new Room("1234");
+
+        for (int i = 0; i < 5; i++) {
+            long version = room.incrementVersion();
+            room.publishSnapshot(new RoomSnapshot(version, 0, Map.of(), Map.of()), 3);
+        }
+
+        assertEquals(5, room.getVersion());
+        assertEquals(5, room.getLatestSnapshot().getVersion());
+        assertNotNull(room.getSnapshot(3));
+        assertNull(room.getSnapshot(2));
+    }
 }
@@ -0,0 +1,87 @@
+package com.bunkerparty.metrics;
+
+import com.bunkerparty.websocket.command.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void shouldRenderCountersAndGauges() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests.", "type", "ping").add(3);
+        registry.counter("requests_total", "Requests.", "type", "join").inc();
+        registry.gauge("rooms", "Rooms.", () -> 2);
+
+        assertEquals("""
+                # HELP requests_total Requests.
+                # TYPE requests_total counter
+                requests_total{type="ping"} 3
+                requests_total{type="join"} 1
+                # HELP rooms Rooms.
+                # TYPE rooms gauge
+                rooms 2
+                """, registry.scrape());
+    }
+
+    @Test
+    void shouldRenderCumulativeHistogramBuckets() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("latency_seconds", "Latency.", new long[]{1_000, 5_000}, 1e6,
+                "type", "ready");
+        histogram.observe(500);
+        histogram.observe(1_000);
+        histogram.observe(4_000);
+        histogram.observe(9_000);
+
+        assertEquals("""
+                # HELP latency_seconds Latency.
+                # TYPE latency_seconds histogram
+                latency_seconds_bucket{type="ready",le="0.001"} 2
+                latency_seconds_bucket{type="ready",le="0.005"} 3
+                latency_seconds_bucket{type="ready",le="+Inf"} 4
+                latency_seconds_sum{type="ready"} 0.0145
+                latency_seconds_count{type="ready"} 4
+                """, registry.scrape());
+    }
+
+    @Test
+    void shouldReturnSameMetricForSameLabelsAndEscapeValues() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("errors_total", "Errors.", "code", "a\"b");
+
+        assertSame(counter, registry.counter("errors_total", "Errors.", "code", "a\"b"));
+        assertTrue(registry.scrape().contains("errors_total{code=\"a\\\"b\"} 0"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("errors_total", "Errors.", () -> 1));
+    }
+
+    @Test
+    void shouldRecordWithoutAllocating() {
+        GameMetrics metrics = new GameMetrics(new MetricsRegistry());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ITERATIONS; i++) {
+            record(metrics, i);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            record(metrics, i);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(0, allocated / ITERATIONS, "allocated " + allocated + " bytes");
+    }
+
+    private static void record(GameMetrics metrics, int i) {
+        metrics.recordMessage(MessageType.DISCARD);
+        metrics.recordHandled(MessageType.DISCARD, i);
+        metrics.recordBroadcast(i & 7, i);
+        metrics.recordQueued((i & 1) == 0);
+        metrics.recordSent(i);
+    }
+}
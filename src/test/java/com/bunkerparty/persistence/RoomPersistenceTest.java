@@ -0,0 +1,240 @@
+package com.bunkerparty.persistence;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.service.CardCatalog;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomCodeFormat;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.RoomManager;
+import com.bunkerparty.service.RoomReaper;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.handler.ConfirmHandler;
+import com.bunkerparty.websocket.handler.DiscardHandler;
+import com.bunkerparty.websocket.handler.JoinGameHandler;
+import com.bunkerparty.websocket.handler.LeaveGameHandler;
+import com.bunkerparty.websocket.handler.NewGameHandler;
+import com.bunkerparty.websocket.handler.ReadyHandler;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import com.bunkerparty.websocket.ratelimit.RateLimits;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoomPersistenceTest {
+
+    @TempDir
+    Path dir;
+
+    private Node node;
+
+    @BeforeEach
+    void setUp() {
+        node = new Node();
+    }
+
+    @Test
+    void shouldRecoverRoomFromJournalAfterCrash() throws Exception {
+        Room room = node.playUntilSecondRound();
+
+        Node restarted = new Node();
+        assertEquals(1, restarted.persistence.recover());
+
+        Room recovered = restarted.roomManager.getRoom(room.getRoomId());
+        assertNotNull(recovered);
+        assertArrayEquals(encode(room), encode(recovered));
+        assertTrue(recovered.getPlayers().values().stream().noneMatch(Player::isOnline));
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotPlusLaterEntries() throws Exception {
+        Room first = node.playUntilSecondRound();
+        node.persistence.snapshot();
+        Room second = node.playUntilSecondRound();
+        node.confirmRound(first);
+
+        Node restarted = new Node();
+        assertEquals(2, restarted.persistence.recover());
+
+        assertArrayEquals(encode(first), encode(restarted.roomManager.getRoom(first.getRoomId())));
+        assertArrayEquals(encode(second), encode(restarted.roomManager.getRoom(second.getRoomId())));
+    }
+
+    @Test
+    void shouldNotRecoverRemovedRooms() throws Exception {
+        Room kept = node.playUntilSecondRound();
+        Room removed = node.playUntilSecondRound();
+        node.roomManager.removeRoom(removed.getRoomId());
+        node.persistence.snapshot();
+        Room removedAfterSnapshot = node.playUntilSecondRound();
+        node.roomManager.removeRoom(removedAfterSnapshot.getRoomId());
+
+        Node restarted = new Node();
+        assertEquals(1, restarted.persistence.recover());
+        assertNotNull(restarted.roomManager.getRoom(kept.getRoomId()));
+        assertNull(restarted.roomManager.getRoom(removed.getRoomId()));
+        assertNull(restarted.roomManager.getRoom(removedAfterSnapshot.getRoomId()));
+    }
+
+    @Test
+    void shouldAcceptRejoinWithTokenAfterRecovery() throws Exception {
+        Room room = node.playUntilSecondRound();
+        Player alice = room.getPlayers().values().stream()
+                .filter(p -> p.getName().equals("Alice")).findFirst().orElseThrow();
+
+        Node restarted = new Node();
+        restarted.persistence.recover();
+        Session session = mock(Session.class);
+        restarted.join.handle(session, new Command.JoinGame(room.getRoomId(), "Alice", alice.getToken()));
+
+        Player rejoined = restarted.roomManager.getRoom(room.getRoomId()).getPlayer(alice.getId());
+        assertTrue(rejoined.isOnline());
+        assertSame(session, rejoined.getSession());
+    }
+
+    @Test
+    void shouldKeepDealingFromTheCatalogTheGameWasDealtFrom() throws Exception {
+        Room snapshotted = node.playUntilSecondRound();
+        node.persistence.snapshot();
+        Room journaled = node.playUntilSecondRound();
+        String version = journaled.getCatalogVersion();
+        assertNotNull(version);
+
+        Node restarted = new Node();
+        assertEquals(2, restarted.persistence.recover());
+
+        for (Room room : List.of(snapshotted, journaled)) {
+            Room recovered = restarted.roomManager.getRoom(room.getRoomId());
+            assertEquals(version, recovered.getCatalogVersion());
+            assertSame(restarted.catalog.get(version), recovered.getCatalog());
+            assertSame(recovered.getCatalog(), restarted.catalog.forRoom(recovered));
+        }
+    }
+
+    @Test
+    void shouldDropRoomsWhoseCatalogIsNoLongerLoaded() throws Exception {
+        Room dealt = node.playUntilSecondRound();
+        node.persistence.snapshot();
+        node.playUntilSecondRound();
+
+        CardCatalog replaced = mock(CardCatalog.class);
+        Node restarted = new Node(replaced);
+        assertEquals(0, restarted.persistence.recover());
+
+        verify(replaced, atLeastOnce()).get(dealt.getCatalogVersion());
+        assertNull(restarted.roomManager.getRoom(dealt.getRoomId()));
+    }
+
+    /**
+     * Encodes a room with its broadcast version cleared, since versions are not journaled.
+     */
+    private static byte[] encode(Room room) {
+        long version = room.getVersion();
+        room.setVersion(0);
+        byte[] state = RoomCodec.encodeRoom(room);
+        room.setVersion(version);
+        return state;
+    }
+
+    /**
+     * One server's worth of services over the shared persistence directory, with room work run inline.
+     */
+    private final class Node {
+        private final RoomManager roomManager;
+        private final RoomPersistence persistence;
+        private final CardCatalog catalog;
+        private final NewGameHandler newGame;
+        private final JoinGameHandler join;
+        private final LeaveGameHandler leave;
+        private final ReadyHandler ready;
+        private final DiscardHandler discard;
+        private final ConfirmHandler confirm;
+
+        private Node() {
+            this(new CardCatalog());
+        }
+
+        private Node(CardCatalog catalog) {
+            PersistenceSettings settings = new PersistenceSettings(dir, FsyncPolicy.PERIODIC, 1000, 4096, 60_000);
+            EventLog eventLog = new EventLog(settings);
+            roomManager = new RoomManager(new Random(), RoomCodeFormat.NUMERIC, eventLog);
+            RoomExecutor inline = mock(RoomExecutor.class);
+            doAnswer(inv -> {
+                inv.<Runnable>getArgument(1).run();
+                return null;
+            }).when(inline).execute(any(), any());
+            SessionRegistry sessionRegistry = new SessionRegistry();
+            WebSocketJsonSender sender = new WebSocketJsonSender();
+            StreamingOutboundCodec codec = new StreamingOutboundCodec();
+            RoomReaper reaper = new RoomReaper(roomManager, inline, sessionRegistry, sender, codec);
+            GameService gameService = new GameService(roomManager, sender, reaper, inline, codec,
+                    GameMetrics.detached(), 0);
+            this.catalog = catalog;
+            persistence = new RoomPersistence(settings, eventLog, roomManager, inline, reaper, catalog);
+            Random random = new Random(7);
+            newGame = new NewGameHandler(gameService, inline, sessionRegistry);
+            join = new JoinGameHandler(gameService, sessionRegistry, new RateLimiter(RateLimits.unlimited()));
+            leave = new LeaveGameHandler(gameService, sessionRegistry);
+            ready = new ReadyHandler(gameService, catalog, random);
+            discard = new DiscardHandler(gameService);
+            confirm = new ConfirmHandler(gameService, catalog, random);
+        }
+
+        /**
+         * Seats three players plus one who leaves again, plays the first round and reveals two cards of the second.
+         */
+        private Room playUntilSecondRound() throws Exception {
+            List<Room> before = new ArrayList<>(roomManager.getAllRooms());
+            newGame.handle(mock(Session.class), new Command.NewGame("Alice"));
+            Room room = roomManager.getAllRooms().stream().filter(r -> !before.contains(r)).findFirst().orElseThrow();
+            String roomId = room.getRoomId();
+            join.handle(mock(Session.class), new Command.JoinGame(roomId, "Bob", null));
+            Session dave = mock(Session.class);
+            join.handle(dave, new Command.JoinGame(roomId, "Dave", null));
+            join.handle(mock(Session.class), new Command.JoinGame(roomId, "Carol", null));
+            leave.handle(dave, new Command.LeaveGame(roomId));
+
+            for (Player player : List.copyOf(room.getPlayers().values())) {
+                ready.handle(null, new Command.Ready(roomId, player.getId()));
+            }
+            assertEquals(Room.PHASE_REVEAL, room.getPhase());
+            revealAll(room, CardCategory.PROFESSION);
+            confirmRound(room);
+            assertEquals(2, room.getRound());
+
+            List<Player> players = List.copyOf(room.getPlayers().values());
+            discard.handle(null, new Command.Discard(roomId, players.get(0).getId(), CardCategory.AGE.getKey()));
+            discard.handle(null, new Command.Discard(roomId, players.get(1).getId(), CardCategory.HOBBY.getKey()));
+            return room;
+        }
+
+        private void revealAll(Room room, CardCategory category) {
+            for (Player player : List.copyOf(room.getPlayers().values())) {
+                discard.handle(null, new Command.Discard(room.getRoomId(), player.getId(), category.getKey()));
+            }
+        }
+
+        private void confirmRound(Room room) {
+            if (!Room.PHASE_CONFIRM.equals(room.getPhase())) {
+                revealAll(room, CardCategory.ITEM);
+            }
+            for (Player player : List.copyOf(room.getPlayers().values())) {
+                confirm.handle(null, new Command.Confirm(room.getRoomId(), player.getId()));
+            }
+        }
+    }
+}
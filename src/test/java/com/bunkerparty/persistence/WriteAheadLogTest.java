@@ -0,0 +1,123 @@
+package com.bunkerparty.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldReplayRecordsAcrossSegmentsAfterReopen() throws Exception {
+        try (WriteAheadLog wal = open(FsyncPolicy.ALWAYS)) {
+            for (int i = 1; i <= 50; i++) {
+                assertEquals(i, wal.append(bytes("record-" + i)));
+            }
+            assertTrue(wal.getSegmentCount() > 1);
+            assertEquals(50, wal.getDurableSequence());
+        }
+
+        try (WriteAheadLog wal = open(FsyncPolicy.ALWAYS)) {
+            List<String> replayed = replay(wal, 45);
+            assertEquals(List.of("record-46", "record-47", "record-48", "record-49", "record-50"), replayed);
+            assertEquals(50, replay(wal, 0).size());
+            assertEquals(51, wal.append(bytes("record-51")));
+        }
+    }
+
+    @Test
+    void shouldStopAtCorruptRecordAndContinueAfterIt() throws Exception {
+        try (WriteAheadLog wal = open(FsyncPolicy.ALWAYS)) {
+            wal.append(bytes("first"));
+            wal.append(bytes("second"));
+            wal.append(bytes("third"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        int third = 2 * WriteAheadLog.HEADER_BYTES + "first".length() + "second".length();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), third + WriteAheadLog.HEADER_BYTES);
+        }
+
+        try (WriteAheadLog wal = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(List.of("first", "second"), replay(wal, 0));
+            assertEquals(3, wal.append(bytes("third again")));
+        }
+        try (WriteAheadLog wal = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(List.of("first", "second", "third again"), replay(wal, 0));
+        }
+    }
+
+    @Test
+    void shouldDeleteSegmentsCoveredBySequence() throws Exception {
+        try (WriteAheadLog wal = open(FsyncPolicy.PERIODIC)) {
+            for (int i = 1; i <= 50; i++) {
+                wal.append(bytes("record-" + i));
+            }
+            int segments = wal.getSegmentCount();
+
+            assertTrue(wal.deleteThrough(40) > 0);
+
+            assertTrue(wal.getSegmentCount() < segments);
+            assertEquals(10, replay(wal, 40).size());
+        }
+    }
+
+    @Test
+    void shouldShareForcesBetweenConcurrentGroupCommits() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 64 * 1024, FsyncPolicy.GROUP, 0)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                writers.add(threads.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        long sequence = wal.append(bytes("record"));
+                        assertTrue(wal.getDurableSequence() >= sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            assertEquals(800, wal.getLastSequence());
+            assertTrue(wal.getFsyncs() <= 800);
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private WriteAheadLog open(FsyncPolicy fsync) throws Exception {
+        return new WriteAheadLog(dir, SEGMENT_BYTES, fsync, 10);
+    }
+
+    private static List<String> replay(WriteAheadLog wal, long afterSequence) throws Exception {
+        List<String> records = new ArrayList<>();
+        wal.replay(afterSequence, (sequence, payload) -> records.add(new String(payload, StandardCharsets.UTF_8)));
+        return records;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.CatalogSnapshot;
+import com.bunkerparty.domain.Room;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldParseTheBundledLocales() {
+        CatalogSnapshot catalog = new CardCatalog(null).current();
+
+        assertEquals(Set.of("en", "ru", "bg"), catalog.getLanguages());
+        assertEquals(19, catalog.getCount(CardCategory.PROFESSION));
+        assertEquals(6, catalog.getCount(CardCategory.GENDER));
+        assertEquals(30, catalog.getBunkerCount());
+        assertEquals(CardCategory.ALL, catalog.getCategories());
+
+        JsonObject en = JsonParser.parseString(new String(catalog.getDocument("en"), StandardCharsets.UTF_8))
+                .getAsJsonObject();
+        assertEquals(catalog.getVersion(), en.get("version").getAsString());
+        assertEquals(30, en.getAsJsonArray("bunkers").size());
+    }
+
+    @Test
+    void shouldSwapOnReloadAndKeepTheRoomsVersion() throws IOException {
+        writeLocale("en", 8, 3);
+        CardCatalog catalog = new CardCatalog(directory);
+        CatalogSnapshot first = catalog.current();
+        Room room = new Room("1234");
+        room.setCatalog(first);
+
+        writeLocale("en", 10, 5);
+        CatalogSnapshot second = catalog.reload();
+
+        assertNotEquals(first.getVersion(), second.getVersion());
+        assertSame(second, catalog.current());
+        assertEquals(10, second.getCount(CardCategory.ITEM));
+        assertSame(first, catalog.forRoom(room));
+        assertSame(second, catalog.forRoom(new Room("5678")));
+        assertSame(first, catalog.get(first.getVersion()));
+        assertNull(catalog.get("missing"));
+    }
+
+    @Test
+    void shouldResolveAPinnedVersionAndRefuseOneThatIsNotLoaded() throws IOException {
+        writeLocale("en", 8, 3);
+        CardCatalog catalog = new CardCatalog(directory);
+        CatalogSnapshot first = catalog.current();
+        writeLocale("en", 10, 5);
+        catalog.reload();
+
+        Room recovered = new Room("1234");
+        recovered.setCatalogVersion(first.getVersion());
+        assertSame(first, catalog.forRoom(recovered));
+        assertSame(first, recovered.getCatalog());
+
+        Room orphaned = new Room("5678");
+        orphaned.setCatalogVersion("missing");
+        IllegalStateException missing = assertThrows(IllegalStateException.class, () -> catalog.forRoom(orphaned));
+        assertTrue(missing.getMessage().contains("missing"), missing.getMessage());
+    }
+
+    @Test
+    void shouldKeepTheCurrentVersionWhenAReloadIsInvalid() throws IOException {
+        writeLocale("en", 8, 3);
+        CardCatalog catalog = new CardCatalog(directory);
+        CatalogSnapshot loaded = catalog.current();
+
+        writeLocale("bg", 9, 3);
+        IllegalArgumentException mismatch = assertThrows(IllegalArgumentException.class, catalog::reload);
+        assertTrue(mismatch.getMessage().contains("differ"), mismatch.getMessage());
+
+        writeLocale("bg", Room.MAX_PLAYERS - 1, 3);
+        assertThrows(IllegalArgumentException.class, catalog::reload);
+
+        Files.writeString(directory.resolve("bg.json"), "[]");
+        assertThrows(IllegalArgumentException.class, catalog::reload);
+        assertSame(loaded, catalog.current());
+    }
+
+    private void writeLocale(String language, int cardsPerCategory, int bunkers) throws IOException {
+        JsonObject cards = new JsonObject();
+        for (CardCategory category : CardCategory.ALL) {
+            JsonArray deck = new JsonArray();
+            for (int i = 0; i < cardsPerCategory; i++) {
+                deck.add(category.getKey() + " " + i);
+            }
+            cards.add(category.getKey(), deck);
+        }
+        JsonArray events = new JsonArray();
+        for (int i = 0; i < bunkers; i++) {
+            JsonObject event = new JsonObject();
+            event.addProperty("text", "bunker " + i);
+            events.add(event);
+        }
+        JsonObject locale = new JsonObject();
+        locale.add("cards", cards);
+        locale.add("bunkers", events);
+        Files.writeString(directory.resolve(language + ".json"), locale.toString());
+    }
+}
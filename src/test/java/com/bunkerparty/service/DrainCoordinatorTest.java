@@ -0,0 +1,141 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.persistence.RoomPersistence;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.handler.JoinGameHandler;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DrainCoordinatorTest {
+
+    private static final long JITTER = 2_000;
+    private static final Pattern DELAY = Pattern.compile("\\{\"type\":\"refresh\",\"delay_ms\":(\\d+)}");
+
+    private GameService gameService;
+    private RoomPersistence persistence;
+    private HeartbeatMonitor heartbeatMonitor;
+    private WebSocketJsonSender sender;
+    private Set<Session> sessions;
+
+    @BeforeEach
+    void setUp() {
+        gameService = mock(GameService.class);
+        doCallRealMethod().when(gameService).startDraining(anyLong());
+        doCallRealMethod().when(gameService).isDraining();
+        persistence = mock(RoomPersistence.class);
+        when(persistence.isEnabled()).thenReturn(true);
+        heartbeatMonitor = mock(HeartbeatMonitor.class);
+        sessions = new LinkedHashSet<>();
+        when(heartbeatMonitor.getSessions()).thenReturn(sessions);
+        sender = mock(WebSocketJsonSender.class);
+        when(sender.sendText(any(), anyString())).thenReturn(true);
+    }
+
+    @Test
+    void shouldSnapshotAndSendJitteredRefreshToEverySession() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            sessions.add(closedSession());
+        }
+
+        DrainCoordinator coordinator = coordinator(1_000);
+        assertEquals(20, coordinator.drain());
+
+        assertTrue(gameService.isDraining());
+        verify(persistence).snapshot();
+        ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+        verify(sender, times(20)).sendText(any(), frames.capture());
+        Set<Long> delays = new LinkedHashSet<>();
+        for (String frame : frames.getAllValues()) {
+            Matcher matcher = DELAY.matcher(frame);
+            assertTrue(matcher.matches(), frame);
+            long delay = Long.parseLong(matcher.group(1));
+            assertTrue(delay >= 0 && delay < JITTER);
+            delays.add(delay);
+        }
+        assertTrue(delays.size() > 1);
+        assertEquals(20, coordinator.getHandedOff());
+    }
+
+    @Test
+    void shouldCloseSessionsStillConnectedAtTheTimeout() {
+        Session lingering = mock(Session.class);
+        when(lingering.isOpen()).thenReturn(true);
+        Session gone = closedSession();
+        sessions.addAll(List.of(lingering, gone));
+
+        DrainCoordinator coordinator = coordinator(0);
+        coordinator.drain();
+
+        verify(lingering).close(eq(DrainCoordinator.SERVICE_RESTART), anyString());
+        verify(gone, never()).close(anyInt(), anyString());
+        assertEquals(1, coordinator.getClosed());
+    }
+
+    @Test
+    void shouldHandOffSessionsWithoutPersistence() throws Exception {
+        when(persistence.isEnabled()).thenReturn(false);
+        sessions.add(closedSession());
+
+        assertEquals(1, coordinator(0).drain());
+
+        verify(persistence, never()).snapshot();
+        assertTrue(gameService.isDraining());
+    }
+
+    @Test
+    void shouldNotSeatJoinsSentAfterTheDrain() throws Exception {
+        RoomManager roomManager = mock(RoomManager.class);
+        Room room = new Room("1234");
+        when(roomManager.getRoom("1234")).thenReturn(room);
+        gameService = new GameService(roomManager, sender, mock(RoomReaper.class), mock(RoomExecutor.class),
+                new StreamingOutboundCodec(), GameMetrics.detached(), 0);
+        SessionRegistry sessionRegistry = new SessionRegistry();
+        JoinGameHandler join = new JoinGameHandler(gameService, sessionRegistry, mock(RateLimiter.class));
+        coordinator(0).drain();
+
+        Session late = mock(Session.class);
+        join.handle(late, new Command.JoinGame("1234", "Bob", null));
+
+        assertTrue(room.getPlayers().isEmpty());
+        assertNull(sessionRegistry.findPlayer(late, "1234"));
+        ArgumentCaptor<String> frame = ArgumentCaptor.forClass(String.class);
+        verify(sender).sendText(eq(late), frame.capture());
+        Matcher matcher = DELAY.matcher(frame.getValue());
+        assertTrue(matcher.matches(), frame.getValue());
+        assertTrue(Long.parseLong(matcher.group(1)) < JITTER);
+        assertEquals(1, gameService.getRefusedJoins());
+    }
+
+    private DrainCoordinator coordinator(long timeoutMillis) {
+        return new DrainCoordinator(gameService, persistence, heartbeatMonitor, sender, new StreamingOutboundCodec(),
+                new Random(3), JITTER, timeoutMillis);
+    }
+
+    /**
+     * Returns a session that already disconnected after its refresh.
+     */
+    private static Session closedSession() {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(false);
+        return session;
+    }
+}
@@ -2,14 +2,16 @@ package com.bunkerparty.service;
 
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
 import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
-import java.io.IOException;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,13 +21,18 @@ class GameServiceTest {
 
     private RoomManager roomManager;
     private WebSocketJsonSender sender;
+    private RoomReaper roomReaper;
+    private RoomExecutor roomExecutor;
     private GameService gameService;
 
     @BeforeEach
     void setUp() {
         roomManager = mock(RoomManager.class);
         sender = mock(WebSocketJsonSender.class);
-        gameService = new GameService(roomManager, sender);
+        when(sender.sendState(any(), any(), any())).thenReturn(true);
+        roomReaper = mock(RoomReaper.class);
+        roomExecutor = mock(RoomExecutor.class);
+        gameService = new GameService(roomManager, sender, roomReaper, roomExecutor, new StreamingOutboundCodec(), GameMetrics.detached(), 0);
     }
 
     @Test
@@ -37,6 +44,7 @@ class GameServiceTest {
 
         assertEquals(room, result);
         verify(roomManager).createRoom();
+        verify(roomReaper).track(room);
     }
 
     @Test
@@ -51,7 +59,7 @@ class GameServiceTest {
     }
 
     @Test
-    void shouldBroadcastUpdateToOnlinePlayers() throws IOException {
+    void shouldBroadcastUpdateToOnlinePlayers() {
         Room room = new Room("1234");
         Session session = mock(Session.class);
         when(session.isOpen()).thenReturn(true);
@@ -60,21 +68,194 @@ class GameServiceTest {
 
         gameService.broadcastUpdate(room);
 
-        ArgumentCaptor<JsonObject> captor = ArgumentCaptor.forClass(JsonObject.class);
-        verify(sender).send(eq(session), captor.capture());
-        JsonObject sentJson = captor.getValue();
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender).sendState(eq(session), eq("1234"), captor.capture());
+        JsonObject sentJson = JsonParser.parseString(captor.getValue()).getAsJsonObject();
         assertEquals("game_update", sentJson.get("type").getAsString());
         assertEquals(1, sentJson.getAsJsonObject("myCards").get("profession").getAsInt());
     }
 
     @Test
-    void shouldSendToSession() throws IOException {
+    void shouldSpliceEachPlayersOwnCardsIntoSharedUpdate() {
+        Room room = new Room("1234");
+        Session s1 = mock(Session.class);
+        Session s2 = mock(Session.class);
+        when(s1.isOpen()).thenReturn(true);
+        when(s2.isOpen()).thenReturn(true);
+        room.addPlayer(new Player("p1", "t1", "Alice", s1, Map.of("profession", 1)));
+        room.addPlayer(new Player("p2", "t2", "Bob", s2, Map.of("profession", 7)));
+
+        gameService.broadcastUpdate(room);
+
+        ArgumentCaptor<String> c1 = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> c2 = ArgumentCaptor.forClass(String.class);
+        verify(sender).sendState(eq(s1), eq("1234"), c1.capture());
+        verify(sender).sendState(eq(s2), eq("1234"), c2.capture());
+        JsonObject u1 = JsonParser.parseString(c1.getValue()).getAsJsonObject();
+        JsonObject u2 = JsonParser.parseString(c2.getValue()).getAsJsonObject();
+        assertEquals(1, u1.getAsJsonObject("myCards").get("profession").getAsInt());
+        assertEquals(7, u2.getAsJsonObject("myCards").get("profession").getAsInt());
+        assertEquals(u1.get("players"), u2.get("players"));
+    }
+
+    @Test
+    void shouldSendPatchWithOnlyChangedSectionsAfterFirstSnapshot() {
+        Room room = new Room("1234");
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        room.addPlayer(new Player("p1", "t1", "Alice", session, Map.of("profession", 1)));
+        gameService.broadcastUpdate(room);
+
+        room.addStartVote("p1");
+        gameService.broadcastUpdate(room);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), captor.capture());
+        JsonObject snapshot = JsonParser.parseString(captor.getAllValues().get(0)).getAsJsonObject();
+        JsonObject patch = JsonParser.parseString(captor.getAllValues().get(1)).getAsJsonObject();
+        assertEquals("game_update", snapshot.get("type").getAsString());
+        assertEquals(1, snapshot.get("version").getAsLong());
+        assertEquals("game_patch", patch.get("type").getAsString());
+        assertEquals(2, patch.get("version").getAsLong());
+        assertEquals(1, patch.get("baseVersion").getAsLong());
+        assertEquals("p1", patch.getAsJsonArray("startVotes").get(0).getAsString());
+        assertFalse(patch.has("phase"));
+        assertFalse(patch.has("history"));
+        assertFalse(patch.has("myCards"));
+    }
+
+    @Test
+    void shouldSendFullSnapshotAfterRejoin() {
+        Room room = new Room("1234");
+        Session oldSession = mock(Session.class);
+        Session newSession = mock(Session.class);
+        when(oldSession.isOpen()).thenReturn(true);
+        when(newSession.isOpen()).thenReturn(true);
+        Player player = new Player("p1", "t1", "Alice", oldSession, Map.of("profession", 1));
+        room.addPlayer(player);
+        gameService.broadcastUpdate(room);
+
+        player.setSession(newSession);
+        gameService.broadcastUpdate(room);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender).sendState(eq(newSession), eq("1234"), captor.capture());
+        JsonObject sent = JsonParser.parseString(captor.getValue()).getAsJsonObject();
+        assertEquals("game_update", sent.get("type").getAsString());
+        assertTrue(sent.has("myCards"));
+    }
+
+    @Test
+    void shouldSendFullSnapshotWhenClientIsTooFarBehind() {
+        Room room = new Room("1234");
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        Player player = new Player("p1", "t1", "Alice", session, Map.of());
+        room.addPlayer(player);
+        gameService.broadcastUpdate(room);
+        when(session.isOpen()).thenReturn(false);
+        for (int i = 0; i < 20; i++) {
+            gameService.broadcastUpdate(room);
+        }
+
+        when(session.isOpen()).thenReturn(true);
+        gameService.broadcastUpdate(room);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), captor.capture());
+        JsonObject sent = JsonParser.parseString(captor.getValue()).getAsJsonObject();
+        assertEquals("game_update", sent.get("type").getAsString());
+        assertEquals(22, sent.get("version").getAsLong());
+    }
+
+    @Test
+    void shouldReplaceUnsentUpdateWithSnapshot() {
+        Room room = new Room("1234");
         Session session = mock(Session.class);
-        JsonObject msg = new JsonObject();
-        msg.addProperty("test", "value");
+        when(session.isOpen()).thenReturn(true);
+        room.addPlayer(new Player("p1", "t1", "Alice", session, Map.of()));
+        gameService.broadcastUpdate(room);
+        when(sender.hasPendingState(session, "1234")).thenReturn(true);
+
+        room.setRound(2);
+        gameService.broadcastUpdate(room);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), captor.capture());
+        JsonObject sent = JsonParser.parseString(captor.getValue()).getAsJsonObject();
+        assertEquals("game_update", sent.get("type").getAsString());
+        assertEquals(2, sent.get("version").getAsLong());
+        assertTrue(sent.has("myCards"));
+    }
+
+    @Test
+    void shouldSendFullStateToSinglePlayerOnResync() {
+        Room room = new Room("1234");
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        Player player = new Player("p1", "t1", "Alice", session, Map.of());
+        room.addPlayer(player);
+        gameService.broadcastUpdate(room);
+
+        gameService.sendFullState(room, player);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), captor.capture());
+        JsonObject sent = JsonParser.parseString(captor.getValue()).getAsJsonObject();
+        assertEquals("game_update", sent.get("type").getAsString());
+        assertEquals(1, sent.get("version").getAsLong());
+    }
+
+    @Test
+    void shouldSendErrorAsCompactJson() {
+        Session session = mock(Session.class);
+
+        gameService.sendError(session, "room_full", "Room is full");
+
+        verify(sender).sendText(session, "{\"type\":\"error\",\"code\":\"room_full\",\"message\":\"Room is full\"}");
+    }
+
+    @Test
+    void shouldMergeUpdatesWithinCoalescingWindow() {
+        GameService coalescing = new GameService(roomManager, sender, roomReaper, roomExecutor, new StreamingOutboundCodec(), GameMetrics.detached(), 20);
+        Room room = new Room("1234");
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        room.addPlayer(new Player("p1", "t1", "Alice", session, Map.of()));
+        coalescing.broadcastUpdate(room);
+
+        coalescing.broadcastUpdate(room);
+        coalescing.broadcastUpdate(room);
+        coalescing.broadcastUpdate(room);
+
+        verify(sender, times(1)).sendState(eq(session), eq("1234"), any());
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(roomExecutor).schedule(eq("1234"), eq(20L), flush.capture());
+        flush.getValue().run();
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), any());
+        assertEquals(2, room.getSavedBroadcasts());
+        assertEquals(2, coalescing.getSavedBroadcasts());
+    }
+
+    @Test
+    void shouldBroadcastPhaseChangeImmediately() {
+        GameService coalescing = new GameService(roomManager, sender, roomReaper, roomExecutor, new StreamingOutboundCodec(), GameMetrics.detached(), 20);
+        Room room = new Room("1234");
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        room.addPlayer(new Player("p1", "t1", "Alice", session, Map.of()));
+        coalescing.broadcastUpdate(room);
+        coalescing.broadcastUpdate(room);
 
-        gameService.sendToSession(session, msg);
+        room.setPhase(Room.PHASE_REVEAL);
+        coalescing.broadcastUpdate(room);
 
-        verify(sender).send(session, msg);
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), any());
+        assertFalse(room.isBroadcastPending());
+        assertEquals(1, room.getSavedBroadcasts());
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(roomExecutor).schedule(eq("1234"), eq(20L), flush.capture());
+        flush.getValue().run();
+        verify(sender, times(2)).sendState(eq(session), eq("1234"), any());
     }
 }
@@ -0,0 +1,75 @@
+package com.bunkerparty.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel(10, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void shouldRunTaskAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(50, fired::countDown);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+
+    @Test
+    void shouldRunTaskDelayedBeyondOneWheelRotation() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(200, fired::countDown);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    void shouldNotRunCancelledTask() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        wheel.schedule(30, () -> ran.set(true)).cancel();
+        wheel.schedule(60, later::countDown);
+
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void shouldTrackPendingCount() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        HashedTimingWheel.Timeout cancelled = wheel.schedule(10_000, () -> { });
+        wheel.schedule(20, fired::countDown);
+        assertEquals(2, wheel.getPendingCount());
+
+        cancelled.cancel();
+        cancelled.cancel();
+        assertEquals(1, wheel.getPendingCount());
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, wheel.getPendingCount());
+    }
+}
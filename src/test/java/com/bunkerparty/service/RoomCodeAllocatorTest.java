@@ -0,0 +1,74 @@
+package com.bunkerparty.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCodeAllocatorTest {
+
+    @Test
+    void shouldHandOutEverySlotOnceUntilFull() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(100, new Random(1));
+        Set<Integer> slots = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            int slot = allocator.allocate();
+            assertTrue(slot >= 0 && slot < 100);
+            assertTrue(slots.add(slot));
+        }
+
+        assertEquals(100, allocator.getUsedCount());
+        assertEquals(-1, allocator.allocate());
+    }
+
+    @Test
+    void shouldOnlyHandOutEligibleSlots() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(100, slot -> slot % 3 == 0, new Random(1));
+        Set<Integer> slots = new HashSet<>();
+
+        for (int i = 0; i < 34; i++) {
+            int slot = allocator.allocate();
+            assertEquals(0, slot % 3);
+            assertTrue(slots.add(slot));
+        }
+
+        assertEquals(34, allocator.getSlotCount());
+        assertEquals(100, allocator.getCapacity());
+        assertEquals(-1, allocator.allocate());
+        allocator.release(1);
+        assertEquals(-1, allocator.allocate());
+        allocator.release(99);
+        assertEquals(99, allocator.allocate());
+    }
+
+    @Test
+    void shouldReuseReleasedSlot() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(2, new Random(1));
+        int first = allocator.allocate();
+        allocator.allocate();
+
+        allocator.release(first);
+
+        assertEquals(first, allocator.allocate());
+    }
+
+    @Test
+    void shouldIgnoreReleaseOfUnusedSlot() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(2, new Random(1));
+        int slot = allocator.allocate();
+
+        allocator.release(slot);
+        allocator.release(slot);
+        allocator.release(-1);
+        allocator.release(5);
+
+        assertEquals(0, allocator.getUsedCount());
+        assertNotEquals(-1, allocator.allocate());
+        assertNotEquals(-1, allocator.allocate());
+        assertEquals(-1, allocator.allocate());
+    }
+}
@@ -0,0 +1,52 @@
+package com.bunkerparty.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCodeFormatTest {
+
+    @Test
+    void shouldEncodeNumericCodesAsFourDigits() {
+        assertEquals("0042", RoomCodeFormat.NUMERIC.encode(42));
+        assertEquals("9999", RoomCodeFormat.NUMERIC.encode(9999));
+        assertEquals(42, RoomCodeFormat.NUMERIC.decode("0042"));
+    }
+
+    @Test
+    void shouldRejectMalformedNumericCodes() {
+        assertEquals(-1, RoomCodeFormat.NUMERIC.decode(null));
+        assertEquals(-1, RoomCodeFormat.NUMERIC.decode("123"));
+        assertEquals(-1, RoomCodeFormat.NUMERIC.decode("12a4"));
+    }
+
+    @Test
+    void shouldRoundTripEveryAlphanumericSlotSample() {
+        for (int slot = 0; slot < RoomCodeFormat.ALPHANUMERIC.getCapacity(); slot += 4099) {
+            String code = RoomCodeFormat.ALPHANUMERIC.encode(slot);
+            assertEquals(5, code.length());
+            assertEquals(slot, RoomCodeFormat.ALPHANUMERIC.decode(code));
+        }
+    }
+
+    @Test
+    void shouldRejectAlphanumericCodeWithSingleTypo() {
+        String alphabet = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+        String code = RoomCodeFormat.ALPHANUMERIC.encode(123_456);
+
+        for (int i = 0; i < code.length(); i++) {
+            for (char c : alphabet.toCharArray()) {
+                if (c != code.charAt(i)) {
+                    String typo = code.substring(0, i) + c + code.substring(i + 1);
+                    assertEquals(-1, RoomCodeFormat.ALPHANUMERIC.decode(typo), typo);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectAlphanumericCodeWithUnknownSymbol() {
+        assertEquals(-1, RoomCodeFormat.ALPHANUMERIC.decode("ABCDI"));
+        assertEquals(-1, RoomCodeFormat.ALPHANUMERIC.decode("ABCD"));
+    }
+}
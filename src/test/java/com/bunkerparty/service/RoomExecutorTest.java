@@ -0,0 +1,130 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.config.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomExecutorTest {
+
+    private RoomExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new RoomExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRunTasksOfOneRoomInOrderOnOneThread() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            executor.execute("1234", () -> {
+                order.add(n);
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i));
+        }
+        assertEquals(1, threads.stream().distinct().count());
+    }
+
+    @Test
+    void shouldRunNestedTaskForSameRoomInline() throws InterruptedException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("1234", () -> {
+            executor.execute("1234", () -> events.add("inner"));
+            events.add("outer");
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("inner", "outer"), events);
+    }
+
+    @Test
+    void shouldKeepRunningAfterFailedTaskAndCountIt() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        int shard = executor.shardOf("1234");
+
+        executor.execute("1234", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("1234", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getCompletedTasks(shard) < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(2, executor.getCompletedTasks(shard));
+        assertEquals(0, executor.getQueueDepth(shard));
+    }
+
+    @Test
+    void shouldRunScheduledTaskOnOwningShardAfterDelay() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+
+        executor.schedule("1234", 30, () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+        assertEquals("room-shard-" + executor.shardOf("1234"), threads.get(0));
+    }
+
+    @Test
+    void shouldRunVirtualShardsOrFallBackToPlatformThreads() throws InterruptedException {
+        RoomExecutor virtual = new RoomExecutor(64, true);
+        try {
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            List<Boolean> daemon = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(50);
+
+            for (int i = 0; i < 50; i++) {
+                int n = i;
+                virtual.execute("1234", () -> {
+                    order.add(n);
+                    daemon.add(Thread.currentThread().isDaemon());
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(VirtualThreads.isSupported(), virtual.isVirtual());
+            assertEquals(64, virtual.getShardCount());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, order.get(i));
+            }
+            assertFalse(daemon.contains(false));
+        } finally {
+            virtual.shutdown();
+        }
+    }
+}
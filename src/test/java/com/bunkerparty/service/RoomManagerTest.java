@@ -45,4 +45,45 @@ class RoomManagerTest {
 
         assertEquals(2, rooms.size());
     }
+
+    @Test
+    void shouldRemoveRoom() {
+        Room room = roomManager.createRoom();
+
+        assertSame(room, roomManager.removeRoom(room.getRoomId()));
+        assertNull(roomManager.getRoom(room.getRoomId()));
+        assertNull(roomManager.removeRoom(room.getRoomId()));
+    }
+
+    @Test
+    void shouldReturnNullWhenEveryCodeIsInUse() {
+        for (int i = 0; i < RoomCodeFormat.NUMERIC.getCapacity(); i++) {
+            assertNotNull(roomManager.createRoom());
+        }
+
+        assertNull(roomManager.createRoom());
+    }
+
+    @Test
+    void shouldFreeCodeWhenRoomIsRemoved() {
+        Room last = null;
+        for (int i = 0; i < RoomCodeFormat.NUMERIC.getCapacity(); i++) {
+            last = roomManager.createRoom();
+        }
+
+        roomManager.removeRoom(last.getRoomId());
+
+        assertEquals(last.getRoomId(), roomManager.createRoom().getRoomId());
+    }
+
+    @Test
+    void shouldCreateAlphanumericRoomsAndRejectTypos() {
+        RoomManager alphanumeric = new RoomManager(new Random(), RoomCodeFormat.ALPHANUMERIC);
+        Room room = alphanumeric.createRoom();
+        String code = room.getRoomId();
+        char wrong = code.charAt(0) == '0' ? '1' : '0';
+
+        assertSame(room, alphanumeric.getRoom(code));
+        assertNull(alphanumeric.getRoom(wrong + code.substring(1)));
+    }
 }
@@ -0,0 +1,146 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.websocket.codec.StreamingOutboundCodec;
+import com.bunkerparty.websocket.helpers.WebSocketJsonSender;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RoomReaperTest {
+
+    private static final long LOBBY_TTL = 30_000;
+    private static final long GAME_OVER_TTL = 10_000;
+    private static final long OFFLINE_TTL = 15_000;
+
+    private RoomManager roomManager;
+    private SessionRegistry sessionRegistry;
+    private WebSocketJsonSender sender;
+    private HashedTimingWheel wheel;
+    private RoomReaper reaper;
+    private long offset;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        roomManager = new RoomManager(new Random());
+        sessionRegistry = new SessionRegistry();
+        sender = mock(WebSocketJsonSender.class);
+        wheel = mock(HashedTimingWheel.class);
+        reaper = new RoomReaper(roomManager, mock(RoomExecutor.class), sessionRegistry, sender, new StreamingOutboundCodec(), wheel,
+                LOBBY_TTL, GAME_OVER_TTL, OFFLINE_TTL, () -> System.currentTimeMillis() + offset);
+        room = roomManager.createRoom();
+    }
+
+    @Test
+    void shouldScheduleCheckWhenTracking() {
+        reaper.track(room);
+
+        verify(wheel).schedule(eq(OFFLINE_TTL), any());
+    }
+
+    @Test
+    void shouldEvictAbandonedLobby() {
+        room.addPlayer(onlinePlayer("p1", mock(Session.class)));
+        offset = LOBBY_TTL + 1;
+
+        reaper.check(room);
+
+        assertNull(roomManager.getRoom(room.getRoomId()));
+        assertEquals(1, reaper.getEvictions(RoomReaper.Reason.LOBBY_ABANDONED));
+    }
+
+    @Test
+    void shouldRescheduleActiveLobby() {
+        room.addPlayer(onlinePlayer("p1", mock(Session.class)));
+        offset = 1_000;
+
+        reaper.check(room);
+
+        assertSame(room, roomManager.getRoom(room.getRoomId()));
+        verify(wheel).schedule(longThat(delay -> delay > 0 && delay <= LOBBY_TTL - 1_000), any());
+    }
+
+    @Test
+    void shouldEvictFinishedGame() {
+        room.addPlayer(onlinePlayer("p1", mock(Session.class)));
+        room.setPhase(Room.PHASE_GAME_OVER);
+        offset = GAME_OVER_TTL + 1;
+
+        reaper.check(room);
+
+        assertNull(roomManager.getRoom(room.getRoomId()));
+        assertEquals(1, reaper.getEvictions(RoomReaper.Reason.GAME_OVER));
+    }
+
+    @Test
+    void shouldEvictRoomWithEveryPlayerOffline() {
+        Player player = onlinePlayer("p1", null);
+        player.setOnline(false);
+        room.addPlayer(player);
+        room.setPhase(Room.PHASE_REVEAL);
+        offset = OFFLINE_TTL + 1;
+
+        reaper.check(room);
+
+        assertNull(roomManager.getRoom(room.getRoomId()));
+        assertEquals(1, reaper.getEvictions(RoomReaper.Reason.ALL_OFFLINE));
+    }
+
+    @Test
+    void shouldKeepRunningGameWithOnlinePlayers() {
+        room.addPlayer(onlinePlayer("p1", mock(Session.class)));
+        room.setPhase(Room.PHASE_REVEAL);
+        offset = LOBBY_TTL * 10;
+
+        reaper.check(room);
+
+        assertSame(room, roomManager.getRoom(room.getRoomId()));
+        verify(wheel).schedule(eq(OFFLINE_TTL), any());
+    }
+
+    @Test
+    void shouldNotifyAndUnregisterSessionsOnEviction() {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        room.addPlayer(onlinePlayer("p1", session));
+        sessionRegistry.register(session, room.getRoomId(), "p1");
+        offset = LOBBY_TTL + 1;
+
+        reaper.check(room);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(sender).sendText(eq(session), captor.capture());
+        JsonObject sent = JsonParser.parseString(captor.getValue()).getAsJsonObject();
+        assertEquals("room_not_found", sent.get("code").getAsString());
+        assertNull(sessionRegistry.findPlayer(session, room.getRoomId()));
+    }
+
+    @Test
+    void shouldIgnoreRoomThatWasAlreadyRemoved() {
+        roomManager.removeRoom(room.getRoomId());
+        offset = LOBBY_TTL + 1;
+
+        reaper.check(room);
+
+        verify(wheel, never()).schedule(anyLong(), any());
+        assertEquals(0, reaper.getEvictions(RoomReaper.Reason.ALL_OFFLINE));
+    }
+
+    private Player onlinePlayer(String id, Session session) {
+        return new Player(id, "token-" + id, "Name " + id, session, Map.of());
+    }
+}
@@ -0,0 +1,76 @@
+package com.bunkerparty.service;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.domain.RoomSnapshot;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomStateEncoderTest {
+
+    private final RoomStateEncoder encoder = new RoomStateEncoder();
+
+    @Test
+    void shouldEncodeFullSnapshot() {
+        Room room = new Room("1234");
+        room.addPlayer(new Player("p1", "t1", "Alice", null, Map.of("age", 2)));
+        room.setRound(1);
+        room.setEventIdx(5);
+        room.addRoundReveal("p1", "age");
+
+        JsonObject json = parse(encoder.snapshotJson(encoder.snapshot(room, 3, null)));
+
+        assertEquals("game_update", json.get("type").getAsString());
+        assertEquals(3, json.get("version").getAsLong());
+        assertEquals("1234", json.get("roomId").getAsString());
+        assertEquals(5, json.get("eventIdx").getAsInt());
+        assertEquals("Alice", json.getAsJsonArray("players").get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("age", json.getAsJsonObject("history").getAsJsonObject("1")
+                .getAsJsonObject("reveals").get("p1").getAsString());
+    }
+
+    @Test
+    void shouldPatchOnlyChangedHistoryRounds() {
+        Room room = new Room("1234");
+        room.addPlayer(new Player("p1", "t1", "Alice", null, Map.of()));
+        room.setRound(1);
+        room.setEventIdx(1);
+        room.addRoundReveal("p1", "age");
+        room.incrementRound();
+        room.setEventIdx(2);
+        RoomSnapshot base = encoder.snapshot(room, 1, null);
+
+        room.addRoundReveal("p1", "item");
+        RoomSnapshot current = encoder.snapshot(room, 2, base);
+        JsonObject patch = parse(encoder.patchJson(base, current));
+
+        assertEquals("game_patch", patch.get("type").getAsString());
+        assertEquals(1, patch.get("baseVersion").getAsLong());
+        assertTrue(patch.has("roundReveals"));
+        assertFalse(patch.has("round"));
+        assertFalse(patch.getAsJsonObject("history").has("1"));
+        assertTrue(patch.getAsJsonObject("history").has("2"));
+    }
+
+    @Test
+    void shouldReuseFinishedRoundHistoryEntries() {
+        Room room = new Room("1234");
+        room.setRound(1);
+        room.addRoundReveal("p1", "age");
+        room.incrementRound();
+        RoomSnapshot base = encoder.snapshot(room, 1, null);
+
+        RoomSnapshot current = encoder.snapshot(room, 2, base);
+
+        assertSame(base.getHistoryEntry(1), current.getHistoryEntry(1));
+    }
+
+    private static JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
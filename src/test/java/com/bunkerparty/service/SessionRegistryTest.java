@@ -0,0 +1,51 @@
+package com.bunkerparty.service;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SessionRegistryTest {
+
+    private final SessionRegistry registry = new SessionRegistry();
+
+    @Test
+    void shouldFindRegisteredPlayerByRoom() {
+        Session session = mock(Session.class);
+
+        registry.register(session, "1234", "p1");
+        registry.register(session, "5678", "p2");
+
+        assertEquals("p1", registry.findPlayer(session, "1234"));
+        assertEquals("p2", registry.findPlayer(session, "5678"));
+        assertNull(registry.findPlayer(session, "0000"));
+    }
+
+    @Test
+    void shouldReplaceSeatInSameRoom() {
+        Session session = mock(Session.class);
+
+        registry.register(session, "1234", "p1");
+        registry.register(session, "1234", "p2");
+
+        assertEquals("p2", registry.findPlayer(session, "1234"));
+        assertEquals(1, registry.remove(session).size());
+    }
+
+    @Test
+    void shouldUnregisterSingleRoomAndRemoveSession() {
+        Session session = mock(Session.class);
+        registry.register(session, "1234", "p1");
+        registry.register(session, "5678", "p2");
+
+        registry.unregister(session, "1234");
+        List<SessionRegistry.Seat> removed = registry.remove(session);
+
+        assertEquals(List.of(new SessionRegistry.Seat("5678", "p2")), removed);
+        assertEquals(0, registry.size());
+        assertTrue(registry.remove(session).isEmpty());
+    }
+}
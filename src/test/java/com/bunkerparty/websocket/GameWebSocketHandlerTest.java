@@ -2,16 +2,26 @@ package com.bunkerparty.websocket;
 
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.metrics.GameMetrics;
 import com.bunkerparty.service.GameService;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.command.CommandDecoder;
+import com.bunkerparty.websocket.command.MessageType;
 import com.bunkerparty.websocket.handler.*;
+import com.bunkerparty.websocket.helpers.HeartbeatMonitor;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import com.google.gson.JsonObject;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Collections;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class GameWebSocketHandlerTest {
@@ -24,6 +34,12 @@ class GameWebSocketHandlerTest {
     private ReadyHandler readyHandler;
     private DiscardHandler discardHandler;
     private ConfirmHandler confirmHandler;
+    private ResyncHandler resyncHandler;
+    private RoomExecutor roomExecutor;
+    private SessionRegistry sessionRegistry;
+    private CommandDecoder decoder;
+    private RateLimiter rateLimiter;
+    private HeartbeatMonitor heartbeatMonitor;
 
     @BeforeEach
     void setUp() {
@@ -34,10 +50,22 @@ class GameWebSocketHandlerTest {
         readyHandler = mock(ReadyHandler.class);
         discardHandler = mock(DiscardHandler.class);
         confirmHandler = mock(ConfirmHandler.class);
+        resyncHandler = mock(ResyncHandler.class);
+        roomExecutor = mock(RoomExecutor.class);
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return null;
+        }).when(roomExecutor).execute(any(), any());
+        sessionRegistry = new SessionRegistry();
+        decoder = new CommandDecoder();
+        rateLimiter = mock(RateLimiter.class);
+        when(rateLimiter.tryAcquire(any(), any())).thenReturn(true);
+        heartbeatMonitor = mock(HeartbeatMonitor.class);
 
         webSocketHandler = new GameWebSocketHandler(
                 newGameHandler, joinGameHandler, leaveGameHandler,
-                readyHandler, discardHandler, confirmHandler, gameService
+                readyHandler, discardHandler, confirmHandler, resyncHandler, gameService, roomExecutor, sessionRegistry,
+                decoder, rateLimiter, heartbeatMonitor, GameMetrics.detached()
         );
     }
 
@@ -49,7 +77,36 @@ class GameWebSocketHandlerTest {
 
         webSocketHandler.onMessage(session, msg.toString());
 
-        verify(newGameHandler).handle(eq(session), any(JsonObject.class));
+        verify(newGameHandler).handle(session, new Command.NewGame(""));
+    }
+
+    @Test
+    void shouldRunHandlerOnShardOfMessageRoom() throws Exception {
+        Session session = mock(Session.class);
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", "discard");
+        msg.addProperty("roomId", "1234");
+        msg.addProperty("playerId", "p1");
+        msg.addProperty("cardKey", "age");
+
+        webSocketHandler.onMessage(session, msg.toString());
+
+        verify(roomExecutor).execute(eq("1234"), any());
+        verify(discardHandler).handle(session, new Command.Discard("1234", "p1", "age"));
+    }
+
+    @Test
+    void shouldDropFramesThatCannotBeDecoded() throws Exception {
+        Session session = mock(Session.class);
+
+        webSocketHandler.onMessage(session, "{\"type\":");
+        webSocketHandler.onMessage(session, "{\"type\":\"launch_missiles\"}");
+        webSocketHandler.onMessage(session, "{\"type\":\"ready\",\"roomId\":\"1234\"}");
+
+        verifyNoInteractions(roomExecutor, gameService, readyHandler, rateLimiter);
+        assertEquals(1, decoder.getRejections(CommandDecoder.Reason.MALFORMED));
+        assertEquals(1, decoder.getRejections(CommandDecoder.Reason.UNKNOWN_TYPE));
+        assertEquals(1, decoder.getRejections(CommandDecoder.Reason.MISSING_FIELD));
     }
 
     @Test
@@ -60,7 +117,57 @@ class GameWebSocketHandlerTest {
 
         webSocketHandler.onMessage(session, msg.toString());
 
-        verify(gameService).sendToSession(eq(session), argThat(json -> json.get("type").getAsString().equals("pong")));
+        verify(gameService).sendPong(session);
+        verify(heartbeatMonitor).onPong(session);
+    }
+
+    @Test
+    void shouldTrackSessionHeartbeatOnConnect() {
+        Session session = mock(Session.class);
+
+        webSocketHandler.onConnect(session);
+
+        verify(heartbeatMonitor).track(eq(session), any());
+    }
+
+    @Test
+    void shouldMarkPlayerSeenOnPongFrame() {
+        Session session = mock(Session.class);
+        Room room = new Room("1234");
+        Player player = new Player("p1", "t1", "Alice", session, Map.of());
+        room.addPlayer(player);
+        sessionRegistry.register(session, "1234", "p1");
+        when(gameService.getRoom("1234")).thenReturn(room);
+        long before = player.getLastSeen();
+        Frame frame = mock(Frame.class);
+        when(frame.getType()).thenReturn(Frame.Type.PONG);
+
+        webSocketHandler.onFrame(session, frame);
+
+        verify(heartbeatMonitor).onPong(session);
+        verify(roomExecutor).execute(eq("1234"), any());
+        assertTrue(player.getLastSeen() >= before);
+    }
+
+    @Test
+    void shouldAnswerThrottledMessageWithError() throws Exception {
+        Session session = mock(Session.class);
+        when(rateLimiter.tryAcquire(session, MessageType.NEW_GAME)).thenReturn(false);
+
+        webSocketHandler.onMessage(session, "{\"type\":\"new_game\",\"name\":\"Alice\"}");
+
+        verify(gameService).sendError(eq(session), eq("rate_limited"), anyString());
+        verifyNoInteractions(roomExecutor, newGameHandler);
+    }
+
+    @Test
+    void shouldDropThrottledPingSilently() throws Exception {
+        Session session = mock(Session.class);
+        when(rateLimiter.tryAcquire(session, MessageType.PING)).thenReturn(false);
+
+        webSocketHandler.onMessage(session, "{\"type\":\"ping\"}");
+
+        verifyNoInteractions(gameService);
     }
 
     @Test
@@ -69,11 +176,33 @@ class GameWebSocketHandlerTest {
         Room room = new Room("1234");
         Player player = new Player("p1", "t1", "Alice", session, Map.of());
         room.addPlayer(player);
-        when(gameService.getAllRooms()).thenReturn(Collections.singletonList(room));
+        sessionRegistry.register(session, "1234", "p1");
+        when(gameService.getRoom("1234")).thenReturn(room);
 
         webSocketHandler.onClose(session, 1000, "Normal closure");
 
+        verify(rateLimiter).release(session);
+        verify(heartbeatMonitor).untrack(session);
         assert !player.isOnline();
         verify(gameService).broadcastUpdate(room);
+        assertEquals(0, sessionRegistry.size());
+    }
+
+    @Test
+    void shouldIgnoreCloseOfSessionReplacedByRejoin() throws Exception {
+        Session oldSession = mock(Session.class);
+        Session newSession = mock(Session.class);
+        Room room = new Room("1234");
+        Player player = new Player("p1", "t1", "Alice", oldSession, Map.of());
+        room.addPlayer(player);
+        sessionRegistry.register(oldSession, "1234", "p1");
+        player.setSession(newSession);
+        sessionRegistry.register(newSession, "1234", "p1");
+        when(gameService.getRoom("1234")).thenReturn(room);
+
+        webSocketHandler.onClose(oldSession, 1001, "Going away");
+
+        assertTrue(player.isOnline());
+        verify(gameService, never()).broadcastUpdate(room);
     }
 }
@@ -0,0 +1,81 @@
+package com.bunkerparty.websocket.codec;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.domain.RoomSnapshot;
+import com.bunkerparty.service.RoomStateEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboundCodecEquivalenceTest {
+
+    private static final String TRICKY = "Q\"B\\S/\n\r\t\b\f\u0001\u001f Ж 😀   <&>";
+
+    private final OutboundCodec streaming = new StreamingOutboundCodec();
+    private final OutboundCodec gson = new GsonOutboundCodec();
+
+    @Test
+    void shouldEncodeStringsLikeGson() {
+        assertEquals(gson.string(TRICKY), streaming.string(TRICKY));
+        assertEquals(gson.string(""), streaming.string(""));
+    }
+
+    @Test
+    void shouldEncodeRoomSectionsLikeGson() {
+        Room room = trickyRoom();
+
+        assertEquals(gson.players(room), streaming.players(room));
+        assertEquals(gson.stringArray(room.getStartVotes()), streaming.stringArray(room.getStartVotes()));
+        assertEquals(gson.stringMap(room.getRoundReveals()), streaming.stringMap(room.getRoundReveals()));
+        assertEquals(gson.historyEntry(3, Map.of("p1", "age")), streaming.historyEntry(3, Map.of("p1", "age")));
+        assertEquals(gson.historyEntry(null, Map.of()), streaming.historyEntry(null, Map.of()));
+    }
+
+    @Test
+    void shouldRenderSameSnapshotAndPatch() {
+        RoomStateEncoder streamingEncoder = new RoomStateEncoder(streaming);
+        RoomStateEncoder gsonEncoder = new RoomStateEncoder(gson);
+        Room room = trickyRoom();
+        RoomSnapshot streamingBase = streamingEncoder.snapshot(room, 1, null);
+        RoomSnapshot gsonBase = gsonEncoder.snapshot(room, 1, null);
+
+        room.addRoundReveal("p2", "item");
+        RoomSnapshot streamingCurrent = streamingEncoder.snapshot(room, 2, streamingBase);
+        RoomSnapshot gsonCurrent = gsonEncoder.snapshot(room, 2, gsonBase);
+
+        assertEquals(gsonEncoder.snapshotJson(gsonCurrent), streamingEncoder.snapshotJson(streamingCurrent));
+        assertEquals(gsonEncoder.patchJson(gsonBase, gsonCurrent),
+                streamingEncoder.patchJson(streamingBase, streamingCurrent));
+    }
+
+    @Test
+    void shouldEncodeControlMessagesLikeGson() {
+        assertEquals(gson.openRoom("1234", "p1", TRICKY), streaming.openRoom("1234", "p1", TRICKY));
+        assertEquals(gson.error("room_full", TRICKY), streaming.error("room_full", TRICKY));
+        assertEquals(gson.redirect("1234", "node-b", TRICKY), streaming.redirect("1234", "node-b", TRICKY));
+        assertEquals(gson.pong(), streaming.pong());
+        assertEquals(gson.refresh(1250), streaming.refresh(1250));
+    }
+
+    private static Room trickyRoom() {
+        Room room = new Room("1234");
+        Map<String, Integer> cards = new LinkedHashMap<>();
+        cards.put("age", 2);
+        cards.put("item", 4);
+        room.addPlayer(new Player("p1", "t1", TRICKY, null, cards));
+        room.addPlayer(new Player("p2", "t2", "Bob", null, cards));
+        room.addStartVote("p1");
+        room.setRound(1);
+        room.setEventIdx(5);
+        room.getPlayer("p1").revealCard("age");
+        room.addRoundReveal("p1", "age");
+        room.incrementRound();
+        room.setEventIdx(6);
+        room.addRoundConfirm("p1");
+        return room;
+    }
+}
@@ -0,0 +1,74 @@
+package com.bunkerparty.websocket.command;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDecoderTest {
+
+    private final CommandDecoder decoder = new CommandDecoder();
+
+    @Test
+    void shouldDecodePingWithoutParsing() throws Exception {
+        assertSame(Command.Ping.INSTANCE, decoder.decode("{\"type\":\"ping\"}"));
+        assertSame(Command.Ping.INSTANCE, decoder.decode("{ \"type\" : \"ping\" }"));
+    }
+
+    @Test
+    void shouldBindFieldsIntoRecords() throws Exception {
+        assertEquals(new Command.JoinGame("1234", "Bob", "t1"),
+                decoder.decode("{\"type\":\"join_game\",\"roomId\":\"1234\",\"name\":\"Bob\",\"token\":\"t1\"}"));
+        assertEquals(new Command.Discard("1234", "p1", "age"),
+                decoder.decode("{\"cardKey\":\"age\",\"playerId\":\"p1\",\"roomId\":\"1234\",\"type\":\"discard\"}"));
+        assertEquals(new Command.Confirm("1234", "p1"),
+                decoder.decode("{\"type\":\"confirm\",\"roomId\":\"1234\",\"playerId\":\"p1\"}"));
+    }
+
+    @Test
+    void shouldDefaultOptionalFields() throws Exception {
+        assertEquals(new Command.NewGame(""), decoder.decode("{\"type\":\"new_game\"}"));
+        assertEquals(new Command.JoinGame("", "", null), decoder.decode("{\"type\":\"join_game\",\"token\":null}"));
+    }
+
+    @Test
+    void shouldSkipUnknownFields() throws Exception {
+        Command command = decoder.decode(
+                "{\"type\":\"ready\",\"extra\":{\"nested\":[1,2,{\"a\":true}]},\"roomId\":\"1234\",\"playerId\":\"p1\"}");
+
+        assertEquals(new Command.Ready("1234", "p1"), command);
+    }
+
+    @Test
+    void shouldRejectOversizedFrameBeforeParsing() {
+        CommandDecoder small = new CommandDecoder(16);
+
+        assertRejected(small, "{\"type\":\"new_game\",\"name\":\"Alice\"}", CommandDecoder.Reason.TOO_LARGE);
+    }
+
+    @Test
+    void shouldRejectMalformedFrames() {
+        assertRejected(decoder, "not json", CommandDecoder.Reason.MALFORMED);
+        assertRejected(decoder, "[\"ping\"]", CommandDecoder.Reason.MALFORMED);
+        assertRejected(decoder, "{\"type\":\"ready\"} trailing", CommandDecoder.Reason.MALFORMED);
+        assertRejected(decoder, "{\"type\":\"ready\",\"roomId\":{}}", CommandDecoder.Reason.MALFORMED);
+        assertEquals(4, decoder.getRejections(CommandDecoder.Reason.MALFORMED));
+    }
+
+    @Test
+    void shouldRejectUnknownOrMissingType() {
+        assertRejected(decoder, "{\"type\":\"kick\",\"roomId\":\"1234\"}", CommandDecoder.Reason.UNKNOWN_TYPE);
+        assertRejected(decoder, "{\"roomId\":\"1234\"}", CommandDecoder.Reason.UNKNOWN_TYPE);
+    }
+
+    @Test
+    void shouldRejectMissingRequiredField() {
+        assertRejected(decoder, "{\"type\":\"discard\",\"roomId\":\"1234\",\"playerId\":\"p1\"}",
+                CommandDecoder.Reason.MISSING_FIELD);
+        assertRejected(decoder, "{\"type\":\"leave_game\",\"roomId\":\" \"}", CommandDecoder.Reason.MISSING_FIELD);
+    }
+
+    private static void assertRejected(CommandDecoder decoder, String frame, CommandDecoder.Reason reason) {
+        CommandRejectedException e = assertThrows(CommandRejectedException.class, () -> decoder.decode(frame));
+        assertEquals(reason, e.getReason());
+    }
+}
@@ -1,16 +1,18 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.domain.CatalogSnapshot;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.CardCatalog;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
 import java.util.Random;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -22,7 +24,7 @@ class ConfirmHandlerTest {
     @BeforeEach
     void setUp() {
         gameService = mock(GameService.class);
-        handler = new ConfirmHandler(gameService, new Random());
+        handler = new ConfirmHandler(gameService, new CardCatalog(), new Random());
     }
 
     @Test
@@ -35,9 +37,7 @@ class ConfirmHandlerTest {
         p1.revealCard("p"); // Player has more cards to reveal
         when(gameService.getRoom("1234")).thenReturn(room);
 
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("playerId", "p1");
+        Command.Confirm msg = new Command.Confirm("1234", "p1");
 
         handler.handle(null, msg);
 
@@ -47,6 +47,23 @@ class ConfirmHandlerTest {
         verify(gameService).broadcastUpdate(room);
     }
 
+    @Test
+    void shouldPickEventsFromTheCatalogTheRoomWasDealtFrom() {
+        Room room = new Room("1234");
+        room.setCatalog(new CatalogSnapshot("pinned", new int[]{6, 6, 6, 6, 6, 6, 6}, 1, Map.of()));
+        room.setPhase(Room.PHASE_CONFIRM);
+        room.setRound(1);
+        Player p1 = new Player("p1", "t1", "Alice", null, Map.of("profession", 1, "health", 2));
+        room.addPlayer(p1);
+        p1.revealCard("profession");
+        when(gameService.getRoom("1234")).thenReturn(room);
+
+        handler.handle(null, new Command.Confirm("1234", "p1"));
+
+        assertEquals(2, room.getRound());
+        assertEquals(0, room.getEventIdx());
+    }
+
     @Test
     void shouldGameOverWhenAllCardsUsed() {
         Room room = new Room("1234");
@@ -57,9 +74,7 @@ class ConfirmHandlerTest {
         p1.revealCard("p"); // All cards (1) revealed
         when(gameService.getRoom("1234")).thenReturn(room);
 
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("playerId", "p1");
+        Command.Confirm msg = new Command.Confirm("1234", "p1");
 
         // TOTAL_CARD_TYPES in ConfirmHandler is 7, but for this test we can see how allPlayersUsedAllCards behaves
         // Actually, ConfirmHandler has private static final int TOTAL_CARD_TYPES = 7;
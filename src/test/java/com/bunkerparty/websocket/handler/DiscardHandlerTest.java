@@ -3,7 +3,7 @@ package com.bunkerparty.websocket.handler;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -28,19 +28,16 @@ class DiscardHandlerTest {
     void shouldRevealCardAndTransitionToConfirmPhase() {
         Room room = new Room("1234");
         room.setPhase(Room.PHASE_REVEAL);
-        Player p1 = new Player("p1", "t1", "Alice", null, Map.of("prof", 1));
+        Player p1 = new Player("p1", "t1", "Alice", null, Map.of("profession", 1));
         room.addPlayer(p1);
         when(gameService.getRoom("1234")).thenReturn(room);
 
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("playerId", "p1");
-        msg.addProperty("cardKey", "prof");
+        Command.Discard msg = new Command.Discard("1234", "p1", "profession");
 
         handler.handle(null, msg);
 
-        assertTrue(p1.hasUsedKey("prof"));
-        assertEquals("prof", room.getRoundReveals().get("p1"));
+        assertTrue(p1.hasUsedKey("profession"));
+        assertEquals("profession", room.getRoundReveals().get("p1"));
         assertEquals(Room.PHASE_CONFIRM, room.getPhase());
         verify(gameService).broadcastUpdate(room);
     }
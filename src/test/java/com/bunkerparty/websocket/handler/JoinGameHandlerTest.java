@@ -3,7 +3,9 @@ package com.bunkerparty.websocket.handler;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
+import com.bunkerparty.websocket.ratelimit.RateLimiter;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,27 +20,29 @@ class JoinGameHandlerTest {
 
     private GameService gameService;
     private JoinGameHandler handler;
+    private SessionRegistry sessionRegistry;
+    private RateLimiter rateLimiter;
 
     @BeforeEach
     void setUp() {
         gameService = mock(GameService.class);
-        handler = new JoinGameHandler(gameService);
+        sessionRegistry = new SessionRegistry();
+        rateLimiter = mock(RateLimiter.class);
+        handler = new JoinGameHandler(gameService, sessionRegistry, rateLimiter);
     }
 
     @Test
     void shouldJoinNewPlayerSuccessfully() throws Exception {
         Session session = mock(Session.class);
         Room room = new Room("1234");
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("name", "Bob");
+        Command.JoinGame msg = new Command.JoinGame("1234", "Bob", null);
         when(gameService.getRoom("1234")).thenReturn(room);
 
         handler.handle(session, msg);
 
         assertEquals(1, room.getPlayers().size());
         verify(gameService).broadcastUpdate(room);
-        verify(gameService).sendToSession(eq(session), argThat(json -> json.get("type").getAsString().equals("open_room")));
+        verify(gameService).sendOpenRoom(eq(session), eq(room), any(Player.class));
     }
 
     @Test
@@ -49,16 +53,14 @@ class JoinGameHandlerTest {
         room.addPlayer(existing);
         existing.setOnline(false);
 
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("name", "Bob");
-        msg.addProperty("token", "token123");
+        Command.JoinGame msg = new Command.JoinGame("1234", "Bob", "token123");
         when(gameService.getRoom("1234")).thenReturn(room);
 
         handler.handle(session, msg);
 
         assertTrue(existing.isOnline());
         assertEquals(session, existing.getSession());
+        assertEquals("p1", sessionRegistry.findPlayer(session, "1234"));
         verify(gameService).broadcastUpdate(room);
     }
 
@@ -69,28 +71,23 @@ class JoinGameHandlerTest {
         Player existing = new Player("p1", "token123", "Bob", null, Map.of());
         room.addPlayer(existing);
 
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
-        msg.addProperty("name", "Bob");
-        msg.addProperty("token", "wrong");
+        Command.JoinGame msg = new Command.JoinGame("1234", "Bob", "wrong");
         when(gameService.getRoom("1234")).thenReturn(room);
 
         handler.handle(session, msg);
 
-        verify(gameService).sendToSession(eq(session), argThat(json -> 
-            json.get("type").getAsString().equals("error") && 
-            json.get("code").getAsString().equals("invalid_token")));
+        verify(gameService).sendError(eq(session), eq("invalid_token"), anyString());
     }
 
     @Test
     void shouldFailIfRoomNotFound() throws Exception {
         Session session = mock(Session.class);
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "9999");
+        Command.JoinGame msg = new Command.JoinGame("9999", "", null);
         when(gameService.getRoom("9999")).thenReturn(null);
 
         handler.handle(session, msg);
 
-        verify(gameService).sendToSession(eq(session), argThat(json -> json.get("code").getAsString().equals("room_not_found")));
+        verify(gameService).sendError(eq(session), eq("room_not_found"), anyString());
+        verify(rateLimiter).recordRoomNotFound(session);
     }
 }
@@ -3,25 +3,28 @@ package com.bunkerparty.websocket.handler;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class LeaveGameHandlerTest {
 
     private GameService gameService;
     private LeaveGameHandler handler;
+    private SessionRegistry sessionRegistry;
 
     @BeforeEach
     void setUp() {
         gameService = mock(GameService.class);
-        handler = new LeaveGameHandler(gameService);
+        sessionRegistry = new SessionRegistry();
+        handler = new LeaveGameHandler(gameService, sessionRegistry);
     }
 
     @Test
@@ -30,8 +33,8 @@ class LeaveGameHandlerTest {
         Room room = new Room("1234");
         Player player = new Player("p1", "t1", "Alice", session, Map.of());
         room.addPlayer(player);
-        JsonObject msg = new JsonObject();
-        msg.addProperty("roomId", "1234");
+        sessionRegistry.register(session, "1234", "p1");
+        Command.LeaveGame msg = new Command.LeaveGame("1234");
         when(gameService.getRoom("1234")).thenReturn(room);
 
         handler.handle(session, msg);
@@ -39,5 +42,20 @@ class LeaveGameHandlerTest {
         assertFalse(room.getPlayers().containsKey("p1"));
         assertFalse(player.isOnline());
         verify(gameService).broadcastUpdate(room);
+        assertNull(sessionRegistry.findPlayer(session, "1234"));
+    }
+
+    @Test
+    void shouldIgnoreLeaveFromSessionWithoutSeat() {
+        Session session = mock(Session.class);
+        Room room = new Room("1234");
+        room.addPlayer(new Player("p1", "t1", "Alice", mock(Session.class), Map.of()));
+        Command.LeaveGame msg = new Command.LeaveGame("1234");
+        when(gameService.getRoom("1234")).thenReturn(room);
+
+        handler.handle(session, msg);
+
+        assertTrue(room.getPlayers().containsKey("p1"));
+        verify(gameService, never()).broadcastUpdate(room);
     }
 }
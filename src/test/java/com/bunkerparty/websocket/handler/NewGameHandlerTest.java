@@ -1,12 +1,14 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.service.RoomExecutor;
+import com.bunkerparty.service.SessionRegistry;
+import com.bunkerparty.websocket.command.Command;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -15,18 +17,24 @@ class NewGameHandlerTest {
 
     private GameService gameService;
     private NewGameHandler handler;
+    private SessionRegistry sessionRegistry;
 
     @BeforeEach
     void setUp() {
         gameService = mock(GameService.class);
-        handler = new NewGameHandler(gameService);
+        RoomExecutor roomExecutor = mock(RoomExecutor.class);
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return null;
+        }).when(roomExecutor).execute(any(), any());
+        sessionRegistry = new SessionRegistry();
+        handler = new NewGameHandler(gameService, roomExecutor, sessionRegistry);
     }
 
     @Test
     void shouldCreateNewGameSuccessfully() {
         Session session = mock(Session.class);
-        JsonObject msg = new JsonObject();
-        msg.addProperty("name", "Alice");
+        Command.NewGame msg = new Command.NewGame("Alice");
         Room room = new Room("1234");
         when(gameService.createRoom()).thenReturn(room);
 
@@ -36,22 +44,44 @@ class NewGameHandlerTest {
         assertEquals(1, room.getPlayers().size());
         assertEquals("Alice", room.getPlayers().values().iterator().next().getName());
         
-        ArgumentCaptor<JsonObject> openRoomCaptor = ArgumentCaptor.forClass(JsonObject.class);
-        verify(gameService).sendToSession(eq(session), openRoomCaptor.capture());
-        assertEquals("open_room", openRoomCaptor.getValue().get("type").getAsString());
+        verify(gameService).sendOpenRoom(eq(session), eq(room), any(Player.class));
         
         verify(gameService).broadcastUpdate(room);
+        String creatorId = room.getPlayers().keySet().iterator().next();
+        assertEquals(creatorId, sessionRegistry.findPlayer(session, "1234"));
+    }
+
+    @Test
+    void shouldReportNoCapacityWhenNoRoomCanBeCreated() {
+        Session session = mock(Session.class);
+        Command.NewGame msg = new Command.NewGame("Alice");
+        when(gameService.createRoom()).thenReturn(null);
+
+        handler.handle(session, msg);
+
+        verify(gameService).sendError(eq(session), eq("no_capacity"), anyString());
+        verify(gameService, never()).broadcastUpdate(any());
+    }
+
+    @Test
+    void shouldRefuseNewGamesWhileDraining() {
+        Session session = mock(Session.class);
+        when(gameService.isDraining()).thenReturn(true);
+
+        handler.handle(session, new Command.NewGame("Alice"));
+
+        verify(gameService, never()).createRoom();
+        verify(gameService).sendError(eq(session), eq("draining"), anyString());
     }
 
     @Test
     void shouldFailIfNameIsMissing() {
         Session session = mock(Session.class);
-        JsonObject msg = new JsonObject();
-        msg.addProperty("name", "");
+        Command.NewGame msg = new Command.NewGame("");
 
         handler.handle(session, msg);
 
         verify(gameService, never()).createRoom();
-        verify(gameService).sendToSession(eq(session), any(JsonObject.class));
+        verify(gameService).sendError(eq(session), eq("name_required"), anyString());
     }
 }
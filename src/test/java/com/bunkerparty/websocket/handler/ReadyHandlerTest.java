@@ -1,9 +1,12 @@
 package com.bunkerparty.websocket.handler;
 
+import com.bunkerparty.domain.CardCategory;
+import com.bunkerparty.domain.CatalogSnapshot;
 import com.bunkerparty.domain.Player;
 import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.CardCatalog;
 import com.bunkerparty.service.GameService;
-import com.google.gson.JsonObject;
+import com.bunkerparty.websocket.command.Command;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,18 +14,20 @@ import org.junit.jupiter.api.Test;
 import java.util.Map;
 import java.util.Random;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class ReadyHandlerTest {
 
     private GameService gameService;
+    private CardCatalog catalog;
     private ReadyHandler handler;
 
     @BeforeEach
     void setUp() {
         gameService = mock(GameService.class);
-        handler = new ReadyHandler(gameService, new Random());
+        catalog = new CardCatalog();
+        handler = new ReadyHandler(gameService, catalog, new Random());
     }
 
     @Test
@@ -45,12 +50,19 @@ class ReadyHandlerTest {
         assertEquals(Room.PHASE_REVEAL, room.getPhase());
         assertEquals(1, room.getRound());
         verify(gameService, times(3)).broadcastUpdate(room);
+
+        CatalogSnapshot deck = room.getCatalog();
+        assertSame(catalog.current(), deck);
+        assertTrue(room.getEventIdx() < deck.getBunkerCount());
+        for (Player player : room.getPlayers().values()) {
+            for (CardCategory category : deck.getCategories()) {
+                int card = player.getCard(category);
+                assertTrue(card >= 0 && card < deck.getCount(category), category + " " + card);
+            }
+        }
     }
 
-    private JsonObject createReadyMsg(String pid, String rid) {
-        JsonObject msg = new JsonObject();
-        msg.addProperty("playerId", pid);
-        msg.addProperty("roomId", rid);
-        return msg;
+    private Command.Ready createReadyMsg(String pid, String rid) {
+        return new Command.Ready(rid, pid);
     }
 }
@@ -0,0 +1,50 @@
+package com.bunkerparty.websocket.handler;
+
+import com.bunkerparty.domain.Player;
+import com.bunkerparty.domain.Room;
+import com.bunkerparty.service.GameService;
+import com.bunkerparty.websocket.command.Command;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+class ResyncHandlerTest {
+
+    private GameService gameService;
+    private ResyncHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        gameService = mock(GameService.class);
+        handler = new ResyncHandler(gameService);
+    }
+
+    @Test
+    void shouldSendFullStateToRequestingPlayer() {
+        Room room = new Room("1234");
+        Player player = new Player("p1", "t1", "Alice", null, Map.of());
+        room.addPlayer(player);
+        when(gameService.getRoom("1234")).thenReturn(room);
+
+        Command.Resync msg = new Command.Resync("1234", "p1");
+
+        handler.handle(null, msg);
+
+        verify(gameService).sendFullState(room, player);
+    }
+
+    @Test
+    void shouldIgnoreUnknownPlayer() {
+        Room room = new Room("1234");
+        when(gameService.getRoom("1234")).thenReturn(room);
+
+        Command.Resync msg = new Command.Resync("1234", "missing");
+
+        handler.handle(null, msg);
+
+        verify(gameService, never()).sendFullState(any(), any());
+    }
+}
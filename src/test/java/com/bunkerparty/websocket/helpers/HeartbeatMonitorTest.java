@@ -0,0 +1,105 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.service.HashedTimingWheel;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HeartbeatMonitorTest {
+
+    private static final long INTERVAL = 1_000;
+    private static final long TIMEOUT = 3_000;
+
+    private HashedTimingWheel wheel;
+    private HeartbeatMonitor monitor;
+    private long now;
+    private Session session;
+    private RemoteEndpoint remote;
+    private Runnable onTimeout;
+
+    @BeforeEach
+    void setUp() {
+        wheel = mock(HashedTimingWheel.class);
+        monitor = new HeartbeatMonitor(wheel, INTERVAL, TIMEOUT, () -> now);
+        session = mock(Session.class);
+        remote = mock(RemoteEndpoint.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getRemote()).thenReturn(remote);
+        onTimeout = mock(Runnable.class);
+    }
+
+    @Test
+    void shouldPingAndRescheduleLiveSession() throws Exception {
+        monitor.track(session, onTimeout);
+        now = INTERVAL;
+
+        nextCheck(1).run();
+
+        verify(remote).sendPing(any(ByteBuffer.class));
+        verify(wheel, times(2)).schedule(eq(INTERVAL), any());
+        assertEquals(1, monitor.getPingsSent());
+        verifyNoInteractions(onTimeout);
+    }
+
+    @Test
+    void shouldDisconnectSessionThatMissedItsPongs() throws Exception {
+        monitor.track(session, onTimeout);
+        now = TIMEOUT + 1;
+
+        nextCheck(1).run();
+
+        verify(session).disconnect();
+        verify(onTimeout).run();
+        verify(remote, never()).sendPing(any());
+        assertEquals(1, monitor.getTimedOut());
+        assertEquals(0, monitor.getTrackedCount());
+    }
+
+    @Test
+    void shouldKeepSessionThatAnsweredPing() throws Exception {
+        monitor.track(session, onTimeout);
+        now = TIMEOUT;
+        monitor.onPong(session);
+        now = TIMEOUT + INTERVAL;
+
+        nextCheck(1).run();
+
+        verify(session, never()).disconnect();
+        verify(remote).sendPing(any(ByteBuffer.class));
+    }
+
+    @Test
+    void shouldStopCheckingUntrackedOrClosedSession() throws Exception {
+        monitor.track(session, onTimeout);
+        Runnable check = nextCheck(1);
+        monitor.untrack(session);
+        now = TIMEOUT + 1;
+
+        check.run();
+
+        verify(session, never()).disconnect();
+        verifyNoInteractions(remote, onTimeout);
+
+        monitor.track(session, onTimeout);
+        when(session.isOpen()).thenReturn(false);
+        nextCheck(2).run();
+
+        assertEquals(0, monitor.getTrackedCount());
+        verifyNoInteractions(remote, onTimeout);
+    }
+
+    private Runnable nextCheck(int scheduled) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(wheel, times(scheduled)).schedule(eq(INTERVAL), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,183 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.bunkerparty.metrics.GameMetrics;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+
+    private static final long GRACE_NANOS = 1_000;
+
+    private RemoteEndpoint remote;
+    private Session session;
+    private long now;
+    private OutboundQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        remote = mock(RemoteEndpoint.class);
+        session = mock(Session.class);
+        when(session.getRemote()).thenReturn(remote);
+        queue = new OutboundQueue(session, new OutboundLimits(2, 1_000, GRACE_NANOS), GameMetrics.detached(), () -> now);
+    }
+
+    @Test
+    void shouldWriteOneFrameAtATimeInOrder() {
+        queue.offer("a");
+        queue.offer("b");
+
+        ArgumentCaptor<WriteCallback> callback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("a"), callback.capture());
+        verify(remote, never()).sendString(eq("b"), any(WriteCallback.class));
+        assertEquals(1, queue.getDepth());
+
+        callback.getValue().writeSuccess();
+
+        verify(remote).sendString(eq("b"), any(WriteCallback.class));
+        assertEquals(0, queue.getDepth());
+        assertEquals(1, queue.getSent());
+    }
+
+    @Test
+    void shouldDrainFramesWhoseWritesCompleteImmediately() {
+        doAnswer(inv -> {
+            inv.<WriteCallback>getArgument(1).writeSuccess();
+            return null;
+        }).when(remote).sendString(anyString(), any(WriteCallback.class));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer("frame" + i));
+        }
+
+        assertEquals(10, queue.getSent());
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getPendingBytes());
+    }
+
+    @Test
+    void shouldReplaceUnsentStateFrameWithSameKey() {
+        queue.offer("in flight");
+        queue.offerState("1234", "v1");
+        queue.offer("pong");
+        queue.offerState("5678", "other");
+
+        queue.offerState("1234", "v2");
+
+        assertEquals(3, queue.getDepth());
+        assertEquals(1, queue.getConflated());
+        assertTrue(queue.hasPendingState("1234"));
+        ArgumentCaptor<WriteCallback> callback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("in flight"), callback.capture());
+        callback.getValue().writeSuccess();
+        verify(remote).sendString(eq("pong"), any(WriteCallback.class));
+        verify(remote, never()).sendString(eq("v1"), any(WriteCallback.class));
+    }
+
+    @Test
+    void shouldKeepControlFramesBeyondLimitWithinGracePeriod() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer("control" + i));
+        }
+
+        assertEquals(4, queue.getDepth());
+        assertFalse(queue.isEvicted());
+        verify(session, never()).close(anyInt(), anyString());
+    }
+
+    @Test
+    void shouldCloseSessionThatStaysOverLimitPastGracePeriod() {
+        queue.offer("in flight");
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+        now += GRACE_NANOS;
+
+        assertFalse(queue.offer("d"));
+
+        assertTrue(queue.isEvicted());
+        assertEquals(0, queue.getDepth());
+        verify(session).close(OutboundQueue.SLOW_CONSUMER_STATUS, "slow consumer");
+        assertFalse(queue.offer("e"));
+    }
+
+    @Test
+    void shouldForgiveBacklogThatDrainsWithinGracePeriod() {
+        queue.offer("in flight");
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+        ArgumentCaptor<WriteCallback> callback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("in flight"), callback.capture());
+        callback.getValue().writeSuccess();
+        now += GRACE_NANOS;
+
+        assertTrue(queue.offer("d"));
+
+        assertFalse(queue.isEvicted());
+    }
+
+    @Test
+    void shouldCloseSessionOverByteLimit() {
+        String big = "x".repeat(600);
+        queue.offer(big);
+        queue.offer(big);
+        now += GRACE_NANOS;
+
+        queue.offer("x");
+
+        assertTrue(queue.isEvicted());
+    }
+
+    @Test
+    void shouldCountFailedWriteAndCloseSession() {
+        queue.offer("a");
+        queue.offer("b");
+        ArgumentCaptor<WriteCallback> callback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("a"), callback.capture());
+
+        callback.getValue().writeFailed(new IOException("reset"));
+
+        assertEquals(1, queue.getFailed());
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getPendingBytes());
+        assertFalse(queue.isEvicted());
+        verify(remote, never()).sendString(eq("b"), any(WriteCallback.class));
+        verify(session).close(StatusCode.SERVER_ERROR, "write failed");
+    }
+
+    @Test
+    void shouldRefuseFramesAfterFailedWrite() {
+        queue.offer("a");
+        ArgumentCaptor<WriteCallback> callback = ArgumentCaptor.forClass(WriteCallback.class);
+        verify(remote).sendString(eq("a"), callback.capture());
+        callback.getValue().writeFailed(new IOException("reset"));
+
+        assertFalse(queue.offer("pong"));
+        assertFalse(queue.offerState("1234", "v2"));
+
+        assertEquals(0, queue.getDepth());
+        verify(remote, times(1)).sendString(anyString(), any(WriteCallback.class));
+    }
+
+    @Test
+    void shouldTreatThrowingWriteAsFailure() {
+        doThrow(new IllegalStateException("closed")).when(remote).sendString(anyString(), any(WriteCallback.class));
+
+        queue.offer("a");
+
+        assertEquals(1, queue.getFailed());
+        assertFalse(queue.offer("b"));
+        assertEquals(1, queue.getFailed());
+        verify(session).close(StatusCode.SERVER_ERROR, "write failed");
+    }
+}
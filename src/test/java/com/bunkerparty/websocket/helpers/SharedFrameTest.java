@@ -0,0 +1,31 @@
+package com.bunkerparty.websocket.helpers;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedFrameTest {
+
+    @Test
+    void shouldAppendPersonalFieldToSharedJson() {
+        JsonObject shared = new JsonObject();
+        shared.addProperty("type", "game_update");
+        shared.addProperty("round", 2);
+
+        SharedFrame frame = new SharedFrame(shared, "myCards");
+        JsonObject result = JsonParser.parseString(frame.complete("{\"age\":4}")).getAsJsonObject();
+
+        assertEquals("game_update", result.get("type").getAsString());
+        assertEquals(2, result.get("round").getAsInt());
+        assertEquals(4, result.getAsJsonObject("myCards").get("age").getAsInt());
+    }
+
+    @Test
+    void shouldHandleEmptySharedObject() {
+        SharedFrame frame = new SharedFrame(new JsonObject(), "myCards");
+
+        assertEquals("{\"myCards\":{}}", frame.complete("{}"));
+    }
+}
@@ -1,39 +1,83 @@
 package com.bunkerparty.websocket.helpers;
 
-import com.google.gson.JsonObject;
 import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.junit.jupiter.api.Test;
 
-import java.io.IOException;
-
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class WebSocketJsonSenderTest {
 
+    private static final OutboundLimits LIMITS = new OutboundLimits(4, 1 << 20, 0);
+
     @Test
-    void shouldSendJsonWhenSessionIsOpen() throws IOException {
-        WebSocketJsonSender sender = new WebSocketJsonSender();
+    void shouldNotSendWhenSessionIsClosed() {
+        WebSocketJsonSender sender = new WebSocketJsonSender(LIMITS);
         Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(false);
+
+        assertFalse(sender.sendText(session, "{}"));
+
+        verify(session, never()).getRemote();
+        assertTrue(sender.getQueues().isEmpty());
+    }
+
+    @Test
+    void shouldSendPreEncodedTextWhenSessionIsOpen() {
+        WebSocketJsonSender sender = new WebSocketJsonSender(LIMITS);
         RemoteEndpoint remote = mock(RemoteEndpoint.class);
-        when(session.isOpen()).thenReturn(true);
-        when(session.getRemote()).thenReturn(remote);
-        JsonObject json = new JsonObject();
-        json.addProperty("test", "data");
+        Session session = openSession(remote);
 
-        sender.send(session, json);
+        sender.sendText(session, "{\"type\":\"pong\"}");
 
-        verify(remote).sendString(anyString());
+        verify(remote).sendString(eq("{\"type\":\"pong\"}"), any(WriteCallback.class));
     }
 
     @Test
-    void shouldNotSendWhenSessionIsClosed() throws IOException {
-        WebSocketJsonSender sender = new WebSocketJsonSender();
-        Session session = mock(Session.class);
-        when(session.isOpen()).thenReturn(false);
+    void shouldKeepOneQueuePerSessionUntilReleased() {
+        WebSocketJsonSender sender = new WebSocketJsonSender(LIMITS);
+        Session session = openSession(mock(RemoteEndpoint.class));
 
-        sender.send(session, new JsonObject());
+        sender.sendText(session, "{}");
+        sender.sendText(session, "{}");
+        assertEquals(1, sender.getQueues().size());
 
-        verify(session, never()).getRemote();
+        sender.release(session);
+        assertTrue(sender.getQueues().isEmpty());
+    }
+
+    @Test
+    void shouldReportPendingStatePerKey() {
+        WebSocketJsonSender sender = new WebSocketJsonSender(LIMITS);
+        Session session = openSession(mock(RemoteEndpoint.class));
+
+        sender.sendText(session, "{\"type\":\"open_room\"}");
+        sender.sendState(session, "1234", "{\"type\":\"game_update\"}");
+
+        assertTrue(sender.hasPendingState(session, "1234"));
+        assertFalse(sender.hasPendingState(session, "5678"));
+    }
+
+    @Test
+    void shouldCountReleasedSlowConsumers() {
+        WebSocketJsonSender sender = new WebSocketJsonSender(new OutboundLimits(1, 1 << 20, 0));
+        Session session = openSession(mock(RemoteEndpoint.class));
+
+        sender.sendText(session, "in flight");
+        sender.sendText(session, "a");
+        sender.sendText(session, "b");
+        sender.release(session);
+
+        verify(session).close(OutboundQueue.SLOW_CONSUMER_STATUS, "slow consumer");
+        assertEquals(1, sender.getSlowConsumersClosed());
+    }
+
+    private Session openSession(RemoteEndpoint remote) {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getRemote()).thenReturn(remote);
+        return session;
     }
 }
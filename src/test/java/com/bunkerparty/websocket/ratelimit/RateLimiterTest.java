@@ -0,0 +1,122 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import com.bunkerparty.websocket.command.MessageType;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RateLimiterTest {
+
+    private long now;
+    private RateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = limiter(false);
+    }
+
+    @Test
+    void shouldThrottleSessionOverItsBurst() {
+        Session session = session("10.0.0.1");
+
+        assertTrue(limiter.tryAcquire(session, MessageType.DISCARD));
+        assertTrue(limiter.tryAcquire(session, MessageType.DISCARD));
+        assertFalse(limiter.tryAcquire(session, MessageType.DISCARD));
+        assertTrue(limiter.tryAcquire(session, MessageType.READY));
+
+        assertEquals(1, limiter.getThrottled(MessageType.DISCARD));
+        assertEquals(0, limiter.getThrottled(MessageType.READY));
+    }
+
+    @Test
+    void shouldShareAddressBudgetAcrossSessions() {
+        for (int i = 0; i < 2; i++) {
+            Session session = session("10.0.0.1");
+            assertTrue(limiter.tryAcquire(session, MessageType.DISCARD));
+            assertTrue(limiter.tryAcquire(session, MessageType.DISCARD));
+        }
+
+        assertFalse(limiter.tryAcquire(session("10.0.0.1"), MessageType.DISCARD));
+        assertTrue(limiter.tryAcquire(session("10.0.0.2"), MessageType.DISCARD));
+    }
+
+    @Test
+    void shouldKeepTheSessionsTokensWhenItsAddressIsThrottled() {
+        for (int i = 0; i < 2; i++) {
+            Session session = session("10.0.0.1");
+            limiter.tryAcquire(session, MessageType.DISCARD);
+            limiter.tryAcquire(session, MessageType.DISCARD);
+        }
+        Session late = session("10.0.0.1");
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limiter.tryAcquire(late, MessageType.DISCARD));
+        }
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(limiter.tryAcquire(late, MessageType.DISCARD));
+        assertTrue(limiter.tryAcquire(late, MessageType.DISCARD));
+    }
+
+    @Test
+    void shouldBlockJoinsAfterRepeatedRoomNotFound() {
+        Session session = session("10.0.0.1");
+        assertTrue(limiter.tryAcquire(session, MessageType.JOIN_GAME));
+        limiter.recordRoomNotFound(session);
+
+        assertFalse(limiter.tryAcquire(session, MessageType.JOIN_GAME));
+        assertTrue(limiter.tryAcquire(session, MessageType.READY));
+        assertEquals(1, limiter.getRoomNotFound());
+
+        now += TimeUnit.MINUTES.toNanos(1);
+        assertTrue(limiter.tryAcquire(session, MessageType.JOIN_GAME));
+    }
+
+    @Test
+    void shouldStartFreshBucketsForNewSession() {
+        Session session = session("10.0.0.1");
+        limiter.tryAcquire(session, MessageType.DISCARD);
+        limiter.tryAcquire(session, MessageType.DISCARD);
+
+        limiter.release(session);
+
+        assertTrue(limiter.tryAcquire(session, MessageType.DISCARD));
+    }
+
+    @Test
+    void shouldKeyByForwardedForWhenTrusted() {
+        RateLimiter trusting = limiter(true);
+        Session proxied = session("10.0.0.1");
+        UpgradeRequest request = mock(UpgradeRequest.class);
+        when(request.getHeader("X-Forwarded-For")).thenReturn("203.0.113.7, 10.0.0.1");
+        when(proxied.getUpgradeRequest()).thenReturn(request);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(trusting.tryAcquire(session("10.0.0.1"), MessageType.DISCARD));
+        }
+
+        assertTrue(trusting.tryAcquire(proxied, MessageType.DISCARD));
+    }
+
+    private RateLimiter limiter(boolean trustForwardedFor) {
+        Map<MessageType, BucketSpec> perSession = new EnumMap<>(MessageType.class);
+        for (MessageType type : MessageType.values()) {
+            perSession.put(type, new BucketSpec(2, 60));
+        }
+        return new RateLimiter(new RateLimits(perSession, new BucketSpec(1, 1), 2, trustForwardedFor), () -> now);
+    }
+
+    private static Session session(String address) {
+        Session session = mock(Session.class);
+        when(session.getRemoteAddress()).thenReturn(new InetSocketAddress(address, 40000));
+        return session;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bunkerparty.websocket.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(new BucketSpec(3, 60), 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(SECOND - 1));
+        assertTrue(bucket.tryAcquire(SECOND));
+        assertFalse(bucket.tryAcquire(SECOND));
+    }
+
+    @Test
+    void shouldNotStoreMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket(new BucketSpec(2, 60), 0);
+
+        long later = 100 * SECOND;
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void shouldGiveBackARefundedToken() {
+        TokenBucket bucket = new TokenBucket(new BucketSpec(1, 60), 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        bucket.refund();
+        assertTrue(bucket.isFull(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    void shouldPeekWithoutTakingToken() {
+        TokenBucket bucket = new TokenBucket(new BucketSpec(1, 60), 0);
+
+        assertTrue(bucket.hasToken(0));
+        assertTrue(bucket.hasToken(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.hasToken(0));
+        assertFalse(bucket.isFull(0));
+        assertTrue(bucket.isFull(SECOND));
+    }
+
+    @Test
+    void shouldParseSpecOrFallBack() {
+        BucketSpec fallback = new BucketSpec(1, 1);
+
+        assertEquals(new BucketSpec(10, 60), BucketSpec.parse(" 10 / 60 ", fallback));
+        assertSame(fallback, BucketSpec.parse(null, fallback));
+        assertSame(fallback, BucketSpec.parse("10", fallback));
+        assertSame(fallback, BucketSpec.parse("0/60", fallback));
+    }
+}